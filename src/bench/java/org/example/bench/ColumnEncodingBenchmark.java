@@ -0,0 +1,144 @@
+package org.example.bench;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.example.QueryExec;
+import org.example.SparqlParser;
+import org.example.dictionary.DictionaryLoader;
+import org.example.dictionary.LoaderOptions;
+import org.example.dictionary.MainDictionary;
+import org.example.encodedTriplet.FileLayout;
+import org.example.encodedTriplet.Permutation;
+import org.example.util.DataPaths;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delta encoding of the sorted columns ({@code --encoding=sorted}) against dictionary
+ * encoding everywhere ({@code --encoding=dictionary}), on the same synthetic graph. Setup
+ * prints the size of each permutation file and of its columns with their encodings, the
+ * size half of the report:
+ *
+ *  - fullScan:      every triple of spo.parquet into rows
+ *  - predicateScan: one predicate's triples ({@code ?s ex:knows ?o}, a filtered PSO scan)
+ *  - objectScan:    {@code ?s ?p ex:p123}, a filtered OPS scan for one object
+ *  - join:          {@code ?a ex:knows ?b . ?b ex:age ?x}, two scans and a merge join
+ *
+ * e.g. {@code mvn -Pbench test-compile exec:exec -Dbench.args="ColumnEncoding -p triples=5000000"}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx16g"})
+public class ColumnEncodingBenchmark {
+
+    private static final String PREFIX = "PREFIX ex: <http://ex/>\n";
+
+    @Param({"DICTIONARY", "SORTED"})
+    public FileLayout.Encoding encoding;
+
+    @Param({"1000000"})
+    public int triples;
+
+    private Path dir;
+    private int people;
+    private final Random lookups = new Random(7L);
+
+    @Setup(Level.Trial)
+    public void load() throws Exception {
+        dir = Files.createTempDirectory("encoding-bench");
+        System.setProperty("rdfparquet.dataDir", dir.toString());
+
+        // people with an age and ~ten ex:knows edges each
+        Path input = dir.resolve("graph.nt");
+        Random rnd = new Random(20240601L);
+        people = Math.max(1, triples / 11);
+        try (BufferedWriter w = Files.newBufferedWriter(input, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < people; i++) {
+                w.write("<http://ex/p" + i + "> <http://ex/age> \"" + rnd.nextInt(100)
+                        + "\"^^<http://www.w3.org/2001/XMLSchema#integer> .\n");
+                for (int k = 0; k < 10; k++) {
+                    w.write("<http://ex/p" + i + "> <http://ex/knows> <http://ex/p" + rnd.nextInt(people) + "> .\n");
+                }
+            }
+        }
+
+        LoaderOptions options = new LoaderOptions();
+        options.setEncoding(encoding);
+        var res = new MainDictionary(MainDictionary.Config.defaultConfig(options)).processRdfFile(input.toString());
+        DictionaryLoader.load(res.getOutputFiles().get("dictionary"));
+        report();
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() throws IOException {
+        try (var files = Files.walk(dir)) {
+            files.sorted(java.util.Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int fullScan() throws Exception {
+        return run("SELECT * WHERE { ?s ?p ?o }");
+    }
+
+    @Benchmark
+    public int predicateScan() throws Exception {
+        return run("SELECT * WHERE { ?s ex:knows ?o }");
+    }
+
+    @Benchmark
+    public int objectScan() throws Exception {
+        return run("SELECT * WHERE { ?s ?p ex:p" + lookups.nextInt(people) + " }");
+    }
+
+    @Benchmark
+    public int join() throws Exception {
+        return run("SELECT * WHERE { ?a ex:knows ?b . ?b ex:age ?x }");
+    }
+
+    private static int run(String query) throws Exception {
+        return new QueryExec().execute(SparqlParser.parse(PREFIX + query)).size();
+    }
+
+    /** Per permutation: file size, then bytes and encodings of each column over all row groups. */
+    private void report() throws IOException {
+        long total = 0;
+        for (Permutation perm : Permutation.values()) {
+            Path file = DataPaths.parquetDir().resolve(perm.fileName());
+            Map<String, Long> bytes = new TreeMap<>();
+            Map<String, String> encodings = new TreeMap<>();
+            try (ParquetFileReader reader = ParquetFileReader.open(HadoopInputFile.fromPath(
+                    new org.apache.hadoop.fs.Path(file.toString()), new Configuration()))) {
+                for (BlockMetaData block : reader.getFooter().getBlocks()) {
+                    for (ColumnChunkMetaData chunk : block.getColumns()) {
+                        String column = chunk.getPath().toDotString();
+                        bytes.merge(column, chunk.getTotalSize(), Long::sum);
+                        encodings.put(column, chunk.getEncodings().toString());
+                    }
+                }
+            }
+            long size = Files.size(file);
+            total += size;
+            StringBuilder line = new StringBuilder();
+            bytes.forEach((column, n) -> line.append(' ').append(column).append('=').append(n)
+                    .append(encodings.get(column)));
+            System.out.printf("[ColumnEncoding] %s %s: %d bytes,%s%n", encoding, perm.fileName(), size, line);
+        }
+        System.out.printf("[ColumnEncoding] %s total: %d bytes%n", encoding, total);
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.bench;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.example.QueryExec;
+import org.example.SparqlParser;
+import org.example.dictionary.DictionaryLoader;
+import org.example.dictionary.LoaderOptions;
+import org.example.dictionary.MainDictionary;
+import org.example.util.DataPaths;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point lookup latency against file size for a few row group / page layouts
+ * ({@code --row-group-size}, {@code --page-size}, {@code --page-rows}), given as
+ * {@code rowGroupSize/pageSize/pageRows}. Setup prints the size and row group count of
+ * spo.parquet for each layout, the other half of the matrix.
+ *
+ *  - subjectLookup: {@code <p123> ?p ?o}, a filtered SPO scan for one random subject
+ *  - tripleLookup:  {@code <p123> ex:knows ?o}, subject and predicate bound
+ *
+ * e.g. {@code mvn -Pbench test-compile exec:exec -Dbench.args="FileLayout -p triples=5000000"}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx16g"})
+public class FileLayoutBenchmark {
+
+    private static final String PREFIX = "PREFIX ex: <http://ex/>\n";
+
+    @Param({"128m/1m/20000", "8m/64k/2000", "1m/8k/500"})
+    public String layout;
+
+    @Param({"1000000"})
+    public int triples;
+
+    private Path dir;
+    private int people;
+    private final Random lookups = new Random(7L);
+
+    @Setup(Level.Trial)
+    public void load() throws Exception {
+        dir = Files.createTempDirectory("layout-bench");
+        System.setProperty("rdfparquet.dataDir", dir.toString());
+
+        // people with an age and ~ten ex:knows edges each
+        Path input = dir.resolve("graph.nt");
+        Random rnd = new Random(20240601L);
+        people = Math.max(1, triples / 11);
+        try (BufferedWriter w = Files.newBufferedWriter(input, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < people; i++) {
+                w.write("<http://ex/p" + i + "> <http://ex/age> \"" + rnd.nextInt(100)
+                        + "\"^^<http://www.w3.org/2001/XMLSchema#integer> .\n");
+                for (int k = 0; k < 10; k++) {
+                    w.write("<http://ex/p" + i + "> <http://ex/knows> <http://ex/p" + rnd.nextInt(people) + "> .\n");
+                }
+            }
+        }
+
+        String[] sizes = layout.split("/");
+        LoaderOptions options = new LoaderOptions().applyArgs(new String[]{
+                "--row-group-size=" + sizes[0], "--page-size=" + sizes[1], "--page-rows=" + sizes[2]});
+        var res = new MainDictionary(MainDictionary.Config.defaultConfig(options)).processRdfFile(input.toString());
+        DictionaryLoader.load(res.getOutputFiles().get("dictionary"));
+
+        Path spo = DataPaths.spo();
+        try (ParquetFileReader reader = ParquetFileReader.open(HadoopInputFile.fromPath(
+                new org.apache.hadoop.fs.Path(spo.toString()), new Configuration()))) {
+            System.out.printf("[FileLayout] %s: spo.parquet %d bytes, %d row groups%n",
+                    layout, Files.size(spo), reader.getFooter().getBlocks().size());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() throws IOException {
+        try (var files = Files.walk(dir)) {
+            files.sorted(java.util.Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int subjectLookup() throws Exception {
+        return run("SELECT * WHERE { ex:p" + lookups.nextInt(people) + " ?p ?o }");
+    }
+
+    @Benchmark
+    public int tripleLookup() throws Exception {
+        return run("SELECT * WHERE { ex:p" + lookups.nextInt(people) + " ex:knows ?o }");
+    }
+
+    private static int run(String query) throws Exception {
+        return new QueryExec().execute(SparqlParser.parse(PREFIX + query)).size();
+    }
+}
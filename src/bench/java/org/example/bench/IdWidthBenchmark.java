@@ -0,0 +1,97 @@
+package org.example.bench;
+
+import org.example.QueryExec;
+import org.example.SparqlParser;
+import org.example.dictionary.DictionaryLoader;
+import org.example.dictionary.LoaderOptions;
+import org.example.dictionary.MainDictionary;
+import org.example.encodedTriplet.IdWidth;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of 64-bit id columns ({@code --wide-ids}) against the default INT32 ones, on the
+ * same synthetic graph loaded both ways:
+ *
+ *  - fullScan:      every triple of spo.parquet into rows
+ *  - predicateScan: one predicate's triples ({@code ?s ex:knows ?o}, a filtered PSO scan)
+ *  - join:          {@code ?a ex:knows ?b . ?b ex:age ?x}, two scans and a merge join
+ *
+ * e.g. {@code mvn -Pbench test-compile exec:exec -Dbench.args="IdWidth -p triples=5000000"}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx16g"})
+public class IdWidthBenchmark {
+
+    private static final String PREFIX = "PREFIX ex: <http://ex/>\n";
+
+    @Param({"INT32", "INT64"})
+    public IdWidth width;
+
+    @Param({"1000000"})
+    public int triples;
+
+    private Path dir;
+
+    @Setup(Level.Trial)
+    public void load() throws Exception {
+        dir = Files.createTempDirectory("idwidth-bench");
+        System.setProperty("rdfparquet.dataDir", dir.toString());
+
+        // people with an age and ~ten ex:knows edges each
+        Path input = dir.resolve("graph.nt");
+        Random rnd = new Random(20240601L);
+        int people = Math.max(1, triples / 11);
+        try (BufferedWriter w = Files.newBufferedWriter(input, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < people; i++) {
+                w.write("<http://ex/p" + i + "> <http://ex/age> \"" + rnd.nextInt(100)
+                        + "\"^^<http://www.w3.org/2001/XMLSchema#integer> .\n");
+                for (int k = 0; k < 10; k++) {
+                    w.write("<http://ex/p" + i + "> <http://ex/knows> <http://ex/p" + rnd.nextInt(people) + "> .\n");
+                }
+            }
+        }
+
+        LoaderOptions options = new LoaderOptions();
+        options.setWideIds(width == IdWidth.INT64);
+        var res = new MainDictionary(MainDictionary.Config.defaultConfig(options)).processRdfFile(input.toString());
+        DictionaryLoader.load(res.getOutputFiles().get("dictionary"));
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() throws IOException {
+        try (var files = Files.walk(dir)) {
+            files.sorted(java.util.Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int fullScan() throws Exception {
+        return run("SELECT * WHERE { ?s ?p ?o }");
+    }
+
+    @Benchmark
+    public int predicateScan() throws Exception {
+        return run("SELECT * WHERE { ?s ex:knows ?o }");
+    }
+
+    @Benchmark
+    public int join() throws Exception {
+        return run("SELECT * WHERE { ?a ex:knows ?b . ?b ex:age ?x }");
+    }
+
+    private static int run(String query) throws Exception {
+        return new QueryExec().execute(SparqlParser.parse(PREFIX + query)).size();
+    }
+}
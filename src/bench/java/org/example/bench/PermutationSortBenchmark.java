@@ -0,0 +1,137 @@
+package org.example.bench;
+
+import org.example.encodedTriplet.EncodedTriplet;
+import org.example.encodedTriplet.IdWidth;
+import org.example.encodedTriplet.Permutation;
+import org.example.encodedTriplet.TripleBuffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Sorting one permutation (and all six) of a synthetic dataset:
+ *
+ *  - legacyIndexQuicksort: the loader's original int-index quicksort driven by an
+ *    IntBinaryOperator over an EncodedTriplet[] (kept here as the baseline)
+ *  - columnarQuicksort:    TripleBuffer.sortByComparison, single threaded
+ *  - parallelRadix:        TripleBuffer.sort, parallel LSD radix
+ *  - allSix*:              every permutation, with and without re-using the
+ *                          leading-key order for SOP / POS / OPS
+ *
+ * Needs a large heap for the 100M case, e.g.
+ * {@code mvn -Pbench test-compile exec:exec -Dbench.args="PermutationSort -jvmArgs -Xmx48g"}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx24g"})
+public class PermutationSortBenchmark {
+
+    @Param({"10000000", "100000000"})
+    public int triples;
+
+    /** Shape of the synthetic graph: subjects ~ triples / 8, a few hundred predicates. */
+    private TripleBuffer source;
+
+    private TripleBuffer work;
+    private EncodedTriplet[] legacyBase;
+    private int[] legacyIdx;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        Random rnd = new Random(20240501L);
+        int subjects = Math.max(1, triples / 8);
+        int objects = Math.max(1, triples / 4);
+        source = TripleBuffer.create(IdWidth.INT32, triples);
+        for (int i = 0; i < triples; i++) {
+            source.add(1 + rnd.nextInt(subjects), 1 + rnd.nextInt(300), 1 + rnd.nextInt(objects));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void copy() {
+        work = source.copy();
+    }
+
+    @Setup(Level.Invocation)
+    public void legacyCopy(org.openjdk.jmh.infra.BenchmarkParams params) {
+        if (!params.getBenchmark().endsWith("legacyIndexQuicksort")) {
+            legacyBase = null;
+            legacyIdx = null;
+            return;
+        }
+        legacyBase = new EncodedTriplet[source.size()];
+        for (int i = 0; i < legacyBase.length; i++) {
+            legacyBase[i] = new EncodedTriplet(source.getSubject(i), source.getPredicate(i), source.getObject(i));
+        }
+        legacyIdx = new int[legacyBase.length];
+        for (int i = 0; i < legacyIdx.length; i++) legacyIdx[i] = i;
+    }
+
+    @Benchmark
+    public int[] legacyIndexQuicksort() {
+        final EncodedTriplet[] base = legacyBase;
+        IntBinaryOperator spo = (i, j) -> {
+            int c = Long.compare(base[i].getSubject(), base[j].getSubject());
+            if (c != 0) return c;
+            c = Long.compare(base[i].getPredicate(), base[j].getPredicate());
+            if (c != 0) return c;
+            return Long.compare(base[i].getObject(), base[j].getObject());
+        };
+        legacyQuicksort(legacyIdx, 0, legacyIdx.length - 1, spo);
+        return legacyIdx;
+    }
+
+    @Benchmark
+    public TripleBuffer columnarQuicksort() {
+        work.sortByComparison(Permutation.SPO);
+        return work;
+    }
+
+    @Benchmark
+    public TripleBuffer parallelRadix() {
+        work.sort(Permutation.SPO);
+        return work;
+    }
+
+    @Benchmark
+    public TripleBuffer allSixFullSorts() {
+        for (Permutation perm : Permutation.values()) work.sort(perm);
+        return work;
+    }
+
+    @Benchmark
+    public TripleBuffer allSixSharedLeadingKey() {
+        work.sort(Permutation.SPO);
+        work.sortWithinLeadingKey(Permutation.SOP);
+        work.sort(Permutation.PSO);
+        work.sortWithinLeadingKey(Permutation.POS);
+        work.sort(Permutation.OSP);
+        work.sortWithinLeadingKey(Permutation.OPS);
+        return work;
+    }
+
+    // The loader's sort before columnar buffers: index quicksort through a comparator.
+    private static void legacyQuicksort(int[] a, int lo, int hi, IntBinaryOperator cmp) {
+        while (lo < hi) {
+            int i = lo, j = hi;
+            int pivot = a[lo + ((hi - lo) >>> 1)];
+            while (i <= j) {
+                while (cmp.applyAsInt(a[i], pivot) < 0) i++;
+                while (cmp.applyAsInt(a[j], pivot) > 0) j--;
+                if (i <= j) { int t = a[i]; a[i] = a[j]; a[j] = t; i++; j--; }
+            }
+            if (j - lo < hi - i) {
+                if (lo < j) legacyQuicksort(a, lo, j, cmp);
+                lo = i;
+            } else {
+                if (i < hi) legacyQuicksort(a, i, hi, cmp);
+                hi = j;
+            }
+        }
+    }
+}
@@ -3,11 +3,13 @@ package org.example;
 
 import org.example.SparqlParser.ParsedQuery;
 
+import org.example.SparqlParser.RangeFilter;
+
 import org.example.SparqlParser.TriplePattern;
 
 import org.example.encodedTriplet.EncodedParquetQuery;
 
-import org.example.encodedTriplet.EncodedTriplet;
+import org.example.encodedTriplet.EncodedTriples;
 
 
 import java.io.IOException;
@@ -15,7 +17,10 @@ import java.io.IOException;
 import java.util.*;
 
 public class QueryExec {
-    private final EncodedParquetQuery engine = new EncodedParquetQuery();
+    // the dictionary, sections and inline flag of one load, for the whole query
+    private final org.example.dictionary.DictionaryLoader.Snapshot dictionary;
+
+    private final EncodedParquetQuery engine;
 
     private int joinCount = 0;
 
@@ -26,7 +31,7 @@ public class QueryExec {
     private Map<String, Integer> slotOf;
 
     private List<TriplePattern> orderPatterns(List<TriplePattern> patterns,
-                                              org.example.dictionary.DictionaryEncoder dict) {
+                                              org.example.dictionary.TermDictionary dict) {
         // Describes each pattern with simple structural signals
         class P {
             TriplePattern tp;
@@ -93,7 +98,17 @@ public class QueryExec {
     }
 
 
-    public List<int[]> execute(ParsedQuery parsed) throws IOException {
+    public QueryExec() {
+        this(org.example.dictionary.DictionaryLoader.snapshot());
+    }
+
+    public QueryExec(org.example.dictionary.DictionaryLoader.Snapshot dictionary) {
+        this.dictionary = dictionary;
+
+        this.engine = new EncodedParquetQuery(dictionary);
+    }
+
+    public List<long[]> execute(ParsedQuery parsed) throws IOException {
         if (parsed.patterns.isEmpty()) {
             return Collections.emptyList();
         }
@@ -132,14 +147,22 @@ public class QueryExec {
 
         List<QueryPlanner.Node> leaves = new ArrayList<>(parsed.patterns.size());
 
-        List<TriplePattern> orderedPatterns = orderPatterns(parsed.patterns, org.example.dictionary.DictionaryEncoder.getInstance());
+        List<TriplePattern> orderedPatterns = orderPatterns(parsed.patterns, dictionary.dictionary());
+
+        Map<String, long[]> objectRanges = objectRanges(parsed.filters);
+
+        for (long[] range : objectRanges.values()) {
+            if (range.length == 0) return Collections.emptyList();
+        }
 
         boolean earlyTermination = false;
 
         for (int i = 0; i < orderedPatterns.size(); i++) {
             TriplePattern tp = orderedPatterns.get(i);
 
-            List<EncodedTriplet> hits = querySinglePattern(tp);
+            long[] objectRange = tp.object.startsWith("?") ? objectRanges.get(tp.object) : null;
+
+            EncodedTriples hits = querySinglePattern(tp, objectRange);
 
             if (hits.isEmpty()) {
                 earlyTermination = true;
@@ -147,7 +170,7 @@ public class QueryExec {
                 break;
             }
 
-            QueryPlanner.Node leaf = createLeafNode(tp, hits, V);
+            QueryPlanner.Node leaf = createLeafNode(tp, hits, objectRange != null);
 
             leaves.add(leaf);
         }
@@ -162,7 +185,9 @@ public class QueryExec {
 
         assert root != null;
 
-        List<int[]> joined = executeNode(root, slotOf);
+        List<long[]> joined = executeNode(root, slotOf).toList();
+
+        joined = applyFilters(joined, parsed.filters, objectRanges);
 
         // apply DISTINCT and LIMIT
 
@@ -183,50 +208,23 @@ public class QueryExec {
         return varSet;
     }
 
-    private QueryPlanner.Node createLeafNode(TriplePattern tp, List<EncodedTriplet> hits, int V) {
-        String sortVar = QueryPlanner.determineLeafSortOn(tp);
+    /** {@code byObject}: the hits come from a range scan (POS / SOP / OPS), so they are ordered on the object. */
+    private QueryPlanner.Node createLeafNode(TriplePattern tp, EncodedTriples hits, boolean byObject) {
+        String sortVar = byObject ? tp.object : QueryPlanner.determineLeafSortOn(tp);
 
         int sortSlot = (sortVar != null) ? slotOf.get(sortVar) : -1;
 
-        boolean sVar = tp.subject.startsWith("?");
-
-        boolean pVar = tp.predicate.startsWith("?");
-
-        boolean oVar = tp.object.startsWith("?");
-
-        int sSlot = sVar ? slotOf.get(tp.subject) : -1;
-
-        int pSlot = pVar ? slotOf.get(tp.predicate) : -1;
-
-        int oSlot = oVar ? slotOf.get(tp.object) : -1;
-
-        List<int[]> rows = new ArrayList<>(hits.size());
-
-        for (EncodedTriplet et : hits) {
-            int[] row = new int[V];
-
-            Arrays.fill(row, -1);
-
-            if (sVar) row[sSlot] = et.getSubject();
-
-            if (pVar) row[pSlot] = et.getPredicate();
-
-            if (oVar) row[oSlot] = et.getObject();
-
-            rows.add(row);
-        }
-
         QueryPlanner.Node leaf = new QueryPlanner.Node();
 
         leaf.isLeaf = true;
 
         leaf.pattern = tp;
 
-        leaf.rows = rows;
+        leaf.hits = hits;
 
         leaf.vars = QueryPlanner.patternVars(tp);
 
-        leaf.estSize = rows.size();
+        leaf.estSize = hits.size();
 
         leaf.sortedOnSlot = sortSlot;
 
@@ -234,20 +232,20 @@ public class QueryExec {
         return leaf;
     }
 
-    private List<int[]> applyDistinctAndLimit(List<int[]> joined, ParsedQuery parsed) {
+    private List<long[]> applyDistinctAndLimit(List<long[]> joined, ParsedQuery parsed) {
         if (parsed.limit == 0 && !parsed.distinct) {
             return joined;
         }
 
-        List<int[]> out = new ArrayList<>();
+        List<long[]> out = new ArrayList<>();
 
         if (parsed.distinct) {
-            Set<List<Integer>> seen = new HashSet<>();
+            Set<List<Long>> seen = new HashSet<>();
 
             int duplicatesSkipped = 0;
 
-            for (int[] row : joined) {
-                List<Integer> key = new ArrayList<>(projectVars.size());
+            for (long[] row : joined) {
+                List<Long> key = new ArrayList<>(projectVars.size());
 
                 for (String v : projectVars) {
                     key.add(row[slotOf.get(v)]);
@@ -284,17 +282,17 @@ public class QueryExec {
         return slotOf;
     }
 
-    private List<int[]> executeNode(QueryPlanner.Node node, Map<String, Integer> slotOf) {
-        if (node.isLeaf) return node.rows;
+    private Rows executeNode(QueryPlanner.Node node, Map<String, Integer> slotOf) {
+        if (node.isLeaf) return new LeafRows(node.hits, node.pattern, slotOf);
 
-        List<int[]> L = executeNode(node.left, slotOf);
+        Rows L = executeNode(node.left, slotOf);
 
-        List<int[]> R = executeNode(node.right, slotOf);
+        Rows R = executeNode(node.right, slotOf);
 
-        if (L.isEmpty() || R.isEmpty()) {
+        if (L.size() == 0 || R.size() == 0) {
             System.out.println("one side is empty");
 
-            return Collections.emptyList();
+            return new ListRows(Collections.emptyList());
         }
 
         int myId = ++joinCount;
@@ -304,14 +302,12 @@ public class QueryExec {
         return performJoin(node, L, R, slotOf);
     }
 
-    private List<int[]> performJoin(QueryPlanner.Node node, List<int[]> L, List<int[]> R, Map<String, Integer> slotOf) {
-        List<int[]> out = new ArrayList<>();
+    private Rows performJoin(QueryPlanner.Node node, Rows L, Rows R, Map<String, Integer> slotOf) {
+        List<long[]> out = new ArrayList<>();
 
         if (node.joinVar != null) {
             int s = slotOf.get(node.joinVar);
 
-            Comparator<int[]> cmp = Comparator.comparingInt(a -> a[s]);
-
             // Check if we need to sort
 
             boolean leftNeedSort = node.left.sortedOnSlot != s;
@@ -320,11 +316,11 @@ public class QueryExec {
 
             if (leftNeedSort || rightNeedSort) {
                 if (leftNeedSort) {
-                    L.sort(cmp);
+                    L.sort(s);
                 }
 
                 if (rightNeedSort) {
-                    R.sort(cmp);
+                    R.sort(s);
                 }
             }
 
@@ -335,7 +331,7 @@ public class QueryExec {
             int joinMatches = 0;
 
             while (i < n && j < m) {
-                int lv = L.get(i)[s], rv = R.get(j)[s];
+                long lv = L.get(i, s), rv = R.get(j, s);
 
                 if (lv < rv) {
                     i++;
@@ -344,9 +340,9 @@ public class QueryExec {
                 } else {
                     int i0 = i, j0 = j;
 
-                    while (i < n && L.get(i)[s] == lv) i++;
+                    while (i < n && L.get(i, s) == lv) i++;
 
-                    while (j < m && R.get(j)[s] == rv) j++;
+                    while (j < m && R.get(j, s) == rv) j++;
 
                     int leftMatches = i - i0;
 
@@ -358,19 +354,13 @@ public class QueryExec {
 
                     if (expectedSize > 100000) {
 
-                        List<int[]> batch = new ArrayList<>(expectedSize);
+                        List<long[]> batch = new ArrayList<>(expectedSize);
 
                         for (int a = i0; a < i; a++) {
                             for (int b = j0; b < j; b++) {
-                                int[] merged = L.get(a).clone();
-
-                                int[] rrow = R.get(b);
+                                long[] merged = L.copy(a);
 
-                                for (int k = 0; k < merged.length; k++) {
-                                    if (merged[k] < 0 && rrow[k] >= 0) {
-                                        merged[k] = rrow[k];
-                                    }
-                                }
+                                R.fill(b, merged);
 
                                 batch.add(merged);
                             }
@@ -382,15 +372,9 @@ public class QueryExec {
 
                         for (int a = i0; a < i; a++) {
                             for (int b = j0; b < j; b++) {
-                                int[] merged = L.get(a).clone();
+                                long[] merged = L.copy(a);
 
-                                int[] rrow = R.get(b);
-
-                                for (int k = 0; k < merged.length; k++) {
-                                    if (merged[k] < 0 && rrow[k] >= 0) {
-                                        merged[k] = rrow[k];
-                                    }
-                                }
+                                R.fill(b, merged);
 
                                 out.add(merged);
                             }
@@ -411,15 +395,11 @@ public class QueryExec {
 
             out = new ArrayList<>((int) estimatedSize);
 
-            for (int[] la : L) {
-                for (int[] rb : R) {
-                    int[] merged = la.clone();
+            for (int a = 0; a < L.size(); a++) {
+                for (int b = 0; b < R.size(); b++) {
+                    long[] merged = L.copy(a);
 
-                    for (int k = 0; k < merged.length; k++) {
-                        if (merged[k] < 0 && rb[k] >= 0) {
-                            merged[k] = rb[k];
-                        }
-                    }
+                    R.fill(b, merged);
 
                     out.add(merged);
                 }
@@ -428,10 +408,209 @@ public class QueryExec {
             node.sortedOnSlot = -1;
         }
 
+        return new ListRows(out);
+    }
+
+    /**
+     * The rows a join reads: a leaf's matches straight from the columns of its
+     * {@link EncodedTriples}, or the {@code long[]} rows of a join below. Slots a row leaves
+     * unbound read as -1.
+     */
+    private abstract static class Rows {
+        abstract int size();
+
+        abstract long get(int row, int slot);
+
+        /** Row {@code row} as a new array of every slot. */
+        abstract long[] copy(int row);
+
+        /** Sets the slots of {@code out} that are unbound there and bound in row {@code row}. */
+        abstract void fill(int row, long[] out);
+
+        abstract void sort(int slot);
+
+        abstract List<long[]> toList();
+    }
+
+    private static final class ListRows extends Rows {
+        private final List<long[]> rows;
+
+        ListRows(List<long[]> rows) {
+            this.rows = rows;
+        }
+
+        @Override int size() { return rows.size(); }
+
+        @Override long get(int row, int slot) { return rows.get(row)[slot]; }
+
+        @Override long[] copy(int row) { return rows.get(row).clone(); }
+
+        @Override
+        void fill(int row, long[] out) {
+            long[] r = rows.get(row);
+
+            for (int k = 0; k < out.length; k++) {
+                if (out[k] < 0 && r[k] >= 0) out[k] = r[k];
+            }
+        }
+
+        @Override
+        void sort(int slot) {
+            rows.sort(Comparator.comparingLong(a -> a[slot]));
+        }
+
+        @Override List<long[]> toList() { return rows; }
+    }
+
+    /** A pattern's matches; a variable repeated in the pattern reads from its last position, as rows used to be filled. */
+    private static final class LeafRows extends Rows {
+        private final EncodedTriples hits;
+
+        private final int sSlot, pSlot, oSlot, width;
+
+        LeafRows(EncodedTriples hits, TriplePattern tp, Map<String, Integer> slotOf) {
+            this.hits = hits;
+            this.sSlot = tp.subject.startsWith("?") ? slotOf.get(tp.subject) : -1;
+            this.pSlot = tp.predicate.startsWith("?") ? slotOf.get(tp.predicate) : -1;
+            this.oSlot = tp.object.startsWith("?") ? slotOf.get(tp.object) : -1;
+            this.width = slotOf.size();
+        }
+
+        @Override int size() { return hits.size(); }
+
+        @Override
+        long get(int row, int slot) {
+            if (slot == oSlot) return hits.getObject(row);
+            if (slot == pSlot) return hits.getPredicate(row);
+            if (slot == sSlot) return hits.getSubject(row);
+            return -1;
+        }
+
+        @Override
+        long[] copy(int row) {
+            long[] out = new long[width];
+
+            Arrays.fill(out, -1);
+
+            fill(row, out);
+
+            return out;
+        }
+
+        @Override
+        void fill(int row, long[] out) {
+            if (sSlot >= 0 && out[sSlot] < 0) out[sSlot] = get(row, sSlot);
+
+            if (pSlot >= 0 && out[pSlot] < 0) out[pSlot] = get(row, pSlot);
+
+            if (oSlot >= 0 && out[oSlot] < 0) out[oSlot] = get(row, oSlot);
+        }
+
+        @Override
+        void sort(int slot) {
+            if (slot == oSlot) hits.sort(2);
+            else if (slot == pSlot) hits.sort(1);
+            else if (slot == sSlot) hits.sort(0);
+        }
+
+        @Override
+        List<long[]> toList() {
+            List<long[]> rows = new ArrayList<>(hits.size());
+
+            for (int i = 0; i < hits.size(); i++) rows.add(copy(i));
+
+            return rows;
+        }
+    }
+
+    /**
+     * FILTER comparisons as object id ranges per variable, intersected when a variable has
+     * several. Each range is a list of {@code first, last} pairs. Only possible when numeric
+     * and xsd:dateTime literals have value-ordered ids (a sectioned dictionary); inline
+     * integers add a second pair. Otherwise empty, and {@link #applyFilters} compares values.
+     */
+    private Map<String, long[]> objectRanges(List<RangeFilter> filters) {
+        org.example.dictionary.DictionarySections sections = dictionary.sections();
+
+        Map<String, long[]> ranges = new HashMap<>();
+
+        if (sections == null) return ranges;
+
+        for (RangeFilter f : filters) {
+            long[] r = org.example.dictionary.LiteralOrder.idRange(
+                    dictionary.dictionary(), sections, f.op, f.literal);
+
+            long[] inline = dictionary.inlineValues()
+                    ? org.example.dictionary.InlineValues.integerRange(f.op, f.literal, dictionary.inlineWidth()) : null;
+
+            if (inline != null) r = new long[]{r[0], r[1], inline[0], inline[1]};
+
+            ranges.merge(f.variable, intersectRanges(r, new long[]{Long.MIN_VALUE, Long.MAX_VALUE}),
+                    QueryExec::intersectRanges);
+        }
+
+        return ranges;
+    }
+
+    /** Non-empty intersections of the {@code first, last} pairs of {@code a} and {@code b}. */
+    private static long[] intersectRanges(long[] a, long[] b) {
+        long[] out = new long[a.length * b.length / 2];
+
+        int n = 0;
+
+        for (int i = 0; i < a.length; i += 2) {
+            for (int j = 0; j < b.length; j += 2) {
+                long first = Math.max(a[i], b[j]), last = Math.min(a[i + 1], b[j + 1]);
+
+                if (first <= last) {
+                    out[n++] = first;
+                    out[n++] = last;
+                }
+            }
+        }
+
+        return Arrays.copyOf(out, n);
+    }
+
+    private static boolean inRanges(long id, long[] ranges) {
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (id >= ranges[i] && id <= ranges[i + 1]) return true;
+        }
+
+        return false;
+    }
+
+    private List<long[]> applyFilters(List<long[]> rows, List<RangeFilter> filters, Map<String, long[]> objectRanges) {
+        if (filters.isEmpty()) return rows;
+
+        org.example.dictionary.TermDictionary dict = dictionary.dictionary();
+
+        List<long[]> out = new ArrayList<>(rows.size());
+
+        for (long[] row : rows) {
+            boolean keep = true;
+
+            for (RangeFilter f : filters) {
+                Integer slot = slotOf.get(f.variable);
+
+                long id = slot == null ? -1 : row[slot];
+
+                long[] range = objectRanges.get(f.variable);
+
+                keep = id >= 0 && (range != null
+                        ? inRanges(id, range)
+                        : org.example.dictionary.LiteralOrder.matches(dict.decode(id), f.op, f.literal));
+
+                if (!keep) break;
+            }
+
+            if (keep) out.add(row);
+        }
+
         return out;
     }
 
-    private List<EncodedTriplet> querySinglePattern(TriplePattern tp) throws IOException {
+    private EncodedTriples querySinglePattern(TriplePattern tp, long[] objectRange) throws IOException {
         int pattern = 0;
 
         if (tp.subject.startsWith("?")) pattern |= 1;
@@ -440,7 +619,7 @@ public class QueryExec {
 
         if (tp.object.startsWith("?")) pattern |= 4;
 
-        List<EncodedTriplet> result;
+        EncodedTriples result;
 
         switch (pattern) {
             case 0:
@@ -469,25 +648,25 @@ public class QueryExec {
 
             case 4:
 
-                result = engine.querySPIds(tp);
+                result = engine.querySPIds(tp, objectRange);
 
                 break;
 
             case 5:
 
-                result = engine.queryPredicateOnlyIds(tp);
+                result = engine.queryPredicateOnlyIds(tp, objectRange);
 
                 break;
 
             case 6:
 
-                result = engine.querySubjectOnlyIds(tp);
+                result = engine.querySubjectOnlyIds(tp, objectRange);
 
                 break;
 
             default:
 
-                result = engine.queryAllIds();
+                result = objectRange != null ? engine.queryObjectRangeIds(objectRange) : engine.queryAllIds();
 
                 break;
         }
@@ -1,5 +1,7 @@
 package org.example;
 
+import org.example.encodedTriplet.EncodedTriples;
+
 import java.util.*;
 
 public class QueryPlanner {
@@ -109,7 +111,7 @@ public class QueryPlanner {
 
         // leaf-only
         public org.example.SparqlParser.TriplePattern pattern;
-        public List<int[]> rows;     // materialized matches
+        public EncodedTriples hits;   // matches, kept columnar until joined
         public Set<String> vars;     // variables present in this node
         public Integer sortedOnSlot; // optional optimization
 
@@ -6,49 +6,255 @@ import org.apache.jena.graph.Triple;
 import org.apache.jena.rdf.model.Literal;
 import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.RDFParserBuilder;
+import org.apache.jena.riot.lang.LabelToNode;
 import org.apache.jena.riot.system.StreamRDF;
 import org.apache.jena.riot.system.StreamRDFBase;
+import org.example.util.CompressedInput;
 
-import java.io.FileInputStream;
-import java.io.InputStream;
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class RdfReader {
 
     public static void streamRdf(String filename, Consumer<Triplet> handler) throws Exception {
-        String ext = FilenameUtils.getExtension(filename).toLowerCase();
-        Lang lang;
+        streamRdf(filename, 1, handler);
+    }
+
+    /**
+     * Parses {@code filename}, which may be compressed ({@code .gz}, {@code .bz2},
+     * {@code .zst}); see {@link CompressedInput} for how {@code decompressThreads} is used.
+     */
+    public static void streamRdf(String filename, int decompressThreads, Consumer<Triplet> handler) throws Exception {
+        Lang lang = langOf(filename);
+        try (InputStream in = CompressedInput.open(Paths.get(filename), decompressThreads)) {
+            parse(in, lang, null, handler);
+        }
+    }
+
+    /**
+     * Parses one {@link Split}. Chunks of the same N-Triples file share a blank node
+     * scope, so {@code _:b0} in two chunks is still the same node.
+     */
+    public static void streamSplit(Split split, Consumer<Triplet> handler) throws Exception {
+        if (CompressedInput.codecOf(split.getFile()) != CompressedInput.Codec.NONE) {
+            streamRdf(split.getFile(), 1, handler);
+            return;
+        }
+        try (FileChannel ch = FileChannel.open(Paths.get(split.getFile()), StandardOpenOption.READ)) {
+            ch.position(split.getStart());
+            InputStream in = new RangeInputStream(Channels.newInputStream(ch), split.getLength());
+            parse(new BufferedInputStream(in, 1 << 16), split.getLang(),
+                    LabelToNode.createScopeByDocumentHash(split.getBlankNodeScope()), handler);
+        }
+    }
+
+    /**
+     * Expands an input argument into the RDF files it names: a directory yields its
+     * (possibly compressed) {@code .nt/.ttl/.rdf} files, a path containing glob characters ({@code * ? [ {})
+     * yields the matching files. Anything else is returned as is.
+     */
+    public static List<String> resolveInputs(String pathOrGlob) throws IOException {
+        List<String> files = new ArrayList<>();
+        if (isGlob(pathOrGlob)) {
+            String base = globBase(pathOrGlob);
+            Path root = Paths.get(base.isEmpty() ? "." : base);
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pathOrGlob);
+            String rest = pathOrGlob.substring(base.length());
+            boolean leadingSep = rest.startsWith("/") || rest.startsWith(File.separator);
+            int depth = rest.contains("**") ? Integer.MAX_VALUE
+                    : (int) rest.chars().filter(c -> c == '/' || c == File.separatorChar).count() + (leadingSep ? 0 : 1);
+            try (Stream<Path> walk = Files.walk(root, depth)) {
+                walk.filter(Files::isRegularFile)
+                        .map(f -> base.isEmpty() ? root.relativize(f) : f)
+                        .filter(matcher::matches)
+                        .forEach(f -> files.add(f.toString()));
+            }
+            if (files.isEmpty()) throw new IllegalArgumentException("No RDF files match " + pathOrGlob);
+            files.sort(null);
+            return files;
+        }
+        Path p = Paths.get(pathOrGlob);
+        if (Files.isDirectory(p)) {
+            try (Stream<Path> list = Files.list(p)) {
+                list.filter(Files::isRegularFile).filter(f -> isSupported(f.toString()))
+                        .forEach(f -> files.add(f.toString()));
+            }
+        } else {
+            files.add(pathOrGlob);
+            return files;
+        }
+        if (files.isEmpty()) throw new IllegalArgumentException("No RDF files in " + pathOrGlob);
+        files.sort(null);
+        return files;
+    }
+
+    /**
+     * Cuts the files into independently parseable splits. Uncompressed N-Triples files
+     * larger than {@code chunkBytes} are cut on line boundaries; Turtle and RDF/XML are
+     * not line oriented and, like compressed files, always form one split per file.
+     */
+    public static List<Split> split(List<String> files, long chunkBytes) throws IOException {
+        List<Split> splits = new ArrayList<>();
+        for (String file : files) {
+            Lang lang = langOf(file);
+            long size = Files.size(Paths.get(file));
+            UUID scope = UUID.randomUUID();
+            boolean compressed = CompressedInput.codecOf(file) != CompressedInput.Codec.NONE;
+            if (lang != Lang.NTRIPLES || compressed || size <= chunkBytes) {
+                splits.add(new Split(file, lang, 0, size, scope));
+                continue;
+            }
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                long start = 0;
+                while (start < size) {
+                    long end = nextLineStart(raf, Math.min(size, start + chunkBytes), size);
+                    splits.add(new Split(file, lang, start, end, scope));
+                    start = end;
+                }
+            }
+        }
+        return splits;
+    }
+
+    /** True for {@code .nt/.ttl/.rdf} files, optionally compressed. */
+    public static boolean isSupported(String filename) {
+        switch (FilenameUtils.getExtension(CompressedInput.stripCodecSuffix(filename)).toLowerCase()) {
+            case "rdf": case "ttl": case "nt": return true;
+            default: return false;
+        }
+    }
+
+    /** A byte range of one input file that can be parsed on its own. */
+    public static final class Split {
+        private final String file;
+        private final Lang lang;
+        private final long start;
+        private final long end;
+        private final UUID blankNodeScope;
+
+        Split(String file, Lang lang, long start, long end, UUID blankNodeScope) {
+            this.file = file;
+            this.lang = lang;
+            this.start = start;
+            this.end = end;
+            this.blankNodeScope = blankNodeScope;
+        }
+
+        public String getFile() { return file; }
+        public Lang getLang() { return lang; }
+        public long getStart() { return start; }
+        public long getLength() { return end - start; }
+        public UUID getBlankNodeScope() { return blankNodeScope; }
+
+        @Override
+        public String toString() {
+            return file + "[" + start + ", " + end + ")";
+        }
+    }
+
+    // ---------- internals ----------
+
+    private static Lang langOf(String filename) {
+        String ext = FilenameUtils.getExtension(CompressedInput.stripCodecSuffix(filename)).toLowerCase();
         switch (ext) {
-            case "rdf": lang = Lang.RDFXML; break;
-            case "ttl": lang = Lang.TURTLE; break;
-            case "nt":  lang = Lang.NTRIPLES; break;
+            case "rdf": return Lang.RDFXML;
+            case "ttl": return Lang.TURTLE;
+            case "nt":  return Lang.NTRIPLES;
             default: throw new IllegalArgumentException("Unsupported RDF format: " + filename);
         }
+    }
 
-        try (InputStream in = new FileInputStream(filename)) {
-            StreamRDF sink = new StreamRDFBase() {
-                @Override
-                public void triple(Triple t) {
-                    try {
-                        Node subjNode = t.getSubject();
-                        Node predNode = t.getPredicate();
-                        Node objNode  = t.getObject();
+    private static void parse(InputStream in, Lang lang, LabelToNode labels, Consumer<Triplet> handler) {
+        StreamRDF sink = new StreamRDFBase() {
+            @Override
+            public void triple(Triple t) {
+                Triplet triplet;
+                try {
+                    Node subjNode = t.getSubject();
+                    Node predNode = t.getPredicate();
+                    Node objNode  = t.getObject();
 
-                        String subj = subjNode.toString();
-                        String pred = predNode.toString();
-                        String obj  = objNode.toString();
+                    String subj = subjNode.toString();
+                    String pred = predNode.toString();
+                    String obj  = objNode.toString();
 
-                        handler.accept(new Triplet(subj, pred, obj));
-                    } catch (Exception e) {
-                        //
-                    }
+                    triplet = new Triplet(subj, pred, obj);
+                } catch (Exception e) {
+                    return;
                 }
-            };
+                // failures in the handler (e.g. a loader spilling to disk) must abort the parse
+                handler.accept(triplet);
+            }
+        };
+
+        RDFParserBuilder parser = RDFParser.create()
+                .source(in)
+                .lang(lang);
+        if (labels != null) parser.labelToNode(labels);
+        parser.parse(sink);
+    }
+
+    /** Offset just past the first newline at or after {@code from - 1}, or {@code size}. */
+    private static long nextLineStart(RandomAccessFile raf, long from, long size) throws IOException {
+        if (from >= size) return size;
+        raf.seek(from - 1);
+        byte[] buf = new byte[8192];
+        long pos = from - 1;
+        int n;
+        while ((n = raf.read(buf)) > 0) {
+            for (int i = 0; i < n; i++) {
+                if (buf[i] == '\n') return pos + i + 1;
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    private static boolean isGlob(String s) {
+        return s.indexOf('*') >= 0 || s.indexOf('?') >= 0 || s.indexOf('[') >= 0 || s.indexOf('{') >= 0;
+    }
+
+    /** Leading directory of a glob, up to its last separator before any glob character ("" if none). */
+    private static String globBase(String glob) {
+        int firstMeta = glob.length();
+        for (char c : new char[]{'*', '?', '[', '{'}) {
+            int i = glob.indexOf(c);
+            if (i >= 0) firstMeta = Math.min(firstMeta, i);
+        }
+        int sep = Math.max(glob.lastIndexOf('/', firstMeta), glob.lastIndexOf(File.separatorChar, firstMeta));
+        return sep < 0 ? "" : glob.substring(0, Math.max(1, sep));
+    }
+
+    private static final class RangeInputStream extends FilterInputStream {
+        private long remaining;
+
+        RangeInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) return -1;
+            int b = super.read();
+            if (b >= 0) remaining--;
+            return b;
+        }
 
-            RDFParser.create()
-                    .source(in)
-                    .lang(lang)
-                    .parse(sink);
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) return -1;
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) remaining -= n;
+            return n;
         }
     }
 }
@@ -3,7 +3,10 @@ package org.example;
 import org.apache.jena.graph.Node;
 import org.apache.jena.datatypes.TypeMapper;
 import org.apache.jena.graph.NodeFactory;
-import org.example.dictionary.DictionaryEncoder;
+import org.example.dictionary.DictionaryLoader;
+import org.example.dictionary.InlineValues;
+import org.example.dictionary.TermDictionary;
+import org.example.encodedTriplet.IdWidth;
 
 import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
@@ -16,9 +19,12 @@ import java.util.*;
 import java.util.concurrent.*;
 
 public class ResultProcessor {
-    private final DictionaryEncoder dict;
+    private final TermDictionary dict;
     private final Map<String, Integer> slotOf;
     private final List<String> projectVars;
+    // width inline ids are tagged for, null if the store has none: other ids at or above
+    // the tag are dictionary ids
+    private final IdWidth inline;
 
     // Shared caches and executors
     private static final Map<String, Node> literalCache     = new ConcurrentHashMap<>(1000);
@@ -30,15 +36,16 @@ public class ResultProcessor {
     private static final int DECODE_CACHE_CAP =
             Integer.getInteger("rdfparquet.decodeCache", 100_000);
 
-    public ResultProcessor(DictionaryEncoder dict,
+    public ResultProcessor(DictionaryLoader.Snapshot dictionary,
                            Map<String, Integer> slotOf,
                            List<String> projectVars) {
-        this.dict         = dict;
+        this.dict         = dictionary.dictionary();
+        this.inline       = dictionary.inlineWidth();
         this.slotOf       = slotOf;
         this.projectVars  = projectVars;
     }
 
-    public List<List<String>> generatePage(List<int[]> rows, int page, int pageSize) {
+    public List<List<String>> generatePage(List<long[]> rows, int page, int pageSize) {
         int start = page * pageSize;
         int end   = Math.min(start + pageSize, rows.size());
         if (start >= rows.size()) return Collections.emptyList();
@@ -50,24 +57,23 @@ public class ResultProcessor {
         }
     }
 
-    private List<List<String>> generatePageSequential(List<int[]> rows, int start, int end) {
+    private List<List<String>> generatePageSequential(List<long[]> rows, int start, int end) {
         List<List<String>> pageRows = new ArrayList<>(end - start);
-        Map<Integer, String> decodeCache = newDecodeCache();
+        Map<Long, String> decodeCache = newDecodeCache();
 
         for (int i = start; i < end; i++) {
-            int[] row = rows.get(i);
+            long[] row = rows.get(i);
             List<String> out = new ArrayList<>(projectVars.size());
             for (String v : projectVars) {
-                int id = row[slotOf.get(v)];
-                String raw = id >= 0 ? decodeCache.computeIfAbsent(id, dict::decode) : "";
-                out.add(cleanLiteralValue(raw));
+                long id = row[slotOf.get(v)];
+                out.add(cell(id, decodeCache));
             }
             pageRows.add(out);
         }
         return pageRows;
     }
 
-    private List<List<String>> generatePageParallel(List<int[]> rows, int start, int end) {
+    private List<List<String>> generatePageParallel(List<long[]> rows, int start, int end) {
         int cpus      = Math.min(Runtime.getRuntime().availableProcessors(), 4);
         int chunkSize = (end - start + cpus - 1) / cpus;
         List<CompletableFuture<List<List<String>>>> futures = new ArrayList<>();
@@ -94,7 +100,7 @@ public class ResultProcessor {
         return result;
     }
 
-    public String generateCsv(List<int[]> rows, List<String> headers) {
+    public String generateCsv(List<long[]> rows, List<String> headers) {
         StringBuilder csv = csvBuilder.get();
         csv.setLength(0);
 
@@ -113,16 +119,15 @@ public class ResultProcessor {
         }
     }
 
-    private String generateCsvSequential(List<int[]> rows, StringBuilder csv) {
-        Map<Integer, String> decodeCache = newDecodeCache();
+    private String generateCsvSequential(List<long[]> rows, StringBuilder csv) {
+        Map<Long, String> decodeCache = newDecodeCache();
 
-        for (int[] row : rows) {
+        for (long[] row : rows) {
             for (int i = 0; i < projectVars.size(); i++) {
                 if (i > 0) csv.append(',');
                 String v = projectVars.get(i);
-                int id = row[slotOf.get(v)];
-                String raw = id >= 0 ? decodeCache.computeIfAbsent(id, dict::decode) : "";
-                String clean = cleanLiteralValue(raw);
+                long id = row[slotOf.get(v)];
+                String clean = cell(id, decodeCache);
                 appendCsvEscaped(csv, clean);
             }
             csv.append('\n');
@@ -130,7 +135,7 @@ public class ResultProcessor {
         return csv.toString();
     }
 
-    private String generateCsvParallel(List<int[]> rows,
+    private String generateCsvParallel(List<long[]> rows,
                                        List<String> headers,
                                        StringBuilder csv) {
         int cpus      = Math.min(Runtime.getRuntime().availableProcessors(), 4);
@@ -143,15 +148,14 @@ public class ResultProcessor {
             if (s >= rows.size()) break;
             futures.add(CompletableFuture.supplyAsync(() -> {
                 StringBuilder chunkCsv = new StringBuilder(64 * 1024);
-                Map<Integer, String> decodeCache = newDecodeCache();
+                Map<Long, String> decodeCache = newDecodeCache();
                 for (int j = s; j < e; j++) {
-                    int[] row = rows.get(j);
+                    long[] row = rows.get(j);
                     for (int k = 0; k < projectVars.size(); k++) {
                         if (k > 0) chunkCsv.append(',');
                         String v = projectVars.get(k);
-                        int id = row[slotOf.get(v)];
-                        String raw = id >= 0 ? decodeCache.computeIfAbsent(id, dict::decode) : "";
-                        String clean = cleanLiteralValue(raw);
+                        long id = row[slotOf.get(v)];
+                        String clean = cell(id, decodeCache);
                         if (needsCsvEscaping(clean)) {
                             chunkCsv.append('"').append(clean.replace("\"", "\"\"")).append('"');
                         } else {
@@ -175,7 +179,7 @@ public class ResultProcessor {
         return csv.toString();
     }
 
-    public Path generateCsvToTempFile(List<int[]> rows, List<String> headers) throws IOException {
+    public Path generateCsvToTempFile(List<long[]> rows, List<String> headers) throws IOException {
         Path tmp = Files.createTempFile("rdfparquet-results-", ".csv");
 
         try (BufferedWriter w = new BufferedWriter(
@@ -190,16 +194,15 @@ public class ResultProcessor {
             w.write('\n');
 
             // sequential streaming
-            Map<Integer, String> decodeCache = newDecodeCache();
+            Map<Long, String> decodeCache = newDecodeCache();
             StringBuilder cell = new StringBuilder(256);
 
-            for (int[] row : rows) {
+            for (long[] row : rows) {
                 for (int i = 0; i < projectVars.size(); i++) {
                     if (i > 0) w.write(',');
                     String v = projectVars.get(i);
-                    int id = row[slotOf.get(v)];
-                    String raw = id >= 0 ? decodeCache.computeIfAbsent(id, dict::decode) : "";
-                    String clean = cleanLiteralValue(raw);
+                    long id = row[slotOf.get(v)];
+                    String clean = cell(id, decodeCache);
 
                     if (needsCsvEscaping(clean)) {
                         w.write('"');
@@ -236,6 +239,13 @@ public class ResultProcessor {
         sb.append('"');
     }
 
+    /** Output value of {@code id}: inline values come straight from the id, the rest via the dictionary. */
+    private String cell(long id, Map<Long, String> decodeCache) {
+        if (id < 0) return "";
+        if (inline != null && InlineValues.isInline(id, inline)) return InlineValues.lexicalForm(id);
+        return cleanLiteralValue(decodeCache.computeIfAbsent(id, dict::decode));
+    }
+
     private String cleanLiteralValue(String raw) {
         if (raw.startsWith("\"")) {
             Node node = parseLiteralCached(raw);
@@ -272,11 +282,11 @@ public class ResultProcessor {
         }
     }
 
-    private static Map<Integer, String> newDecodeCache() {
+    private static Map<Long, String> newDecodeCache() {
         if (DECODE_CACHE_CAP <= 0) return new HashMap<>();
-        return new LinkedHashMap<Integer, String>(DECODE_CACHE_CAP, 0.75f, true) {
+        return new LinkedHashMap<Long, String>(DECODE_CACHE_CAP, 0.75f, true) {
             @Override
-            protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+            protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
                 return size() > DECODE_CACHE_CAP;
             }
         };
@@ -11,6 +11,7 @@ public class SparqlParser {
         public boolean distinct;
         public List<TriplePattern> patterns;
         public int limit;
+        public List<RangeFilter> filters = new ArrayList<>();
 
         public ParsedQuery(List<String> selectVars, boolean distinct, List<TriplePattern> patterns, int limit) {
             this.selectVars = selectVars;
@@ -18,7 +19,7 @@ public class SparqlParser {
             this.patterns = patterns;
             this.limit = limit;
         }
-        
+
     }
 
     public static class TriplePattern {
@@ -38,6 +39,82 @@ public class SparqlParser {
         }
     }
 
+    /**
+     * One {@code FILTER} comparison of a variable with a numeric or xsd:dateTime constant,
+     * e.g. {@code ?age >= 18}. The constant is kept in the dictionary's term form,
+     * {@code "18"^^http://www.w3.org/2001/XMLSchema#integer}.
+     */
+    public static class RangeFilter {
+        public String variable;
+        public String op;
+        public String literal;
+
+        public RangeFilter(String variable, String op, String literal) {
+            this.variable = variable;
+            this.op = op;
+            this.literal = literal;
+        }
+
+        @Override
+        public String toString() {
+            return variable + " " + op + " " + literal;
+        }
+    }
+
+    private static final String XSD = "http://www.w3.org/2001/XMLSchema#";
+    private static final Pattern FILTER_PATTERN =
+            Pattern.compile("(?i)FILTER\\s*\\(((?:[^()]|\\([^()]*\\))*)\\)");
+    private static final Pattern COMPARISON_PATTERN =
+            Pattern.compile("^\\(?\\s*(\\S+?)\\s*(<=|>=|<|>|=)\\s*(\\S+?)\\s*\\)?$");
+
+    /** Parses {@code ?x op constant} conditions joined with {@code &&}. */
+    private static List<RangeFilter> parseFilter(String expression, Map<String, String> prefixMap) {
+        List<RangeFilter> filters = new ArrayList<>();
+        for (String condition : expression.split("&&")) {
+            Matcher m = COMPARISON_PATTERN.matcher(condition.trim());
+            if (!m.matches()) throw new IllegalArgumentException("Unsupported FILTER condition: " + condition.trim());
+            String left = m.group(1), op = m.group(2), right = m.group(3);
+            if (left.startsWith("?") && !right.startsWith("?")) {
+                filters.add(new RangeFilter(left, op, parseFilterConstant(right, prefixMap)));
+            } else if (right.startsWith("?") && !left.startsWith("?")) {
+                filters.add(new RangeFilter(right, flip(op), parseFilterConstant(left, prefixMap)));
+            } else {
+                throw new IllegalArgumentException("Unsupported FILTER condition: " + condition.trim());
+            }
+        }
+        return filters;
+    }
+
+    private static String flip(String op) {
+        switch (op) {
+            case "<": return ">";
+            case "<=": return ">=";
+            case ">": return "<";
+            case ">=": return "<=";
+            default: return op;
+        }
+    }
+
+    /** Numeric constant or {@code "lexical"^^datatype}, in the dictionary's term form. */
+    private static String parseFilterConstant(String token, Map<String, String> prefixMap) {
+        if (token.matches("[+-]?\\d+")) return "\"" + token + "\"^^" + XSD + "integer";
+        if (token.matches("[+-]?(\\d+\\.\\d*|\\.\\d+)")) return "\"" + token + "\"^^" + XSD + "decimal";
+        if (token.matches("[+-]?(\\d+\\.?\\d*|\\.\\d+)[eE][+-]?\\d+")) return "\"" + token + "\"^^" + XSD + "double";
+        int sep = token.lastIndexOf("\"^^");
+        if (token.startsWith("\"") && sep > 0) {
+            String type = token.substring(sep + 3);
+            if (type.startsWith("<") && type.endsWith(">")) {
+                type = type.substring(1, type.length() - 1);
+            } else if (type.startsWith("xsd:") && !prefixMap.containsKey("xsd")) {
+                type = XSD + type.substring(4);
+            } else {
+                type = resolvePrefixed(type, prefixMap);
+            }
+            return token.substring(0, sep + 1) + "^^" + type;
+        }
+        throw new IllegalArgumentException("Unsupported FILTER constant: " + token);
+    }
+
     private static String resolvePrefixed(String token, Map<String, String> prefixMap) {
         // if it's a literal string, returns as is
         if (token.startsWith("\"") && token.endsWith("\"")) {
@@ -194,6 +271,11 @@ public class SparqlParser {
 
         wherePart = wherePart.substring(1, wherePart.length() - 1).trim();
 
+        List<RangeFilter> filters = new ArrayList<>();
+        Matcher filterMatcher = FILTER_PATTERN.matcher(wherePart);
+        while (filterMatcher.find()) filters.addAll(parseFilter(filterMatcher.group(1), prefixMap));
+        wherePart = filterMatcher.replaceAll(" ").trim();
+
         List<String> patternStrings = expandSemicolonSyntax(wherePart);
 
         List<TriplePattern> patterns = new ArrayList<>();
@@ -217,6 +299,8 @@ public class SparqlParser {
             patterns.add(new TriplePattern(subj, pred, obj));
         }
 
-        return new ParsedQuery(selectVars, distinct, patterns, limit);
+        ParsedQuery parsed = new ParsedQuery(selectVars, distinct, patterns, limit);
+        parsed.filters = filters;
+        return parsed;
     }
 }
\ No newline at end of file
@@ -1,54 +1,126 @@
 package org.example.dictionary;
 
+import org.example.encodedTriplet.IdWidth;
+
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
-public class DictionaryEncoder {
+/**
+ * Term dictionary shared by the loader and the query side.
+ *
+ * {@link #encode} may be called from many threads at once: both maps are
+ * {@link ConcurrentHashMap}s (locking per hash bin, not globally) and ids come from
+ * an {@link AtomicLong}, so every new term gets exactly one id and ids stay dense.
+ * With concurrent callers the order of id assignment follows the thread interleaving.
+ * {@link #init} and {@link #loadFrom} replace the contents and must not race with
+ * {@link #encode} or lookups; the query side therefore loads into a fresh instance
+ * ({@link #of}) and swaps it in.
+ *
+ * Ids are limited by the {@link #setIdWidth id width} of the store being loaded: handing
+ * out more than {@link IdWidth#maxId} (or, when inlining, the width's inline tag - 1) fails
+ * instead of wrapping around. The query side loads {@link IdWidth#INT64} stores into the
+ * {@link OffHeapDictionary} instead.
+ *
+ * With {@link #setInlineValues} the loader's {@link #encode} hands out {@link InlineValues}
+ * ids for the literals that fit one, and those terms never enter the maps.
+ */
+public class DictionaryEncoder implements TermDictionary {
     private static final DictionaryEncoder instance = new DictionaryEncoder();
 
-    private Map<String, Integer> encodeMap;
-    private Map<Integer, String> decodeMap;
-    private int currentId;
+    private volatile Map<String, Long> encodeMap;
+    private volatile Map<Long, String> decodeMap;
+    private final AtomicLong currentId = new AtomicLong(1);
+    private volatile boolean inlineValues;
+    private volatile IdWidth idWidth = IdWidth.INT32;
 
     private DictionaryEncoder() {
-        this.encodeMap = new HashMap<>();
-        this.decodeMap = new HashMap<>();
-        this.currentId = 1;
+        this.encodeMap = new ConcurrentHashMap<>();
+        this.decodeMap = new ConcurrentHashMap<>();
     }
 
     public static DictionaryEncoder getInstance() {
         return instance;
     }
 
+    /** A new dictionary holding {@code entries}, separate from the loader's {@link #getInstance}. */
+    public static DictionaryEncoder of(List<DictionaryEntry> entries) {
+        DictionaryEncoder dictionary = new DictionaryEncoder();
+        dictionary.loadFrom(entries);
+        return dictionary;
+    }
+
     public void init(int expectedEntries) {
         int capacity = (int) Math.ceil(expectedEntries / 0.75f) + 1;
-        this.encodeMap = new HashMap<>(capacity, 0.75f);
-        this.decodeMap = new HashMap<>(capacity, 0.75f);
-        this.currentId = 1;
+        this.encodeMap = new ConcurrentHashMap<>(capacity, 0.75f);
+        this.decodeMap = new ConcurrentHashMap<>(capacity, 0.75f);
+        this.currentId.set(1);
+        this.inlineValues = false;
+        this.idWidth = IdWidth.INT32;
+    }
+
+    /** Whether {@link #encode} inlines small literals; reset by {@link #init}. */
+    public void setInlineValues(boolean inlineValues) {
+        this.inlineValues = inlineValues;
+    }
+
+    /** Width of the ids {@link #encode} hands out, and of its inline ids; reset to {@link IdWidth#INT32} by {@link #init}. */
+    public void setIdWidth(IdWidth idWidth) {
+        this.idWidth = idWidth;
     }
 
-    public int encode(String value) {
+    public IdWidth getIdWidth() {
+        return idWidth;
+    }
+
+    public long encode(String value) {
+        IdWidth width = idWidth;
+        if (inlineValues) {
+            long inline = InlineValues.encode(value, width);
+            if (inline != InlineValues.NONE) return inline;
+        }
+        Long id = encodeMap.get(value);   // common case: no bin lock
+        if (id != null) return id;
+        Map<Long, String> decode = decodeMap;
+        long limit = !inlineValues ? width.maxId()
+                : width == IdWidth.INT64 ? InlineValues.WIDE_TAG : InlineValues.TAG;
         return encodeMap.computeIfAbsent(value, v -> {
-            int id = currentId++;
-            decodeMap.put(id, v);
-            return id;
+            long next = currentId.getAndIncrement();
+            if (next <= 0 || next >= limit) {
+                throw new IllegalStateException("Dictionary id space exhausted: more than " + (limit - 1) + " terms");
+            }
+            decode.put(next, v);
+            return next;
         });
     }
 
-    public String decode(int id) {
+    @Override
+    public long lookup(String term) {
+        Long id = encodeMap.get(term);
+        return id == null ? NOT_FOUND : id;
+    }
+
+    @Override
+    public String decode(long id) {
         return decodeMap.get(id);
     }
 
-    public Map<String,Integer> getEncodeMap() {
+    @Override
+    public long size() {
+        return encodeMap.size();
+    }
+
+    public Map<String,Long> getEncodeMap() {
         return encodeMap;
     }
 
-    public Map<Integer,String> getDecodeMap() {
+    public Map<Long,String> getDecodeMap() {
         return decodeMap;
     }
 
     public List<DictionaryEntry> getEntries() {
         List<DictionaryEntry> entries = new ArrayList<>(decodeMap.size());
-        for (Map.Entry<Integer,String> e : decodeMap.entrySet()) {
+        for (Map.Entry<Long,String> e : decodeMap.entrySet()) {
             entries.add(new DictionaryEntry(e.getKey(), e.getValue()));
         }
         return entries;
@@ -57,12 +129,17 @@ public class DictionaryEncoder {
     public void loadFrom(List<DictionaryEntry> entries) {
         encodeMap.clear();
         decodeMap.clear();
-        currentId = 1;
+        long maxId = 0;
         for (DictionaryEntry entry : entries) {
-            encodeMap.put(entry.getValue(), entry.getId());
-            decodeMap.put(entry.getId(), entry.getValue());
-            currentId = Math.max(currentId, entry.getId() + 1);
+            if (entry.getId() <= 0) {
+                throw new IllegalArgumentException("Id " + entry.getId() + " is not a dictionary id");
+            }
+            long id = entry.getId();
+            encodeMap.put(entry.getValue(), id);
+            decodeMap.put(id, entry.getValue());
+            maxId = Math.max(maxId, id);
         }
+        currentId.set(maxId + 1);
     }
 
 }
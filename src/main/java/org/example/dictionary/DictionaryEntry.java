@@ -2,15 +2,15 @@ package org.example.dictionary;
 
 public class DictionaryEntry {
 
-    private final int id;
+    private final long id;
     private final String value;
 
-    public DictionaryEntry(int id, String value) {
+    public DictionaryEntry(long id, String value) {
         this.id = id;
         this.value = value;
     }
 
-    public int getId() {
+    public long getId() {
         return id;
     }
 
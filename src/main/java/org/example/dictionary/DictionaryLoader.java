@@ -1,12 +1,244 @@
 package org.example.dictionary;
 
+import org.example.encodedTriplet.IdWidth;
+
+import java.io.Closeable;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Loads {@code dictionary.parquet} for the query side and holds the dictionary that
+ * queries run against. {@code -Drdfparquet.dictionary} picks the implementation:
+ *
+ *  - {@code auto} (default): map the loader's {@code dictionary.pfc} or, failing that,
+ *    {@code dictionary.mmap} sidecar if it matches the parquet file, otherwise load into
+ *    the heap {@link DictionaryEncoder} (or build the {@link OffHeapDictionary} for a
+ *    dictionary with 64-bit ids)
+ *  - {@code frontcoded}: the {@link FrontCodedDictionary}; needs a loader run with
+ *    {@code --front-coded}
+ *  - {@code offheap}: the {@link OffHeapDictionary}, from the sidecar or built at startup
+ *  - {@code heap}: always the heap {@link DictionaryEncoder}
+ *
+ * The {@link DictionarySections} recorded in the parquet file, if any, are loaded with it.
+ * If the loader ran with {@code --inline}, the dictionary is wrapped so {@link InlineValues}
+ * ids are looked up and decoded without it.
+ *
+ * The three are published together as one {@link Snapshot}; a query takes it once, so a
+ * reload in the middle never pairs the new dictionary with the old sections or inline flag.
+ * Snapshots are reference counted: a mapped dictionary that a reload replaced is closed
+ * once the last query that {@link #acquire}d it closes its snapshot.
+ */
 public class DictionaryLoader {
 
+    static final String SIDECAR_NAME = "dictionary.mmap";
+    static final String FRONT_CODED_NAME = "dictionary.pfc";
+
+    private static volatile Snapshot current = new Snapshot(DictionaryEncoder.getInstance(), null, null, null);
+    // sizes and modification times of the files last loaded, for reloadIfChanged
+    private static volatile String loadedPath;
+    private static volatile long[] loadedStamp;
+
     public static void load(String dictionaryPath) throws IOException {
+        long[] stamp = stamp(Paths.get(dictionaryPath));
+        loadImpl(dictionaryPath);
+        loadedPath = dictionaryPath;
+        loadedStamp = stamp;
+    }
+
+    /**
+     * Loads {@code dictionaryPath} again if it changed since the last {@link #load}, as an
+     * {@code --append} run does when it adds terms. Returns true if it was reloaded.
+     *
+     * The sidecars count as part of the dictionary: an append renames the parquet file
+     * into place before it rewrites them, and a load in between falls back to the heap;
+     * the rewritten sidecar then triggers another reload that maps it.
+     */
+    public static synchronized boolean reloadIfChanged(String dictionaryPath) throws IOException {
+        Path file = Paths.get(dictionaryPath);
+        if (!Files.exists(file)) return false;
+        if (dictionaryPath.equals(loadedPath) && Arrays.equals(stamp(file), loadedStamp)) {
+            return false;
+        }
+        load(dictionaryPath);
+        return true;
+    }
+
+    /** Size and modification time of {@code parquet} and of each of its sidecars, -1 if missing. */
+    private static long[] stamp(Path parquet) throws IOException {
+        Path[] files = {parquet, parquet.resolveSibling(FRONT_CODED_NAME), parquet.resolveSibling(SIDECAR_NAME)};
+        long[] stamp = new long[2 * files.length];
+        for (int i = 0; i < files.length; i++) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(files[i], BasicFileAttributes.class);
+                stamp[2 * i] = attributes.size();
+                stamp[2 * i + 1] = attributes.lastModifiedTime().toMillis();
+            } catch (NoSuchFileException e) {
+                if (i == 0) throw e;
+                stamp[2 * i] = stamp[2 * i + 1] = -1;
+            }
+        }
+        return stamp;
+    }
+
+    private static void loadImpl(String dictionaryPath) throws IOException {
+        String mode = System.getProperty("rdfparquet.dictionary", "auto").toLowerCase(java.util.Locale.ROOT);
+        Map<String, String> metadata = DictionaryParquetReader.keyValueMetadata(dictionaryPath);
+        DictionarySections sections = DictionarySections.fromMetadata(metadata);
+        IdWidth inline = InlineValues.widthOf(metadata);
+        if (!mode.equals("heap")) {
+            Path parquet = Paths.get(dictionaryPath);
+            Path frontCoded = parquet.resolveSibling(FRONT_CODED_NAME);
+            if (FrontCodedDictionary.isSidecarOf(frontCoded, parquet)) {
+                install(FrontCodedDictionary.open(frontCoded), sections, inline);
+                return;
+            }
+            if (mode.equals("frontcoded")) {
+                throw new IOException("No up-to-date " + FRONT_CODED_NAME + " next to " + dictionaryPath
+                        + "; reload the data with --front-coded");
+            }
+            Path sidecar = parquet.resolveSibling(SIDECAR_NAME);
+            if (OffHeapDictionary.isSidecarOf(sidecar, parquet)) {
+                install(OffHeapDictionary.open(sidecar), sections, inline);
+                return;
+            }
+            // 64-bit ids are for stores too large to be worth the heap maps
+            if (mode.equals("offheap") || IdWidth.read(dictionaryPath) == IdWidth.INT64) {
+                install(OffHeapDictionary.fromParquet(dictionaryPath), sections, inline);
+                return;
+            }
+        }
+        // a new instance, swapped in whole: queries may still run against the old one
         List<DictionaryEntry> entries = DictionaryParquetReader.readEntries(dictionaryPath);
-        DictionaryEncoder.getInstance().loadFrom(entries);
+        install(DictionaryEncoder.of(entries), sections, inline);
+    }
+
+    /** The dictionary, sections and inline flag last loaded, as one; see {@link #acquire}. */
+    public static Snapshot snapshot() {
+        return current;
+    }
+
+    /**
+     * {@link #snapshot}, kept open until the caller closes it: a reload meanwhile does not
+     * close its dictionary.
+     */
+    public static Snapshot acquire() {
+        while (true) {
+            Snapshot s = current;
+            if (s.tryRetain()) return s;
+            // replaced and released since the read: the next read sees its successor
+        }
+    }
+
+    /** The dictionary queries are encoded and decoded with; a query takes a {@link #snapshot} instead. */
+    public static TermDictionary current() {
+        return current.dictionary();
+    }
+
+    /** Id ranges of {@link #current()}, or null if its ids are not sectioned. */
+    public static DictionarySections sections() {
+        return current.sections();
+    }
+
+    /** True if triples may hold {@link InlineValues} ids. */
+    public static boolean inlineValues() {
+        return current.inlineValues();
+    }
+
+    /** Width the {@link InlineValues} ids of {@link #current()} are tagged for, or null if none are inline. */
+    public static IdWidth inlineWidth() {
+        return current.inlineWidth();
+    }
+
+    public static void use(TermDictionary dictionary) {
+        use(dictionary, null);
+    }
+
+    public static void use(TermDictionary dictionary, DictionarySections dictionarySections) {
+        use(dictionary, dictionarySections, false);
+    }
+
+    /** Makes {@code dictionary} current; it stays the caller's to close. */
+    public static void use(TermDictionary dictionary, DictionarySections dictionarySections, boolean inline) {
+        use(dictionary, dictionarySections, inline ? IdWidth.INT32 : null);
+    }
+
+    /** As above, with inline ids tagged for {@code inlineWidth} ids, or none if null. */
+    public static void use(TermDictionary dictionary, DictionarySections dictionarySections, IdWidth inlineWidth) {
+        swap(dictionary, dictionarySections, inlineWidth, null);
+    }
+
+    /** Makes a dictionary this class loaded current; it is closed once replaced and released. */
+    private static void install(TermDictionary dictionary, DictionarySections dictionarySections, IdWidth inline) {
+        swap(dictionary, dictionarySections, inline, dictionary instanceof Closeable ? (Closeable) dictionary : null);
+    }
+
+    private static synchronized void swap(TermDictionary dictionary, DictionarySections dictionarySections,
+                                          IdWidth inline, Closeable owned) {
+        Snapshot replaced = current;
+        current = new Snapshot(inline != null ? InlineValues.over(dictionary, inline) : dictionary,
+                dictionarySections, inline, owned);
+        replaced.close();   // the reference held as current
+    }
+
+    /**
+     * A dictionary with the sections and inline flag it was loaded with. Closing a snapshot
+     * from {@link #acquire} releases it; the dictionary is closed with the last reference.
+     */
+    public static final class Snapshot implements Closeable {
+        private final TermDictionary dictionary;
+        private final DictionarySections sections;
+        private final IdWidth inlineWidth;
+        private final Closeable owned;
+        // one for being current, one per acquire / retain not yet closed
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        private Snapshot(TermDictionary dictionary, DictionarySections sections, IdWidth inlineWidth, Closeable owned) {
+            this.dictionary = dictionary;
+            this.sections = sections;
+            this.inlineWidth = inlineWidth;
+            this.owned = owned;
+        }
+
+        /** Another reference to a snapshot the caller holds, to be closed separately. */
+        public Snapshot retain() {
+            if (!tryRetain()) throw new IllegalStateException("Dictionary snapshot already released");
+            return this;
+        }
+
+        private boolean tryRetain() {
+            for (int n = references.get(); n > 0; n = references.get()) {
+                if (references.compareAndSet(n, n + 1)) return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void close() {
+            if (references.decrementAndGet() != 0 || owned == null) return;
+            try {
+                owned.close();
+            } catch (IOException e) {
+                System.err.println("[Dictionary] closing a replaced dictionary failed: " + e.getMessage());
+            }
+        }
+
+        public TermDictionary dictionary() { return dictionary; }
+
+        /** Id ranges of {@link #dictionary()}, or null if its ids are not sectioned. */
+        public DictionarySections sections() { return sections; }
+
+        /** True if triples may hold {@link InlineValues} ids. */
+        public boolean inlineValues() { return inlineWidth != null; }
+
+        /** Width the {@link InlineValues} ids are tagged for, or null if none are inline. */
+        public IdWidth inlineWidth() { return inlineWidth; }
     }
 }
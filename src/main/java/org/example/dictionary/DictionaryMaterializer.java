@@ -4,7 +4,7 @@ import org.apache.parquet.io.api.*;
 
 public class DictionaryMaterializer extends RecordMaterializer<DictionaryEntry> {
 
-    private int idCurrent;
+    private long idCurrent;
     private String valueCurrent;
 
     private final PrimitiveConverter idConverter = new PrimitiveConverter() {
@@ -12,6 +12,11 @@ public class DictionaryMaterializer extends RecordMaterializer<DictionaryEntry>
         public void addInt(int value) {
             idCurrent = value;
         }
+
+        @Override
+        public void addLong(long value) {
+            idCurrent = value;
+        }
     };
 
     private final PrimitiveConverter valueConverter = new PrimitiveConverter() {
@@ -1,12 +1,16 @@
 package org.example.dictionary;
 
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.hadoop.ParquetFileReader;
 import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public class DictionaryParquetReader {
 
@@ -33,4 +37,12 @@ public class DictionaryParquetReader {
                 .build();
     }
 
+    /** Key-value metadata of the footer, where the loader records how ids were assigned. */
+    public static Map<String, String> keyValueMetadata(String parquetPath) throws IOException {
+        try (ParquetFileReader reader = ParquetFileReader.open(
+                HadoopInputFile.fromPath(new Path(parquetPath), new Configuration()))) {
+            return reader.getFooter().getFileMetaData().getKeyValueMetaData();
+        }
+    }
+
 }
@@ -9,11 +9,19 @@ import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 import org.apache.parquet.schema.MessageType;
 
 import java.io.IOException;
+import java.util.Map;
 
 public class DictionaryParquetWriter {
 
     public static ParquetWriter<DictionaryEntry> create(Path path, MessageType schema, CompressionCodecName codec) throws IOException {
+        return create(path, schema, codec, Map.of());
+    }
+
+    /** As {@link #create(Path, MessageType, CompressionCodecName)}, with extra key-value metadata in the footer. */
+    public static ParquetWriter<DictionaryEntry> create(Path path, MessageType schema, CompressionCodecName codec,
+                                                        Map<String, String> metadata) throws IOException {
         return new Builder(path, schema)
+                .withExtraMetaData(metadata)
                 .withWriterVersion(ParquetProperties.WriterVersion.PARQUET_2_0)
                 .withCompressionCodec(codec)
                 .withPageSize(ParquetWriter.DEFAULT_PAGE_SIZE)
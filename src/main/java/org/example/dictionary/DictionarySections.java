@@ -0,0 +1,145 @@
+package org.example.dictionary;
+
+import org.example.encodedTriplet.IdWidth;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Sectioned id layout, in the spirit of HDT's dictionary sections: each kind of term
+ * gets its own contiguous id range, so an id alone tells where it can occur.
+ *
+ *  - {@link Section#PREDICATES}: every term used as a predicate; small, dense ids
+ *  - {@link Section#SHARED}: IRIs and blank nodes used as both subject and object
+ *  - {@link Section#SUBJECTS}: ... used only as subject
+ *  - {@link Section#OBJECTS}: ... used only as object
+ *  - {@link Section#LITERALS}: literals (objects only) other than the next two
+ *  - {@link Section#NUMBERS}: numeric literals, ids in value order ({@link LiteralOrder})
+ *  - {@link Section#DATETIMES}: xsd:dateTime literals, ids in value order
+ *
+ * Sections follow each other in that order starting at id 1. The loader assigns them
+ * with {@code --sectioned} and records the boundaries in the key-value metadata of
+ * {@code dictionary.parquet}; without them ids are in one unsectioned range.
+ */
+public final class DictionarySections {
+
+    public enum Section { PREDICATES, SHARED, SUBJECTS, OBJECTS, LITERALS, NUMBERS, DATETIMES }
+
+    /** Role bits collected per term while loading, see {@link #classify}. */
+    public static final int SUBJECT = 1, PREDICATE = 2, OBJECT = 4;
+
+    static final String METADATA_KEY = "rdfparquet.sections";
+
+    private static final Section[] SECTIONS = Section.values();
+
+    // first id of each section, plus one past the last id
+    private final int[] first;
+
+    private DictionarySections(int[] first) {
+        this.first = first;
+    }
+
+    /** Layout with the given number of terms per section, in {@link Section} order. */
+    public static DictionarySections of(int[] counts) {
+        if (counts.length != SECTIONS.length) throw new IllegalArgumentException("Expected " + SECTIONS.length + " counts");
+        int[] first = new int[SECTIONS.length + 1];
+        first[0] = 1;
+        for (int i = 0; i < counts.length; i++) first[i + 1] = first[i] + counts[i];
+        return new DictionarySections(first);
+    }
+
+    /** Section of a term with the given role bits. */
+    public static Section classify(String term, int roles) {
+        if ((roles & PREDICATE) != 0) return Section.PREDICATES;
+        if (term.startsWith("\"")) {
+            Section ordered = LiteralOrder.orderedSection(term);
+            return ordered != null ? ordered : Section.LITERALS;
+        }
+        if ((roles & SUBJECT) != 0) return (roles & OBJECT) != 0 ? Section.SHARED : Section.SUBJECTS;
+        return Section.OBJECTS;
+    }
+
+    /** Section of {@code id}, or null if it is outside every section. */
+    public Section sectionOf(long id) {
+        for (int i = 0; i < SECTIONS.length; i++) {
+            if (id < first[i + 1]) return id >= first[i] ? SECTIONS[i] : null;
+        }
+        return null;
+    }
+
+    /** First id of {@code section}. */
+    public int first(Section section) {
+        return first[section.ordinal()];
+    }
+
+    /** Last id of {@code section}; below {@link #first} if the section is empty. */
+    public int last(Section section) {
+        return first[section.ordinal() + 1] - 1;
+    }
+
+    public int count(Section section) {
+        return first[section.ordinal() + 1] - first[section.ordinal()];
+    }
+
+    /** False if no triple can have {@code id} as subject. Predicates may also be subjects. */
+    public boolean canBeSubject(long id) {
+        Section s = sectionOf(id);
+        return s == Section.PREDICATES || s == Section.SHARED || s == Section.SUBJECTS;
+    }
+
+    public boolean canBePredicate(long id) {
+        return sectionOf(id) == Section.PREDICATES;
+    }
+
+    /** Also true for {@link InlineValues} ids of either width, which are outside every section. */
+    public boolean canBeObject(long id) {
+        Section s = sectionOf(id);
+        if (s == null) return InlineValues.isInline(id, IdWidth.INT32) || InlineValues.isInline(id, IdWidth.INT64);
+        return s != Section.SUBJECTS;
+    }
+
+    /** The per-section counts, comma separated, as stored in the parquet metadata. */
+    String encode() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < SECTIONS.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(first[i + 1] - first[i]);
+        }
+        return sb.toString();
+    }
+
+    /** Sections added later are missing from older files and read as empty. */
+    static DictionarySections parse(String value) throws IOException {
+        String[] parts = value.split(",");
+        if (parts.length > SECTIONS.length) throw new IOException("Malformed dictionary sections: " + value);
+        try {
+            int[] counts = new int[SECTIONS.length];
+            for (int i = 0; i < parts.length; i++) counts[i] = Integer.parseInt(parts[i].trim());
+            return of(counts);
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed dictionary sections: " + value, e);
+        }
+    }
+
+    /** Sections recorded in the footer of {@code dictionary.parquet}, or null for an unsectioned dictionary. */
+    public static DictionarySections read(String dictionaryPath) throws IOException {
+        return fromMetadata(DictionaryParquetReader.keyValueMetadata(dictionaryPath));
+    }
+
+    /** Sections in the footer key-value metadata of {@code dictionary.parquet}, or null. */
+    static DictionarySections fromMetadata(Map<String, String> metadata) throws IOException {
+        String value = metadata.get(METADATA_KEY);
+        return value == null ? null : parse(value);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Section s : SECTIONS) {
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(s.name().toLowerCase(java.util.Locale.ROOT)).append('=')
+                    .append(first(s)).append("..").append(last(s));
+        }
+        return sb.toString();
+    }
+}
@@ -5,15 +5,18 @@ import org.apache.parquet.hadoop.api.WriteSupport;
 import org.apache.parquet.io.api.Binary;
 import org.apache.parquet.io.api.RecordConsumer;
 import org.apache.parquet.schema.MessageType;
+import org.example.encodedTriplet.IdWidth;
 
 import java.util.HashMap;
 
 public class DictionaryWriteSupport extends WriteSupport<DictionaryEntry> {
     private final MessageType schema;
+    private final boolean wide;
     private RecordConsumer recordConsumer;
 
     public DictionaryWriteSupport(MessageType schema) {
         this.schema = schema;
+        this.wide = IdWidth.of(schema) == IdWidth.INT64;
     }
 
     @Override
@@ -31,7 +34,8 @@ public class DictionaryWriteSupport extends WriteSupport<DictionaryEntry> {
         recordConsumer.startMessage();
 
         recordConsumer.startField("id", 0);
-        recordConsumer.addInteger(entry.getId());
+        if (wide) recordConsumer.addLong(entry.getId());
+        else recordConsumer.addInteger(Math.toIntExact(entry.getId()));
         recordConsumer.endField("id", 0);
 
         recordConsumer.startField("value", 1);
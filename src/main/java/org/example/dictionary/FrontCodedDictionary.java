@@ -0,0 +1,388 @@
+package org.example.dictionary;
+
+import org.example.util.MappedFile;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Memory-mapped dictionary with plain front coding in buckets, as in HDT: terms are
+ * stored in UTF-8 byte order and a term's id is its rank in that order (plus one), so
+ * IRIs sharing a namespace are stored once per bucket instead of once per term.
+ *
+ * The terms may be split into consecutive sections (see {@link DictionarySections}),
+ * each sorted on its own, by term or by literal value ({@link Order}); buckets never
+ * span two sections.
+ *
+ * Each bucket of {@link #BUCKET_SIZE} terms starts with one full term (varint length
+ * plus bytes); every following term is a varint count of bytes shared with its
+ * predecessor, a varint suffix length and the suffix. A {@code long} offset per bucket
+ * locates it.
+ *
+ *  - {@code lookup(term)} binary searches the bucket header terms of each section, then
+ *    scans one bucket
+ *  - {@code decode(id)} jumps to the bucket holding rank {@code id - 1} and rebuilds at
+ *    most {@code BUCKET_SIZE - 1} terms
+ *
+ * Layout (little endian): a 64 byte header, per section its first rank, first bucket and
+ * order (plus an end marker), the bucket offsets (plus an end marker), the buckets. The loader
+ * writes it as {@code dictionary.pfc} when run with {@code --front-coded}, which also
+ * gives the terms their sorted ids.
+ */
+public class FrontCodedDictionary implements TermDictionary, Closeable {
+
+    static final long MAGIC = 0x3143465050464452L; // "RDFPPFC1"
+    static final int VERSION = 3;
+    private static final int SECTION_ENTRY_BYTES = 16;
+    static final int BUCKET_SIZE = 16;
+    private static final int HEADER_BYTES = Sidecars.HEADER_BYTES;
+
+    /**
+     * Order of the terms and their ids: UTF-8 byte order, which is code point order. It
+     * differs from {@link String#compareTo} only for characters outside the BMP.
+     */
+    public static final Comparator<String> TERM_ORDER = FrontCodedDictionary::compareCodePoints;
+
+    /** How the terms of a section are sorted. */
+    public enum Order {
+        /** {@link #TERM_ORDER}, compared on the encoded bytes. */
+        BYTES(null),
+        /** Numeric literals by value, see {@link LiteralOrder}. */
+        NUMERIC(DictionarySections.Section.NUMBERS),
+        /** xsd:dateTime literals by value, see {@link LiteralOrder}. */
+        DATETIME(DictionarySections.Section.DATETIMES);
+
+        private final DictionarySections.Section valueSection;
+
+        Order(DictionarySections.Section valueSection) {
+            this.valueSection = valueSection;
+        }
+
+        /** The order of the terms of {@code section}. */
+        public static Order of(DictionarySections.Section section) {
+            for (Order o : values()) if (o.valueSection == section) return o;
+            return BYTES;
+        }
+
+        Comparator<String> comparator() {
+            return valueSection == null ? TERM_ORDER : LiteralOrder.order(valueSection);
+        }
+    }
+
+    private final MappedFile file;
+    private final int count;
+    private final long bucketsAt;
+    private final int[] sectionRank;     // first rank per section, plus count
+    private final int[] sectionBucket;   // first bucket per section, plus the bucket count
+    private final Order[] sectionOrder;
+    private final ThreadLocal<byte[]> scratch;
+
+    private FrontCodedDictionary(MappedFile file) throws IOException {
+        if (file.size() < HEADER_BYTES || file.getLong(0) != MAGIC) {
+            throw new IOException("Not a front-coded dictionary file");
+        }
+        if (file.getInt(8) != VERSION) throw new IOException("Unsupported dictionary version " + file.getInt(8));
+        this.file = file;
+        this.count = file.getInt(12);
+        long sectionsAt = file.getLong(24);
+        this.bucketsAt = file.getLong(32);
+        int sections = file.getInt(40);
+        this.sectionRank = new int[sections + 1];
+        this.sectionBucket = new int[sections + 1];
+        this.sectionOrder = new Order[sections];
+        for (int i = 0; i <= sections; i++) {
+            long at = sectionsAt + (long) SECTION_ENTRY_BYTES * i;
+            sectionRank[i] = file.getInt(at);
+            sectionBucket[i] = file.getInt(at + 4);
+            if (i < sections) sectionOrder[i] = Order.values()[file.getInt(at + 8)];
+        }
+        int maxTermBytes = file.getInt(20);
+        this.scratch = ThreadLocal.withInitial(() -> new byte[maxTermBytes]);
+    }
+
+    /** Maps a file produced by {@link #write}. */
+    public static FrontCodedDictionary open(Path file) throws IOException {
+        MappedFile mapped = MappedFile.readOnly(file);
+        try {
+            return new FrontCodedDictionary(mapped);
+        } catch (IOException | RuntimeException e) {
+            mapped.close();
+            throw e;
+        }
+    }
+
+    /** Writes {@code sortedTerms} as a single section, see {@link #write(List, int[], Order[], Path, Path)}. */
+    public static void write(List<String> sortedTerms, Path source, Path out) throws IOException {
+        write(sortedTerms, new int[]{sortedTerms.size()}, new Order[]{Order.BYTES}, source, out);
+    }
+
+    /**
+     * Writes {@code terms}, which get ids 1..n in list order, to {@code out} via a
+     * temporary file and an atomic rename. The list is cut into consecutive sections of
+     * {@code sectionSizes} terms, each strictly ascending in its {@code orders} entry.
+     * With a {@code source}, the header records that {@code dictionary.parquet} so
+     * {@link #isSidecarOf} can tell whether the file is still current.
+     */
+    public static void write(List<String> terms, int[] sectionSizes, Order[] orders, Path source, Path out)
+            throws IOException {
+        if (orders.length != sectionSizes.length) throw new IllegalArgumentException("One order per section expected");
+        int count = terms.size();
+        int[] firstRank = new int[sectionSizes.length + 1];
+        int[] firstBucket = new int[sectionSizes.length + 1];
+        for (int i = 0; i < sectionSizes.length; i++) {
+            firstRank[i + 1] = firstRank[i] + sectionSizes[i];
+            firstBucket[i + 1] = firstBucket[i] + (sectionSizes[i] + BUCKET_SIZE - 1) / BUCKET_SIZE;
+        }
+        if (firstRank[sectionSizes.length] != count) {
+            throw new IllegalArgumentException("Section sizes add up to " + firstRank[sectionSizes.length]
+                    + ", not " + count + " terms");
+        }
+        int buckets = firstBucket[sectionSizes.length];
+        long[] offsets = new long[buckets + 1];
+        long sectionsAt = HEADER_BYTES;
+        long bucketsAt = sectionsAt + (long) SECTION_ENTRY_BYTES * firstRank.length;
+        long dataAt = bucketsAt + 8L * offsets.length;
+        int maxTermBytes = 0;
+
+        Path tmp = Files.createTempFile(out.toAbsolutePath().getParent(), "dictionary-", ".pfc.tmp");
+        try {
+            long end;
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ch.position(dataAt);
+                CountingOutputStream data = new CountingOutputStream(
+                        new BufferedOutputStream(Channels.newOutputStream(ch), 1 << 16), dataAt);
+                byte[] prev = null;
+                String prevTerm = null;
+                Iterator<String> it = terms.iterator();
+                int section = 0;
+                for (int rank = 0; it.hasNext(); rank++) {
+                    while (rank == firstRank[section + 1]) section++;
+                    int inSection = rank - firstRank[section];
+                    String value = it.next();
+                    byte[] term = value.getBytes(StandardCharsets.UTF_8);
+                    boolean ascending = inSection == 0 || (orders[section] == Order.BYTES
+                            ? Arrays.compareUnsigned(prev, term) < 0
+                            : orders[section].comparator().compare(prevTerm, value) < 0);
+                    if (!ascending) {
+                        throw new IllegalArgumentException("Terms are not strictly ascending at rank " + rank);
+                    }
+                    maxTermBytes = Math.max(maxTermBytes, term.length);
+                    if (inSection % BUCKET_SIZE == 0) {
+                        offsets[firstBucket[section] + inSection / BUCKET_SIZE] = data.position();
+                        writeVarint(data, term.length);
+                        data.write(term);
+                    } else {
+                        int shared = Arrays.mismatch(prev, term);
+                        writeVarint(data, shared);
+                        writeVarint(data, term.length - shared);
+                        data.write(term, shared, term.length - shared);
+                    }
+                    prev = term;
+                    prevTerm = value;
+                }
+                data.flush();
+                end = data.position();
+            }
+            offsets[buckets] = end;
+
+            try (MappedFile f = MappedFile.readWrite(tmp, end)) {
+                f.putLong(0, MAGIC);
+                f.putInt(8, VERSION);
+                f.putInt(12, count);
+                f.putInt(16, BUCKET_SIZE);
+                f.putInt(20, maxTermBytes);
+                f.putLong(24, sectionsAt);
+                f.putLong(32, bucketsAt);
+                f.putInt(40, sectionSizes.length);
+                if (source != null) Sidecars.stamp(f, source);
+                for (int i = 0; i < firstRank.length; i++) {
+                    long at = sectionsAt + (long) SECTION_ENTRY_BYTES * i;
+                    f.putInt(at, firstRank[i]);
+                    f.putInt(at + 4, firstBucket[i]);
+                    f.putInt(at + 8, i < orders.length ? orders[i].ordinal() : 0);
+                }
+                for (int b = 0; b < offsets.length; b++) f.putLong(bucketsAt + 8L * b, offsets[b]);
+                f.force();
+            }
+            Sidecars.replace(tmp, out);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /** True if {@code file} is a front-coded dictionary written for {@code source} as it is now. */
+    public static boolean isSidecarOf(Path file, Path source) {
+        return Sidecars.matches(file, source, MAGIC, VERSION);
+    }
+
+    @Override
+    public long lookup(String term) {
+        byte[] key = term.getBytes(StandardCharsets.UTF_8);
+        DictionarySections.Section valueSection = LiteralOrder.orderedSection(term);
+        for (int section = 0; section < sectionRank.length - 1; section++) {
+            Order order = sectionOrder[section];
+            if (order != Order.BYTES && order.valueSection != valueSection) continue;
+            long id = lookup(section, term, key);
+            if (id != NOT_FOUND) return id;
+        }
+        return NOT_FOUND;
+    }
+
+    private long lookup(int section, String term, byte[] key) {
+        int lo = sectionBucket[section], hi = sectionBucket[section + 1] - 1;
+        Order order = sectionOrder[section];
+        if (lo > hi || compareHeader(order, lo, term, key) > 0) return NOT_FOUND;
+
+        // last bucket whose first term is <= key
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (compareHeader(order, mid, term, key) <= 0) lo = mid;
+            else hi = mid - 1;
+        }
+
+        byte[] buf = scratch.get();
+        long[] pos = {bucketOffset(lo)};
+        int len = readVarint(pos);
+        file.get(pos[0], buf, 0, len);
+        pos[0] += len;
+        int rank = sectionRank[section] + (lo - sectionBucket[section]) * BUCKET_SIZE;
+        int last = Math.min(sectionRank[section + 1], rank + BUCKET_SIZE) - 1;
+        while (true) {
+            int c = order == Order.BYTES
+                    ? Arrays.compareUnsigned(buf, 0, len, key, 0, key.length)
+                    : order.comparator().compare(new String(buf, 0, len, StandardCharsets.UTF_8), term);
+            if (c == 0) return rank + 1;
+            if (c > 0 || rank == last) return NOT_FOUND;
+            len = next(pos, buf);
+            rank++;
+        }
+    }
+
+    @Override
+    public String decode(long id) {
+        if (id <= 0 || id > count) return null;
+        int rank = (int) id - 1;
+        int section = 0;
+        while (rank >= sectionRank[section + 1]) section++;
+        int inSection = rank - sectionRank[section];
+
+        byte[] buf = scratch.get();
+        long[] pos = {bucketOffset(sectionBucket[section] + inSection / BUCKET_SIZE)};
+        int len = readVarint(pos);
+        file.get(pos[0], buf, 0, len);
+        pos[0] += len;
+        for (int k = inSection % BUCKET_SIZE; k > 0; k--) len = next(pos, buf);
+        return new String(buf, 0, len, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public long size() {
+        return count;
+    }
+
+    /** Bytes used by the mapped file. */
+    public long sizeInBytes() {
+        return file.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    // ---------- internals ----------
+
+    private long bucketOffset(int bucket) {
+        return file.getLong(bucketsAt + 8L * bucket);
+    }
+
+    /** Rebuilds the next term of a bucket in {@code buf} on top of the previous one; returns its length. */
+    private int next(long[] pos, byte[] buf) {
+        int shared = readVarint(pos);
+        int suffix = readVarint(pos);
+        file.get(pos[0], buf, shared, suffix);
+        pos[0] += suffix;
+        return shared + suffix;
+    }
+
+    /** Compares the first term of {@code bucket} with the key; in place, unsigned bytewise, for {@link Order#BYTES}. */
+    private int compareHeader(Order order, int bucket, String term, byte[] key) {
+        long[] pos = {bucketOffset(bucket)};
+        int len = readVarint(pos);
+        if (order != Order.BYTES) {
+            byte[] header = new byte[len];
+            file.get(pos[0], header, 0, len);
+            return order.comparator().compare(new String(header, StandardCharsets.UTF_8), term);
+        }
+        int n = Math.min(len, key.length);
+        for (int i = 0; i < n; i++) {
+            int c = Integer.compare(file.get(pos[0] + i) & 0xFF, key[i] & 0xFF);
+            if (c != 0) return c;
+        }
+        return Integer.compare(len, key.length);
+    }
+
+    private int readVarint(long[] pos) {
+        int v = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = file.get(pos[0]++);
+            v |= (b & 0x7F) << shift;
+            if (b >= 0) return v;
+        }
+    }
+
+    private static void writeVarint(OutputStream out, int v) throws IOException {
+        while ((v & ~0x7F) != 0) {
+            out.write((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.write(v);
+    }
+
+    static int compareCodePoints(String a, String b) {
+        int n = Math.min(a.length(), b.length());
+        for (int i = 0; i < n; i++) {
+            char x = a.charAt(i), y = b.charAt(i);
+            if (x != y) {
+                // surrogates encode code points above every other BMP character
+                boolean sx = Character.isSurrogate(x), sy = Character.isSurrogate(y);
+                if (sx != sy) return sx ? 1 : -1;
+                return x - y;
+            }
+        }
+        return a.length() - b.length();
+    }
+
+    /** Tracks the file position of a stream that starts writing at {@code start}. */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long position;
+
+        CountingOutputStream(OutputStream out, long start) {
+            super(out);
+            this.position = start;
+        }
+
+        long position() { return position; }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            position++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            position += len;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package org.example.dictionary;
+
+import org.example.encodedTriplet.IdWidth;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+
+/**
+ * Small typed literals carried in the id itself instead of the dictionary. With
+ * {@code --inline} the loader never enters them into the dictionary, and decoding
+ * them is bit arithmetic, not a lookup.
+ *
+ * An inline id has bit 30 set (so it is positive and above every dictionary id), a
+ * 3-bit type in bits 27..29 and a 27-bit payload stored with a bias of 2^26, so ids
+ * of one type compare like their values:
+ *
+ *  - xsd:integer in [-2^26, 2^26), canonical form only ({@code 42}, not {@code +42} or {@code 042})
+ *  - xsd:boolean {@code true} / {@code false}
+ *  - xsd:date as {@code yyyy-MM-dd} without timezone, as the day since 1970-01-01
+ *
+ * Only canonical lexical forms are inlined, so {@link #decode} gives back the exact
+ * term the loader saw; other forms stay in the dictionary. Dictionary ids must stay
+ * below the tag: {@link #TAG} in {@link IdWidth#INT32} stores, and in
+ * {@link IdWidth#INT64} ones {@link #WIDE_TAG}, with the same type and payload bits
+ * below it. The dictionary's metadata records which of the two the ids carry.
+ */
+public final class InlineValues {
+
+    /** Bit marking an inline id. */
+    public static final int TAG = 1 << 30;
+    /** Bit marking an inline id in a store of {@link IdWidth#INT64} ids. */
+    public static final long WIDE_TAG = 1L << 62;
+    /** Returned by {@link #encode} for terms that cannot be inlined. */
+    public static final int NONE = 0;
+
+    static final String METADATA_KEY = "rdfparquet.inline";
+    // metadata values: INT32 stores keep the value written before 64-bit ids could inline
+    private static final String NARROW = "true", WIDE = "int64";
+
+    private static final int INTEGER = 0, BOOLEAN = 1, DATE = 2;
+    private static final int TYPE_SHIFT = 27;
+    private static final int PAYLOAD_MASK = (1 << TYPE_SHIFT) - 1;
+    private static final int BIAS = 1 << 26;
+    private static final long MIN_VALUE = -BIAS, MAX_VALUE = BIAS - 1;
+
+    private static final String[] TYPE_NAMES = {"integer", "boolean", "date"};
+    private static final String[] SUFFIXES = new String[TYPE_NAMES.length];
+    static {
+        for (int i = 0; i < TYPE_NAMES.length; i++) SUFFIXES[i] = "\"^^" + LiteralOrder.XSD + TYPE_NAMES[i];
+    }
+
+    private InlineValues() {}
+
+    public static boolean isInline(long id) {
+        return id >= TAG && id <= Integer.MAX_VALUE;
+    }
+
+    /** Whether {@code id} is an inline id of a store of {@code width} ids. */
+    public static boolean isInline(long id, IdWidth width) {
+        return width == IdWidth.INT64 ? id >= WIDE_TAG : isInline(id);
+    }
+
+    /** Inline id of {@code term} in a store of {@code width} ids, or {@link #NONE}. */
+    public static long encode(String term, IdWidth width) {
+        int id = encode(term);
+        return id == NONE ? NONE : widen(id, width);
+    }
+
+    /** Inline id of {@code term}, or {@link #NONE}. */
+    public static int encode(String term) {
+        if (term.isEmpty() || term.charAt(0) != '"') return NONE;
+        for (int type = 0; type < SUFFIXES.length; type++) {
+            if (!term.endsWith(SUFFIXES[type])) continue;
+            String lexical = term.substring(1, term.length() - SUFFIXES[type].length());
+            long value = valueOf(type, lexical);
+            return value < MIN_VALUE || value > MAX_VALUE ? NONE : id(type, value);
+        }
+        return NONE;
+    }
+
+    /** The term of an inline id, as the loader saw it. */
+    public static String decode(long id) {
+        return "\"" + lexicalForm(id) + SUFFIXES[type(id)];
+    }
+
+    /** Lexical form of an inline id, e.g. {@code 42} for {@code "42"^^xsd:integer}. */
+    public static String lexicalForm(long id) {
+        long value = (id & PAYLOAD_MASK) - BIAS;
+        switch (type(id)) {
+            case INTEGER: return Long.toString(value);
+            case BOOLEAN: return value != 0 ? "true" : "false";
+            default: return LocalDate.ofEpochDay(value).toString();
+        }
+    }
+
+    /**
+     * Inline xsd:integer ids whose value satisfies {@code ?x op literal}, as {@code [first, last]}
+     * (empty if {@code first > last}), or null if {@code literal} is not numeric.
+     */
+    public static long[] integerRange(String op, String literal) {
+        return integerRange(op, literal, IdWidth.INT32);
+    }
+
+    /** {@link #integerRange(String, String)} for a store of {@code width} ids. */
+    public static long[] integerRange(String op, String literal, IdWidth width) {
+        BigDecimal bound = LiteralOrder.numericValue(literal);
+        if (bound == null) return null;
+        BigDecimal floor = bound.setScale(0, RoundingMode.FLOOR), ceil = bound.setScale(0, RoundingMode.CEILING);
+        long lo = MIN_VALUE, hi = MAX_VALUE;
+        switch (op) {
+            case ">":  lo = clamp(floor.add(BigDecimal.ONE)); break;
+            case ">=": lo = clamp(ceil); break;
+            case "<":  hi = clamp(ceil.subtract(BigDecimal.ONE)); break;
+            case "<=": hi = clamp(floor); break;
+            case "=":
+                if (floor.compareTo(ceil) != 0) return new long[]{1, 0};
+                lo = hi = clamp(floor);
+                break;
+            default: throw new IllegalArgumentException("Unsupported comparison: " + op);
+        }
+        lo = Math.max(lo, MIN_VALUE);
+        hi = Math.min(hi, MAX_VALUE);
+        if (lo > hi) return new long[]{1, 0};
+        return new long[]{widen(id(INTEGER, lo), width), widen(id(INTEGER, hi), width)};
+    }
+
+    /** {@code dictionary} with inline ids looked up and decoded without touching it. */
+    public static TermDictionary over(TermDictionary dictionary) {
+        return over(dictionary, IdWidth.INT32);
+    }
+
+    /** {@link #over(TermDictionary)} for a store of {@code width} ids. */
+    public static TermDictionary over(TermDictionary dictionary, IdWidth width) {
+        return new Inlining(dictionary, width);
+    }
+
+    /** Dictionary metadata value recording that ids of {@code width} may be inline. */
+    static String metadataValue(IdWidth width) {
+        return width == IdWidth.INT64 ? WIDE : NARROW;
+    }
+
+    /** Width the inline ids of a dictionary with {@code metadata} are tagged for, or null if none are inline. */
+    static IdWidth widthOf(Map<String, String> metadata) {
+        String value = metadata.get(METADATA_KEY);
+        if (value == null) return null;
+        return value.equals(WIDE) ? IdWidth.INT64 : IdWidth.INT32;
+    }
+
+    // ---------- internals ----------
+
+    private static int id(int type, long value) {
+        return TAG | type << TYPE_SHIFT | (int) (value + BIAS);
+    }
+
+    /** {@code id} moved from {@link #TAG} under the tag of {@code width}. */
+    private static long widen(int id, IdWidth width) {
+        return width == IdWidth.INT64 ? id - TAG + WIDE_TAG : id;
+    }
+
+    private static int type(long id) {
+        return (int) (id >>> TYPE_SHIFT) & 7;
+    }
+
+    /** Value of a canonical lexical form, or {@code Long.MIN_VALUE} for anything else. */
+    private static long valueOf(int type, String lexical) {
+        switch (type) {
+            case INTEGER: {
+                if (lexical.isEmpty() || lexical.length() > 9) return Long.MIN_VALUE;
+                try {
+                    long v = Long.parseLong(lexical);
+                    return Long.toString(v).equals(lexical) ? v : Long.MIN_VALUE;
+                } catch (NumberFormatException e) {
+                    return Long.MIN_VALUE;
+                }
+            }
+            case BOOLEAN:
+                return lexical.equals("true") ? 1 : lexical.equals("false") ? 0 : Long.MIN_VALUE;
+            default: {
+                if (lexical.length() != 10) return Long.MIN_VALUE;
+                try {
+                    LocalDate d = LocalDate.parse(lexical);
+                    return d.toString().equals(lexical) ? d.toEpochDay() : Long.MIN_VALUE;
+                } catch (DateTimeParseException e) {
+                    return Long.MIN_VALUE;
+                }
+            }
+        }
+    }
+
+    /** {@code v}, or one past the inlinable range on the side it is out of. */
+    private static long clamp(BigDecimal v) {
+        if (v.compareTo(BigDecimal.valueOf(MIN_VALUE)) < 0) return MIN_VALUE - 1;
+        if (v.compareTo(BigDecimal.valueOf(MAX_VALUE)) > 0) return MAX_VALUE + 1;
+        return v.longValueExact();
+    }
+
+    private static final class Inlining implements TermDictionary {
+        private final TermDictionary dictionary;
+        private final IdWidth width;
+
+        Inlining(TermDictionary dictionary, IdWidth width) {
+            this.dictionary = dictionary;
+            this.width = width;
+        }
+
+        @Override
+        public long lookup(String term) {
+            long id = encode(term, width);
+            return id != NONE ? id : dictionary.lookup(term);
+        }
+
+        @Override
+        public String decode(long id) {
+            return isInline(id, width) ? InlineValues.decode(id) : dictionary.decode(id);
+        }
+
+        @Override
+        public long size() {
+            return dictionary.size();
+        }
+    }
+}
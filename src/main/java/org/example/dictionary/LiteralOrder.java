@@ -0,0 +1,180 @@
+package org.example.dictionary;
+
+import org.example.dictionary.DictionarySections.Section;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Value order of typed literals, for the value-ordered {@link Section#NUMBERS} and
+ * {@link Section#DATETIMES} sections of a sectioned dictionary.
+ *
+ * Terms use the loader's form, {@code "lexical"^^datatypeIRI}. Numeric literals
+ * (xsd:integer, xsd:decimal, xsd:double and their derived types) compare by numeric value;
+ * xsd:dateTime literals by instant, with a missing timezone read as UTC. Ties, such as
+ * {@code "1"} and {@code "1.0"}, are broken by {@link FrontCodedDictionary#TERM_ORDER}.
+ * Lexical forms that do not parse, and NaN / INF, are not ordered and stay plain literals.
+ *
+ * Within those sections ids follow this order, so a FILTER range on values is a range of
+ * ids ({@link #idRange}) that can be pushed into the Parquet scans.
+ */
+public final class LiteralOrder {
+
+    public static final String XSD = "http://www.w3.org/2001/XMLSchema#";
+
+    private static final Set<String> NUMERIC_TYPES = Set.of(
+            "integer", "decimal", "double", "float", "long", "int", "short", "byte",
+            "nonNegativeInteger", "positiveInteger", "nonPositiveInteger", "negativeInteger",
+            "unsignedLong", "unsignedInt", "unsignedShort", "unsignedByte");
+    private static final Set<String> DATETIME_TYPES = Set.of("dateTime", "dateTimeStamp");
+
+    private static final Comparator<String> NUMERIC_ORDER =
+            Comparator.comparing(LiteralOrder::numericValue).thenComparing(FrontCodedDictionary.TERM_ORDER);
+    private static final Comparator<String> DATETIME_ORDER =
+            Comparator.comparing(LiteralOrder::dateTimeValue).thenComparing(FrontCodedDictionary.TERM_ORDER);
+
+    private LiteralOrder() {}
+
+    /** {@link Section#NUMBERS} or {@link Section#DATETIMES} for a literal with an ordered value, else null. */
+    public static Section orderedSection(String term) {
+        if (numericValue(term) != null) return Section.NUMBERS;
+        if (dateTimeValue(term) != null) return Section.DATETIMES;
+        return null;
+    }
+
+    /** Order of the terms of an ordered section, or null for any other section. */
+    public static Comparator<String> order(Section section) {
+        switch (section) {
+            case NUMBERS: return NUMERIC_ORDER;
+            case DATETIMES: return DATETIME_ORDER;
+            default: return null;
+        }
+    }
+
+    public static BigDecimal numericValue(String term) {
+        String lexical = lexicalForm(term, NUMERIC_TYPES);
+        if (lexical == null) return null;
+        try {
+            return new BigDecimal(lexical.trim());
+        } catch (NumberFormatException e) {
+            return null;   // NaN, INF, or not a number at all
+        }
+    }
+
+    public static Instant dateTimeValue(String term) {
+        String lexical = lexicalForm(term, DATETIME_TYPES);
+        if (lexical == null) return null;
+        String v = lexical.trim();
+        try {
+            return OffsetDateTime.parse(v).toInstant();
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDateTime.parse(v).toInstant(ZoneOffset.UTC);
+            } catch (DateTimeParseException e2) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Sorts the entries of an ordered section by value. Values are parsed once per entry,
+     * not per comparison.
+     */
+    static void sortByValue(List<DictionaryEntry> entries, Section section) {
+        int n = entries.size();
+        Comparable<?>[] keys = new Comparable<?>[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            String term = entries.get(i).getValue();
+            keys[i] = section == Section.NUMBERS ? numericValue(term) : dateTimeValue(term);
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            @SuppressWarnings("unchecked")
+            int c = ((Comparable<Object>) keys[a]).compareTo(keys[b]);
+            return c != 0 ? c : FrontCodedDictionary.TERM_ORDER.compare(entries.get(a).getValue(), entries.get(b).getValue());
+        });
+        List<DictionaryEntry> sorted = new ArrayList<>(n);
+        for (Integer i : order) sorted.add(entries.get(i));
+        for (int i = 0; i < n; i++) entries.set(i, sorted.get(i));
+    }
+
+    /**
+     * True if {@code term} compares to {@code literal} as {@code op} ({@code <, <=, >, >=, =})
+     * demands. Literals of different kinds, or without an ordered value, never match.
+     */
+    public static boolean matches(String term, String op, String literal) {
+        Section section = orderedSection(literal);
+        if (term == null || section == null || orderedSection(term) != section) return false;
+        int c = section == Section.NUMBERS
+                ? numericValue(term).compareTo(numericValue(literal))
+                : dateTimeValue(term).compareTo(dateTimeValue(literal));
+        return test(c, op);
+    }
+
+    /**
+     * Ids of the terms that satisfy {@code ?x op literal}, as {@code [first, last]}, found by
+     * binary search over the value-ordered section of {@code literal}'s kind. Empty ranges
+     * have {@code first > last}.
+     */
+    public static long[] idRange(TermDictionary dictionary, DictionarySections sections, String op, String literal) {
+        Section section = orderedSection(literal);
+        if (section == null) throw new IllegalArgumentException("Not a numeric or xsd:dateTime literal: " + literal);
+        int first = sections.first(section), last = sections.last(section);
+        switch (op) {
+            case ">":  return new long[]{firstAbove(dictionary, section, first, last, literal, true), last};
+            case ">=": return new long[]{firstAbove(dictionary, section, first, last, literal, false), last};
+            case "<":  return new long[]{first, firstAbove(dictionary, section, first, last, literal, false) - 1};
+            case "<=": return new long[]{first, firstAbove(dictionary, section, first, last, literal, true) - 1};
+            case "=":  return new long[]{firstAbove(dictionary, section, first, last, literal, false),
+                    firstAbove(dictionary, section, first, last, literal, true) - 1};
+            default: throw new IllegalArgumentException("Unsupported comparison: " + op);
+        }
+    }
+
+    // ---------- internals ----------
+
+    /** First id in [first, last] whose value is above (strict) or at least {@code literal}'s; last + 1 if none. */
+    private static int firstAbove(TermDictionary dictionary, Section section, int first, int last,
+                                  String literal, boolean strict) {
+        Comparable<Object> bound = value(section, literal);
+        int lo = first, hi = last + 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = bound.compareTo(value(section, dictionary.decode(mid)));
+            if (c > 0 || (strict && c == 0)) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> value(Section section, String term) {
+        return (Comparable<Object>) (Comparable<?>) (section == Section.NUMBERS ? numericValue(term) : dateTimeValue(term));
+    }
+
+    private static boolean test(int c, String op) {
+        switch (op) {
+            case "<":  return c < 0;
+            case "<=": return c <= 0;
+            case ">":  return c > 0;
+            case ">=": return c >= 0;
+            case "=":  return c == 0;
+            default: throw new IllegalArgumentException("Unsupported comparison: " + op);
+        }
+    }
+
+    /** Lexical form of a {@code "..."^^xsd:type} term whose type is in {@code types}, else null. */
+    private static String lexicalForm(String term, Set<String> types) {
+        if (term == null || !term.startsWith("\"")) return null;
+        int sep = term.lastIndexOf("\"^^");
+        if (sep <= 0 || !term.startsWith(XSD, sep + 3)) return null;
+        if (!types.contains(term.substring(sep + 3 + XSD.length()))) return null;
+        return term.substring(1, sep);
+    }
+}
@@ -0,0 +1,307 @@
+package org.example.dictionary;
+
+import org.example.encodedTriplet.FileLayout;
+import org.example.encodedTriplet.IdWidth;
+import org.example.encodedTriplet.Permutation;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Tunables for {@link MainDictionary}. Defaults come from {@code rdfparquet.loader.*}
+ * system properties and can be overridden with {@code --name=value} command line flags.
+ */
+public class LoaderOptions {
+
+    private boolean streaming;
+    private long memoryBudgetBytes;
+    private Path tmpDir;
+    private int parseThreads;
+    private long chunkSizeBytes;
+    private int decompressThreads;
+    private boolean frontCoded;
+    private boolean sectioned;
+    private boolean inline;
+    private IdWidth idWidth;
+    private boolean append;
+    private boolean delete;
+    private boolean compact;
+    private boolean vertical;
+    private int partitions;
+    // per permutation, by ordinal
+    private final long[] rowGroupSizes = new long[Permutation.values().length];
+    private final int[] pageSizes = new int[Permutation.values().length];
+    private final int[] pageRows = new int[Permutation.values().length];
+    private FileLayout.Encoding encoding;
+
+    public LoaderOptions() {
+        this.streaming = false;
+        this.memoryBudgetBytes = Runtime.getRuntime().maxMemory() / 4;
+        this.tmpDir = Paths.get(System.getProperty("java.io.tmpdir"));
+        this.parseThreads = 1;
+        this.chunkSizeBytes = 64L << 20;
+        this.decompressThreads = Runtime.getRuntime().availableProcessors();
+        this.frontCoded = false;
+        this.sectioned = false;
+        this.inline = false;
+        this.idWidth = IdWidth.INT32;
+        this.append = false;
+        this.delete = false;
+        this.compact = false;
+        this.vertical = false;
+        this.partitions = 1;
+        Arrays.fill(rowGroupSizes, FileLayout.DEFAULT.rowGroupSize());
+        Arrays.fill(pageSizes, FileLayout.DEFAULT.pageSize());
+        Arrays.fill(pageRows, FileLayout.DEFAULT.pageRows());
+        this.encoding = FileLayout.DEFAULT.encoding();
+    }
+
+    public static LoaderOptions fromSystemProperties() {
+        LoaderOptions o = new LoaderOptions();
+        String v;
+        if ((v = System.getProperty("rdfparquet.loader.streaming")) != null) o.setStreaming(Boolean.parseBoolean(v));
+        if ((v = System.getProperty("rdfparquet.loader.memoryBudget")) != null) o.setMemoryBudgetBytes(parseSize(v));
+        if ((v = System.getProperty("rdfparquet.loader.tmpDir")) != null) o.setTmpDir(Paths.get(v));
+        if ((v = System.getProperty("rdfparquet.loader.parseThreads")) != null) o.setParseThreads(parseInt("parseThreads", v));
+        if ((v = System.getProperty("rdfparquet.loader.chunkSize")) != null) o.setChunkSizeBytes(parseSize(v));
+        if ((v = System.getProperty("rdfparquet.loader.decompressThreads")) != null) o.setDecompressThreads(parseInt("decompressThreads", v));
+        if ((v = System.getProperty("rdfparquet.loader.frontCoded")) != null) o.setFrontCoded(Boolean.parseBoolean(v));
+        if ((v = System.getProperty("rdfparquet.loader.sectioned")) != null) o.setSectioned(Boolean.parseBoolean(v));
+        if ((v = System.getProperty("rdfparquet.loader.inline")) != null) o.setInline(Boolean.parseBoolean(v));
+        if ((v = System.getProperty("rdfparquet.loader.wideIds")) != null) o.setWideIds(Boolean.parseBoolean(v));
+        if ((v = System.getProperty("rdfparquet.loader.append")) != null) o.setAppend(Boolean.parseBoolean(v));
+        if ((v = System.getProperty("rdfparquet.loader.delete")) != null) o.setDelete(Boolean.parseBoolean(v));
+        if ((v = System.getProperty("rdfparquet.loader.compact")) != null) o.setCompact(Boolean.parseBoolean(v));
+        if ((v = System.getProperty("rdfparquet.loader.vertical")) != null) o.setVertical(Boolean.parseBoolean(v));
+        if ((v = System.getProperty("rdfparquet.loader.partitions")) != null) o.setPartitions(parseInt("partitions", v));
+        if ((v = System.getProperty("rdfparquet.loader.rowGroupSize")) != null) o.setRowGroupSizes(v);
+        if ((v = System.getProperty("rdfparquet.loader.pageSize")) != null) o.setPageSizes(v);
+        if ((v = System.getProperty("rdfparquet.loader.pageRows")) != null) o.setPageRows(v);
+        if ((v = System.getProperty("rdfparquet.loader.encoding")) != null) o.setEncoding(parseEncoding(v));
+        return o;
+    }
+
+    /** Applies {@code --flag} / {@code --flag=value} arguments on top of the current values. */
+    public LoaderOptions applyArgs(String[] args) {
+        for (String arg : args) {
+            if (!arg.startsWith("--")) throw new IllegalArgumentException("Unexpected argument: " + arg);
+            int eq = arg.indexOf('=');
+            String name = eq < 0 ? arg.substring(2) : arg.substring(2, eq);
+            String value = eq < 0 ? null : arg.substring(eq + 1);
+            switch (name) {
+                case "streaming": setStreaming(value == null || Boolean.parseBoolean(value)); break;
+                case "memory-budget": setMemoryBudgetBytes(parseSize(require(name, value))); break;
+                case "tmp-dir": setTmpDir(Paths.get(require(name, value))); break;
+                case "parse-threads": setParseThreads(parseInt(name, require(name, value))); break;
+                case "chunk-size": setChunkSizeBytes(parseSize(require(name, value))); break;
+                case "decompress-threads": setDecompressThreads(parseInt(name, require(name, value))); break;
+                case "front-coded": setFrontCoded(value == null || Boolean.parseBoolean(value)); break;
+                case "sectioned": setSectioned(value == null || Boolean.parseBoolean(value)); break;
+                case "inline": setInline(value == null || Boolean.parseBoolean(value)); break;
+                case "wide-ids": setWideIds(value == null || Boolean.parseBoolean(value)); break;
+                case "append": setAppend(value == null || Boolean.parseBoolean(value)); break;
+                case "delete": setDelete(value == null || Boolean.parseBoolean(value)); break;
+                case "compact": setCompact(value == null || Boolean.parseBoolean(value)); break;
+                case "vertical": setVertical(value == null || Boolean.parseBoolean(value)); break;
+                case "partitions": setPartitions(parseInt(name, require(name, value))); break;
+                case "row-group-size": setRowGroupSizes(require(name, value)); break;
+                case "page-size": setPageSizes(require(name, value)); break;
+                case "page-rows": setPageRows(require(name, value)); break;
+                case "encoding": setEncoding(parseEncoding(require(name, value))); break;
+                default: throw new IllegalArgumentException("Unknown option: --" + name);
+            }
+        }
+        return this;
+    }
+
+    public boolean isStreaming() { return streaming; }
+    public void setStreaming(boolean streaming) { this.streaming = streaming; }
+
+    /** Heap budget for buffered triples; larger inputs are spilled to sorted runs in {@link #getTmpDir()}. */
+    public long getMemoryBudgetBytes() { return memoryBudgetBytes; }
+    public void setMemoryBudgetBytes(long memoryBudgetBytes) {
+        if (memoryBudgetBytes <= 0) throw new IllegalArgumentException("Memory budget must be positive");
+        this.memoryBudgetBytes = memoryBudgetBytes;
+    }
+
+    public Path getTmpDir() { return tmpDir; }
+    public void setTmpDir(Path tmpDir) { this.tmpDir = tmpDir; }
+
+    /** Parser threads; above 1 inputs are parsed in parallel by a {@link ParallelRdfEncoder}. 0 means one per core. */
+    public int getParseThreads() { return parseThreads; }
+    public void setParseThreads(int parseThreads) {
+        if (parseThreads < 0) throw new IllegalArgumentException("Parse threads must not be negative");
+        this.parseThreads = parseThreads == 0 ? Runtime.getRuntime().availableProcessors() : parseThreads;
+    }
+
+    /** Target size of the line-aligned chunks large N-Triples files are cut into for parallel parsing. */
+    public long getChunkSizeBytes() { return chunkSizeBytes; }
+    public void setChunkSizeBytes(long chunkSizeBytes) {
+        if (chunkSizeBytes <= 0) throw new IllegalArgumentException("Chunk size must be positive");
+        this.chunkSizeBytes = chunkSizeBytes;
+    }
+
+    /** Threads for block-parallel decoding of compressed input; 0 means one per core. */
+    public int getDecompressThreads() { return decompressThreads; }
+    public void setDecompressThreads(int decompressThreads) {
+        if (decompressThreads < 0) throw new IllegalArgumentException("Decompress threads must not be negative");
+        this.decompressThreads = decompressThreads == 0 ? Runtime.getRuntime().availableProcessors() : decompressThreads;
+    }
+
+    /** Renumber terms in sorted order and write the front-coded {@code dictionary.pfc} for the server. */
+    public boolean isFrontCoded() { return frontCoded; }
+    public void setFrontCoded(boolean frontCoded) { this.frontCoded = frontCoded; }
+
+    /** Give predicates, subjects, objects and literals their own id ranges, see {@link DictionarySections}. */
+    public boolean isSectioned() { return sectioned; }
+    public void setSectioned(boolean sectioned) { this.sectioned = sectioned; }
+
+    /** Carry small integers, booleans and dates in the id itself, see {@link InlineValues}. */
+    public boolean isInline() { return inline; }
+    public void setInline(boolean inline) { this.inline = inline; }
+
+    /** Physical type of the id columns written; {@link IdWidth#INT32} unless {@code --wide-ids}. */
+    public IdWidth getIdWidth() { return idWidth; }
+    public void setWideIds(boolean wideIds) { this.idWidth = wideIds ? IdWidth.INT64 : IdWidth.INT32; }
+
+    /** Add the input to the existing store as delta files instead of replacing it, see {@link MainDictionary#processAppend}. */
+    public boolean isAppend() { return append; }
+    public void setAppend(boolean append) { this.append = append; }
+
+    /** Remove the input's triples from the existing store with a tombstone file, see {@link MainDictionary#processDelete}. */
+    public boolean isDelete() { return delete; }
+    public void setDelete(boolean delete) { this.delete = delete; }
+
+    /** Fold delta and tombstone files into the base permutation files once the load is done. */
+    public boolean isCompact() { return compact; }
+    public void setCompact(boolean compact) { this.compact = compact; }
+
+    /** Also write per-predicate (subject, object) files, see {@link org.example.encodedTriplet.VerticalPartitions}. */
+    public boolean isVertical() { return vertical; }
+    public void setVertical(boolean vertical) { this.vertical = vertical; }
+
+    /** Files per permutation, cut by leading key; 1 writes single files, see {@link org.example.encodedTriplet.PermutationPartitions}. */
+    public int getPartitions() { return partitions; }
+    public void setPartitions(int partitions) {
+        if (partitions < 1) throw new IllegalArgumentException("Partitions must be at least 1");
+        this.partitions = partitions;
+    }
+
+    /**
+     * Row group and page sizes of the permutation files written for {@code perm}; see
+     * {@link FileLayout}. Point lookups on a permutation get cheaper with smaller sizes.
+     */
+    public FileLayout getLayout(Permutation perm) {
+        int i = perm.ordinal();
+        return FileLayout.of(rowGroupSizes[i], pageSizes[i], pageRows[i]).withEncoding(encoding);
+    }
+
+    /** Column encoding of the permutation files, {@link FileLayout.Encoding#SORTED} unless {@code --encoding=dictionary}. */
+    public FileLayout.Encoding getEncoding() { return encoding; }
+    public void setEncoding(FileLayout.Encoding encoding) { this.encoding = encoding; }
+
+    public void setRowGroupSize(Permutation perm, long bytes) {
+        if (bytes <= 0) throw new IllegalArgumentException("Row group size must be positive");
+        rowGroupSizes[perm.ordinal()] = bytes;
+    }
+
+    public void setPageSize(Permutation perm, int bytes) {
+        if (bytes <= 0) throw new IllegalArgumentException("Page size must be positive");
+        pageSizes[perm.ordinal()] = bytes;
+    }
+
+    public void setPageRows(Permutation perm, int rows) {
+        if (rows <= 0) throw new IllegalArgumentException("Page rows must be positive");
+        pageRows[perm.ordinal()] = rows;
+    }
+
+    /** {@code 8m} for every permutation, {@code 128m,spo=8m,pso=16m} with overrides. */
+    public void setRowGroupSizes(String spec) {
+        perPermutation("row-group-size", spec, (perm, v) -> setRowGroupSize(perm, v), true);
+    }
+
+    /** {@code 64k} for every permutation, {@code 1m,spo=64k} with overrides. */
+    public void setPageSizes(String spec) {
+        perPermutation("page-size", spec, (perm, v) -> setPageSize(perm, toInt("page-size", v)), true);
+    }
+
+    /** {@code 2000} for every permutation, {@code 20000,spo=2000} with overrides. */
+    public void setPageRows(String spec) {
+        perPermutation("page-rows", spec, (perm, v) -> setPageRows(perm, toInt("page-rows", v)), false);
+    }
+
+    // ---------- helpers ----------
+
+    /**
+     * Applies a {@code VALUE[,perm=VALUE...]} spec: a leading value without a permutation
+     * name sets all six, the named ones then override it.
+     */
+    private static void perPermutation(String name, String spec, ObjLongConsumer<Permutation> set, boolean size) {
+        for (String item : spec.split(",")) {
+            String v = item.trim();
+            if (v.isEmpty()) throw new IllegalArgumentException("Invalid value for " + name + ": " + spec);
+            int eq = v.indexOf('=');
+            if (eq < 0) {
+                long value = size ? parseSize(v) : parseInt(name, v);
+                for (Permutation perm : Permutation.values()) set.accept(perm, value);
+                continue;
+            }
+            Permutation perm;
+            try {
+                perm = Permutation.valueOf(v.substring(0, eq).trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown permutation in " + name + ": " + v);
+            }
+            String value = v.substring(eq + 1);
+            set.accept(perm, size ? parseSize(value) : parseInt(name, value));
+        }
+    }
+
+    private static FileLayout.Encoding parseEncoding(String value) {
+        try {
+            return FileLayout.Encoding.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid value for encoding: " + value + " (sorted or dictionary)");
+        }
+    }
+
+    private static int toInt(String name, long value) {
+        if (value > Integer.MAX_VALUE) throw new IllegalArgumentException("Value too large for " + name + ": " + value);
+        return (int) value;
+    }
+
+    private static String require(String name, String value) {
+        if (value == null || value.isBlank()) throw new IllegalArgumentException("Missing value for --" + name);
+        return value;
+    }
+
+    private static int parseInt(String name, String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + name + ": " + value);
+        }
+    }
+
+    /** Parses sizes such as {@code 536870912}, {@code 512m} or {@code 4g}. */
+    static long parseSize(String s) {
+        String v = s.trim().toLowerCase(Locale.ROOT);
+        long mul = 1;
+        char last = v.isEmpty() ? ' ' : v.charAt(v.length() - 1);
+        switch (last) {
+            case 'k': mul = 1L << 10; break;
+            case 'm': mul = 1L << 20; break;
+            case 'g': mul = 1L << 30; break;
+            default: break;
+        }
+        if (mul != 1) v = v.substring(0, v.length() - 1);
+        try {
+            return Long.parseLong(v) * mul;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid size: " + s);
+        }
+    }
+}
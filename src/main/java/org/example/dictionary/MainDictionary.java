@@ -3,65 +3,109 @@ package org.example.dictionary;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.hadoop.ParquetReader;
 import org.apache.parquet.hadoop.ParquetWriter;
 import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 import org.apache.parquet.schema.MessageType;
-import org.apache.parquet.schema.MessageTypeParser;
 import org.example.RdfReader;
 import org.example.Triplet;
+import org.example.encodedTriplet.DeltaCompactor;
+import org.example.encodedTriplet.DeltaFiles;
 import org.example.encodedTriplet.EncodedTriplet;
 import org.example.encodedTriplet.EncodedTripletParquetWriter;
+import org.example.encodedTriplet.ExternalTripleSorter;
+import org.example.encodedTriplet.FileLayout;
+import org.example.encodedTriplet.IdWidth;
+import org.example.encodedTriplet.Permutation;
+import org.example.encodedTriplet.PermutationIndexBuilder;
+import org.example.encodedTriplet.PermutationPartitions;
+import org.example.encodedTriplet.Tombstones;
+import org.example.encodedTriplet.TripleBuffer;
+import org.example.encodedTriplet.TripleConsumer;
+import org.example.encodedTriplet.VerticalPartitions;
+import org.example.util.CompressedInput;
 import org.example.util.DataPaths;
+import org.example.util.ParquetFiles;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 import java.util.concurrent.Future;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 
 public class MainDictionary {
 
     private static final List<String> SUPPORTED_EXT = Arrays.asList(".nt", ".ttl", ".rdf");
     private static final String DEFAULT_OUTPUT_DIR = DataPaths.baseDir();
+    private static final int STREAMING_EXPECTED_TERMS = 1 << 16;
+    // the encoded buffer (reused for the last leading key), two working copies and
+    // the radix sort scratch for each of them, three ids a triple
+    private static final long IN_MEMORY_IDS_PER_TRIPLE = 6 * 3;
 
     public static class Config {
         private final String baseOutputDir;
         private final FileSystem fileSystem;
         private final Configuration hadoopConfig;
+        private final LoaderOptions options;
 
         public Config(String baseOutputDir, FileSystem fileSystem, Configuration hadoopConfig) {
+            this(baseOutputDir, fileSystem, hadoopConfig, LoaderOptions.fromSystemProperties());
+        }
+
+        public Config(String baseOutputDir, FileSystem fileSystem, Configuration hadoopConfig, LoaderOptions options) {
             this.baseOutputDir = baseOutputDir;
             this.fileSystem = fileSystem;
             this.hadoopConfig = hadoopConfig;
+            this.options = options;
         }
 
         public String getBaseOutputDir() { return baseOutputDir; }
         public FileSystem getFileSystem() { return fileSystem; }
         public Configuration getHadoopConfig() { return hadoopConfig; }
+        public LoaderOptions getOptions() { return options; }
 
         public static Config defaultConfig() throws IOException {
+            return defaultConfig(LoaderOptions.fromSystemProperties());
+        }
+
+        public static Config defaultConfig(LoaderOptions options) throws IOException {
             Configuration conf = new Configuration();
-            return new Config(DEFAULT_OUTPUT_DIR, FileSystem.get(conf), conf);
+            return new Config(DEFAULT_OUTPUT_DIR, FileSystem.get(conf), conf, options);
         }
     }
 
     public static class ProcessingResults {
-        private final int distinctTriples;
-        private final int distinctTerms;
+        private final long distinctTriples;
+        private final long distinctTerms;
         private final Map<String, String> outputFiles;
+        private final long peakBufferedBytes;
 
-        public ProcessingResults(int distinctTriples, int distinctTerms, Map<String, String> outputFiles) {
+        public ProcessingResults(long distinctTriples, long distinctTerms, Map<String, String> outputFiles) {
+            this(distinctTriples, distinctTerms, outputFiles, 0);
+        }
+
+        public ProcessingResults(long distinctTriples, long distinctTerms, Map<String, String> outputFiles,
+                                 long peakBufferedBytes) {
             this.distinctTriples = distinctTriples;
             this.distinctTerms = distinctTerms;
             this.outputFiles = new HashMap<>(outputFiles);
+            this.peakBufferedBytes = peakBufferedBytes;
         }
 
-        public int getDistinctTriples() { return distinctTriples; }
-        public int getDistinctTerms() { return distinctTerms; }
+        public long getDistinctTriples() { return distinctTriples; }
+        public long getDistinctTerms() { return distinctTerms; }
         public Map<String, String> getOutputFiles() { return Collections.unmodifiableMap(outputFiles); }
+        /** Streaming loads: most heap the external sorters held at once, in bytes; 0 otherwise. */
+        public long getPeakBufferedBytes() { return peakBufferedBytes; }
     }
 
     private final Config config;
+    // id ranges assigned by the last renumberDictionary call, if sectioned
+    private DictionarySections sections;
 
     public MainDictionary(Config config) {
         this.config = config;
@@ -71,17 +115,67 @@ public class MainDictionary {
         this(Config.defaultConfig());
     }
 
+    /**
+     * Loads {@code rdfFilePath}, which may also be a directory of RDF files or a glob
+     * such as {@code data/*.nt}; all matching files go into one store.
+     */
     public ProcessingResults processRdfFile(String rdfFilePath) throws Exception {
-        validateFileExtension(rdfFilePath);
+        for (String input : RdfReader.resolveInputs(rdfFilePath)) validateFileExtension(input);
 
         DataPaths.ensureParquetDir();
         File parquetDir = DataPaths.parquetDir().toFile();
 
         Map<String, String> outputFiles = createOutputFilePaths(parquetDir);
+        sections = null;
 
         System.out.println("[Loader] dataDir=" + DataPaths.baseDir());
         outputFiles.forEach((k, v) -> System.out.println("  " + k + " -> " + v));
 
+        ProcessingResults results = load(rdfFilePath, parquetDir, outputFiles);
+        LoaderOptions options = config.getOptions();
+        if (!options.isAppend() && !options.isDelete()) {
+            if (options.getPartitions() > 1) {
+                System.out.println("Splitting permutations into " + options.getPartitions() + " partitions...");
+                for (Permutation perm : Permutation.values()) {
+                    PermutationPartitions.split(new File(parquetDir, perm.fileName()).toPath(), perm, options.getPartitions());
+                }
+            }
+            // a full load; appends and deletes leave the vertical partitions to the compactor
+            if (options.isVertical()) {
+                System.out.println("Writing vertical partitions...");
+                System.out.println("Partitioned " + VerticalPartitions.build(parquetDir.toPath()) + " predicates");
+            } else {
+                VerticalPartitions.delete(parquetDir.toPath());
+            }
+        }
+        if (options.isCompact()) {
+            System.out.println("Compacting delta files...");
+            System.out.println("Folded " + DeltaCompactor.compact(parquetDir.toPath()) + " delta and tombstone files");
+        }
+        return results;
+    }
+
+    private ProcessingResults load(String rdfFilePath, File parquetDir, Map<String, String> outputFiles) throws Exception {
+        if (config.getOptions().isDelete()) {
+            if (config.getOptions().isAppend()) throw new IllegalArgumentException("--delete and --append exclude each other");
+            if (!new File(outputFiles.get("dictionary")).exists() || !new File(outputFiles.get("spo")).exists()) {
+                throw new IllegalStateException("--delete needs an existing store in " + parquetDir);
+            }
+            return processDelete(rdfFilePath, parquetDir, outputFiles);
+        }
+        if (config.getOptions().isAppend()) {
+            if (new File(outputFiles.get("dictionary")).exists() && new File(outputFiles.get("spo")).exists()) {
+                return processAppend(rdfFilePath, parquetDir, outputFiles);
+            }
+            System.out.println("[Loader] no store to append to, loading from scratch");
+        }
+        if (config.getOptions().isStreaming()) {
+            return processStreaming(rdfFilePath, parquetDir, outputFiles);
+        }
+        if (config.getOptions().getParseThreads() > 1) {
+            return processParallel(rdfFilePath, parquetDir, outputFiles);
+        }
+
         System.out.println("Loading RDF data...");
         List<Triplet> triplets = loadRdfData(rdfFilePath);
         System.out.println("Loaded " + triplets.size() + " triplets");
@@ -97,9 +191,13 @@ public class MainDictionary {
         System.out.println("Building dictionary...");
         DictionaryEncoder encoder = DictionaryEncoder.getInstance();
         encoder.init(terms.size());
+        encoder.setInlineValues(config.getOptions().isInline());
+        encoder.setIdWidth(config.getOptions().getIdWidth());
 
         System.out.println("Encoding triplets...");
-        List<EncodedTriplet> encodedTriplets = encodeTriples(uniqueTriplets, encoder);
+        TripleBuffer encodedTriplets = encodeTriples(uniqueTriplets, encoder);
+        int[] remap = renumberDictionary(encoder, rolesOf(encodedTriplets));
+        if (remap != null) encodedTriplets.remap(remap);
 
         System.out.println("Writing parquet files...");
         writeParquetFiles(encodedTriplets, parquetDir);
@@ -112,10 +210,237 @@ public class MainDictionary {
         );
     }
 
+    /**
+     * Bounded-memory variant of {@link #processRdfFile}: terms are encoded as the parser
+     * delivers triples, and the encoded triples go through an {@link ExternalTripleSorter}
+     * that spills sorted runs once the configured memory budget is used up and drops
+     * duplicates while merging them back.
+     *
+     * That sorter and the {@link PermutationIndexBuilder} fed by its merge hold buffers at
+     * the same time, so each gets half of the budget.
+     */
+    protected ProcessingResults processStreaming(String rdfFilePath, File parquetDir,
+                                                 Map<String, String> outputFiles) throws Exception {
+        LoaderOptions options = config.getOptions();
+        System.out.println("[Loader] streaming memoryBudget=" + options.getMemoryBudgetBytes()
+                + " tmpDir=" + options.getTmpDir());
+
+        DictionaryEncoder encoder = DictionaryEncoder.getInstance();
+        IdWidth width = options.getIdWidth();
+        encoder.init(STREAMING_EXPECTED_TERMS);
+        encoder.setInlineValues(options.isInline());
+        encoder.setIdWidth(width);
+
+        deletePermutationFiles(parquetDir);
+
+        long distinctTriples;
+        long peakBytes;
+        long half = options.getMemoryBudgetBytes() / 2;
+        try (ExternalTripleSorter sorter = new ExternalTripleSorter(Permutation.SPO, width, half, options.getTmpDir())) {
+
+            System.out.println("Streaming and encoding RDF data...");
+            TermRoles roles = options.isSectioned() ? new TermRoles(width) : null;
+            encodeRdfData(rdfFilePath, encoder, roles == null ? sorter::add : (s, p, o) -> {
+                roles.accept(s, p, o);
+                sorter.add(s, p, o);
+            });
+            System.out.println("Loaded " + sorter.size() + " triplets in " + sorter.runCount() + " spilled runs");
+            int[] remap = renumberDictionary(encoder, roles);
+
+            System.out.println("Merging runs and deduplicating...");
+            // the dedup merge is SPO ordered: spo.parquet is written as it goes, the
+            // other five permutations are spilled for their own external sort. Renumbered
+            // ids are no longer in SPO order, so then SPO gets a sorter too.
+            try (PermutationIndexBuilder indexes = new PermutationIndexBuilder(
+                    perm -> new File(parquetDir, perm.fileName()), width.tripleSchema(),
+                    options::getLayout, half, options.getTmpDir(), remap == null)) {
+                distinctTriples = remap == null
+                        ? sorter.mergeDistinct(indexes::add)
+                        : sorter.mergeDistinct((s, p, o) -> indexes.add(
+                                TripleBuffer.remap(remap, s), TripleBuffer.remap(remap, p), TripleBuffer.remap(remap, o)));
+                System.out.println("Unique triplets: " + distinctTriples);
+
+                System.out.println("Writing parquet files...");
+                indexes.write(writerThreads());
+                peakBytes = sorter.peakBytes() + indexes.peakBytes();
+            }
+        }
+        System.out.println("Unique terms: " + encoder.size() + ", peak buffered bytes: " + peakBytes);
+        writeDictionaryParquet(encoder, outputFiles.get("dictionary"));
+
+        return new ProcessingResults(
+                distinctTriples,
+                encoder.size(),
+                outputFiles,
+                peakBytes
+        );
+    }
+
+    /**
+     * In-memory load with the inputs parsed and encoded by a {@link ParallelRdfEncoder};
+     * duplicates are dropped by sorting the encoded triples instead of hashing strings.
+     */
+    protected ProcessingResults processParallel(String rdfFilePath, File parquetDir,
+                                                Map<String, String> outputFiles) throws Exception {
+        DictionaryEncoder encoder = DictionaryEncoder.getInstance();
+        encoder.init(STREAMING_EXPECTED_TERMS);
+        encoder.setInlineValues(config.getOptions().isInline());
+        encoder.setIdWidth(config.getOptions().getIdWidth());
+
+        System.out.println("Loading and encoding RDF data...");
+        TripleBuffer encoded = TripleBuffer.create(encoder.getIdWidth(), 1 << 10);
+        encodeRdfData(rdfFilePath, encoder, encoded::add);
+        System.out.println("Loaded " + encoded.size() + " triplets");
+
+        System.out.println("Deduplicating triplets...");
+        encoded.sort(Permutation.SPO);
+        int distinctTriples = encoded.distinct();
+        System.out.println("Unique triplets: " + distinctTriples);
+        System.out.println("Unique terms: " + encoder.size());
+        int[] remap = renumberDictionary(encoder, rolesOf(encoded));
+        if (remap != null) encoded.remap(remap);
+
+        System.out.println("Writing parquet files...");
+        writeParquetFiles(encoded, parquetDir);
+        writeDictionaryParquet(encoder, outputFiles.get("dictionary"));
+
+        return new ProcessingResults(
+                distinctTriples,
+                encoder.size(),
+                outputFiles
+        );
+    }
+
+    /**
+     * {@code --append}: adds the triples of {@code rdfFilePath} to the existing store
+     * without rewriting its permutation files. The dictionary is read back and extended
+     * (new terms get ids after the existing ones) and rewritten; the new triples go to
+     * one batch of {@link DeltaFiles}, which scans merge with the base files until
+     * {@link DeltaCompactor} folds them in.
+     *
+     * The store keeps its id width and inlining. Sectioned and front-coded stores keep ids
+     * in an order new terms cannot be fitted into, so they need a full reload.
+     */
+    protected ProcessingResults processAppend(String rdfFilePath, File parquetDir,
+                                              Map<String, String> outputFiles) throws Exception {
+        LoaderOptions options = config.getOptions();
+        String dictPath = outputFiles.get("dictionary");
+        Map<String, String> metadata = DictionaryParquetReader.keyValueMetadata(dictPath);
+        boolean frontCodedStore = new File(parquetDir, DictionaryLoader.FRONT_CODED_NAME).exists();
+        if (DictionarySections.fromMetadata(metadata) != null || frontCodedStore
+                || options.isSectioned() || options.isFrontCoded()) {
+            throw new IllegalStateException(
+                    "--append needs a store loaded without --sectioned and --front-coded; reload it instead");
+        }
+        IdWidth width = IdWidth.read(outputFiles.get("spo"));
+        IdWidth inlineWidth = InlineValues.widthOf(metadata);
+        boolean inline = inlineWidth != null;
+        if (inline && inlineWidth != width) {
+            throw new IllegalStateException("--append needs inline ids tagged for the store's " + width + " ids; reload it instead");
+        }
+
+        System.out.println("Reading dictionary to extend...");
+        DictionaryEncoder encoder = DictionaryEncoder.getInstance();
+        encoder.loadFrom(DictionaryParquetReader.readEntries(dictPath));
+        encoder.setInlineValues(inline);
+        encoder.setIdWidth(width);
+        long knownTerms = encoder.size();
+
+        System.out.println("Loading and encoding RDF data...");
+        TripleBuffer encoded = TripleBuffer.create(width, 1 << 10);
+        encodeRdfData(rdfFilePath, encoder, encoded::add);
+        encoded.sort(Permutation.SPO);
+        int distinctTriples = encoded.distinct();
+        System.out.println("Appending " + distinctTriples + " triplets, " + (encoder.size() - knownTerms) + " new terms");
+
+        // dictionary first, so every id in a visible delta decodes
+        writeDictionaryParquet(encoder, dictPath, width, inline);
+
+        // written under temporary names and renamed together at the end
+        java.nio.file.Path dir = parquetDir.toPath();
+        int sequence = DeltaFiles.nextSequence(dir);
+        Map<String, String> files = new HashMap<>(outputFiles);
+        System.out.println("Writing delta " + sequence + "...");
+        // deltas are cut like the base files they are merged into
+        Map<Permutation, FileLayout> layouts = new EnumMap<>(Permutation.class);
+        for (Permutation perm : Permutation.values()) layouts.put(perm, FileLayout.read(dir.resolve(perm.fileName())));
+        writeParquetFiles(encoded, perm -> new File(DeltaFiles.path(dir, perm, sequence) + ".tmp"), width, layouts::get);
+        for (Permutation perm : Permutation.values()) {
+            java.nio.file.Path delta = DeltaFiles.path(dir, perm, sequence);
+            ParquetFiles.replace(java.nio.file.Paths.get(delta + ".tmp"), delta);
+            files.put(perm.stem() + "Delta", delta.toString());
+        }
+
+        return new ProcessingResults(
+                distinctTriples,
+                encoder.size(),
+                files
+        );
+    }
+
+    /**
+     * {@code --delete}: removes the triples of {@code rdfFilePath} from the existing store
+     * by writing one {@link Tombstones} file; scans stop returning them at once, and
+     * {@link DeltaCompactor} removes them from the permutation files. The dictionary is
+     * only read, for the ids of the input's terms; a triple with a term it does not know
+     * is not in the store and is skipped. Terms stay in the dictionary.
+     */
+    protected ProcessingResults processDelete(String rdfFilePath, File parquetDir,
+                                              Map<String, String> outputFiles) throws Exception {
+        String dictPath = outputFiles.get("dictionary");
+        IdWidth inlineWidth = InlineValues.widthOf(DictionaryParquetReader.keyValueMetadata(dictPath));
+        IdWidth width = IdWidth.read(outputFiles.get("spo"));
+
+        System.out.println("Loading RDF data to delete...");
+        List<Triplet> triplets = loadRdfData(rdfFilePath);
+        Map<String, Long> ids = new HashMap<>();
+        for (Triplet t : triplets) {
+            for (String term : new String[]{t.getSubject(), t.getPredicate(), t.getObject()}) {
+                long inlined = inlineWidth != null ? InlineValues.encode(term, inlineWidth) : InlineValues.NONE;
+                ids.put(term, inlined != InlineValues.NONE ? inlined : TermDictionary.NOT_FOUND);
+            }
+        }
+
+        // one pass over the dictionary, keeping the ids of the input's terms only
+        int terms = 0;
+        try (ParquetReader<DictionaryEntry> reader = DictionaryParquetReader.create(new Path(dictPath), FilterCompat.NOOP)) {
+            DictionaryEntry entry;
+            while ((entry = reader.read()) != null) {
+                ids.replace(entry.getValue(), entry.getId());
+                terms++;
+            }
+        }
+
+        List<EncodedTriplet> deleted = new ArrayList<>(triplets.size());
+        for (Triplet t : triplets) {
+            long s = ids.get(t.getSubject()), p = ids.get(t.getPredicate()), o = ids.get(t.getObject());
+            if (s == TermDictionary.NOT_FOUND || p == TermDictionary.NOT_FOUND || o == TermDictionary.NOT_FOUND) continue;
+            deleted.add(new EncodedTriplet(s, p, o));
+        }
+        System.out.println((triplets.size() - deleted.size()) + " input triplets have terms the store does not know");
+
+        Map<String, String> files = new HashMap<>(outputFiles);
+        int distinctTriples = 0;
+        if (!deleted.isEmpty()) {
+            java.nio.file.Path dir = parquetDir.toPath();
+            int sequence = DeltaFiles.nextSequence(dir);
+            distinctTriples = Tombstones.write(dir, sequence, deleted, width);
+            files.put("tombstones", Tombstones.path(dir, sequence).toString());
+            System.out.println("Deleted " + distinctTriples + " triplets as tombstone " + sequence);
+        }
+
+        return new ProcessingResults(
+                distinctTriples,
+                terms,
+                files
+        );
+    }
+
     protected void validateFileExtension(String rdfFilePath) {
-        int dot = rdfFilePath.lastIndexOf('.');
+        String name = CompressedInput.stripCodecSuffix(rdfFilePath);
+        int dot = name.lastIndexOf('.');
         if (dot < 0) throw new IllegalArgumentException("File has no extension: " + rdfFilePath);
-        String ext = rdfFilePath.substring(dot).toLowerCase();
+        String ext = name.substring(dot).toLowerCase();
         if (!SUPPORTED_EXT.contains(ext)) {
             throw new IllegalArgumentException("Unsupported file type '" + ext + "'.");
         }
@@ -123,10 +448,38 @@ public class MainDictionary {
 
     protected List<Triplet> loadRdfData(String rdfFilePath) throws Exception {
         List<Triplet> triplets = new ArrayList<>();
-        RdfReader.streamRdf(rdfFilePath, triplets::add);
+        streamRdfData(rdfFilePath, triplets::add);
         return triplets;
     }
 
+    protected void streamRdfData(String rdfFilePath, Consumer<Triplet> sink) throws Exception {
+        for (String input : RdfReader.resolveInputs(rdfFilePath)) {
+            RdfReader.streamRdf(input, config.getOptions().getDecompressThreads(), sink);
+        }
+    }
+
+    /**
+     * Parses the input and passes each triple to {@code out} encoded against
+     * {@code encoder}: on the calling thread, or on {@code parseThreads} threads.
+     */
+    protected void encodeRdfData(String rdfFilePath, DictionaryEncoder encoder, TripleConsumer out) throws Exception {
+        LoaderOptions options = config.getOptions();
+        if (options.getParseThreads() > 1) {
+            new ParallelRdfEncoder(options.getParseThreads(), options.getChunkSizeBytes())
+                    .encode(RdfReader.resolveInputs(rdfFilePath), encoder, out);
+            return;
+        }
+        streamRdfData(rdfFilePath, t -> {
+            try {
+                out.accept(encoder.encode(t.getSubject()),
+                        encoder.encode(t.getPredicate()),
+                        encoder.encode(t.getObject()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
     protected List<Triplet> deduplicateTriples(List<Triplet> triplets) {
         return new ArrayList<>(new LinkedHashSet<>(triplets));
     }
@@ -141,18 +494,148 @@ public class MainDictionary {
         return terms;
     }
 
-    protected List<EncodedTriplet> encodeTriples(List<Triplet> triplets, DictionaryEncoder encoder) {
-        return triplets.stream()
-                .map(t -> new EncodedTriplet(
-                        encoder.encode(t.getSubject()),
-                        encoder.encode(t.getPredicate()),
-                        encoder.encode(t.getObject())))
-                .collect(Collectors.toList());
+    /** Triples per chunk of {@link #encodeTriples}. */
+    private static final int ENCODE_CHUNK = 1 << 16;
+
+    /**
+     * Encodes on all cores; {@code triplets} should be random access. As in
+     * {@link ParallelRdfEncoder}, each chunk numbers its terms locally, then the chunks'
+     * terms are encoded in input order on the calling thread, so ids are the ones a
+     * sequential pass would hand out, whatever the thread interleaving.
+     */
+    protected TripleBuffer encodeTriples(List<Triplet> triplets, DictionaryEncoder encoder) {
+        int n = triplets.size();
+        int[] s = new int[n], p = new int[n], o = new int[n];
+        int chunks = (n + ENCODE_CHUNK - 1) / ENCODE_CHUNK;
+        List<List<String>> localTerms = new ArrayList<>(Collections.nCopies(chunks, null));
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            Map<String, Integer> ids = new HashMap<>();
+            List<String> terms = new ArrayList<>();
+            for (int i = c * ENCODE_CHUNK, end = Math.min(n, i + ENCODE_CHUNK); i < end; i++) {
+                Triplet t = triplets.get(i);
+                s[i] = localId(t.getSubject(), ids, terms);
+                p[i] = localId(t.getPredicate(), ids, terms);
+                o[i] = localId(t.getObject(), ids, terms);
+            }
+            localTerms.set(c, terms);
+        });
+        long[][] global = new long[chunks][];
+        for (int c = 0; c < chunks; c++) {
+            List<String> terms = localTerms.get(c);
+            global[c] = new long[terms.size()];
+            for (int i = 0; i < global[c].length; i++) global[c][i] = encoder.encode(terms.get(i));
+        }
+        if (encoder.getIdWidth() == IdWidth.INT32) {
+            // the encoder keeps INT32 ids below 2^31: the local id columns take the global ids
+            IntStream.range(0, chunks).parallel().forEach(c -> {
+                long[] g = global[c];
+                for (int i = c * ENCODE_CHUNK, end = Math.min(n, i + ENCODE_CHUNK); i < end; i++) {
+                    s[i] = (int) g[s[i]];
+                    p[i] = (int) g[p[i]];
+                    o[i] = (int) g[o[i]];
+                }
+            });
+            return TripleBuffer.wrap(s, p, o, n);
+        }
+        long[] ws = new long[n], wp = new long[n], wo = new long[n];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            long[] g = global[c];
+            for (int i = c * ENCODE_CHUNK, end = Math.min(n, i + ENCODE_CHUNK); i < end; i++) {
+                ws[i] = g[s[i]];
+                wp[i] = g[p[i]];
+                wo[i] = g[o[i]];
+            }
+        });
+        return TripleBuffer.wrap(ws, wp, wo, n);
+    }
+
+    private static int localId(String term, Map<String, Integer> ids, List<String> terms) {
+        Integer id = ids.get(term);
+        if (id == null) {
+            id = terms.size();
+            ids.put(term, id);
+            terms.add(term);
+        }
+        return id;
+    }
+
+    /** Roles of every term in {@code triples} when loading {@code --sectioned}, else null. */
+    private TermRoles rolesOf(TripleBuffer triples) throws IOException {
+        if (!config.getOptions().isSectioned()) return null;
+        TermRoles roles = new TermRoles(triples.width());
+        triples.forEach(roles);
+        return roles;
+    }
+
+    /**
+     * Reassigns ids once all triples are encoded, and reloads {@code encoder} with them:
+     *
+     *  - with {@code roles} ({@code --sectioned}), terms are grouped into the id ranges
+     *    of {@link DictionarySections}, recorded for {@link #writeDictionaryParquet}
+     *  - with {@code --front-coded}, ids follow {@link FrontCodedDictionary#TERM_ORDER}
+     *    (within each section); otherwise the encoding order is kept
+     *  - in the numeric and xsd:dateTime literal sections ids always follow the literal
+     *    values ({@link LiteralOrder}), so FILTER ranges are id ranges
+     *
+     * Returns the old to new id table for the already encoded triples, or null if ids
+     * stay as encoded.
+     */
+    protected int[] renumberDictionary(DictionaryEncoder encoder, TermRoles roles) {
+        boolean frontCoded = config.getOptions().isFrontCoded();
+        if (!frontCoded && roles == null) return null;
+        System.out.println("Renumbering dictionary" + (roles != null ? " into sections" : "")
+                + (frontCoded ? " in term order" : "") + "...");
+
+        List<DictionaryEntry> entries = encoder.getEntries();
+        // every term is on the heap, so ids stay below 2^31 whatever the store's width
+        int maxId = 0;
+        for (DictionaryEntry e : entries) maxId = Math.max(maxId, Math.toIntExact(e.getId()));
+        byte[] sectionOf = new byte[maxId + 1];
+        int[] counts = new int[DictionarySections.Section.values().length];
+        if (roles != null) {
+            for (DictionaryEntry e : entries) {
+                DictionarySections.Section s = DictionarySections.classify(e.getValue(), roles.get((int) e.getId()));
+                sectionOf[(int) e.getId()] = (byte) s.ordinal();
+                counts[s.ordinal()]++;
+            }
+        }
+        Comparator<DictionaryEntry> order = Comparator.comparingInt(e -> sectionOf[(int) e.getId()]);
+        order = frontCoded
+                ? order.thenComparing(DictionaryEntry::getValue, FrontCodedDictionary.TERM_ORDER)
+                : order.thenComparingLong(DictionaryEntry::getId);
+        entries.sort(order);
+        if (roles != null) {
+            int from = 0;
+            for (DictionarySections.Section section : DictionarySections.Section.values()) {
+                int to = from + counts[section.ordinal()];
+                if (LiteralOrder.order(section) != null) LiteralOrder.sortByValue(entries.subList(from, to), section);
+                from = to;
+            }
+        }
+
+        int[] remap = new int[maxId + 1];
+        List<DictionaryEntry> renumbered = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            DictionaryEntry e = entries.get(i);
+            remap[(int) e.getId()] = i + 1;
+            renumbered.add(new DictionaryEntry(i + 1, e.getValue()));
+        }
+        encoder.loadFrom(renumbered);
+        if (roles != null) {
+            sections = DictionarySections.of(counts);
+            System.out.println("Sections: " + sections);
+        }
+        return remap;
     }
 
     private Map<String, String> createOutputFilePaths(File parquetDir) {
         Map<String, String> paths = new HashMap<>();
         paths.put("dictionary", new File(parquetDir, "dictionary.parquet").getPath());
+        if (config.getOptions().isFrontCoded()) {
+            paths.put("dictionaryFrontCoded", new File(parquetDir, DictionaryLoader.FRONT_CODED_NAME).getPath());
+        } else {
+            paths.put("dictionaryMmap", new File(parquetDir, DictionaryLoader.SIDECAR_NAME).getPath());
+        }
         paths.put("spo", new File(parquetDir, "spo.parquet").getPath());
         paths.put("sop", new File(parquetDir, "sop.parquet").getPath());
         paths.put("pso", new File(parquetDir, "pso.parquet").getPath());
@@ -162,97 +645,50 @@ public class MainDictionary {
         return paths;
     }
 
-    private void writeParquetFiles(List<EncodedTriplet> encoded, File parquetDir) throws IOException {
-        MessageType schema = MessageTypeParser.parseMessageType(
-                "message EncodedTriplet { required int32 subject; required int32 predicate; required int32 object; }"
-        );
+    private void writeParquetFiles(TripleBuffer encoded, File parquetDir) throws IOException {
+        deletePermutationFiles(parquetDir);
+        LoaderOptions options = config.getOptions();
+        writeParquetFiles(encoded, perm -> new File(parquetDir, perm.fileName()), encoded.width(), options::getLayout);
+    }
 
-        // Output paths
-        String spoPath = new File(parquetDir, "spo.parquet").getPath();
-        String sopPath = new File(parquetDir, "sop.parquet").getPath();
-        String psoPath = new File(parquetDir, "pso.parquet").getPath();
-        String posPath = new File(parquetDir, "pos.parquet").getPath();
-        String ospPath = new File(parquetDir, "osp.parquet").getPath();
-        String opsPath = new File(parquetDir, "ops.parquet").getPath();
-
-        deleteIfExists(spoPath);
-        deleteIfExists(sopPath);
-        deleteIfExists(psoPath);
-        deleteIfExists(posPath);
-        deleteIfExists(ospPath);
-        deleteIfExists(opsPath);
-
-        final EncodedTriplet[] base = encoded.toArray(new EncodedTriplet[0]);
-        final int n = base.length;
-
-        record TaskSpec(String name, java.util.function.IntBinaryOperator cmp, String out) {}
-
-        List<TaskSpec> tasks = List.of(
-                new TaskSpec("SPO", (i, j) -> {
-                    int c = Integer.compare(base[i].getSubject(), base[j].getSubject());
-                    if (c != 0) return c;
-                    c = Integer.compare(base[i].getPredicate(), base[j].getPredicate());
-                    if (c != 0) return c;
-                    return Integer.compare(base[i].getObject(), base[j].getObject());
-                }, spoPath),
-                new TaskSpec("SOP", (i, j) -> {
-                    int c = Integer.compare(base[i].getSubject(), base[j].getSubject());
-                    if (c != 0) return c;
-                    c = Integer.compare(base[i].getObject(), base[j].getObject());
-                    if (c != 0) return c;
-                    return Integer.compare(base[i].getPredicate(), base[j].getPredicate());
-                }, sopPath),
-                new TaskSpec("PSO", (i, j) -> {
-                    int c = Integer.compare(base[i].getPredicate(), base[j].getPredicate());
-                    if (c != 0) return c;
-                    c = Integer.compare(base[i].getSubject(), base[j].getSubject());
-                    if (c != 0) return c;
-                    return Integer.compare(base[i].getObject(), base[j].getObject());
-                }, psoPath),
-                new TaskSpec("POS", (i, j) -> {
-                    int c = Integer.compare(base[i].getPredicate(), base[j].getPredicate());
-                    if (c != 0) return c;
-                    c = Integer.compare(base[i].getObject(), base[j].getObject());
-                    if (c != 0) return c;
-                    return Integer.compare(base[i].getSubject(), base[j].getSubject());
-                }, posPath),
-                new TaskSpec("OSP", (i, j) -> {
-                    int c = Integer.compare(base[i].getObject(), base[j].getObject());
-                    if (c != 0) return c;
-                    c = Integer.compare(base[i].getSubject(), base[j].getSubject());
-                    if (c != 0) return c;
-                    return Integer.compare(base[i].getPredicate(), base[j].getPredicate());
-                }, ospPath),
-                new TaskSpec("OPS", (i, j) -> {
-                    int c = Integer.compare(base[i].getObject(), base[j].getObject());
-                    if (c != 0) return c;
-                    c = Integer.compare(base[i].getPredicate(), base[j].getPredicate());
-                    if (c != 0) return c;
-                    return Integer.compare(base[i].getSubject(), base[j].getSubject());
-                }, opsPath)
-        );
+    /** Writes each permutation of {@code encoded} to the file {@code output} names. */
+    private void writeParquetFiles(TripleBuffer encoded, Function<Permutation, File> output, IdWidth width,
+                                   Function<Permutation, FileLayout> layouts) throws IOException {
+        LoaderOptions options = config.getOptions();
+        if ((long) encoded.size() * IN_MEMORY_IDS_PER_TRIPLE * encoded.width().bytes() > options.getMemoryBudgetBytes()) {
+            System.out.println("[Loader] " + encoded.size() + " triplets exceed memoryBudget="
+                    + options.getMemoryBudgetBytes() + ", using external sort");
+            try (PermutationIndexBuilder indexes = new PermutationIndexBuilder(
+                    output, width.tripleSchema(), layouts, options.getMemoryBudgetBytes(), options.getTmpDir(), false)) {
+                encoded.forEach(indexes::add);
+                indexes.write(writerThreads());
+            }
+            return;
+        }
 
-        // Auto-pick threads
-        int threads = Math.min(tasks.size(), Math.max(2, Runtime.getRuntime().availableProcessors()));
-        System.out.println("[Loader] writerThreads=" + threads);
+        // Permutations sharing a leading key share one working copy: after the full sort
+        // for the first, the second only needs each leading-key run re-sorted.
+        List<Permutation[]> pairs = List.of(
+                new Permutation[]{Permutation.SPO, Permutation.SOP},
+                new Permutation[]{Permutation.PSO, Permutation.POS},
+                new Permutation[]{Permutation.OSP, Permutation.OPS}
+        );
 
+        int threads = Math.min(pairs.size(), writerThreads());
         var pool = java.util.concurrent.Executors.newFixedThreadPool(threads);
         try {
             List<Future<?>> futures = new ArrayList<>();
-            for (TaskSpec t : tasks) {
+            for (int i = 0; i < pairs.size(); i++) {
+                Permutation[] pair = pairs.get(i);
+                TripleBuffer work = (i == pairs.size() - 1) ? encoded : encoded.copy();
                 futures.add(pool.submit(() -> {
-                    System.out.println("Writing " + t.name() + " sorted parquet...");
-
-                    int[] idx = new int[n];
-                    for (int i = 0; i < n; i++) idx[i] = i;
-                    sortIndex(idx, t.cmp());
-
-                    try (ParquetWriter<EncodedTriplet> writer = EncodedTripletParquetWriter.create(
-                            new Path(t.out()), schema, CompressionCodecName.SNAPPY)) {
-                        for (int k = 0; k < n; k++) {
-                            writer.write(base[idx[k]]);
-                        }
-                    }
+                    System.out.println("Writing " + pair[0] + " sorted parquet...");
+                    work.sort(pair[0]);
+                    writePermutation(work, pair[0], output.apply(pair[0]), width, layouts.apply(pair[0]));
+
+                    System.out.println("Writing " + pair[1] + " sorted parquet...");
+                    work.sortWithinLeadingKey(pair[1]);
+                    writePermutation(work, pair[1], output.apply(pair[1]), width, layouts.apply(pair[1]));
                     return null;
                 }));
             }
@@ -270,20 +706,86 @@ public class MainDictionary {
         }
     }
 
+    private static void writePermutation(TripleBuffer sorted, Permutation perm, File out, IdWidth width,
+                                         FileLayout layout) throws IOException {
+        EncodedTriplet row = new EncodedTriplet(0, 0, 0);
+        try (ParquetWriter<EncodedTriplet> writer = EncodedTripletParquetWriter.create(
+                new Path(out.getPath()), width.tripleSchema(), CompressionCodecName.SNAPPY, layout, perm)) {
+            sorted.forEach((s, p, o) -> {
+                row.setSubject(s);
+                row.setPredicate(p);
+                row.setObject(o);
+                writer.write(row);
+            });
+        }
+    }
+
+    // Auto-pick threads
+    private static int writerThreads() {
+        int threads = Math.min(Permutation.values().length, Math.max(2, Runtime.getRuntime().availableProcessors()));
+        System.out.println("[Loader] writerThreads=" + threads);
+        return threads;
+    }
+
+    /** Deletes the permutation files of a previous load, with any delta and tombstone files added since. */
+    private void deletePermutationFiles(File parquetDir) throws IOException {
+        for (java.nio.file.Path tombstone : Tombstones.files(parquetDir.toPath())) ParquetFiles.delete(tombstone);
+        for (Permutation perm : Permutation.values()) {
+            java.nio.file.Path base = new File(parquetDir, perm.fileName()).toPath();
+            for (java.nio.file.Path delta : DeltaFiles.of(base)) ParquetFiles.delete(delta);
+            PermutationPartitions.delete(base);
+        }
+    }
+
     private void writeDictionaryParquet(DictionaryEncoder encoder, String dictPath) throws IOException {
-        deleteIfExists(dictPath);
-        MessageType dictSchema = MessageTypeParser.parseMessageType(
-                "message DictionaryEntry { required int32 id; required binary value (UTF8); }"
-        );
-        try (ParquetWriter<DictionaryEntry> writer = DictionaryParquetWriter.create(
-                new Path(dictPath), dictSchema, CompressionCodecName.ZSTD)) {
+        writeDictionaryParquet(encoder, dictPath, encoder.getIdWidth(), config.getOptions().isInline());
+    }
 
-            List<DictionaryEntry> entries = new ArrayList<>(encoder.getEntries());
-            entries.sort(Comparator.comparingInt(DictionaryEntry::getId));
+    /**
+     * Writes {@code dictionary.parquet} under a temporary name and renames it into place,
+     * so a server reloading it never sees a half-written file; then its sidecar.
+     */
+    private void writeDictionaryParquet(DictionaryEncoder encoder, String dictPath, IdWidth width, boolean inline)
+            throws IOException {
+        String written = dictPath + ".tmp";
+        deleteIfExists(written);
+        MessageType dictSchema = width.dictionarySchema();
+        List<DictionaryEntry> entries = new ArrayList<>(encoder.getEntries());
+        entries.sort(Comparator.comparingLong(DictionaryEntry::getId));
+        Map<String, String> metadata = new HashMap<>();
+        if (sections != null) metadata.put(DictionarySections.METADATA_KEY, sections.encode());
+        if (inline) metadata.put(InlineValues.METADATA_KEY, InlineValues.metadataValue(width));
+        try (ParquetWriter<DictionaryEntry> writer = DictionaryParquetWriter.create(
+                new Path(written), dictSchema, CompressionCodecName.ZSTD, metadata)) {
             for (DictionaryEntry entry : entries) {
                 writer.write(entry);
             }
         }
+        ParquetFiles.replace(java.nio.file.Paths.get(written), java.nio.file.Paths.get(dictPath));
+
+        // the server maps this instead of decoding the parquet file at startup
+        java.nio.file.Path parquet = java.nio.file.Paths.get(dictPath);
+        java.nio.file.Path mmap = parquet.resolveSibling(DictionaryLoader.SIDECAR_NAME);
+        java.nio.file.Path frontCoded = parquet.resolveSibling(DictionaryLoader.FRONT_CODED_NAME);
+        System.out.println("Writing dictionary sidecar...");
+        if (config.getOptions().isFrontCoded()) {
+            // renumbered, so id order is term order within each section
+            List<String> terms = new ArrayList<>(entries.size());
+            for (DictionaryEntry entry : entries) terms.add(entry.getValue());
+            if (sections == null) {
+                FrontCodedDictionary.write(terms, parquet, frontCoded);
+            } else {
+                DictionarySections.Section[] all = DictionarySections.Section.values();
+                FrontCodedDictionary.write(terms,
+                        Arrays.stream(all).mapToInt(sections::count).toArray(),
+                        Arrays.stream(all).map(FrontCodedDictionary.Order::of).toArray(FrontCodedDictionary.Order[]::new),
+                        parquet, frontCoded);
+            }
+            deleteIfExists(mmap.toString());
+        } else {
+            OffHeapDictionary.writeSidecar(entries, parquet, mmap);
+            deleteIfExists(frontCoded.toString());
+        }
     }
 
     private void deleteIfExists(String path) throws IOException {
@@ -308,37 +810,21 @@ public class MainDictionary {
         return encoder;
     }
 
-    // Int-index quicksort with comparator over base[]
-    private static void sortIndex(int[] idx, java.util.function.IntBinaryOperator cmp) {
-        quicksort(idx, 0, idx.length - 1, cmp);
-    }
-    private static void quicksort(int[] a, int lo, int hi, java.util.function.IntBinaryOperator cmp) {
-        while (lo < hi) {
-            int i = lo, j = hi;
-            int pivot = a[lo + ((hi - lo) >>> 1)];
-            while (i <= j) {
-                while (cmp.applyAsInt(a[i], pivot) < 0) i++;
-                while (cmp.applyAsInt(a[j], pivot) > 0) j--;
-                if (i <= j) { swap(a, i, j); i++; j--; }
-            }
-            if (j - lo < hi - i) {
-                if (lo < j) quicksort(a, lo, j, cmp);
-                lo = i;
-            } else {
-                if (i < hi) quicksort(a, i, hi, cmp);
-                hi = j;
-            }
-        }
-    }
-    private static void swap(int[] a, int i, int j) {
-        int t = a[i]; a[i] = a[j]; a[j] = t;
-    }
-
     public static void main(String[] args) {
-        if (args.length != 1) { printUsage(); System.exit(1); }
+        if (args.length < 1) { printUsage(); System.exit(1); }
+        LoaderOptions options;
+        try {
+            options = LoaderOptions.fromSystemProperties()
+                    .applyArgs(Arrays.copyOfRange(args, 1, args.length));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            printUsage();
+            System.exit(1);
+            return;
+        }
         try {
             System.out.println("Starting RDF processing...");
-            MainDictionary proc = new MainDictionary();
+            MainDictionary proc = new MainDictionary(Config.defaultConfig(options));
             ProcessingResults res = proc.processRdfFile(args[0]);
 
             System.out.println("Processing completed successfully!");
@@ -354,9 +840,31 @@ public class MainDictionary {
 
     private static void printUsage() {
         System.err.println("Usage:");
-        System.err.println("  java -jar dictionary-loader.jar <input.(nt|ttl|rdf)>");
+        System.err.println("  java -jar dictionary-loader.jar <input.(nt|ttl|rdf)[.gz|.bz2|.zst] | directory | glob> [options]");
+        System.err.println();
+        System.err.println("Options:");
+        System.err.println("  --streaming            encode while parsing and spill sorted runs to disk");
+        System.err.println("  --memory-budget=SIZE   heap for buffered triples, e.g. 512m or 4g (default: max heap / 4)");
+        System.err.println("  --tmp-dir=DIR          directory for spilled runs (default: java.io.tmpdir)");
+        System.err.println("  --parse-threads=N      parse files / N-Triples chunks on N threads (default: 1, 0 = one per core)");
+        System.err.println("  --chunk-size=SIZE      N-Triples chunk size for parallel parsing (default: 64m)");
+        System.err.println("  --decompress-threads=N decode multi-stream .bz2 / multi-frame .zst input on N threads (default: one per core)");
+        System.err.println("  --front-coded          number terms in sorted order and write a front-coded dictionary.pfc");
+        System.err.println("  --sectioned            separate id ranges for predicates, subjects, objects and literals");
+        System.err.println("  --inline               keep small integers, booleans and dates in the id instead of the dictionary");
+        System.err.println("  --wide-ids             encode 64-bit ids and write int64 id columns instead of int32");
+        System.err.println("  --append               add the input to the existing store as delta files instead of replacing it");
+        System.err.println("  --delete               remove the input's triples from the existing store with a tombstone file");
+        System.err.println("  --compact              fold delta and tombstone files into the base permutation files after loading");
+        System.err.println("  --partitions=N         split each permutation into N files by leading key, read in parallel");
+        System.err.println("  --vertical             also write one (subject, object) file per predicate, in both orders, under vp/");
+        System.err.println("  --row-group-size=SIZE  Parquet row group size, e.g. 8m; per permutation as 128m,spo=8m (default: 128m)");
+        System.err.println("  --page-size=SIZE       Parquet page size, e.g. 64k; per permutation as 1m,spo=64k (default: 1m)");
+        System.err.println("  --page-rows=N          most rows per page, per permutation as 20000,spo=2000 (default: 20000)");
+        System.err.println("  --encoding=E           sorted: delta-encode the sorted subject/object columns; dictionary: dictionary only (default: sorted)");
         System.err.println();
         System.err.println("Notes:");
         System.err.println("  - Output directory defaults to ./data/parquet (override via DataPaths if needed).");
+        System.err.println("  - Options can also be set as -Drdfparquet.loader.<name> system properties.");
     }
 }
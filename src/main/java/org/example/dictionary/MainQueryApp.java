@@ -7,6 +7,7 @@ import org.example.QueryExec;
 import org.example.SparqlParser;
 import org.example.SparqlParser.ParsedQuery;
 import org.example.ResultProcessor;
+import org.example.encodedTriplet.DeltaCompactor;
 import org.example.util.DataPaths;
 
 import java.io.IOException;
@@ -30,11 +31,12 @@ public class MainQueryApp {
     private static volatile String lastCsvInMemory = "";      // fallback if streaming not available
     private static volatile int lastRowCount = 0;
     private static volatile double lastQueryTime = 0.0;
-    private static volatile List<int[]> lastResults = null;
+    private static volatile List<long[]> lastResults = null;
     private static volatile List<String> lastHeaders = null;
     private static volatile List<String> lastProjectVars = null;
     private static volatile Map<String, Integer> lastSlotOf = null;
-    private static volatile DictionaryEncoder lastDict = null;
+    // retained until the next query's results replace it
+    private static DictionaryLoader.Snapshot lastDict = null;
 
     private static final ExecutorService executor = ForkJoinPool.commonPool();
     private static final int PAGE_SIZE = Integer.getInteger("rdfparquet.pageSize", 1000);
@@ -55,12 +57,22 @@ public class MainQueryApp {
         try {
             System.out.println("Loading dictionary from: " + DataPaths.dictPath());
             DictionaryLoader.load(DataPaths.dictPath().toString());
-            int size = DictionaryEncoder.getInstance().getEncodeMap().size();
-            System.out.println("Dictionary loaded. Total entries: " + size);
+            long size = DictionaryLoader.current().size();
+            System.out.println("Dictionary loaded (" + DictionaryLoader.current().getClass().getSimpleName()
+                    + "). Total entries: " + size);
+            if (DictionaryLoader.sections() != null) System.out.println("Dictionary sections: " + DictionaryLoader.sections());
+            if (DictionaryLoader.inlineValues()) System.out.println("Small literals are inlined in the ids");
         } catch (Exception e) {
             System.err.println("Warning: Could not load dictionary: " + e.getMessage());
         }
 
+        // fold the delta files of --append runs into the base files while serving
+        int compactAfter = Integer.getInteger("rdfparquet.compactAfterDeltas", 4);
+        if (compactAfter > 0) {
+            DeltaCompactor.startBackground(DataPaths.parquetDir(), compactAfter,
+                    Long.getLong("rdfparquet.compactIntervalSeconds", 60));
+        }
+
         InetSocketAddress addr = new InetSocketAddress(host, port);
         HttpServer server = HttpServer.create(addr, 0);
         SERVER_REF = server;
@@ -152,13 +164,15 @@ public class MainQueryApp {
         long t1 = System.nanoTime();
 
         if (!query.isEmpty()) {
+            DictionaryLoader.Snapshot dict = null;
             try {
-                DictionaryEncoder dict = DictionaryEncoder.getInstance();
+                DictionaryLoader.reloadIfChanged(DataPaths.dictPath().toString());   // after an --append run
+                dict = DictionaryLoader.acquire();
                 ParsedQuery parsed = SparqlParser.parse(query);
 
                 // Run engine
-                QueryExec exec = new QueryExec();
-                List<int[]> rows = exec.execute(parsed);
+                QueryExec exec = new QueryExec(dict);
+                List<long[]> rows = exec.execute(parsed);
 
                 List<String> projectVars = exec.getProjectVars();
                 headers = new ArrayList<>(projectVars.size());
@@ -172,7 +186,7 @@ public class MainQueryApp {
                 lastHeaders     = headers;
                 lastProjectVars = projectVars;
                 lastSlotOf      = slotOf;
-                lastDict        = dict;
+                keepDictionary(dict);
                 lastRowCount    = rows.size();
 
                 // First page render
@@ -182,6 +196,7 @@ public class MainQueryApp {
 
                 // CSV generation (stream to temp file if available; else fallback)
                 List<String> finalHeaders = headers;
+                DictionaryLoader.Snapshot csvDict = dict.retain();   // the CSV may outlive this request
                 CompletableFuture<Void> csvFuture = CompletableFuture.runAsync(() -> {
                     try {
                         Method m = ResultProcessor.class.getMethod(
@@ -201,6 +216,8 @@ public class MainQueryApp {
                         }
                     } catch (Exception e) {
                         throw new CompletionException(e);
+                    } finally {
+                        csvDict.close();
                     }
                 }, executor);
 
@@ -208,6 +225,8 @@ public class MainQueryApp {
 
             } catch (Exception e) {
                 error = e.getMessage();
+            } finally {
+                if (dict != null) dict.close();
             }
         }
 
@@ -219,6 +238,18 @@ public class MainQueryApp {
         send200(exchange, html, "text/html");
     }
 
+    /** Holds on to the dictionary of the last results for paging, releasing the one before. */
+    private static synchronized void keepDictionary(DictionaryLoader.Snapshot dict) {
+        DictionaryLoader.Snapshot previous = lastDict;
+        lastDict = dict.retain();
+        if (previous != null) previous.close();
+    }
+
+    /** The dictionary of the last results, retained for the caller to close, or null. */
+    private static synchronized DictionaryLoader.Snapshot keptDictionary() {
+        return lastDict == null ? null : lastDict.retain();
+    }
+
     private static void handlePage(HttpExchange exchange) throws IOException {
         String query = exchange.getRequestURI().getQuery();
         Map<String, String> params = parseQuery(query);
@@ -229,8 +260,15 @@ public class MainQueryApp {
             return;
         }
 
-        ResultProcessor processor = new ResultProcessor(lastDict, lastSlotOf, lastProjectVars);
-        List<List<String>> pageRows = processor.generatePage(lastResults, page, PAGE_SIZE);
+        List<List<String>> pageRows;
+        try (DictionaryLoader.Snapshot dict = keptDictionary()) {
+            if (dict == null) {
+                sendError(exchange, "No query results available");
+                return;
+            }
+            ResultProcessor processor = new ResultProcessor(dict, lastSlotOf, lastProjectVars);
+            pageRows = processor.generatePage(lastResults, page, PAGE_SIZE);
+        }
         int totalPages = (lastRowCount + PAGE_SIZE - 1) / PAGE_SIZE;
 
         String html = htmlPage(getFormHtml("", lastHeaders, pageRows, null, lastRowCount, lastQueryTime, true, page, totalPages));
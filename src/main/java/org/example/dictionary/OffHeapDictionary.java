@@ -0,0 +1,326 @@
+package org.example.dictionary;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.example.util.MappedFile;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Dictionary kept outside the Java heap in one memory-mapped file, so the server's
+ * heap and GC cost no longer grow with the number of terms:
+ *
+ *  - the terms as one UTF-8 blob, in id order
+ *  - an id to blob offset array ({@code long} per id from the first id to the last,
+ *    plus an end marker), so {@code decode(id)} is two reads and one string copy
+ *  - an open-addressing hash table of ids over the term bytes, probed linearly,
+ *    for {@code lookup(term)}; 4 bytes per slot, or 8 once ids pass 2^31
+ *
+ * Layout (little endian): a 64 byte header, the blob, the offsets (8-aligned), the table.
+ * Ids are {@code long}, so this is the dictionary for stores written with 64-bit ids;
+ * the offsets start at the first id, so a dictionary whose ids start high (a later
+ * block of a 64-bit id space) does not pay for the ids below it.
+ * The loader writes this file as {@code dictionary.mmap} next to {@code dictionary.parquet};
+ * the header records the size and modification time of that parquet file, so a server
+ * can tell whether the sidecar still matches it ({@link #isSidecarOf}) and map it instead
+ * of rebuilding anything. Mapping is read-only and shared, so several server processes
+ * on one host share the pages.
+ */
+public class OffHeapDictionary implements TermDictionary, Closeable {
+
+    static final long MAGIC = 0x5443494450464452L; // "RDFPDICT"
+    static final int VERSION = 2;
+    static final int HEADER_BYTES = Sidecars.HEADER_BYTES;
+    private static final double LOAD_FACTOR = 0.6;
+
+    private final MappedFile file;
+    private final int idBytes;
+    private final long count;
+    private final long maxId;
+    private final long tableMask;
+    private final long offsetsAt;
+    private final long idBase;
+    private final long tableAt;
+
+    private OffHeapDictionary(MappedFile file) throws IOException {
+        if (file.size() < HEADER_BYTES || file.getLong(0) != MAGIC) {
+            throw new IOException("Not an off-heap dictionary file");
+        }
+        if (file.getInt(8) != VERSION) throw new IOException("Unsupported dictionary version " + file.getInt(8));
+        this.file = file;
+        this.idBytes = file.getInt(12);
+        this.count = file.getLong(16);
+        this.maxId = file.getLong(24);
+        this.offsetsAt = file.getLong(32);
+        this.idBase = file.getLong(40);
+        this.tableAt = tableAt(offsetsAt, idBase, maxId);
+        this.tableMask = (file.size() - tableAt) / idBytes - 1;
+    }
+
+    /**
+     * Builds the dictionary for {@code dictionary.parquet} into a temporary file next to
+     * it, maps it and deletes the file again (the mapping keeps the data alive).
+     */
+    public static OffHeapDictionary fromParquet(String dictionaryPath) throws IOException {
+        java.nio.file.Path dir = java.nio.file.Paths.get(dictionaryPath).toAbsolutePath().getParent();
+        java.nio.file.Path tmp = Files.createTempFile(dir, "dictionary-", ".offheap");
+        try {
+            try (ParquetReader<DictionaryEntry> reader =
+                         DictionaryParquetReader.create(new Path(dictionaryPath), FilterCompat.NOOP)) {
+                write(entries(reader), tmp);
+            } catch (IdsNotAscending e) {
+                // written by something other than the loader: sort on heap once
+                List<DictionaryEntry> all = DictionaryParquetReader.readEntries(dictionaryPath);
+                all.sort(Comparator.comparingLong(DictionaryEntry::getId));
+                write(all.iterator(), tmp);
+            }
+            return new OffHeapDictionary(MappedFile.readOnly(tmp));
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /** Maps a file produced by {@link #write}. */
+    public static OffHeapDictionary open(java.nio.file.Path file) throws IOException {
+        MappedFile mapped = MappedFile.readOnly(file);
+        try {
+            return new OffHeapDictionary(mapped);
+        } catch (IOException | RuntimeException e) {
+            mapped.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the dictionary file for {@code entries}, which must come in ascending id order.
+     * Ids may have gaps; missing ids decode to null.
+     */
+    public static void write(Iterator<DictionaryEntry> entries, java.nio.file.Path out) throws IOException {
+        write(entries, out, null);
+    }
+
+    /**
+     * Writes the sidecar of {@code source} (a {@code dictionary.parquet}) to {@code out}
+     * via a temporary file and an atomic rename, so a server never maps a half-written
+     * file and one that has the previous version mapped keeps it.
+     */
+    public static void writeSidecar(List<DictionaryEntry> sortedEntries, java.nio.file.Path source,
+                                    java.nio.file.Path out) throws IOException {
+        java.nio.file.Path tmp = Files.createTempFile(out.toAbsolutePath().getParent(), "dictionary-", ".mmap.tmp");
+        try {
+            write(sortedEntries.iterator(), tmp, source);
+            Sidecars.replace(tmp, out);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /** True if {@code sidecar} is a dictionary file written for {@code source} as it is now. */
+    public static boolean isSidecarOf(java.nio.file.Path sidecar, java.nio.file.Path source) {
+        return Sidecars.matches(sidecar, source, MAGIC, VERSION);
+    }
+
+    private static void write(Iterator<DictionaryEntry> entries, java.nio.file.Path out,
+                              java.nio.file.Path source) throws IOException {
+        java.nio.file.Path offsetsTmp = Files.createTempFile(out.toAbsolutePath().getParent(), "offsets-", ".tmp");
+        try {
+            long count = 0;
+            long base = -1;          // offsets are kept for ids base + 1 .. lastId
+            long lastId = 0;
+            long blobEnd = HEADER_BYTES;
+            try (FileChannel ch = FileChannel.open(out, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+                 DataOutputStream offsets = new DataOutputStream(
+                         new BufferedOutputStream(Files.newOutputStream(offsetsTmp), 1 << 16))) {
+                ByteBuffer buf = ByteBuffer.allocate(1 << 20);
+                ch.position(HEADER_BYTES);
+                while (entries.hasNext()) {
+                    DictionaryEntry e = entries.next();
+                    long id = e.getId();
+                    if (base < 0) {
+                        if (id <= 0) throw new IOException("Dictionary ids must be positive, got " + id);
+                        base = lastId = id - 1;
+                        offsets.writeLong(Long.reverseBytes(blobEnd));         // id base
+                    }
+                    if (id <= lastId) throw new IdsNotAscending();
+                    for (long gap = lastId + 1; gap <= id; gap++) offsets.writeLong(Long.reverseBytes(blobEnd));
+                    byte[] bytes = e.getValue().getBytes(StandardCharsets.UTF_8);
+                    for (int off = 0; off < bytes.length; ) {
+                        if (!buf.hasRemaining()) drain(ch, buf);
+                        int n = Math.min(buf.remaining(), bytes.length - off);
+                        buf.put(bytes, off, n);
+                        off += n;
+                    }
+                    blobEnd += bytes.length;
+                    lastId = id;
+                    count++;
+                }
+                drain(ch, buf);
+                if (base < 0) {
+                    base = 0;
+                    offsets.writeLong(Long.reverseBytes(blobEnd));             // id 0
+                }
+                offsets.writeLong(Long.reverseBytes(blobEnd));                 // end of the last term
+            }
+
+            long offsetsAt = (blobEnd + 7) & ~7L;
+            long tableAt = tableAt(offsetsAt, base, lastId);
+            long slots = Long.highestOneBit(Math.max(2, (long) (count / LOAD_FACTOR)) * 2 - 1);
+            int idBytes = lastId > Integer.MAX_VALUE ? 8 : 4;
+            long size = tableAt + idBytes * slots;
+
+            try (FileChannel ch = FileChannel.open(out, StandardOpenOption.WRITE);
+                 FileChannel src = FileChannel.open(offsetsTmp, StandardOpenOption.READ)) {
+                long n = src.size(), done = 0;
+                while (done < n) done += src.transferTo(done, n - done, ch.position(offsetsAt + done));
+            }
+
+            try (MappedFile f = MappedFile.readWrite(out, size)) {
+                f.putLong(0, MAGIC);
+                f.putInt(8, VERSION);
+                f.putInt(12, idBytes);
+                f.putLong(16, count);
+                f.putLong(24, lastId);
+                f.putLong(32, offsetsAt);
+                f.putLong(40, base);
+                if (source != null) Sidecars.stamp(f, source);
+
+                long mask = slots - 1;
+                byte[] term = new byte[256];
+                for (long id = base + 1; id <= lastId; id++) {
+                    long start = f.getLong(offsetsAt + 8L * (id - base));
+                    int len = (int) (f.getLong(offsetsAt + 8L * (id - base + 1)) - start);
+                    if (len == 0) continue;
+                    if (term.length < len) term = new byte[Math.max(len, term.length * 2)];
+                    f.get(start, term, 0, len);
+                    long slot = hash(term, len) & mask;
+                    while (slotId(f, tableAt, idBytes, slot) != 0) slot = (slot + 1) & mask;
+                    if (idBytes == 8) f.putLong(tableAt + 8 * slot, id);
+                    else f.putInt(tableAt + 4 * slot, (int) id);
+                }
+                f.force();
+            }
+        } finally {
+            Files.deleteIfExists(offsetsTmp);
+        }
+    }
+
+    @Override
+    public long lookup(String term) {
+        byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+        long slot = hash(bytes, bytes.length) & tableMask;
+        while (true) {
+            long id = slotId(file, tableAt, idBytes, slot);
+            if (id == 0) return NOT_FOUND;
+            if (termEquals(id, bytes)) return id;
+            slot = (slot + 1) & tableMask;
+        }
+    }
+
+    @Override
+    public String decode(long id) {
+        if (id <= idBase || id > maxId) return null;
+        long start = offset(id);
+        int len = (int) (offset(id + 1) - start);
+        if (len == 0) return null;
+        byte[] bytes = new byte[len];
+        file.get(start, bytes, 0, len);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public long size() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    boolean isOpen() {
+        return file.isOpen();
+    }
+
+    // ---------- internals ----------
+
+    /** Blob offset of {@code id}'s term; that of {@code id + 1} is its end. */
+    private long offset(long id) {
+        return file.getLong(offsetsAt + 8L * (id - idBase));
+    }
+
+    private static long tableAt(long offsetsAt, long idBase, long maxId) {
+        return offsetsAt + 8L * (maxId - idBase + 2);
+    }
+
+    private static long slotId(MappedFile f, long tableAt, int idBytes, long slot) {
+        return idBytes == 8 ? f.getLong(tableAt + 8 * slot) : f.getInt(tableAt + 4 * slot);
+    }
+
+    private boolean termEquals(long id, byte[] bytes) {
+        long start = offset(id);
+        long end = offset(id + 1);
+        if (end - start != bytes.length) return false;
+        for (int i = 0; i < bytes.length; i++) {
+            if (file.get(start + i) != bytes[i]) return false;
+        }
+        return true;
+    }
+
+    /** FNV-1a over the bytes, with a final mix so the low bits are usable as a slot. */
+    static long hash(byte[] b, int len) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < len; i++) {
+            h ^= b[i] & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static void drain(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+    }
+
+    private static Iterator<DictionaryEntry> entries(ParquetReader<DictionaryEntry> reader) {
+        return new Iterator<>() {
+            private DictionaryEntry next = read();
+
+            private DictionaryEntry read() {
+                try {
+                    return reader.read();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public boolean hasNext() { return next != null; }
+
+            @Override
+            public DictionaryEntry next() {
+                DictionaryEntry e = next;
+                next = read();
+                return e;
+            }
+        };
+    }
+
+    /** Signals that the input is not in id order and has to be sorted first. */
+    private static final class IdsNotAscending extends IOException {
+        IdsNotAscending() { super("Dictionary entries are not in ascending id order"); }
+    }
+}
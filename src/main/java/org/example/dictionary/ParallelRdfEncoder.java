@@ -0,0 +1,99 @@
+package org.example.dictionary;
+
+import org.example.RdfReader;
+import org.example.encodedTriplet.TripleBuffer;
+import org.example.encodedTriplet.TripleConsumer;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Parses many input files, or large N-Triples files cut into line-aligned chunks, on
+ * a pool of threads and encodes the triples against the shared {@link DictionaryEncoder}.
+ *
+ * Each chunk is parsed into its own local dictionary (term to chunk-local id) plus a
+ * {@link TripleBuffer} of local ids, so the hot loop touches no shared state. Chunks are
+ * then merged on the calling thread in input order: every local term is encoded once,
+ * and the chunk's triples are remapped through the resulting table. Merging in order
+ * hands out the same global ids as a sequential parse would.
+ */
+public class ParallelRdfEncoder {
+
+    private final int threads;
+    private final long chunkBytes;
+
+    public ParallelRdfEncoder(int threads, long chunkBytes) {
+        this.threads = Math.max(1, threads);
+        this.chunkBytes = chunkBytes;
+    }
+
+    /**
+     * Parses {@code files} and passes every encoded triple to {@code out}, from the
+     * calling thread. Returns the number of triples parsed, duplicates included.
+     */
+    public long encode(List<String> files, DictionaryEncoder encoder, TripleConsumer out) throws IOException {
+        List<RdfReader.Split> splits = RdfReader.split(files, chunkBytes);
+        System.out.println("[Loader] parsing " + splits.size() + " chunks from " + files.size()
+                + " files with " + threads + " threads");
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, splits.size())));
+        // at most two chunks per thread are parsed ahead of the merge
+        Deque<Future<ChunkEncoder>> pending = new ArrayDeque<>();
+        Iterator<RdfReader.Split> next = splits.iterator();
+        long triples = 0;
+        try {
+            while (next.hasNext() || !pending.isEmpty()) {
+                while (next.hasNext() && pending.size() < 2 * threads) {
+                    RdfReader.Split split = next.next();
+                    pending.add(pool.submit(() -> ChunkEncoder.parse(split)));
+                }
+                triples += pending.poll().get().mergeInto(encoder, out);
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IOException("Parallel parse failed", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Parallel parse interrupted", e);
+        } finally {
+            for (Future<ChunkEncoder> f : pending) f.cancel(true);
+            pool.shutdownNow();
+        }
+        return triples;
+    }
+
+    /** Terms and triples of one split, in chunk-local ids (0, 1, 2, ... by first use). */
+    private static final class ChunkEncoder {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> terms = new ArrayList<>();
+        private final TripleBuffer triples = TripleBuffer.create();
+
+        static ChunkEncoder parse(RdfReader.Split split) throws Exception {
+            ChunkEncoder chunk = new ChunkEncoder();
+            RdfReader.streamSplit(split, t -> chunk.triples.add(
+                    chunk.local(t.getSubject()), chunk.local(t.getPredicate()), chunk.local(t.getObject())));
+            return chunk;
+        }
+
+        private int local(String term) {
+            Integer id = ids.get(term);
+            if (id == null) {
+                id = terms.size();
+                ids.put(term, id);
+                terms.add(term);
+            }
+            return id;
+        }
+
+        long mergeInto(DictionaryEncoder encoder, TripleConsumer out) throws IOException {
+            long[] global = new long[terms.size()];
+            for (int i = 0; i < global.length; i++) global[i] = encoder.encode(terms.get(i));
+            // local ids index the chunk's terms, so they fit an int whatever the store's width
+            triples.forEach((s, p, o) -> out.accept(global[(int) s], global[(int) p], global[(int) o]));
+            return triples.size();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.dictionary;
+
+import org.example.util.MappedFile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Shared header conventions of the dictionary files written next to
+ * {@code dictionary.parquet}: a 64 byte little-endian header that starts with a magic
+ * and a version, and ends with the size and modification time of the parquet file
+ * the sidecar was derived from (bytes 48 and 56).
+ */
+final class Sidecars {
+
+    static final int HEADER_BYTES = 64;
+
+    private Sidecars() {}
+
+    /** Records {@code source}'s size and modification time in the header of {@code f}. */
+    static void stamp(MappedFile f, Path source) throws IOException {
+        f.putLong(48, Files.size(source));
+        f.putLong(56, Files.getLastModifiedTime(source).toMillis());
+    }
+
+    /** True if {@code sidecar} has the given magic and version and was stamped with {@code source} as it is now. */
+    static boolean matches(Path sidecar, Path source, long magic, int version) {
+        if (!Files.isRegularFile(sidecar) || !Files.isRegularFile(source)) return false;
+        try (FileChannel ch = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && ch.read(header) > 0) { }
+            return header.position() == HEADER_BYTES
+                    && header.getLong(0) == magic
+                    && header.getInt(8) == version
+                    && header.getLong(48) == Files.size(source)
+                    && header.getLong(56) == Files.getLastModifiedTime(source).toMillis();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Moves a fully written temporary file over {@code out} in one atomic rename. */
+    static void replace(Path tmp, Path out) throws IOException {
+        Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.dictionary;
+
+/**
+ * Read side of the term dictionary, as used by the query engine and result decoding.
+ * Implemented by the heap {@link DictionaryEncoder}, the {@link OffHeapDictionary} and
+ * the {@link FrontCodedDictionary}. Ids are {@code long} so stores written with 64-bit
+ * ids ({@link org.example.encodedTriplet.IdWidth#INT64}) can be served.
+ */
+public interface TermDictionary {
+
+    /** Returned by {@link #lookup} for terms that are not in the dictionary. */
+    long NOT_FOUND = -1;
+
+    /** Id of {@code term}, or {@link #NOT_FOUND}. */
+    long lookup(String term);
+
+    /** Term with the given id, or null. */
+    String decode(long id);
+
+    /** Number of distinct terms. */
+    long size();
+}
@@ -0,0 +1,42 @@
+package org.example.dictionary;
+
+import org.example.encodedTriplet.IdWidth;
+import org.example.encodedTriplet.TripleConsumer;
+
+import java.util.Arrays;
+
+/**
+ * Collects, per encoded id, the positions the term occurs in as
+ * {@link DictionarySections#SUBJECT} / {@link DictionarySections#PREDICATE} /
+ * {@link DictionarySections#OBJECT} bits. Not thread-safe; fed from the thread that
+ * receives the encoded triples. {@link InlineValues} ids have no dictionary entry and are skipped.
+ */
+class TermRoles implements TripleConsumer {
+
+    private final IdWidth width;
+    private byte[] roles = new byte[1 << 10];
+
+    /** Roles of the terms of a load whose ids, and inline ids, are of {@code width}. */
+    TermRoles(IdWidth width) {
+        this.width = width;
+    }
+
+    @Override
+    public void accept(long subject, long predicate, long object) {
+        mark(subject, DictionarySections.SUBJECT);
+        mark(predicate, DictionarySections.PREDICATE);
+        mark(object, DictionarySections.OBJECT);
+    }
+
+    int get(int id) {
+        return id < roles.length ? roles[id] : 0;
+    }
+
+    private void mark(long inlineOrId, int role) {
+        if (InlineValues.isInline(inlineOrId, width)) return;
+        // a load renumbering its terms holds all of them on the heap, so ids stay below 2^31
+        int id = Math.toIntExact(inlineOrId);
+        if (id >= roles.length) roles = Arrays.copyOf(roles, Math.max(id + 1, roles.length * 2));
+        roles[id] |= role;
+    }
+}
@@ -0,0 +1,169 @@
+package org.example.encodedTriplet;
+
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.filter2.predicate.LogicalInverseRewriter;
+import org.apache.parquet.filter2.predicate.Operators;
+import org.apache.parquet.filter2.predicate.UserDefinedPredicate;
+
+import java.util.Arrays;
+
+/**
+ * A Parquet filter predicate evaluated a {@link TripleBatch} at a time: each comparison
+ * is one loop over an id vector into a mask, and {@code and}/{@code or} combine masks,
+ * instead of the per-value callbacks of Parquet's record-level filtering. Covers the
+ * comparisons of id columns the query engine builds; {@link #of} gives null for the rest.
+ */
+abstract class BatchFilter {
+
+    /** Passes every row. */
+    static final BatchFilter ALL = new BatchFilter() {
+        @Override
+        void eval(TripleBatch batch, boolean[] out) {
+            Arrays.fill(out, 0, batch.size, true);
+        }
+    };
+
+    /** Sets {@code out[i]} for the rows {@code i < batch.size()} that pass. */
+    abstract void eval(TripleBatch batch, boolean[] out);
+
+    /** Drops the rows of {@code batch} that do not pass; {@code mask} is scratch of {@link TripleBatch#CAPACITY}. */
+    final void apply(TripleBatch batch, boolean[] mask) {
+        if (this == ALL) return;
+        eval(batch, mask);
+        batch.retain(mask);
+    }
+
+    /** {@code filter} as a batch filter, or null if it has parts this class does not evaluate. */
+    static BatchFilter of(FilterCompat.Filter filter) {
+        if (filter instanceof FilterCompat.NoOpFilter) return ALL;
+        if (!(filter instanceof FilterCompat.FilterPredicateCompat)) return null;
+        FilterPredicate predicate = LogicalInverseRewriter.rewrite(
+                ((FilterCompat.FilterPredicateCompat) filter).getFilterPredicate());
+        try {
+            return predicate.accept(new Compiler());
+        } catch (UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    // ---------- internals ----------
+
+    private enum Op { EQ, NOT_EQ, LT, LT_EQ, GT, GT_EQ }
+
+    private static final class Compare extends BatchFilter {
+        private final int column;
+        private final Op op;
+        private final long value;
+
+        Compare(int column, Op op, long value) {
+            this.column = column;
+            this.op = op;
+            this.value = value;
+        }
+
+        @Override
+        void eval(TripleBatch batch, boolean[] out) {
+            long[] v = batch.column(column);
+            long x = value;
+            int n = batch.size;
+            // one branch-free loop per operator, so each is a tight loop over the vector
+            switch (op) {
+                case EQ:     for (int i = 0; i < n; i++) out[i] = v[i] == x; break;
+                case NOT_EQ: for (int i = 0; i < n; i++) out[i] = v[i] != x; break;
+                case LT:     for (int i = 0; i < n; i++) out[i] = v[i] < x; break;
+                case LT_EQ:  for (int i = 0; i < n; i++) out[i] = v[i] <= x; break;
+                case GT:     for (int i = 0; i < n; i++) out[i] = v[i] > x; break;
+                default:     for (int i = 0; i < n; i++) out[i] = v[i] >= x; break;
+            }
+        }
+    }
+
+    /** A comparison with null: required id columns hold none, so it is constant. */
+    private static final class Constant extends BatchFilter {
+        private final boolean value;
+
+        Constant(boolean value) {
+            this.value = value;
+        }
+
+        @Override
+        void eval(TripleBatch batch, boolean[] out) {
+            Arrays.fill(out, 0, batch.size, value);
+        }
+    }
+
+    private static final class Both extends BatchFilter {
+        private final BatchFilter left, right;
+        private final boolean and;
+        private final boolean[] scratch = new boolean[TripleBatch.CAPACITY];
+
+        Both(BatchFilter left, BatchFilter right, boolean and) {
+            this.left = left;
+            this.right = right;
+            this.and = and;
+        }
+
+        @Override
+        void eval(TripleBatch batch, boolean[] out) {
+            left.eval(batch, out);
+            right.eval(batch, scratch);
+            int n = batch.size;
+            if (and) for (int i = 0; i < n; i++) out[i] &= scratch[i];
+            else for (int i = 0; i < n; i++) out[i] |= scratch[i];
+        }
+    }
+
+    private static final class Compiler implements FilterPredicate.Visitor<BatchFilter> {
+
+        private static <T extends Comparable<T>> BatchFilter compare(Operators.Column<T> c, T value, Op op) {
+            String name = c.getColumnPath().toDotString();
+            int column;
+            switch (name) {
+                case "subject": column = 0; break;
+                case "predicate": column = 1; break;
+                case "object": column = 2; break;
+                default: throw new UnsupportedOperationException("column " + name);
+            }
+            if (value == null) return new Constant(op == Op.NOT_EQ);
+            if (!(value instanceof Integer) && !(value instanceof Long)) {
+                throw new UnsupportedOperationException("value " + value);
+            }
+            return new Compare(column, op, ((Number) value).longValue());
+        }
+
+        @Override public <T extends Comparable<T>> BatchFilter visit(Operators.Eq<T> p) { return compare(p.getColumn(), p.getValue(), Op.EQ); }
+        @Override public <T extends Comparable<T>> BatchFilter visit(Operators.NotEq<T> p) { return compare(p.getColumn(), p.getValue(), Op.NOT_EQ); }
+        @Override public <T extends Comparable<T>> BatchFilter visit(Operators.Lt<T> p) { return compare(p.getColumn(), p.getValue(), Op.LT); }
+        @Override public <T extends Comparable<T>> BatchFilter visit(Operators.LtEq<T> p) { return compare(p.getColumn(), p.getValue(), Op.LT_EQ); }
+        @Override public <T extends Comparable<T>> BatchFilter visit(Operators.Gt<T> p) { return compare(p.getColumn(), p.getValue(), Op.GT); }
+        @Override public <T extends Comparable<T>> BatchFilter visit(Operators.GtEq<T> p) { return compare(p.getColumn(), p.getValue(), Op.GT_EQ); }
+
+        @Override
+        public BatchFilter visit(Operators.And and) {
+            return new Both(and.getLeft().accept(this), and.getRight().accept(this), true);
+        }
+
+        @Override
+        public BatchFilter visit(Operators.Or or) {
+            return new Both(or.getLeft().accept(this), or.getRight().accept(this), false);
+        }
+
+        @Override
+        public BatchFilter visit(Operators.Not not) {
+            // LogicalInverseRewriter leaves none
+            throw new UnsupportedOperationException("not");
+        }
+
+        @Override
+        public <T extends Comparable<T>, U extends UserDefinedPredicate<T>> BatchFilter visit(Operators.UserDefined<T, U> udp) {
+            throw new UnsupportedOperationException("user defined");
+        }
+
+        @Override
+        public <T extends Comparable<T>, U extends UserDefinedPredicate<T>> BatchFilter visit(
+                Operators.LogicalNotUserDefined<T, U> udp) {
+            throw new UnsupportedOperationException("user defined");
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package org.example.encodedTriplet;
+
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.example.util.ParquetFiles;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Folds {@link DeltaFiles} and {@link Tombstones} into the base permutation files: base
+ * and deltas are merged into a new base without the deleted triples, which replaces the
+ * old one in an atomic rename before the deltas are deleted; the tombstones go once all
+ * six permutations are rewritten. Queries keep running meanwhile; in every intermediate
+ * state a scan sees each triple at least once, and the merge on read drops the duplicates.
+ * The one exception: a triple deleted and then appended again is hidden by its tombstone
+ * from the time its permutation is rewritten until the tombstone is deleted.
+ * {@link VerticalPartitions}, if the store has them, are rebuilt last.
+ *
+ * One compaction runs at a time per directory ({@code compaction.lock}); appends and
+ * deletes may add deltas and tombstones meanwhile, those are folded next time. Only the
+ * deltas with a sequence number up to the last one present when the tombstones are read
+ * are folded: a later delta may follow a tombstone this compaction does not see, and
+ * once in the base (sequence 0) that tombstone would hide it.
+ */
+public final class DeltaCompactor {
+
+    static final String LOCK_NAME = "compaction.lock";
+
+    private DeltaCompactor() {}
+
+    /**
+     * Folds the deltas and tombstones in {@code parquetDir} into the base files. Returns
+     * the number of delta and tombstone files folded; 0 if another compaction is running.
+     */
+    public static int compact(Path parquetDir) throws IOException {
+        return compact(parquetDir, () -> {});
+    }
+
+    /** {@link #compact(Path)}, running {@code afterSnapshot} once the tombstones are read. */
+    static int compact(Path parquetDir, Runnable afterSnapshot) throws IOException {
+        try (FileChannel channel = FileChannel.open(parquetDir.resolve(LOCK_NAME),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            FileLock lock;
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                return 0;   // held by this process
+            }
+            if (lock == null) return 0;
+            try {
+                // tombstones written from here on are left for the next compaction
+                Tombstones tombstones = Tombstones.read(parquetDir);
+                int last = DeltaFiles.nextSequence(parquetDir) - 1;
+                afterSnapshot.run();
+                int folded = 0;
+                for (Permutation perm : Permutation.values()) {
+                    folded += compact(parquetDir.resolve(perm.fileName()), perm, tombstones, last);
+                }
+                for (Path tombstone : tombstones.files()) ParquetFiles.delete(tombstone);
+                folded += tombstones.files().size();
+                if (VerticalPartitions.exists(parquetDir)
+                        && (folded > 0 || !VerticalPartitions.isCurrent(parquetDir))) {
+                    VerticalPartitions.build(parquetDir);
+                }
+                return folded;
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    /** Largest number of deltas any permutation in {@code parquetDir} has, plus the number of tombstones. */
+    public static int pendingFiles(Path parquetDir) throws IOException {
+        int most = 0;
+        for (Permutation perm : Permutation.values()) {
+            most = Math.max(most, DeltaFiles.of(parquetDir.resolve(perm.fileName())).size());
+        }
+        return most + Tombstones.files(parquetDir).size();
+    }
+
+    /**
+     * Checks {@code parquetDir} every {@code periodSeconds} on a daemon thread and compacts
+     * it once {@link #pendingFiles} reaches {@code minFiles}. Shut the executor down to stop.
+     */
+    public static ScheduledExecutorService startBackground(Path parquetDir, int minFiles, long periodSeconds) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "delta-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                if (pendingFiles(parquetDir) < minFiles) return;
+                long t0 = System.nanoTime();
+                int folded = compact(parquetDir);
+                if (folded > 0) {
+                    System.out.printf("[Compactor] folded %d delta and tombstone files in %d ms%n",
+                            folded, (System.nanoTime() - t0) / 1_000_000);
+                }
+            } catch (Exception e) {
+                System.err.println("[Compactor] compaction failed: " + e.getMessage());
+            }
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+        return scheduler;
+    }
+
+    // ---------- internals ----------
+
+    private static int compact(Path base, Permutation perm, Tombstones tombstones, int last) throws IOException {
+        List<Path> deltas = DeltaFiles.of(base);
+        deltas.removeIf(delta -> DeltaFiles.sequence(delta) > last);
+        if (deltas.isEmpty() && tombstones.isEmpty()) return 0;
+
+        int[] sequences = new int[deltas.size() + 1];
+        for (int i = 0; i < deltas.size(); i++) sequences[i] = DeltaFiles.sequence(deltas.get(i));
+        Path merged = base.resolveSibling(perm.stem() + ".compacting");
+        ParquetFiles.delete(merged);
+
+        List<RowReader> readers = new ArrayList<>(sequences.length);
+        try (ParquetWriter<EncodedTriplet> writer = EncodedTripletParquetWriter.create(
+                new org.apache.hadoop.fs.Path(merged.toString()),
+                IdWidth.read(base.toString()).tripleSchema(), CompressionCodecName.SNAPPY, FileLayout.read(base), perm)) {
+            for (Path delta : deltas) {
+                readers.add(RowReader.of(EncodedTripletParquetReader.create(
+                        new org.apache.hadoop.fs.Path(delta.toString()), FilterCompat.NOOP)));
+            }
+            readers.add(PermutationPartitions.open(base, perm, null, FilterCompat.NOOP));
+            DeltaFiles.merge(readers, sequences, 0, perm, tombstones, row -> {
+                try {
+                    writer.write(row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            ParquetFiles.delete(merged);
+            throw e.getCause();
+        } finally {
+            for (RowReader reader : readers) reader.close();
+        }
+
+        if (PermutationPartitions.isPartitioned(base)) PermutationPartitions.replace(merged, base, perm);
+        else ParquetFiles.replace(merged, base);
+        for (Path delta : deltas) ParquetFiles.delete(delta);
+        return deltas.size();
+    }
+}
@@ -0,0 +1,175 @@
+package org.example.encodedTriplet;
+
+import org.apache.parquet.filter2.compat.FilterCompat;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Delta files of an append-loaded store. Each {@code --append} run writes its triples
+ * as one more sorted file per permutation next to the base file, {@code spo.parquet}
+ * getting {@code spo.delta-000001.parquet}, {@code spo.delta-000002.parquet} and so on.
+ *
+ * Scans read a base file and its deltas as one sequence in the permutation's order
+ * with duplicates and {@link Tombstones deleted} triples dropped ({@link #scan}), until
+ * {@link DeltaCompactor} folds the deltas into the base. Deltas are opened before the
+ * base: if compaction deletes a delta in between, the base opened after it already
+ * holds its rows.
+ */
+public final class DeltaFiles {
+
+    private static final String MARKER = ".delta-";
+    private static final String SUFFIX = ".parquet";
+
+    private DeltaFiles() {}
+
+    /** The deltas of {@code base} (a permutation file), oldest first. */
+    public static List<Path> of(Path base) throws IOException {
+        String name = base.getFileName().toString();
+        String prefix = name.substring(0, name.length() - SUFFIX.length()) + MARKER;
+        Path dir = base.toAbsolutePath().getParent();
+        List<Path> deltas = new ArrayList<>();
+        if (!Files.isDirectory(dir)) return deltas;
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(f -> {
+                String n = f.getFileName().toString();
+                return n.startsWith(prefix) && n.endsWith(SUFFIX);
+            }).forEach(deltas::add);
+        }
+        deltas.sort(Comparator.comparingInt(DeltaFiles::sequence));
+        return deltas;
+    }
+
+    /** Sequence number for the next batch of deltas or tombstones in {@code parquetDir}. */
+    public static int nextSequence(Path parquetDir) throws IOException {
+        int last = 0;
+        for (Permutation perm : Permutation.values()) {
+            for (Path delta : of(parquetDir.resolve(perm.fileName()))) last = Math.max(last, sequence(delta));
+        }
+        for (Path tombstone : Tombstones.files(parquetDir)) last = Math.max(last, sequence(tombstone));
+        return last + 1;
+    }
+
+    /** The delta file of {@code perm} with the given sequence number. */
+    public static Path path(Path parquetDir, Permutation perm, int sequence) {
+        return parquetDir.resolve(String.format("%s%s%06d%s", perm.stem(), MARKER, sequence, SUFFIX));
+    }
+
+    /**
+     * Appends the rows of {@code base} and its deltas that pass {@code filter} to {@code out},
+     * in {@code perm} order, without duplicates and without deleted triples. {@code leading} holds {@code [first, last]} pairs the
+     * leading key of every matching row is in (null if unknown): of a
+     * {@link PermutationPartitions partitioned} base, only the files they meet are read,
+     * and of each file only the pages holding them ({@link SeekReader}).
+     */
+    public static void scan(Path base, Permutation perm, long[] leading, FilterCompat.Filter filter,
+                            EncodedTriples out) throws IOException {
+        List<Path> deltas = of(base);
+        Tombstones tombstones = Tombstones.read(base.toAbsolutePath().getParent());
+        if (deltas.isEmpty()) {
+            PermutationPartitions.scan(base, perm, leading, filter, tombstones, out);
+            return;
+        }
+        List<RowReader> readers = new ArrayList<>(deltas.size() + 1);
+        List<Integer> sequences = new ArrayList<>(deltas.size() + 1);
+        try {
+            for (Path delta : deltas) {
+                try {
+                    readers.add(SeekReader.open(delta, perm, leading, filter));
+                    sequences.add(sequence(delta));
+                } catch (FileNotFoundException | NoSuchFileException e) {
+                    // compacted away since it was listed
+                }
+            }
+            readers.add(PermutationPartitions.open(base, perm, leading, filter));
+            sequences.add(0);
+            merge(readers, sequences.stream().mapToInt(Integer::intValue).toArray(), readers.size() - 1,
+                    perm, tombstones, out::add);
+        } finally {
+            for (RowReader reader : readers) reader.close();
+        }
+    }
+
+    /**
+     * K-way merge of readers that each deliver rows in {@code perm} order, dropping
+     * duplicates. {@code sequences} are the readers' sequence numbers (0 for the base);
+     * a triple is dropped if {@code tombstones} hide it from the newest file holding it.
+     * A file among the first {@code mayVanish} that is gone by the time it is opened was
+     * a delta compacted away since it was listed, and is skipped.
+     */
+    static long merge(List<RowReader> readers, int[] sequences, int mayVanish,
+                      Permutation perm, Tombstones tombstones, Consumer<EncodedTriplet> out) throws IOException {
+        Comparator<EncodedTriplet> order = perm.comparator();
+        PriorityQueue<Head> heads = new PriorityQueue<>((a, b) -> order.compare(a.row, b.row));
+        for (int i = 0; i < readers.size(); i++) {
+            Head head = new Head(readers.get(i), sequences[i]);
+            try {
+                if (head.advance()) heads.add(head);
+            } catch (FileNotFoundException | NoSuchFileException e) {
+                if (i >= mayVanish) throw e;
+            }
+        }
+
+        long written = 0;
+        while (!heads.isEmpty()) {
+            Head head = heads.poll();
+            EncodedTriplet row = head.row;
+            int newest = head.sequence;
+            if (head.advance()) heads.add(head);
+            while (!heads.isEmpty() && order.compare(heads.peek().row, row) == 0) {
+                Head same = heads.poll();
+                newest = Math.max(newest, same.sequence);
+                if (same.advance()) heads.add(same);
+            }
+            if (!tombstones.hides(row, newest)) {
+                out.accept(row);
+                written++;
+            }
+        }
+        return written;
+    }
+
+    // ---------- internals ----------
+
+    /** Sequence number of a delta or tombstone file, from its name. */
+    static int sequence(Path file) {
+        String n = file.getFileName().toString();
+        try {
+            return Integer.parseInt(n.substring(n.lastIndexOf('-') + 1, n.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static EncodedTriplet copy(EncodedTriplet t) {
+        return new EncodedTriplet(t.getSubject(), t.getPredicate(), t.getObject());
+    }
+
+    private static final class Head {
+        private final RowReader reader;
+        private final int sequence;
+        private EncodedTriplet row;
+
+        Head(RowReader reader, int sequence) {
+            this.reader = reader;
+            this.sequence = sequence;
+        }
+
+        /** Reads the next row; the reader reuses its record, so the head keeps a copy. */
+        boolean advance() throws IOException {
+            EncodedTriplet next = reader.read();
+            if (next == null) return false;
+            row = copy(next);
+            return true;
+        }
+    }
+}
@@ -1,20 +1,28 @@
 package org.example.encodedTriplet;
 
-import org.apache.hadoop.fs.Path; // Hadoop Path
 import org.apache.parquet.filter2.compat.FilterCompat;
 import org.apache.parquet.filter2.predicate.FilterApi;
-import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
 import org.example.SparqlParser.TriplePattern;
-import org.example.dictionary.DictionaryEncoder;
+import org.example.dictionary.DictionaryLoader;
+import org.example.dictionary.DictionarySections;
+import org.example.dictionary.TermDictionary;
 import org.example.util.DataPaths;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.util.*;
 
 public class EncodedParquetQuery {
 
-    private final DictionaryEncoder dictionary;
-    private final Map<String, Integer> encodeMap; // Cached dictionary map
+    private final TermDictionary dictionary;
+    private final DictionarySections sections;
+    private final IdWidth width;
+    // whether bound-predicate patterns read the VerticalPartitions
+    private final boolean vertical;
 
     private final java.nio.file.Path SPO = DataPaths.spo();
     private final java.nio.file.Path SOP = DataPaths.sop();
@@ -25,6 +33,11 @@ public class EncodedParquetQuery {
     private final java.nio.file.Path DICT = DataPaths.dictPath();
 
     public EncodedParquetQuery() {
+        this(DictionaryLoader.snapshot());
+    }
+
+    /** Queries encoding their constants with {@code dictionary}. */
+    public EncodedParquetQuery(DictionaryLoader.Snapshot dictionary) {
         DataPaths.requireExists(DICT, "Dictionary");
         DataPaths.requireExists(SPO, "SPO parquet");
         DataPaths.requireExists(SOP, "SOP parquet");
@@ -33,115 +46,246 @@ public class EncodedParquetQuery {
         DataPaths.requireExists(OPS, "OPS parquet");
         DataPaths.requireExists(OSP, "OSP parquet");
 
-        this.dictionary = DictionaryEncoder.getInstance();
-        this.encodeMap = dictionary.getEncodeMap();
+        this.dictionary = dictionary.dictionary();
+        this.sections = dictionary.sections();
+        try {
+            this.width = IdWidth.read(SPO.toString());
+            this.vertical = VerticalPartitions.isCurrent(DataPaths.parquetDir());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read the schema of " + SPO, e);
+        }
+    }
+
+    /**
+     * Id of a pattern constant, or null if the dictionary does not know it or the id is
+     * too wide for the permutation files (so no row can hold it).
+     */
+    private Long encode(String term) {
+        long id = dictionary.lookup(term);
+        return id == TermDictionary.NOT_FOUND || id > width.maxId() ? null : id;
+    }
+
+    // With a sectioned dictionary, a constant whose id range rules out its position
+    // (a literal as subject, a subject-only IRI as object, ...) matches nothing, and
+    // the scan is skipped like for an unknown term.
+
+    private Long subjectId(String term) {
+        Long id = encode(term);
+        return id == null || (sections != null && !sections.canBeSubject(id)) ? null : id;
+    }
+
+    private Long predicateId(String term) {
+        Long id = encode(term);
+        return id == null || (sections != null && !sections.canBePredicate(id)) ? null : id;
+    }
+
+    private Long objectId(String term) {
+        Long id = encode(term);
+        return id == null || (sections != null && !sections.canBeObject(id)) ? null : id;
+    }
+
+    /**
+     * Matching rows of a permutation file, merged with its {@link DeltaFiles} if there are any.
+     * {@code leading} bounds the leading key, see {@link DeltaFiles#scan}; null if unbound.
+     */
+    private EncodedTriples executeIds(java.nio.file.Path parquetPathNio, long[] leading,
+                                      FilterCompat.Filter filter) throws IOException {
+        EncodedTriples out = new EncodedTriples();
+        String name = parquetPathNio.getFileName().toString();
+        Permutation perm = Permutation.valueOf(name.substring(0, name.indexOf('.')).toUpperCase(Locale.ROOT));
+        DeltaFiles.scan(parquetPathNio, perm, leading, filter, out);
+        return out;
     }
 
-    private List<EncodedTriplet> executeIds(java.nio.file.Path parquetPathNio, FilterCompat.Filter filter)
-            throws IOException {
-        List<EncodedTriplet> out = new ArrayList<>();
+    private static long[] key(long id) {
+        return new long[]{id, id};
+    }
 
-        try (ParquetReader<EncodedTriplet> reader =
-                     EncodedTripletParquetReader.create(new Path(parquetPathNio.toString()), filter)) {
-            EncodedTriplet et;
-            while ((et = reader.read()) != null) {
-                out.add(new EncodedTriplet(et.getSubject(), et.getPredicate(), et.getObject()));
-            }
+    /**
+     * Matching rows of the {@link VerticalPartitions} file of predicate {@code p}, in
+     * {@code order}; null if the partitions are stale or were swapped out since this query
+     * started, and the permutation files have to be read instead. {@code leading} bounds
+     * the file's first column (the subject for SO, the object for OS); null if unbound.
+     */
+    private EncodedTriples executeVertical(long p, VerticalPartitions.Order order, long[] leading,
+                                           FilterPredicate filter) throws IOException {
+        if (!vertical) return null;
+        java.nio.file.Path file = VerticalPartitions.file(DataPaths.parquetDir(), p, order);
+        EncodedTriples out = new EncodedTriples();
+        // the file has no predicate column: read it as SOP (OSP), whose leading key it holds
+        Permutation sorted = order == VerticalPartitions.Order.SO ? Permutation.SOP : Permutation.OSP;
+        try {
+            PermutationPartitions.scan(file, sorted, leading, filter == null ? FilterCompat.NOOP : FilterCompat.get(filter),
+                    Tombstones.NONE, out);
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            // no file for a predicate without triples, unless the whole directory is gone
+            return VerticalPartitions.exists(DataPaths.parquetDir()) ? new EncodedTriples() : null;
         }
         return out;
     }
 
-    public List<EncodedTriplet> querySPOIds(TriplePattern pattern) throws IOException {
-        Integer s = encodeMap.get(pattern.subject);
-        Integer p = encodeMap.get(pattern.predicate);
-        Integer o = encodeMap.get(pattern.object);
-        if (s == null || p == null || o == null) return List.of();
+    public EncodedTriples querySPOIds(TriplePattern pattern) throws IOException {
+        Long s = subjectId(pattern.subject);
+        Long p = predicateId(pattern.predicate);
+        Long o = objectId(pattern.object);
+        if (s == null || p == null || o == null) return new EncodedTriples();
+
+        EncodedTriples rows = executeVertical(p, VerticalPartitions.Order.SO, key(s),
+                FilterApi.and(eq("subject", s), eq("object", o)));
+        if (rows != null) return rows;
 
         FilterCompat.Filter filter = FilterCompat.get(
                 FilterApi.and(
-                        FilterApi.eq(FilterApi.intColumn("subject"), s),
+                        eq("subject", s),
                         FilterApi.and(
-                                FilterApi.eq(FilterApi.intColumn("predicate"), p),
-                                FilterApi.eq(FilterApi.intColumn("object"), o)
+                                eq("predicate", p),
+                                eq("object", o)
                         )
                 )
         );
-        return executeIds(SPO, filter);
+        return executeIds(SPO, key(s), filter);
     }
 
-    public List<EncodedTriplet> queryPOIds(TriplePattern pattern) throws IOException {
-        Integer p = encodeMap.get(pattern.predicate);
-        Integer o = encodeMap.get(pattern.object);
-        if (p == null || o == null) return List.of();
+    public EncodedTriples queryPOIds(TriplePattern pattern) throws IOException {
+        Long p = predicateId(pattern.predicate);
+        Long o = objectId(pattern.object);
+        if (p == null || o == null) return new EncodedTriples();
+
+        EncodedTriples rows = executeVertical(p, VerticalPartitions.Order.OS, key(o), eq("object", o));
+        if (rows != null) return rows;
 
         FilterCompat.Filter filter = FilterCompat.get(
                 FilterApi.and(
-                        FilterApi.eq(FilterApi.intColumn("predicate"), p),
-                        FilterApi.eq(FilterApi.intColumn("object"), o)
+                        eq("predicate", p),
+                        eq("object", o)
                 )
         );
-        return executeIds(POS, filter);
+        return executeIds(POS, key(p), filter);
     }
 
-    public List<EncodedTriplet> querySPIds(TriplePattern pattern) throws IOException {
-        Integer s = encodeMap.get(pattern.subject);
-        Integer p = encodeMap.get(pattern.predicate);
-        if (s == null || p == null) return List.of();
+    public EncodedTriples querySPIds(TriplePattern pattern) throws IOException {
+        return querySPIds(pattern, null);
+    }
 
-        FilterCompat.Filter filter = FilterCompat.get(
-                FilterApi.and(
-                        FilterApi.eq(FilterApi.intColumn("subject"), s),
-                        FilterApi.eq(FilterApi.intColumn("predicate"), p)
-                )
+    /** As {@link #querySPIds(TriplePattern)}, keeping only objects with ids in {@code objectRange}. */
+    public EncodedTriples querySPIds(TriplePattern pattern, long[] objectRange) throws IOException {
+        Long s = subjectId(pattern.subject);
+        Long p = predicateId(pattern.predicate);
+        if (s == null || p == null) return new EncodedTriples();
+
+        EncodedTriples rows = executeVertical(p, VerticalPartitions.Order.SO, key(s),
+                withObjectRange(eq("subject", s), objectRange));
+        if (rows != null) return rows;
+
+        FilterPredicate sp = FilterApi.and(
+                eq("subject", s),
+                eq("predicate", p)
         );
-        return executeIds(SPO, filter);
+        return executeIds(SPO, key(s), FilterCompat.get(withObjectRange(sp, objectRange)));
     }
 
-    public List<EncodedTriplet> querySOIds(TriplePattern pattern) throws IOException {
-        Integer s = encodeMap.get(pattern.subject);
-        Integer o = encodeMap.get(pattern.object);
-        if (s == null || o == null) return List.of();
+    public EncodedTriples querySOIds(TriplePattern pattern) throws IOException {
+        Long s = subjectId(pattern.subject);
+        Long o = objectId(pattern.object);
+        if (s == null || o == null) return new EncodedTriples();
 
         FilterCompat.Filter filter = FilterCompat.get(
                 FilterApi.and(
-                        FilterApi.eq(FilterApi.intColumn("subject"), s),
-                        FilterApi.eq(FilterApi.intColumn("object"), o)
+                        eq("subject", s),
+                        eq("object", o)
                 )
         );
-        return executeIds(SOP, filter);
+        return executeIds(SOP, key(s), filter);
     }
 
-    public List<EncodedTriplet> queryObjectOnlyIds(TriplePattern pattern) throws IOException {
-        Integer o = encodeMap.get(pattern.object);
-        if (o == null) return List.of();
+    public EncodedTriples queryObjectOnlyIds(TriplePattern pattern) throws IOException {
+        Long o = objectId(pattern.object);
+        if (o == null) return new EncodedTriples();
 
         FilterCompat.Filter filter = FilterCompat.get(
-                FilterApi.eq(FilterApi.intColumn("object"), o)
+                eq("object", o)
         );
-        return executeIds(OSP, filter);
+        return executeIds(OSP, key(o), filter);
+    }
+
+    public EncodedTriples queryPredicateOnlyIds(TriplePattern pattern) throws IOException {
+        return queryPredicateOnlyIds(pattern, null);
     }
 
-    public List<EncodedTriplet> queryPredicateOnlyIds(TriplePattern pattern) throws IOException {
-        Integer p = encodeMap.get(pattern.predicate);
-        if (p == null) return List.of();
+    /**
+     * As {@link #queryPredicateOnlyIds(TriplePattern)}, keeping only objects with ids in
+     * {@code objectRange}; those are contiguous runs in POS (or in the predicate's
+     * object-ordered vertical partition), so the scan goes there.
+     */
+    public EncodedTriples queryPredicateOnlyIds(TriplePattern pattern, long[] objectRange) throws IOException {
+        Long p = predicateId(pattern.predicate);
+        if (p == null) return new EncodedTriples();
 
-        FilterCompat.Filter filter = FilterCompat.get(
-                FilterApi.eq(FilterApi.intColumn("predicate"), p)
-        );
-        return executeIds(PSO, filter);
+        EncodedTriples rows = objectRange == null
+                ? executeVertical(p, VerticalPartitions.Order.SO, null, null)
+                : executeVertical(p, VerticalPartitions.Order.OS, objectRange, withObjectRange(null, objectRange));
+        if (rows != null) return rows;
+
+        FilterPredicate predicate = eq("predicate", p);
+        if (objectRange == null) return executeIds(PSO, key(p), FilterCompat.get(predicate));
+        return executeIds(POS, key(p), FilterCompat.get(withObjectRange(predicate, objectRange)));
     }
 
-    public List<EncodedTriplet> querySubjectOnlyIds(TriplePattern pattern) throws IOException {
-        Integer s = encodeMap.get(pattern.subject);
-        if (s == null) return List.of();
+    public EncodedTriples querySubjectOnlyIds(TriplePattern pattern) throws IOException {
+        return querySubjectOnlyIds(pattern, null);
+    }
 
-        FilterCompat.Filter filter = FilterCompat.get(
-                FilterApi.eq(FilterApi.intColumn("subject"), s)
-        );
-        return executeIds(SPO, filter);
+    /** As {@link #querySubjectOnlyIds(TriplePattern)}, keeping only objects with ids in {@code objectRange}, via SOP. */
+    public EncodedTriples querySubjectOnlyIds(TriplePattern pattern, long[] objectRange) throws IOException {
+        Long s = subjectId(pattern.subject);
+        if (s == null) return new EncodedTriples();
+
+        FilterPredicate subject = eq("subject", s);
+        if (objectRange == null) return executeIds(SPO, key(s), FilterCompat.get(subject));
+        return executeIds(SOP, key(s), FilterCompat.get(withObjectRange(subject, objectRange)));
     }
 
-    public List<EncodedTriplet> queryAllIds() throws IOException {
-        return executeIds(SPO, FilterCompat.NOOP);
+    public EncodedTriples queryAllIds() throws IOException {
+        return executeIds(SPO, null, FilterCompat.NOOP);
+    }
+
+    /**
+     * Triples whose object id is in {@code objectRange}, from OPS, where they are
+     * contiguous runs: row groups outside them are skipped on their min/max statistics.
+     */
+    public EncodedTriples queryObjectRangeIds(long[] objectRange) throws IOException {
+        return executeIds(OPS, objectRange, FilterCompat.get(withObjectRange(null, objectRange)));
+    }
+
+    /**
+     * {@code base} and {@code object} in one of the {@code [first, last]} pairs of {@code range};
+     * just {@code base} without a range.
+     */
+    private FilterPredicate withObjectRange(FilterPredicate base, long[] range) {
+        if (range == null) return base;
+        FilterPredicate inRange = null;
+        for (int i = 0; i < range.length; i += 2) {
+            FilterPredicate pair = between("object", range[i], range[i + 1]);
+            inRange = inRange == null ? pair : FilterApi.or(inRange, pair);
+        }
+        return base == null ? inRange : FilterApi.and(base, inRange);
+    }
+
+    // Id columns are INT32 or INT64 depending on how the store was loaded, and
+    // Parquet's filters are typed, so predicates are built for the files' width.
+
+    private FilterPredicate eq(String column, long id) {
+        return width == IdWidth.INT64
+                ? FilterApi.eq(FilterApi.longColumn(column), id)
+                : FilterApi.eq(FilterApi.intColumn(column), Math.toIntExact(id));
+    }
+
+    private FilterPredicate between(String column, long first, long last) {
+        if (width == IdWidth.INT64) {
+            return FilterApi.and(FilterApi.gtEq(FilterApi.longColumn(column), first),
+                    FilterApi.ltEq(FilterApi.longColumn(column), last));
+        }
+        return FilterApi.and(FilterApi.gtEq(FilterApi.intColumn(column), Math.toIntExact(first)),
+                FilterApi.ltEq(FilterApi.intColumn(column), Math.toIntExact(last)));
     }
 }
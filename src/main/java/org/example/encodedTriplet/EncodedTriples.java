@@ -0,0 +1,123 @@
+package org.example.encodedTriplet;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+
+/**
+ * Growable columnar list of encoded triples, the result of a pattern scan: three
+ * parallel {@code long[]} columns filled a {@link TripleBatch} at a time with array
+ * copies. As a {@code List<EncodedTriplet>}, {@link #get} builds a new object per call;
+ * the scan path reads the columns with {@link #getSubject} and friends instead.
+ */
+public final class EncodedTriples extends AbstractList<EncodedTriplet> {
+
+    private long[] s;
+    private long[] p;
+    private long[] o;
+    private int size;
+
+    public EncodedTriples() {
+        this(16);
+    }
+
+    public EncodedTriples(int initialCapacity) {
+        int cap = Math.max(1, initialCapacity);
+        this.s = new long[cap];
+        this.p = new long[cap];
+        this.o = new long[cap];
+    }
+
+    @Override
+    public int size() { return size; }
+
+    public long getSubject(int i) { return s[i]; }
+    public long getPredicate(int i) { return p[i]; }
+    public long getObject(int i) { return o[i]; }
+
+    @Override
+    public EncodedTriplet get(int i) {
+        if (i >= size) throw new IndexOutOfBoundsException("Index " + i + ", size " + size);
+        return new EncodedTriplet(s[i], p[i], o[i]);
+    }
+
+    public void add(long subject, long predicate, long object) {
+        if (size == s.length) grow(size + 1);
+        s[size] = subject;
+        p[size] = predicate;
+        o[size] = object;
+        size++;
+    }
+
+    /** Copies the values of {@code t}; the object itself is not kept. */
+    @Override
+    public boolean add(EncodedTriplet t) {
+        add(t.getSubject(), t.getPredicate(), t.getObject());
+        return true;
+    }
+
+    /** Appends the rows of {@code batch}. */
+    public void addAll(TripleBatch batch) {
+        append(batch.subjects, batch.predicates, batch.objects, batch.size);
+    }
+
+    /** Appends the rows of {@code other}. */
+    public void addAll(EncodedTriples other) {
+        append(other.s, other.p, other.o, other.size);
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Sorts the rows on triple position {@code column} (0 = s, 1 = p, 2 = o), keeping the
+     * order of rows with equal ids: a merge sort of row numbers, then one pass per column.
+     */
+    public void sort(int column) {
+        long[] keys = column == 0 ? s : column == 1 ? p : o;
+        boolean sorted = true;
+        for (int i = 1; i < size && sorted; i++) sorted = keys[i - 1] <= keys[i];
+        if (sorted) return;
+        int[] order = new int[size], scratch = new int[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        for (int width = 1; width < size; width <<= 1) {
+            for (int lo = 0; lo < size; lo += width << 1) {
+                int mid = Math.min(lo + width, size), hi = Math.min(lo + (width << 1), size);
+                int i = lo, j = mid, k = lo;
+                while (i < mid && j < hi) scratch[k++] = keys[order[j]] < keys[order[i]] ? order[j++] : order[i++];
+                while (i < mid) scratch[k++] = order[i++];
+                while (j < hi) scratch[k++] = order[j++];
+            }
+            int[] t = order;
+            order = scratch;
+            scratch = t;
+        }
+        s = permute(s, order);
+        p = permute(p, order);
+        o = permute(o, order);
+    }
+
+    // ---------- internals ----------
+
+    private void append(long[] subjects, long[] predicates, long[] objects, int count) {
+        if (size + count > s.length) grow(size + count);
+        System.arraycopy(subjects, 0, s, size, count);
+        System.arraycopy(predicates, 0, p, size, count);
+        System.arraycopy(objects, 0, o, size, count);
+        size += count;
+    }
+
+    private long[] permute(long[] column, int[] order) {
+        long[] out = new long[column.length];
+        for (int i = 0; i < size; i++) out[i] = column[order[i]];
+        return out;
+    }
+
+    private void grow(int minCapacity) {
+        int cap = Math.max(minCapacity, s.length + (s.length >> 1));
+        s = Arrays.copyOf(s, cap);
+        p = Arrays.copyOf(p, cap);
+        o = Arrays.copyOf(o, cap);
+    }
+}
@@ -2,41 +2,42 @@ package org.example.encodedTriplet;
 
 import java.util.Objects;
 
+/** One row of a permutation file. Ids are {@code long} whatever the file's {@link IdWidth}. */
 public class EncodedTriplet {
 
-    private int subject;
-    private int predicate;
-    private int object;
+    private long subject;
+    private long predicate;
+    private long object;
 
-    public EncodedTriplet(int subject, int predicate, int object) {
+    public EncodedTriplet(long subject, long predicate, long object) {
         this.subject = subject;
         this.predicate = predicate;
         this.object = object;
     }
 
 
-    public int getSubject() {
+    public long getSubject() {
         return subject;
     }
 
-    public int getPredicate() {
+    public long getPredicate() {
         return predicate;
     }
 
-    public int getObject() {
+    public long getObject() {
         return object;
     }
 
 
-    public void setSubject(int subject) {
+    public void setSubject(long subject) {
         this.subject = subject;
     }
 
-    public void setPredicate(int predicate) {
+    public void setPredicate(long predicate) {
         this.predicate = predicate;
     }
 
-    public void setObject(int object) {
+    public void setObject(long object) {
         this.object = object;
     }
 
@@ -1,27 +1,51 @@
 package org.example.encodedTriplet;
 
 import org.apache.parquet.io.api.*;
+import org.apache.parquet.schema.MessageType;
 
 public class EncodedTripletMaterializer extends RecordMaterializer<EncodedTriplet> {
 
     private final EncodedTriplet reusable = new EncodedTriplet(0, 0, 0);
 
-    private final int[] fields = new int[3];
+    private final long[] fields = new long[3];
 
-    // three converters, one per column index
+    // three converters, one per column index; int32 and int64 files both read into longs
     private final PrimitiveConverter subjectConv = new PrimitiveConverter() {
         @Override public void addInt(int value) { fields[0] = value; }
+        @Override public void addLong(long value) { fields[0] = value; }
     };
     private final PrimitiveConverter predicateConv = new PrimitiveConverter() {
         @Override public void addInt(int value) { fields[1] = value; }
+        @Override public void addLong(long value) { fields[1] = value; }
     };
     private final PrimitiveConverter objectConv = new PrimitiveConverter() {
         @Override public void addInt(int value) { fields[2] = value; }
+        @Override public void addLong(long value) { fields[2] = value; }
     };
 
-    private final Converter[] converters = new Converter[] {
-            subjectConv, predicateConv, objectConv
-    };
+    // by the file's field index: a (subject, object) file has no predicate column
+    private final Converter[] converters;
+
+    public EncodedTripletMaterializer() {
+        this.converters = new Converter[] {subjectConv, predicateConv, objectConv};
+    }
+
+    /**
+     * Reads files with {@code schema}'s columns; {@code predicate} fills in the
+     * predicate of files that do not store it.
+     */
+    public EncodedTripletMaterializer(MessageType schema, long predicate) {
+        this.converters = new Converter[schema.getFieldCount()];
+        for (int i = 0; i < converters.length; i++) {
+            switch (schema.getFieldName(i)) {
+                case "subject": converters[i] = subjectConv; break;
+                case "predicate": converters[i] = predicateConv; break;
+                case "object": converters[i] = objectConv; break;
+                default: throw new IllegalArgumentException("Unexpected column " + schema.getFieldName(i));
+            }
+        }
+        fields[1] = predicate;
+    }
 
     private final GroupConverter rootConverter = new GroupConverter() {
         @Override
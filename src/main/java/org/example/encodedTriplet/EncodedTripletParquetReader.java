@@ -18,6 +18,7 @@ public class EncodedTripletParquetReader {
                 .withFilter(filter)
                 .useBloomFilter(true)
                 .useStatsFilter(true)
+                .useColumnIndexFilter(true)
                 .build();
     }
 
@@ -9,41 +9,101 @@ import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 import org.apache.parquet.schema.MessageType;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 public class EncodedTripletParquetWriter {
 
     public static ParquetWriter<EncodedTriplet> create(Path path, MessageType schema, CompressionCodecName codec) throws IOException {
+        return create(path, schema, codec, Map.of());
+    }
+
+    /** As {@link #create(Path, MessageType, CompressionCodecName)}, with footer key-value metadata. */
+    public static ParquetWriter<EncodedTriplet> create(Path path, MessageType schema, CompressionCodecName codec,
+                                                       Map<String, String> metadata) throws IOException {
+        return create(path, schema, codec, metadata, FileLayout.DEFAULT);
+    }
 
+    public static ParquetWriter<EncodedTriplet> create(Path path, MessageType schema, CompressionCodecName codec,
+                                                       FileLayout layout, Permutation order) throws IOException {
+        return create(path, schema, codec, Map.of(), layout, order);
+    }
+
+    public static ParquetWriter<EncodedTriplet> create(Path path, MessageType schema, CompressionCodecName codec,
+                                                       Map<String, String> metadata, FileLayout layout) throws IOException {
+        return create(path, schema, codec, metadata, layout, null);
+    }
+
+    /**
+     * Writer with the row group and page sizes of {@code layout}, which goes into the footer
+     * next to {@code metadata}. Column and offset indexes are written for every column.
+     *
+     * With {@link FileLayout.Encoding#SORTED} and the row order known ({@code order}, null
+     * if unsorted), the subject and object among the first two sort keys in {@code schema} are written
+     * {@code DELTA_BINARY_PACKED} instead of dictionary encoded: they ascend, so most
+     * deltas are 0 or small. A predicate keeps its dictionary, whose few indices
+     * run-length encode smaller than deltas between ids.
+     */
+    public static ParquetWriter<EncodedTriplet> create(Path path, MessageType schema, CompressionCodecName codec,
+                                                       Map<String, String> metadata, FileLayout layout,
+                                                       Permutation order) throws IOException {
+
+        Map<String, String> footer = new HashMap<>(metadata);
+        footer.put(FileLayout.METADATA_KEY, layout.encode());
         Configuration writeConf = new Configuration();
-        return new Builder(path, schema)
+        Builder builder = new Builder(path, schema, footer)
                 .withConf(writeConf)
                 .withWriterVersion(ParquetProperties.WriterVersion.PARQUET_2_0)
                 .withCompressionCodec(codec)
-                .withRowGroupSize((long)ParquetWriter.DEFAULT_BLOCK_SIZE)
-                .withPageSize(ParquetWriter.DEFAULT_PAGE_SIZE)
+                .withRowGroupSize(layout.rowGroupSize())
+                .withPageSize(layout.pageSize())
+                .withPageRowCountLimit(layout.pageRows())
                 .withBloomFilterEnabled("subject", true)
                 .withBloomFilterEnabled("predicate",  true)
                 .withBloomFilterEnabled("object",  true)
                 .withBloomFilterFPP("subject", 0.001)
                 .withBloomFilterFPP("object",  0.001)
                 .withBloomFilterFPP("predicate", 0.001)
+                // small pages make high-cardinality columns fall back from dictionary encoding,
+                // and those get a bloom filter: sized by the values seen, not the 1 MB maximum
+                .withAdaptiveBloomFilterEnabled(true)
                 .withDictionaryEncoding(true)
                 .withSizeStatisticsEnabled(true)
-                .withStatisticsEnabled(true)
-                .build();
+                .withStatisticsEnabled(true);
+        if (order != null && layout.encoding() == FileLayout.Encoding.SORTED) {
+            // sort keys of the columns present; a pair file has no predicate column
+            int rank = 0;
+            for (int k = 0; k < 3 && rank < 2; k++) {
+                String column = order.keyColumnName(k);
+                if (!schema.containsField(column)) continue;
+                if (order.keyColumn(k) != 1) {
+                    builder.withDictionaryEncoding(column, false);
+                    // min/max statistics and the column index already skip on the leading column
+                    if (rank == 0) builder.withBloomFilterEnabled(column, false);
+                }
+                rank++;
+            }
+        }
+        return builder.build();
     }
 
     public static class Builder extends ParquetWriter.Builder<EncodedTriplet, Builder> {
         private final MessageType schema;
+        private final Map<String, String> metadata;
 
         public Builder(Path path, MessageType schema) {
+            this(path, schema, Map.of());
+        }
+
+        public Builder(Path path, MessageType schema, Map<String, String> metadata) {
             super(path);
             this.schema = schema;
+            this.metadata = metadata;
         }
 
         @Override
         protected WriteSupport<EncodedTriplet> getWriteSupport(Configuration conf) {
-            return new EncodedTripletWriteSupport(schema);
+            return new EncodedTripletWriteSupport(schema, metadata);
         }
 
         @Override
@@ -21,6 +21,7 @@ public class EncodedTripletReadSupport extends ReadSupport<EncodedTriplet> {
             Map<String, String> keyValueMetaData,
             MessageType fileSchema,
             ReadContext readContext) {
-        return new EncodedTripletMaterializer();
+        String predicate = keyValueMetaData.get(VerticalPartitions.PREDICATE_KEY);
+        return new EncodedTripletMaterializer(fileSchema, predicate == null ? 0 : Long.parseLong(predicate));
     }
 }
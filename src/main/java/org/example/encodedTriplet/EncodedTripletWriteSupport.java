@@ -10,15 +10,27 @@ import java.util.Map;
 public class EncodedTripletWriteSupport extends WriteSupport<EncodedTriplet> {
 
     private final MessageType schema;
+    private final Map<String, String> metadata;
+    private final boolean wide;
+    // false for the (subject, object) files of VerticalPartitions
+    private final boolean hasPredicate;
     private RecordConsumer recordConsumer;
 
     public EncodedTripletWriteSupport(MessageType schema) {
+        this(schema, Map.of());
+    }
+
+    /** Writes {@code metadata} into the file's footer key-value metadata. */
+    public EncodedTripletWriteSupport(MessageType schema, Map<String, String> metadata) {
         this.schema = schema;
+        this.metadata = metadata;
+        this.wide = IdWidth.of(schema) == IdWidth.INT64;
+        this.hasPredicate = schema.containsField("predicate");
     }
 
     @Override
     public WriteContext init(Configuration configuration) {
-        return new WriteContext(schema, Map.of());
+        return new WriteContext(schema, metadata);
     }
 
     @Override
@@ -31,17 +43,25 @@ public class EncodedTripletWriteSupport extends WriteSupport<EncodedTriplet> {
         recordConsumer.startMessage();
 
         recordConsumer.startField("subject", 0);
-        recordConsumer.addInteger(encodedTriplet.getSubject());
+        addId(encodedTriplet.getSubject());
         recordConsumer.endField("subject", 0);
 
-        recordConsumer.startField("predicate", 1);
-        recordConsumer.addInteger(encodedTriplet.getPredicate());
-        recordConsumer.endField("predicate", 1);
+        int index = 1;
+        if (hasPredicate) {
+            recordConsumer.startField("predicate", index);
+            addId(encodedTriplet.getPredicate());
+            recordConsumer.endField("predicate", index++);
+        }
 
-        recordConsumer.startField("object", 2);
-        recordConsumer.addInteger(encodedTriplet.getObject());
-        recordConsumer.endField("object", 2);
+        recordConsumer.startField("object", index);
+        addId(encodedTriplet.getObject());
+        recordConsumer.endField("object", index);
 
         recordConsumer.endMessage();
     }
+
+    private void addId(long id) {
+        if (wide) recordConsumer.addLong(id);
+        else recordConsumer.addInteger(Math.toIntExact(id));
+    }
 }
@@ -0,0 +1,247 @@
+package org.example.encodedTriplet;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts encoded triples in the order of a {@link Permutation} within a fixed heap budget.
+ *
+ * Triples are buffered in a {@link TripleBuffer}. Whenever the buffer is full it is
+ * sorted, deduplicated and spilled to a run file (ids of the sorter's {@link IdWidth}, in
+ * sort-key order) under the temp directory; {@link #mergeDistinct} then k-way merges the runs and drops the duplicates
+ * that span runs.
+ *
+ * The budget covers the buffer together with the radix sort's scratch copy of it, and the
+ * read buffers of the runs merged at once, so a run holds half the budget's triples and
+ * the merge fan-in shrinks with the budget. {@link #peakBytes} reports what was held.
+ */
+public class ExternalTripleSorter implements Closeable {
+
+    private static final int MIN_RUN_TRIPLES = 1 << 10;
+    private static final int INITIAL_TRIPLES = 1 << 16;
+    private static final int MAX_FAN_IN = 128;
+    private static final int IO_BUFFER = 1 << 16;
+
+    private final Permutation order;
+    private final IdWidth width;
+    private final int bytesPerTriple;
+    private final Path tmpDir;
+    private final int runCapacity;
+    private final int fanIn;
+    private long peakBytes;
+    private TripleBuffer buffer;
+    private long added;
+    private final List<Path> runs = new ArrayList<>();
+
+    public ExternalTripleSorter(long memoryBudgetBytes, Path tmpDir) {
+        this(Permutation.SPO, memoryBudgetBytes, tmpDir);
+    }
+
+    public ExternalTripleSorter(Permutation order, long memoryBudgetBytes, Path tmpDir) {
+        this(order, IdWidth.INT32, memoryBudgetBytes, tmpDir);
+    }
+
+    /** Sorts ids of {@code width}: a run of {@link IdWidth#INT64} ids holds half the triples in the same budget. */
+    public ExternalTripleSorter(Permutation order, IdWidth width, long memoryBudgetBytes, Path tmpDir) {
+        this.order = order;
+        this.width = width;
+        this.bytesPerTriple = 3 * width.bytes();
+        this.buffer = TripleBuffer.create(width, 0);
+        long triples = Math.max(MIN_RUN_TRIPLES, memoryBudgetBytes / (2L * bytesPerTriple));
+        this.runCapacity = (int) Math.min(triples, Integer.MAX_VALUE - 8);
+        // one read buffer per merged run, plus the writer of an intermediate merge
+        this.fanIn = (int) Math.max(2, Math.min(MAX_FAN_IN, memoryBudgetBytes / IO_BUFFER - 1));
+        this.tmpDir = tmpDir;
+    }
+
+    public void add(long s, long p, long o) throws IOException {
+        if (buffer.size() == runCapacity) {
+            spill();
+        } else if (buffer.size() == buffer.capacity()) {
+            // grow geometrically, but never past the run capacity
+            int capacity = (int) Math.min(runCapacity, Math.max(INITIAL_TRIPLES, 2L * buffer.capacity()));
+            hold((long) (buffer.capacity() + capacity) * bytesPerTriple);   // old and new columns
+            buffer.ensureCapacity(capacity);
+        }
+        buffer.add(s, p, o);
+        added++;
+    }
+
+    /** Number of triples passed to {@link #add}, duplicates included. */
+    public long size() { return added; }
+
+    public int runCount() { return runs.size(); }
+
+    public Permutation getOrder() { return order; }
+
+    /** Most heap held at once for the buffer, its sort scratch and merge read buffers, in bytes. */
+    public long peakBytes() { return peakBytes; }
+
+    /**
+     * Emits every distinct triple once, as (s, p, o), in the sorter's permutation order.
+     * Returns the number emitted.
+     */
+    public long mergeDistinct(TripleConsumer out) throws IOException {
+        if (runs.isEmpty()) {
+            sortBuffer();
+            int n = buffer.distinct();
+            buffer.forEach(out);
+            return n;
+        }
+        if (!buffer.isEmpty()) spill();
+        buffer = TripleBuffer.create(width, 0);
+
+        while (runs.size() > fanIn) {
+            List<Path> group = new ArrayList<>(runs.subList(0, fanIn));
+            runs.subList(0, fanIn).clear();
+            hold((fanIn + 1L) * IO_BUFFER);
+            Path merged = newRunFile();
+            try (DataOutputStream w = openWriter(merged)) {
+                merge(group, (a, b, c) -> { write(w, a); write(w, b); write(w, c); });
+            }
+            for (Path r : group) Files.deleteIfExists(r);
+            runs.add(merged);
+        }
+        hold((long) runs.size() * IO_BUFFER);
+        return merge(runs, toSpo(out));
+    }
+
+    private void sortBuffer() {
+        if (buffer.size() < TripleBuffer.RADIX_THRESHOLD) {
+            hold((long) buffer.capacity() * bytesPerTriple);        // sorted in place
+        } else {
+            // the radix sort scatters into scratch columns of the buffer's size, and first
+            // copies the rows out as well unless they fill the columns: trim a partly
+            // filled buffer so that it needs the one scratch copy only
+            if (buffer.size() != buffer.capacity()) {
+                hold((long) (buffer.capacity() + buffer.size()) * bytesPerTriple);
+                buffer.trimToSize();
+            }
+            hold(2L * buffer.size() * bytesPerTriple);
+        }
+        buffer.sort(order);
+    }
+
+    private void hold(long bytes) {
+        peakBytes = Math.max(peakBytes, bytes);
+    }
+
+    /** Wraps a consumer of (s, p, o) so that it can be fed sort-key ordered triples. */
+    private TripleConsumer toSpo(TripleConsumer out) {
+        if (order == Permutation.SPO) return out;
+        long[] t = new long[3];
+        int c0 = order.keyColumn(0), c1 = order.keyColumn(1), c2 = order.keyColumn(2);
+        return (a, b, c) -> {
+            t[c0] = a; t[c1] = b; t[c2] = c;
+            out.accept(t[0], t[1], t[2]);
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Path r : runs) Files.deleteIfExists(r);
+        runs.clear();
+        buffer = TripleBuffer.create(width, 0);
+    }
+
+    // ---------- runs ----------
+
+    private void spill() throws IOException {
+        sortBuffer();
+        int n = buffer.distinct();
+        int c0 = order.keyColumn(0), c1 = order.keyColumn(1), c2 = order.keyColumn(2);
+        Path run = newRunFile();
+        try (DataOutputStream w = openWriter(run)) {
+            for (int i = 0; i < n; i++) {
+                write(w, buffer.get(c0, i));
+                write(w, buffer.get(c1, i));
+                write(w, buffer.get(c2, i));
+            }
+        }
+        runs.add(run);
+        buffer.clear();
+    }
+
+    private Path newRunFile() throws IOException {
+        Files.createDirectories(tmpDir);
+        Path f = Files.createTempFile(tmpDir, "rdfparquet-run-", ".bin");
+        f.toFile().deleteOnExit();
+        return f;
+    }
+
+    private static DataOutputStream openWriter(Path f) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(f), IO_BUFFER));
+    }
+
+    private void write(DataOutputStream w, long id) throws IOException {
+        if (width == IdWidth.INT32) w.writeInt((int) id); else w.writeLong(id);
+    }
+
+    private long merge(List<Path> files, TripleConsumer out) throws IOException {
+        PriorityQueue<RunReader> heap = new PriorityQueue<>(files.size(), RunReader::compareTo);
+        long emitted = 0;
+        try {
+            for (Path f : files) {
+                RunReader r = new RunReader(f, width);
+                if (r.next()) heap.add(r); else r.close();
+            }
+            boolean first = true;
+            long l0 = 0, l1 = 0, l2 = 0;
+            while (!heap.isEmpty()) {
+                RunReader r = heap.poll();
+                if (first || r.k0 != l0 || r.k1 != l1 || r.k2 != l2) {
+                    out.accept(r.k0, r.k1, r.k2);
+                    l0 = r.k0; l1 = r.k1; l2 = r.k2;
+                    first = false;
+                    emitted++;
+                }
+                if (r.next()) heap.add(r); else r.close();
+            }
+        } finally {
+            for (RunReader r : heap) r.close();
+        }
+        return emitted;
+    }
+
+    private static final class RunReader implements Comparable<RunReader>, Closeable {
+        private final DataInputStream in;
+        private final boolean wide;
+        long k0, k1, k2;
+
+        RunReader(Path f, IdWidth width) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(f), IO_BUFFER));
+            this.wide = width == IdWidth.INT64;
+        }
+
+        boolean next() throws IOException {
+            try {
+                k0 = read();
+            } catch (EOFException eof) {
+                return false;
+            }
+            k1 = read();
+            k2 = read();
+            return true;
+        }
+
+        private long read() throws IOException {
+            return wide ? in.readLong() : in.readInt();
+        }
+
+        @Override
+        public int compareTo(RunReader x) {
+            int c = Long.compare(k0, x.k0);
+            if (c != 0) return c;
+            c = Long.compare(k1, x.k1);
+            if (c != 0) return c;
+            return Long.compare(k2, x.k2);
+        }
+
+        @Override
+        public void close() throws IOException { in.close(); }
+    }
+}
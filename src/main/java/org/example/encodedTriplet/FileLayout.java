@@ -0,0 +1,125 @@
+package org.example.encodedTriplet;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.column.ParquetProperties;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Row group and page sizing and column encoding of a permutation file. Every file also
+ * gets column and offset indexes, so a filtered read skips pages as well as row groups;
+ * how much a point lookup (a bound subject on SPO, ...) decompresses is bounded by the
+ * page, and how much footer and index it reads first by the row group count. Smaller
+ * sizes make lookups cheaper and files a little larger, see {@code FileLayoutBenchmark}.
+ * {@link Encoding} picks how the sorted columns are encoded, see
+ * {@code ColumnEncodingBenchmark}.
+ *
+ * The loader takes sizes per permutation ({@code --row-group-size}, {@code --page-size},
+ * {@code --page-rows}) and the encoding ({@code --encoding}) and records them in the
+ * file's footer, where compaction and the partition and vertical splits read them back
+ * for the files they write in its place.
+ */
+public final class FileLayout {
+
+    /** How the id columns of a file in a known sort order are encoded. */
+    public enum Encoding {
+        /** Dictionary encoding on every column, falling back to plain where it does not pay. */
+        DICTIONARY,
+        /**
+         * {@code DELTA_BINARY_PACKED} for the subject and object among the first two sort
+         * keys, dictionary for the rest; see {@link EncodedTripletParquetWriter}.
+         */
+        SORTED
+    }
+
+    public static final FileLayout DEFAULT = new FileLayout(ParquetWriter.DEFAULT_BLOCK_SIZE,
+            ParquetWriter.DEFAULT_PAGE_SIZE, ParquetProperties.DEFAULT_PAGE_ROW_COUNT_LIMIT, Encoding.SORTED);
+
+    static final String METADATA_KEY = "rdfparquet.layout";
+
+    private final long rowGroupSize;
+    private final int pageSize;
+    private final int pageRows;
+    private final Encoding encoding;
+
+    private FileLayout(long rowGroupSize, int pageSize, int pageRows, Encoding encoding) {
+        this.rowGroupSize = rowGroupSize;
+        this.pageSize = pageSize;
+        this.pageRows = pageRows;
+        this.encoding = encoding;
+    }
+
+    /**
+     * Target row group size in bytes, target page size in bytes, and most rows per page
+     * (a page is cut at whichever limit comes first).
+     */
+    public static FileLayout of(long rowGroupSize, int pageSize, int pageRows) {
+        if (rowGroupSize <= 0) throw new IllegalArgumentException("Row group size must be positive");
+        if (pageSize <= 0) throw new IllegalArgumentException("Page size must be positive");
+        if (pageRows <= 0) throw new IllegalArgumentException("Page rows must be positive");
+        return new FileLayout(rowGroupSize, pageSize, pageRows, DEFAULT.encoding);
+    }
+
+    /** This layout with the given column encoding. */
+    public FileLayout withEncoding(Encoding encoding) {
+        return new FileLayout(rowGroupSize, pageSize, pageRows, Objects.requireNonNull(encoding));
+    }
+
+    public long rowGroupSize() { return rowGroupSize; }
+    public int pageSize() { return pageSize; }
+    public int pageRows() { return pageRows; }
+    public Encoding encoding() { return encoding; }
+
+    /** As stored in the footer: the three sizes and the encoding, comma separated. */
+    String encode() {
+        return rowGroupSize + "," + pageSize + "," + pageRows + "," + encoding.name().toLowerCase(Locale.ROOT);
+    }
+
+    static FileLayout decode(String value) throws IOException {
+        String[] parts = value.split(",");
+        try {
+            if (parts.length != 3 && parts.length != 4) throw new NumberFormatException();
+            FileLayout layout = of(Long.parseLong(parts[0].trim()), Integer.parseInt(parts[1].trim()),
+                    Integer.parseInt(parts[2].trim()));
+            return parts.length == 3 ? layout
+                    : layout.withEncoding(Encoding.valueOf(parts[3].trim().toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Malformed file layout: " + value, e);
+        }
+    }
+
+    /** Layout recorded in the footer of {@code file} (or of a partitioned permutation); {@link #DEFAULT} if none. */
+    public static FileLayout read(java.nio.file.Path file) throws IOException {
+        java.nio.file.Path any = PermutationPartitions.anyFile(file);
+        try (ParquetFileReader reader = ParquetFileReader.open(
+                HadoopInputFile.fromPath(new Path(any.toString()), new Configuration()))) {
+            String value = reader.getFooter().getFileMetaData().getKeyValueMetaData().get(METADATA_KEY);
+            return value == null ? DEFAULT : decode(value);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof FileLayout)) return false;
+        FileLayout that = (FileLayout) o;
+        return rowGroupSize == that.rowGroupSize && pageSize == that.pageSize && pageRows == that.pageRows
+                && encoding == that.encoding;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(rowGroupSize, pageSize, pageRows, encoding);
+    }
+
+    @Override
+    public String toString() {
+        return "rowGroupSize=" + rowGroupSize + " pageSize=" + pageSize + " pageRows=" + pageRows
+                + " encoding=" + encoding;
+    }
+}
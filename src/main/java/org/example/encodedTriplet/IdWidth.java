@@ -0,0 +1,73 @@
+package org.example.encodedTriplet;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+
+import java.io.IOException;
+
+/**
+ * Physical type of the id columns in the permutation files and {@code dictionary.parquet}.
+ *
+ * {@link #INT32} is the default fast path: half the bytes per id on disk, and the loader's
+ * triple buffers and sorters keep {@code int} columns. {@link #INT64} ({@code --wide-ids})
+ * lifts the 2^31 id limit: the loader then encodes into {@code long} ids and sorts
+ * {@code long} columns, and inlines values under {@code InlineValues#WIDE_TAG}. Readers
+ * take the width from each file's schema; in memory the query side always holds ids as
+ * {@code long}.
+ */
+public enum IdWidth {
+    INT32("int32"),
+    INT64("int64");
+
+    private final String type;
+
+    IdWidth(String type) {
+        this.type = type;
+    }
+
+    /** Bytes per id, on disk and in the loader's buffers. */
+    public int bytes() {
+        return this == INT32 ? Integer.BYTES : Long.BYTES;
+    }
+
+    /** Largest id a column of this width holds. */
+    public long maxId() {
+        return this == INT32 ? Integer.MAX_VALUE : Long.MAX_VALUE;
+    }
+
+    public MessageType tripleSchema() {
+        return MessageTypeParser.parseMessageType("message EncodedTriplet { required " + type + " subject; required "
+                + type + " predicate; required " + type + " object; }");
+    }
+
+    /** Schema of the (subject, object) files of {@link VerticalPartitions}. */
+    public MessageType pairSchema() {
+        return MessageTypeParser.parseMessageType("message EncodedPair { required " + type + " subject; required "
+                + type + " object; }");
+    }
+
+    public MessageType dictionarySchema() {
+        return MessageTypeParser.parseMessageType(
+                "message DictionaryEntry { required " + type + " id; required binary value (UTF8); }");
+    }
+
+    /** Width of the first column of {@code schema} (subject, or the dictionary's id). */
+    public static IdWidth of(MessageType schema) {
+        PrimitiveTypeName t = schema.getType(0).asPrimitiveType().getPrimitiveTypeName();
+        return t == PrimitiveTypeName.INT64 ? INT64 : INT32;
+    }
+
+    /** Width of the ids in the Parquet file at {@code path}, or in a partitioned permutation, from a footer. */
+    public static IdWidth read(String path) throws IOException {
+        String file = PermutationPartitions.anyFile(java.nio.file.Paths.get(path)).toString();
+        try (ParquetFileReader reader = ParquetFileReader.open(
+                HadoopInputFile.fromPath(new Path(file), new Configuration()))) {
+            return of(reader.getFooter().getFileMetaData().getSchema());
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package org.example.encodedTriplet;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/** {@link TripleBuffer} of {@link IdWidth#INT64} ids in {@code long[]} columns. */
+final class LongTripleBuffer extends TripleBuffer {
+
+    private long[] s;
+    private long[] p;
+    private long[] o;
+
+    LongTripleBuffer(int initialCapacity) {
+        int cap = Math.max(1, initialCapacity);
+        this.s = new long[cap];
+        this.p = new long[cap];
+        this.o = new long[cap];
+    }
+
+    LongTripleBuffer(long[] s, long[] p, long[] o, int size) {
+        this.s = s;
+        this.p = p;
+        this.o = o;
+        this.size = size;
+    }
+
+    @Override
+    public IdWidth width() { return IdWidth.INT64; }
+
+    @Override
+    public void add(long subject, long predicate, long object) {
+        if (size == s.length) grow(size + 1);
+        s[size] = subject;
+        p[size] = predicate;
+        o[size] = object;
+        size++;
+    }
+
+    @Override
+    public int capacity() { return s.length; }
+
+    @Override
+    public long get(int column, int i) {
+        return column(column)[i];
+    }
+
+    @Override
+    public void ensureCapacity(int capacity) {
+        if (capacity > s.length) {
+            s = Arrays.copyOf(s, capacity);
+            p = Arrays.copyOf(p, capacity);
+            o = Arrays.copyOf(o, capacity);
+        }
+    }
+
+    @Override
+    public void trimToSize() {
+        if (size < s.length) {
+            s = Arrays.copyOf(s, size);
+            p = Arrays.copyOf(p, size);
+            o = Arrays.copyOf(o, size);
+        }
+    }
+
+    @Override
+    public TripleBuffer copy() {
+        return new LongTripleBuffer(Arrays.copyOf(s, size), Arrays.copyOf(p, size), Arrays.copyOf(o, size), size);
+    }
+
+    @Override
+    public void forEach(TripleConsumer out) throws IOException {
+        for (int i = 0; i < size; i++) out.accept(s[i], p[i], o[i]);
+    }
+
+    @Override
+    public void remap(int[] ids) {
+        IntStream.range(0, size).parallel().forEach(i -> {
+            s[i] = remap(ids, s[i]);
+            p[i] = remap(ids, p[i]);
+            o[i] = remap(ids, o[i]);
+        });
+    }
+
+    @Override
+    boolean radixSort(Permutation perm, int fromKey, int lo, int hi) {
+        long[][] cols = {s, p, o};
+        if (!RadixTripleSort.sort(cols, perm, fromKey, lo, hi)) return false;
+        // a full-length sort may hand back its scratch arrays instead of copying
+        s = cols[0];
+        p = cols[1];
+        o = cols[2];
+        return true;
+    }
+
+    @Override
+    public int distinct() {
+        if (size == 0) return 0;
+        int w = 1;
+        for (int r = 1; r < size; r++) {
+            if (s[r] != s[w - 1] || p[r] != p[w - 1] || o[r] != o[w - 1]) {
+                s[w] = s[r];
+                p[w] = p[r];
+                o[w] = o[r];
+                w++;
+            }
+        }
+        size = w;
+        return w;
+    }
+
+    // ---------- internals ----------
+
+    private long[] column(int c) {
+        switch (c) {
+            case 0: return s;
+            case 1: return p;
+            default: return o;
+        }
+    }
+
+    private void grow(int minCapacity) {
+        int cap = newCapacity(minCapacity, s.length);
+        s = Arrays.copyOf(s, cap);
+        p = Arrays.copyOf(p, cap);
+        o = Arrays.copyOf(o, cap);
+    }
+
+    @Override
+    void quicksort(Permutation perm, int lo, int hi) {
+        quicksort(column(perm.keyColumn(0)), column(perm.keyColumn(1)), column(perm.keyColumn(2)), lo, hi);
+    }
+
+    private static int compare(long[] k0, long[] k1, long[] k2, int i, int j) {
+        int c = Long.compare(k0[i], k0[j]);
+        if (c != 0) return c;
+        c = Long.compare(k1[i], k1[j]);
+        if (c != 0) return c;
+        return Long.compare(k2[i], k2[j]);
+    }
+
+    private static void quicksort(long[] k0, long[] k1, long[] k2, int lo, int hi) {
+        while (hi - lo > INSERTION_SORT_THRESHOLD) {
+            int mid = lo + ((hi - lo) >>> 1);
+            // median of three, moved to lo as the pivot
+            if (compare(k0, k1, k2, mid, lo) < 0) swap(k0, k1, k2, mid, lo);
+            if (compare(k0, k1, k2, hi, lo) < 0) swap(k0, k1, k2, hi, lo);
+            if (compare(k0, k1, k2, hi, mid) < 0) swap(k0, k1, k2, hi, mid);
+            swap(k0, k1, k2, lo, mid);
+            int i = lo + 1, j = hi;
+            while (true) {
+                while (i <= j && compare(k0, k1, k2, i, lo) < 0) i++;
+                while (compare(k0, k1, k2, j, lo) > 0) j--;
+                if (i >= j) break;
+                swap(k0, k1, k2, i, j);
+                i++; j--;
+            }
+            swap(k0, k1, k2, lo, j);
+            if (j - lo < hi - j) {
+                quicksort(k0, k1, k2, lo, j - 1);
+                lo = j + 1;
+            } else {
+                quicksort(k0, k1, k2, j + 1, hi);
+                hi = j - 1;
+            }
+        }
+        for (int i = lo + 1; i <= hi; i++) {
+            for (int j = i; j > lo && compare(k0, k1, k2, j, j - 1) < 0; j--) swap(k0, k1, k2, j, j - 1);
+        }
+    }
+
+    private static void swap(long[] k0, long[] k1, long[] k2, int i, int j) {
+        long t = k0[i]; k0[i] = k0[j]; k0[j] = t;
+        t = k1[i]; k1[i] = k1[j]; k1[j] = t;
+        t = k2[i]; k2[i] = k2[j]; k2[j] = t;
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.encodedTriplet;
+
+import java.util.Comparator;
+
+/**
+ * The six sort orders the store keeps a Parquet file for. Column positions use
+ * 0 = subject, 1 = predicate, 2 = object.
+ */
+public enum Permutation {
+    SPO(0, 1, 2),
+    SOP(0, 2, 1),
+    PSO(1, 0, 2),
+    POS(1, 2, 0),
+    OSP(2, 0, 1),
+    OPS(2, 1, 0);
+
+    private static final String[] COLUMNS = {"subject", "predicate", "object"};
+
+    private final int[] order;
+
+    Permutation(int first, int second, int third) {
+        this.order = new int[]{first, second, third};
+    }
+
+    /** Triple position (0 = s, 1 = p, 2 = o) of the {@code k}-th sort key. */
+    public int keyColumn(int k) {
+        return order[k];
+    }
+
+    /** Parquet column name of the {@code k}-th sort key. */
+    public String keyColumnName(int k) {
+        return COLUMNS[order[k]];
+    }
+
+    /** The {@code k}-th sort key of the given triple. */
+    public long key(int k, long s, long p, long o) {
+        switch (order[k]) {
+            case 0: return s;
+            case 1: return p;
+            default: return o;
+        }
+    }
+
+    /** Row order of this permutation's files, on all three ids. */
+    public Comparator<EncodedTriplet> comparator() {
+        return Comparator.<EncodedTriplet>comparingLong(t -> id(t, order[0]))
+                .thenComparingLong(t -> id(t, order[1]))
+                .thenComparingLong(t -> id(t, order[2]));
+    }
+
+    /** The first sort key of the given triple, the one partitioned files are cut on. */
+    public long leadingKey(EncodedTriplet t) {
+        return id(t, order[0]);
+    }
+
+    /** The {@code k}-th sort key of the given triple. */
+    public long key(int k, EncodedTriplet t) {
+        return id(t, order[k]);
+    }
+
+    public String fileName() {
+        return name().toLowerCase() + ".parquet";
+    }
+
+    /** Lower-case name, the prefix of this permutation's files. */
+    public String stem() {
+        return name().toLowerCase();
+    }
+
+    private static long id(EncodedTriplet t, int column) {
+        switch (column) {
+            case 0: return t.getSubject();
+            case 1: return t.getPredicate();
+            default: return t.getObject();
+        }
+    }
+}
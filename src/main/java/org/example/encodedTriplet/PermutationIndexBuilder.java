@@ -0,0 +1,183 @@
+package org.example.encodedTriplet;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.schema.MessageType;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Builds the six permutation files with a disk-backed external sort, so the heap
+ * needed is bounded by the memory budget rather than by the number of triples.
+ *
+ * Every added triple goes to one {@link ExternalTripleSorter} per permutation, holding ids
+ * of the schema's {@link IdWidth}; half the budget is split evenly between them.
+ * {@link #write(int)} then merges each sorter's runs straight into its {@link EncodedTripletParquetWriter}. A Parquet writer buffers
+ * about a row group before it flushes, so the other half bounds the open writers: their
+ * row groups are capped to share it, and fewer run at once if a share would fall below
+ * {@link #MIN_ROW_GROUP}.
+ *
+ * When the caller already delivers distinct triples in SPO order (as the streaming
+ * loader's dedup merge does), {@code spoSortedInput} skips the SPO sorter and writes
+ * {@code spo.parquet} while the triples are being added.
+ */
+public class PermutationIndexBuilder implements Closeable {
+
+    static final long MIN_ROW_GROUP = 1L << 20;
+
+    private final Function<Permutation, File> output;
+    private final MessageType schema;
+    private final Function<Permutation, FileLayout> layouts;
+    private final Map<Permutation, ExternalTripleSorter> sorters = new EnumMap<>(Permutation.class);
+    private ParquetWriter<EncodedTriplet> spoWriter;
+    private final EncodedTriplet spoRow = new EncodedTriplet(0, 0, 0);
+    private long spoWritten;
+    private final long writerBudget;
+    private long writerBytes;
+
+    public PermutationIndexBuilder(File parquetDir, MessageType schema, long memoryBudgetBytes,
+                                   java.nio.file.Path tmpDir, boolean spoSortedInput) throws IOException {
+        this(perm -> new File(parquetDir, perm.fileName()), schema, perm -> FileLayout.DEFAULT,
+                memoryBudgetBytes, tmpDir, spoSortedInput);
+    }
+
+    /**
+     * As above, writing each permutation to the file {@code output} names, e.g. a delta
+     * file, with the row group and page sizes {@code layouts} gives for it.
+     */
+    public PermutationIndexBuilder(Function<Permutation, File> output, MessageType schema,
+                                   Function<Permutation, FileLayout> layouts, long memoryBudgetBytes,
+                                   java.nio.file.Path tmpDir, boolean spoSortedInput) throws IOException {
+        this.output = output;
+        this.schema = schema;
+        this.layouts = layouts;
+
+        this.writerBudget = memoryBudgetBytes / 2;
+        IdWidth width = IdWidth.of(schema);
+        int sorted = spoSortedInput ? Permutation.values().length - 1 : Permutation.values().length;
+        long perSorter = (memoryBudgetBytes - writerBudget) / sorted;
+        for (Permutation perm : Permutation.values()) {
+            if (spoSortedInput && perm == Permutation.SPO) continue;
+            sorters.put(perm, new ExternalTripleSorter(perm, width, perSorter, tmpDir));
+        }
+        if (spoSortedInput) {
+            FileLayout layout = capped(layouts.apply(Permutation.SPO), writerBudget);
+            writerBytes = layout.rowGroupSize();
+            spoWriter = EncodedTripletParquetWriter.create(
+                    new Path(outputPath(Permutation.SPO)), schema, CompressionCodecName.SNAPPY,
+                    layout, Permutation.SPO);
+        }
+    }
+
+    public void add(long s, long p, long o) throws IOException {
+        if (spoWriter != null) {
+            spoRow.setSubject(s);
+            spoRow.setPredicate(p);
+            spoRow.setObject(o);
+            spoWriter.write(spoRow);
+            spoWritten++;
+        }
+        for (ExternalTripleSorter sorter : sorters.values()) {
+            sorter.add(s, p, o);
+        }
+    }
+
+    /**
+     * Heap held for buffered triples, in bytes: the sum of the sorters' peaks, as they fill
+     * and merge together, plus the row groups of the writers open at once.
+     */
+    public long peakBytes() {
+        long bytes = writerBytes;
+        for (ExternalTripleSorter sorter : sorters.values()) bytes += sorter.peakBytes();
+        return bytes;
+    }
+
+    /**
+     * Merges every pending permutation into its Parquet file, using up to {@code threads}
+     * writers at a time, fewer if the budget cannot give each a {@link #MIN_ROW_GROUP}.
+     * Returns the number of distinct triples written per file.
+     */
+    public long write(int threads) throws IOException {
+        if (spoWriter != null) {
+            spoWriter.close();
+            spoWriter = null;
+        }
+
+        int parallel = (int) Math.max(1, Math.min(Math.min(threads, sorters.size()), writerBudget / MIN_ROW_GROUP));
+        Map<Permutation, FileLayout> capped = new EnumMap<>(Permutation.class);
+        long rowGroup = 0;
+        for (Permutation perm : sorters.keySet()) {
+            FileLayout layout = capped(layouts.apply(perm), writerBudget / parallel);
+            capped.put(perm, layout);
+            rowGroup = Math.max(rowGroup, layout.rowGroupSize());
+        }
+        writerBytes = Math.max(writerBytes, parallel * rowGroup);
+
+        ExecutorService pool = Executors.newFixedThreadPool(parallel);
+        long distinct = spoWritten;
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (ExternalTripleSorter sorter : sorters.values()) {
+                futures.add(pool.submit(() -> {
+                    Permutation perm = sorter.getOrder();
+                    System.out.println("Merging " + perm + " (" + sorter.runCount() + " runs) into parquet...");
+                    EncodedTriplet row = new EncodedTriplet(0, 0, 0);
+                    try (ParquetWriter<EncodedTriplet> writer = EncodedTripletParquetWriter.create(
+                            new Path(outputPath(perm)), schema, CompressionCodecName.SNAPPY, capped.get(perm), perm)) {
+                        return sorter.mergeDistinct((s, p, o) -> {
+                            row.setSubject(s);
+                            row.setPredicate(p);
+                            row.setObject(o);
+                            writer.write(row);
+                        });
+                    }
+                }));
+            }
+            for (Future<Long> f : futures) distinct = Math.max(distinct, f.get());
+        } catch (Exception e) {
+            throw new IOException("Parallel write failed", e);
+        } finally {
+            pool.shutdown();
+            try {
+                if (!pool.awaitTermination(30, TimeUnit.SECONDS)) pool.shutdownNow();
+            } catch (InterruptedException ie) {
+                pool.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        return distinct;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (spoWriter != null) {
+            spoWriter.close();
+            spoWriter = null;
+        }
+        for (ExternalTripleSorter sorter : sorters.values()) sorter.close();
+    }
+
+    /** {@code layout} with its row group, and pages, no larger than {@code rowGroupSize}. */
+    private static FileLayout capped(FileLayout layout, long rowGroupSize) {
+        long cap = Math.max(1, rowGroupSize);
+        if (layout.rowGroupSize() <= cap) return layout;
+        return FileLayout.of(cap, (int) Math.min(layout.pageSize(), cap), layout.pageRows())
+                .withEncoding(layout.encoding());
+    }
+
+    private String outputPath(Permutation perm) {
+        return output.apply(perm).getPath();
+    }
+}
@@ -0,0 +1,366 @@
+package org.example.encodedTriplet;
+
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.example.util.ParquetFileCache;
+import org.example.util.ParquetFiles;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Range-partitioned permutation files ({@code --partitions=N}). A partitioned permutation
+ * is a directory in place of its file, {@code spo.parquet/}, holding N files cut from its
+ * sorted rows at about equal row counts and a manifest, {@code _partitions}, with the
+ * first and last leading key of each (the subject for SPO and SOP, the predicate for PSO
+ * and POS, ...). Neighbouring files may share a leading key.
+ *
+ * {@link #open} reads a permutation as one sorted sequence whatever its form; given
+ * leading-key ranges it skips the files outside them and seeks to the ranges in the
+ * others ({@link SeekReader}), and {@link #scan} reads the files left in parallel, or the
+ * row groups of the file left if there is one. Compaction writes a new generation of
+ * files and swaps the manifest; files the manifest no longer lists are deleted by the
+ * next compaction, so scans that started on them can finish.
+ */
+public final class PermutationPartitions {
+
+    static final String MANIFEST_NAME = "_partitions";
+
+    private static final int SCAN_THREADS = Integer.getInteger("rdfparquet.scanThreads",
+            Runtime.getRuntime().availableProcessors());
+
+    // a scan of one file is shared out only in runs of row groups at least this long
+    private static final long MIN_SPLIT_ROWS = Long.getLong("rdfparquet.scanSplitRows", 1 << 18);
+
+    private static final ExecutorService SCANNERS = Executors.newFixedThreadPool(Math.max(1, SCAN_THREADS), r -> {
+        Thread t = new Thread(r, "partition-scan");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** One file of a permutation with the range of its leading key. */
+    public static final class Part {
+        public final Path file;
+        public final long first, last, rows;
+
+        Part(Path file, long first, long last, long rows) {
+            this.file = file;
+            this.first = first;
+            this.last = last;
+            this.rows = rows;
+        }
+
+        /** True if the leading key of some row here can be in one of the {@code [first, last]} pairs. */
+        boolean overlaps(long[] leading) {
+            if (leading == null) return true;
+            for (int i = 0; i < leading.length; i += 2) {
+                if (leading[i] <= last && leading[i + 1] >= first) return true;
+            }
+            return false;
+        }
+    }
+
+    private PermutationPartitions() {}
+
+    public static boolean isPartitioned(Path base) {
+        return Files.isDirectory(base);
+    }
+
+    /**
+     * The files of {@code base} in key order; for a permutation that is a single file,
+     * that file, covering every key.
+     */
+    public static List<Part> parts(Path base) throws IOException {
+        if (!isPartitioned(base)) return List.of(new Part(base, Long.MIN_VALUE, Long.MAX_VALUE, -1));
+        List<Part> parts = new ArrayList<>();
+        for (String line : Files.readAllLines(base.resolve(MANIFEST_NAME), StandardCharsets.UTF_8)) {
+            if (line.isBlank()) continue;
+            String[] f = line.trim().split("\\s+");
+            if (f.length != 4) throw new IOException("Malformed partition manifest line in " + base + ": " + line);
+            try {
+                parts.add(new Part(base.resolve(f[0]), Long.parseLong(f[1]), Long.parseLong(f[2]), Long.parseLong(f[3])));
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed partition manifest line in " + base + ": " + line, e);
+            }
+        }
+        return parts;
+    }
+
+    /** The parts of {@code base} whose leading keys can fall in one of the {@code [first, last]} pairs; all for null. */
+    public static List<Part> parts(Path base, long[] leading) throws IOException {
+        List<Part> kept = new ArrayList<>();
+        for (Part part : parts(base)) {
+            if (part.overlaps(leading)) kept.add(part);
+        }
+        return kept;
+    }
+
+    /** A file of {@code base} to read the footer of, for its schema. */
+    public static Path anyFile(Path base) throws IOException {
+        if (!isPartitioned(base)) return base;
+        List<Part> parts = parts(base);
+        if (parts.isEmpty()) throw new IOException("No partitions in " + base);
+        return parts.get(0).file;
+    }
+
+    /**
+     * The matching rows of {@code base} in {@code perm} order, from the parts that meet
+     * {@code leading} (all for null), opened one after the other.
+     */
+    static RowReader open(Path base, Permutation perm, long[] leading, FilterCompat.Filter filter) throws IOException {
+        if (!isPartitioned(base)) return SeekReader.open(base, perm, leading, filter);
+        List<Part> parts = parts(base, leading);
+        return new RowReader() {
+            private int next;
+            private RowReader current;
+
+            @Override
+            public EncodedTriplet read() throws IOException {
+                while (true) {
+                    if (current == null) {
+                        if (next == parts.size()) return null;
+                        current = SeekReader.open(parts.get(next++).file, perm, leading, filter);
+                    }
+                    EncodedTriplet row = current.read();
+                    if (row != null) return row;
+                    current.close();
+                    current = null;
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (current != null) current.close();
+            }
+        };
+    }
+
+    /**
+     * Appends the matching rows of {@code base} that {@code tombstones} do not hide from the
+     * base to {@code out}, in permutation order, read a {@link TripleBatch} at a time. The
+     * parts that meet {@code leading} are read in parallel on up to
+     * {@code rdfparquet.scanThreads} threads; a single one, by runs of its row groups
+     * ({@code rdfparquet.scanSplitRows} rows at least, 256K by default), concatenated in order.
+     */
+    static void scan(Path base, Permutation perm, long[] leading, FilterCompat.Filter filter,
+                     Tombstones tombstones, EncodedTriples out) throws IOException {
+        List<Part> parts = parts(base, leading);
+        if (parts.size() == 1) {
+            readSplit(parts.get(0).file, perm, leading, filter, tombstones, out);
+            return;
+        }
+        List<Future<EncodedTriples>> reads = new ArrayList<>(parts.size());
+        for (Part part : parts) {
+            reads.add(SCANNERS.submit(() -> {
+                EncodedTriples rows = new EncodedTriples();
+                try (SeekReader reader = SeekReader.open(part.file, perm, leading, filter)) {
+                    read(reader, tombstones, rows);
+                }
+                return rows;
+            }));
+        }
+        collect(base, reads, out);
+    }
+
+    /** Appends the results of {@code reads} to {@code out} in order, waiting for each. */
+    private static void collect(Path base, List<Future<EncodedTriples>> reads, EncodedTriples out) throws IOException {
+        try {
+            for (Future<EncodedTriples> read : reads) out.addAll(read.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while scanning " + base, e);
+        } catch (ExecutionException e) {
+            for (Future<?> read : reads) read.cancel(true);
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            if (e.getCause() instanceof UncheckedIOException) throw ((UncheckedIOException) e.getCause()).getCause();
+            throw new IOException("Scanning " + base + " failed", e.getCause());
+        }
+    }
+
+    /**
+     * Replaces the single file {@code base} with a directory of {@code count} parts. For
+     * full loads: the permutation is unreadable for the moment between the two renames.
+     */
+    public static void split(Path base, Permutation perm, int count) throws IOException {
+        Path building = Paths.get(base + ".partitioning");
+        deleteTree(building);
+        Files.createDirectories(building);
+        writeParts(base, building, perm, count, 1);
+        ParquetFiles.delete(base);
+        Files.move(building, base, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Makes the rows of the single file {@code merged} the new contents of the partitioned
+     * {@code base}, with as many parts as before, and deletes {@code merged}. Parts left
+     * over from the generation before the current one are deleted first.
+     */
+    static void replace(Path merged, Path base, Permutation perm) throws IOException {
+        List<Part> current = parts(base);
+        Set<Path> listed = new HashSet<>();
+        int generation = 0;
+        for (Part part : current) {
+            listed.add(part.file.getFileName());
+            generation = Math.max(generation, generation(part.file));
+        }
+        try (Stream<Path> files = Files.list(base)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String n = file.getFileName().toString();
+                if (n.startsWith("part-") && !listed.contains(file.getFileName())) ParquetFiles.delete(file);
+            }
+        }
+        writeParts(merged, base, perm, Math.max(1, current.size()), generation + 1);
+        ParquetFiles.delete(merged);
+    }
+
+    /** Deletes the permutation {@code base}, a file or a directory of parts. */
+    public static void delete(Path base) throws IOException {
+        if (isPartitioned(base)) deleteTree(base);
+        else ParquetFiles.delete(base);
+    }
+
+    // ---------- internals ----------
+
+    /**
+     * Reads {@code file} as {@link #read}, its row groups shared out among the scan threads
+     * in runs when there are enough; this thread reads the first run.
+     */
+    private static void readSplit(Path file, Permutation perm, long[] leading, FilterCompat.Filter filter,
+                                  Tombstones tombstones, EncodedTriples out) throws IOException {
+        try (SeekReader reader = SeekReader.open(file, perm, leading, filter)) {
+            List<int[]> runs = SCAN_THREADS > 1 ? reader.split(SCAN_THREADS, MIN_SPLIT_ROWS) : List.of();
+            if (runs.size() < 2) {
+                read(reader, tombstones, out);
+                return;
+            }
+            List<Future<EncodedTriples>> reads = new ArrayList<>(runs.size() - 1);
+            for (int[] run : runs.subList(1, runs.size())) {
+                reads.add(SCANNERS.submit(() -> {
+                    EncodedTriples rows = new EncodedTriples();
+                    try (SeekReader part = SeekReader.open(file, perm, leading, filter)) {
+                        read(part.restrict(run[0], run[1]), tombstones, rows);
+                    }
+                    return rows;
+                }));
+            }
+            try {
+                read(reader.restrict(runs.get(0)[0], runs.get(0)[1]), tombstones, out);
+            } catch (IOException | RuntimeException e) {
+                for (Future<?> read : reads) read.cancel(true);
+                throw e;
+            }
+            collect(file, reads, out);
+        }
+    }
+
+    /** Appends the rows of {@code reader} that {@code tombstones} do not hide from the base to {@code out}. */
+    private static void read(SeekReader reader, Tombstones tombstones, EncodedTriples out) throws IOException {
+        TripleBatch batch = new TripleBatch();
+        boolean[] live = tombstones.isEmpty() ? null : new boolean[TripleBatch.CAPACITY];
+        while (reader.read(batch)) {
+            if (live != null) {
+                for (int i = 0; i < batch.size(); i++) {
+                    live[i] = !tombstones.hides(batch.getSubject(i), batch.getPredicate(i), batch.getObject(i), 0);
+                }
+                batch.retain(live);
+            }
+            out.addAll(batch);
+        }
+    }
+
+    /**
+     * Cuts the sorted rows of {@code source} into {@code count} files of generation
+     * {@code generation} in {@code dir}, then writes the manifest listing them.
+     */
+    private static void writeParts(Path source, Path dir, Permutation perm, int count, int generation)
+            throws IOException {
+        long total;
+        try (ParquetFileReader footer = ParquetFileReader.open(HadoopInputFile.fromPath(
+                new org.apache.hadoop.fs.Path(source.toString()), new org.apache.hadoop.conf.Configuration()))) {
+            total = footer.getRecordCount();
+        }
+        long perPart = Math.max(1, (total + count - 1) / count);
+        IdWidth width = IdWidth.read(source.toString());
+        FileLayout layout = FileLayout.read(source);
+
+        StringBuilder manifest = new StringBuilder();
+        ParquetWriter<EncodedTriplet> writer = null;
+        String name = null;
+        long first = 0, last = 0, rows = 0;
+        int part = 0;
+        try (ParquetReader<EncodedTriplet> reader = EncodedTripletParquetReader.create(
+                new org.apache.hadoop.fs.Path(source.toString()), FilterCompat.NOOP)) {
+            EncodedTriplet t;
+            while ((t = reader.read()) != null) {
+                long key = perm.leadingKey(t);
+                if (writer == null || rows == perPart) {
+                    if (writer != null) {
+                        writer.close();
+                        manifest.append(name).append(' ').append(first).append(' ').append(last)
+                                .append(' ').append(rows).append('\n');
+                    }
+                    name = String.format("part-%d-%05d.parquet", generation, part++);
+                    writer = EncodedTripletParquetWriter.create(new org.apache.hadoop.fs.Path(dir.resolve(name).toString()),
+                            width.tripleSchema(), CompressionCodecName.SNAPPY, layout, perm);
+                    first = key;
+                    rows = 0;
+                }
+                writer.write(t);
+                last = key;
+                rows++;
+            }
+            if (writer == null) {
+                // no rows: one empty part, so the permutation still has a schema to read
+                name = String.format("part-%d-%05d.parquet", generation, part);
+                writer = EncodedTripletParquetWriter.create(new org.apache.hadoop.fs.Path(dir.resolve(name).toString()),
+                        width.tripleSchema(), CompressionCodecName.SNAPPY, layout, perm);
+                first = 1;
+                last = 0;
+            }
+        } finally {
+            if (writer != null) writer.close();
+        }
+        manifest.append(name).append(' ').append(first).append(' ').append(last)
+                .append(' ').append(rows).append('\n');
+
+        Path tmp = dir.resolve(MANIFEST_NAME + ".tmp");
+        Files.writeString(tmp, manifest, StandardCharsets.UTF_8);
+        Files.move(tmp, dir.resolve(MANIFEST_NAME), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static int generation(Path part) {
+        String n = part.getFileName().toString();
+        try {
+            return Integer.parseInt(n.substring("part-".length(), n.indexOf('-', "part-".length())));
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        ParquetFileCache.invalidate(dir);
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) Files.delete(p);
+        }
+    }
+}
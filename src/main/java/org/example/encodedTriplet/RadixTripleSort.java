@@ -0,0 +1,193 @@
+package org.example.encodedTriplet;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel LSD radix sort over the {@code int} or {@code long} columns of a {@link TripleBuffer}.
+ *
+ * Dictionary ids are dense and non-negative, so each sort key needs only as many
+ * bits as its largest value. Every pass histograms {@code DIGIT_BITS} of one key per
+ * chunk on the common fork-join pool, turns the histograms into per-chunk offsets and
+ * scatters all three columns stably into a scratch copy. Passes whose digit is the
+ * same for every row are skipped.
+ */
+final class RadixTripleSort {
+
+    private static final int DIGIT_BITS = 11;
+    private static final int BUCKETS = 1 << DIGIT_BITS;
+    private static final int MIN_CHUNK = 1 << 16;
+
+    private RadixTripleSort() {}
+
+    /**
+     * Sorts rows {@code [lo, hi)} of {@code cols} (s, p, o) by the sort keys of
+     * {@code perm} starting at key {@code fromKey}; keys before it are assumed equal
+     * across the range. Returns false, leaving the rows untouched, if a key is negative.
+     */
+    static boolean sort(int[][] cols, Permutation perm, int fromKey, int lo, int hi) {
+        int n = hi - lo;
+        if (n < 2) return true;
+
+        int[] bits = new int[3];
+        for (int k = fromKey; k < 3; k++) {
+            int[] key = cols[perm.keyColumn(k)];
+            int max = 0;
+            for (int i = lo; i < hi; i++) {
+                int v = key[i];
+                if (v < 0) return false;
+                if (v > max) max = v;
+            }
+            bits[k] = 32 - Integer.numberOfLeadingZeros(max);
+        }
+
+        int chunks = (int) Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism() * 4L, n / MIN_CHUNK));
+        int[][] src = {slice(cols[0], lo, hi), slice(cols[1], lo, hi), slice(cols[2], lo, hi)};
+        int[][] dst = {new int[n], new int[n], new int[n]};
+        int[][] hist = new int[chunks][BUCKETS];
+
+        // least significant key first, low digit first: stable passes give lexicographic order
+        for (int k = 2; k >= fromKey; k--) {
+            int col = perm.keyColumn(k);
+            for (int shift = 0; shift < bits[k]; shift += DIGIT_BITS) {
+                if (pass(src, dst, col, shift, n, chunks, hist)) {
+                    int[][] t = src; src = dst; dst = t;
+                }
+            }
+        }
+
+        for (int c = 0; c < 3; c++) {
+            if (lo == 0 && src[c].length == cols[c].length) {
+                cols[c] = src[c];
+            } else {
+                System.arraycopy(src[c], 0, cols[c], lo, n);
+            }
+        }
+        return true;
+    }
+
+    /** As {@link #sort(int[][], Permutation, int, int, int)}, for {@code long} ids. */
+    static boolean sort(long[][] cols, Permutation perm, int fromKey, int lo, int hi) {
+        int n = hi - lo;
+        if (n < 2) return true;
+
+        int[] bits = new int[3];
+        for (int k = fromKey; k < 3; k++) {
+            long[] key = cols[perm.keyColumn(k)];
+            long max = 0;
+            for (int i = lo; i < hi; i++) {
+                long v = key[i];
+                if (v < 0) return false;
+                if (v > max) max = v;
+            }
+            bits[k] = 64 - Long.numberOfLeadingZeros(max);
+        }
+
+        int chunks = (int) Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism() * 4L, n / MIN_CHUNK));
+        long[][] src = {slice(cols[0], lo, hi), slice(cols[1], lo, hi), slice(cols[2], lo, hi)};
+        long[][] dst = {new long[n], new long[n], new long[n]};
+        int[][] hist = new int[chunks][BUCKETS];
+
+        for (int k = 2; k >= fromKey; k--) {
+            int col = perm.keyColumn(k);
+            for (int shift = 0; shift < bits[k]; shift += DIGIT_BITS) {
+                if (pass(src, dst, col, shift, n, chunks, hist)) {
+                    long[][] t = src; src = dst; dst = t;
+                }
+            }
+        }
+
+        for (int c = 0; c < 3; c++) {
+            if (lo == 0 && src[c].length == cols[c].length) {
+                cols[c] = src[c];
+            } else {
+                System.arraycopy(src[c], 0, cols[c], lo, n);
+            }
+        }
+        return true;
+    }
+
+    /** One counting pass; returns false (and moves nothing) when every row shares the digit. */
+    private static boolean pass(int[][] src, int[][] dst, int col, int shift, int n, int chunks, int[][] hist) {
+        int[] key = src[col];
+        int step = (n + chunks - 1) / chunks;
+
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int[] h = hist[c];
+            java.util.Arrays.fill(h, 0);
+            int end = Math.min(n, (c + 1) * step);
+            for (int i = c * step; i < end; i++) h[(key[i] >>> shift) & (BUCKETS - 1)]++;
+        });
+
+        if (!offsets(hist, chunks, n)) return false;
+
+        int[] s0 = src[0], s1 = src[1], s2 = src[2];
+        int[] d0 = dst[0], d1 = dst[1], d2 = dst[2];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int[] pos = hist[c];
+            int end = Math.min(n, (c + 1) * step);
+            for (int i = c * step; i < end; i++) {
+                int at = pos[(key[i] >>> shift) & (BUCKETS - 1)]++;
+                d0[at] = s0[i];
+                d1[at] = s1[i];
+                d2[at] = s2[i];
+            }
+        });
+        return true;
+    }
+
+    private static boolean pass(long[][] src, long[][] dst, int col, int shift, int n, int chunks, int[][] hist) {
+        long[] key = src[col];
+        int step = (n + chunks - 1) / chunks;
+
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int[] h = hist[c];
+            java.util.Arrays.fill(h, 0);
+            int end = Math.min(n, (c + 1) * step);
+            for (int i = c * step; i < end; i++) h[(int) (key[i] >>> shift) & (BUCKETS - 1)]++;
+        });
+
+        if (!offsets(hist, chunks, n)) return false;
+
+        long[] s0 = src[0], s1 = src[1], s2 = src[2];
+        long[] d0 = dst[0], d1 = dst[1], d2 = dst[2];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int[] pos = hist[c];
+            int end = Math.min(n, (c + 1) * step);
+            for (int i = c * step; i < end; i++) {
+                int at = pos[(int) (key[i] >>> shift) & (BUCKETS - 1)]++;
+                d0[at] = s0[i];
+                d1[at] = s1[i];
+                d2[at] = s2[i];
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Turns per-chunk histograms into exclusive prefix sums, bucket-major and chunk-minor so
+     * that the scatter is stable. Returns false if one bucket holds all {@code n} rows.
+     */
+    private static boolean offsets(int[][] hist, int chunks, int n) {
+        int total = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            int bucketCount = 0;
+            for (int c = 0; c < chunks; c++) bucketCount += hist[c][b];
+            if (bucketCount == n) return false;
+            for (int c = 0; c < chunks; c++) {
+                int cnt = hist[c][b];
+                hist[c][b] = total;
+                total += cnt;
+            }
+        }
+        return true;
+    }
+
+    private static int[] slice(int[] a, int lo, int hi) {
+        return (lo == 0 && hi == a.length) ? a : java.util.Arrays.copyOfRange(a, lo, hi);
+    }
+
+    private static long[] slice(long[] a, int lo, int hi) {
+        return (lo == 0 && hi == a.length) ? a : java.util.Arrays.copyOfRange(a, lo, hi);
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.encodedTriplet;
+
+import org.apache.parquet.hadoop.ParquetReader;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Rows of a permutation in its sort order, from one Parquet file or several read one
+ * after the other. Like {@link ParquetReader}, implementations may return the same
+ * object on every call; copy a row to keep it.
+ */
+interface RowReader extends Closeable {
+
+    /** The next row, or null at the end. */
+    EncodedTriplet read() throws IOException;
+
+    static RowReader of(ParquetReader<EncodedTriplet> reader) {
+        return new RowReader() {
+            @Override
+            public EncodedTriplet read() throws IOException {
+                return reader.read();
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+        };
+    }
+}
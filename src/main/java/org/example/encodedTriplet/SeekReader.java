@@ -0,0 +1,606 @@
+package org.example.encodedTriplet;
+
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.ColumnReader;
+import org.apache.parquet.column.impl.ColumnReadStoreImpl;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.filter2.bloomfilterlevel.BloomFilterImpl;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.filter2.predicate.LogicalInverseRewriter;
+import org.apache.parquet.filter2.predicate.Operators;
+import org.apache.parquet.filter2.statisticslevel.StatisticsFilter;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnPath;
+import org.apache.parquet.internal.column.columnindex.BoundaryOrder;
+import org.apache.parquet.internal.column.columnindex.ColumnIndex;
+import org.apache.parquet.internal.column.columnindex.OffsetIndex;
+import org.apache.parquet.internal.filter2.columnindex.ColumnIndexFilter;
+import org.apache.parquet.internal.filter2.columnindex.ColumnIndexStore;
+import org.apache.parquet.internal.filter2.columnindex.RowRanges;
+import org.apache.parquet.io.ColumnIOFactory;
+import org.apache.parquet.io.MessageColumnIO;
+import org.apache.parquet.io.RecordReader;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Type;
+import org.example.util.ParquetFileCache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Rows of one permutation file whose leading key is in given {@code [first, last]}
+ * ranges, found by seeking rather than filtering: the file is sorted on that key, so the
+ * row groups holding the ranges are binary-searched on the key column's min/max
+ * statistics, the pages within them on its column index, and only the rows of those
+ * pages are read, through the offset index. Reading ends at the first key past the last
+ * range. The filter is still applied to every row read, for the other columns.
+ *
+ * A seek on one key binds more than the leading column when the filter pins the next sort
+ * keys with equalities, e.g. the object of {@code ?s <p> <o>} in POS: the rows sought are
+ * then one run of the file, ended by the first row past the whole bound prefix, and the
+ * column indexes of every bound key narrow the pages read.
+ *
+ * The file comes from {@link ParquetFileCache}, whose handles keep the footer, column and
+ * offset indexes and bloom filters of earlier scans, so the filter also drops row groups
+ * on their statistics and bloom filters and pages on their column indexes, as
+ * {@link EncodedTripletParquetReader} would, without re-reading any of it. Without a
+ * range, or without statistics or indexes for the key, that filtering is all there is.
+ *
+ * Rows come one at a time ({@link #read()}, through Parquet's record assembly) or a
+ * {@link TripleBatch} at a time ({@link #read(TripleBatch)}): each column's values of up
+ * to {@link TripleBatch#CAPACITY} rows are decoded into its id vector with the column
+ * reader API, and the range and the filter ({@link BatchFilter}) are applied to the
+ * vectors. One reader is read one way only.
+ *
+ * Batch reads skip the bound columns where they hold nothing but the ids sought: rows
+ * that the statistics or column index put in pages with the bound id as both min and max
+ * are read without those columns, which are neither read nor decoded, and their vectors
+ * are filled with the ids. Within a run of the bound prefix only the pages at its two
+ * ends hold other ids, so elsewhere only the columns of the pattern's variables are read.
+ */
+final class SeekReader implements RowReader {
+
+    private final ParquetFileCache.Handle handle;
+    private final ParquetFileReader file;
+    private final MessageType schema;
+    private final MessageColumnIO columnIO;
+    private final EncodedTripletMaterializer materializer;
+    private final FilterCompat.Filter filter;
+    private final Set<ColumnPath> paths = new HashSet<>();
+    private final Permutation perm;
+    private final int column;
+    private final long[] leading;
+    private final long end;
+    private final BitSet groups;
+    // ids of the bound sort keys, in key order: the one key sought, then those the filter pins
+    private final long[] bound;
+    // field index of each bound key
+    private final int[] boundFields;
+    // requested schemas by the bit set of fields left out, built when first needed
+    private final MessageType[] projections;
+    // null when the filter has parts batches cannot evaluate: batches are then filled by read()
+    private final BatchFilter batchFilter;
+    private final long predicate;
+
+    private int group = -1;
+    private RecordReader<EncodedTriplet> records;
+    // batch reads: one reader per column of the current row group, by field index
+    private ColumnReader[] columns;
+    private boolean[] mask;
+    // the current row group's rows left to read, in row order
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    // fields the current segment does not read: every row of it has their bound id
+    private int constant;
+    private long remaining;
+    private boolean done;
+
+    private SeekReader(ParquetFileCache.Handle handle, MessageType schema, Permutation perm, long[] leading,
+                       FilterCompat.Filter filter) {
+        this.handle = handle;
+        this.file = handle.reader();
+        this.schema = schema;
+        this.columnIO = new ColumnIOFactory(file.getFooter().getFileMetaData().getCreatedBy()).getColumnIO(schema);
+        String predicate = file.getFooter().getFileMetaData().getKeyValueMetaData().get(VerticalPartitions.PREDICATE_KEY);
+        this.predicate = predicate == null ? 0 : Long.parseLong(predicate);
+        this.materializer = new EncodedTripletMaterializer(schema, this.predicate);
+        this.filter = filter;
+        this.batchFilter = BatchFilter.of(filter);
+        for (String[] path : schema.getPaths()) paths.add(ColumnPath.get(path));
+        this.perm = perm;
+        this.column = leading == null ? -1 : schema.getFieldIndex(perm.keyColumnName(0));
+        this.leading = leading;
+        long end = Long.MAX_VALUE;
+        if (leading != null) {
+            end = Long.MIN_VALUE;
+            for (int i = 1; i < leading.length; i += 2) end = Math.max(end, leading[i]);
+        }
+        this.end = end;
+
+        List<BlockMetaData> blocks = file.getRowGroups();
+        long[] mins = new long[blocks.size()], maxs = new long[blocks.size()];
+        boolean known = leading != null;
+        for (int i = 0; i < blocks.size() && known; i++) {
+            Statistics<?> stats = blocks.get(i).getColumns().get(column).getStatistics();
+            known = stats != null && stats.hasNonNullValue();
+            if (known) {
+                mins[i] = ((Number) stats.genericGetMin()).longValue();
+                maxs[i] = ((Number) stats.genericGetMax()).longValue();
+            }
+        }
+        this.groups = known ? select(mins, maxs, leading) : all(blocks.size());
+        FilterPredicate pred = filter instanceof FilterCompat.FilterPredicateCompat
+                ? LogicalInverseRewriter.rewrite(((FilterCompat.FilterPredicateCompat) filter).getFilterPredicate())
+                : null;
+
+        Map<String, Long> pinned = new HashMap<>();
+        if (pred != null) pinned(pred, pinned);
+        int k = leading != null && leading.length == 2 && leading[0] == leading[1] ? 1 : 0;
+        while (k > 0 && k < 3 && schema.containsField(perm.keyColumnName(k)) && pinned.containsKey(perm.keyColumnName(k))) k++;
+        this.bound = new long[k];
+        this.boundFields = new int[k];
+        for (int i = 0; i < k; i++) {
+            boundFields[i] = schema.getFieldIndex(perm.keyColumnName(i));
+            bound[i] = i == 0 ? leading[0] : pinned.get(perm.keyColumnName(i));
+        }
+        this.projections = new MessageType[1 << schema.getFieldCount()];
+
+        if (pred != null) {
+            for (int i = groups.nextSetBit(0); i >= 0; i = groups.nextSetBit(i + 1)) {
+                List<ColumnChunkMetaData> columns = blocks.get(i).getColumns();
+                if (StatisticsFilter.canDrop(pred, columns)
+                        || BloomFilterImpl.canDrop(pred, columns, handle.bloomFilters(i))) {
+                    groups.clear(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rows of {@code file}, sorted in {@code perm} order, whose leading key is in one of the
+     * {@code [first, last]} pairs of {@code leading} and that pass {@code filter}; all rows
+     * passing {@code filter} for null, or when the file lacks the key column.
+     */
+    static SeekReader open(Path file, Permutation perm, long[] leading, FilterCompat.Filter filter) throws IOException {
+        ParquetFileCache.Handle handle = ParquetFileCache.open(file);
+        try {
+            MessageType schema = handle.reader().getFooter().getFileMetaData().getSchema();
+            if (leading != null && !schema.containsField(perm.keyColumnName(0))) leading = null;
+            return new SeekReader(handle, schema, perm, leading, filter);
+        } catch (RuntimeException e) {
+            handle.close();
+            throw e;
+        }
+    }
+
+    /**
+     * The row groups left to read, cut into up to {@code ways} runs of consecutive groups
+     * of at least {@code minRows} rows each, as {@code [from, to)} group indexes in file
+     * order; one run (or none) if they are too few to share out.
+     */
+    List<int[]> split(int ways, long minRows) {
+        List<BlockMetaData> blocks = file.getRowGroups();
+        long total = 0;
+        for (int i = groups.nextSetBit(group + 1); i >= 0; i = groups.nextSetBit(i + 1)) total += blocks.get(i).getRowCount();
+        long share = Math.max(minRows, (total + ways - 1) / Math.max(1, ways));
+        List<int[]> runs = new ArrayList<>();
+        int from = -1;
+        long rows = 0;
+        for (int i = groups.nextSetBit(group + 1); i >= 0; i = groups.nextSetBit(i + 1)) {
+            if (from < 0) from = i;
+            rows += blocks.get(i).getRowCount();
+            if (rows >= share && total - rows >= minRows) {
+                runs.add(new int[]{from, i + 1});
+                total -= rows;
+                from = -1;
+                rows = 0;
+            }
+        }
+        if (from >= 0) runs.add(new int[]{from, blocks.size()});
+        return runs;
+    }
+
+    /** Reads only the row groups in {@code [from, to)}; before the first read. */
+    SeekReader restrict(int from, int to) {
+        groups.clear(0, from);
+        if (to < groups.length()) groups.clear(to, groups.length());
+        return this;
+    }
+
+    @Override
+    public EncodedTriplet read() throws IOException {
+        while (!done) {
+            if (remaining == 0) {
+                if (!nextPages()) break;
+                continue;
+            }
+            remaining--;
+            EncodedTriplet row = records.read();
+            // the filtered-out rows reach the materializer too, so their key is seen
+            EncodedTriplet current = materializer.getCurrentRecord();
+            if (leading != null && beyond(current)) break;
+            if (row != null && !records.shouldSkipCurrentRecord() && inRange(perm.leadingKey(current))) return row;
+        }
+        done = true;
+        return null;
+    }
+
+    /**
+     * Refills {@code batch} with the next matching rows, as {@link #read()} would return
+     * them; false, with {@code batch} empty, at the end.
+     */
+    public boolean read(TripleBatch batch) throws IOException {
+        batch.clear();
+        if (batchFilter == null) {
+            EncodedTriplet row;
+            while (batch.size < TripleBatch.CAPACITY && (row = read()) != null) {
+                batch.subjects[batch.size] = row.getSubject();
+                batch.predicates[batch.size] = row.getPredicate();
+                batch.objects[batch.size] = row.getObject();
+                batch.size++;
+            }
+            return batch.size > 0;
+        }
+        if (columns == null) {
+            columns = new ColumnReader[schema.getFieldCount()];
+            mask = new boolean[TripleBatch.CAPACITY];
+        }
+        while (!done) {
+            if (remaining == 0) {
+                if (!nextPages()) break;
+                continue;
+            }
+            int n = (int) Math.min(remaining, TripleBatch.CAPACITY);
+            remaining -= n;
+            decode(batch, n);
+            if (leading != null) {
+                // sorted on the keys: rows from the first one past those sought on are dropped, and no more read
+                if (beyond(batch, n - 1)) {
+                    int cut = 0;
+                    while (!beyond(batch, cut)) cut++;
+                    batch.truncate(cut);
+                    done = true;
+                }
+                long[] keys = batch.column(perm.keyColumn(0));
+                for (int i = 0; i < batch.size; i++) mask[i] = inRange(keys[i]);
+                batch.retain(mask);
+            }
+            batchFilter.apply(batch, mask);
+            if (batch.size > 0) return true;
+        }
+        done = true;
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        handle.close();
+    }
+
+    // ---------- internals ----------
+
+    /** Pages are read whole, so they hold keys before and between the ranges too. */
+    private boolean inRange(long key) {
+        if (leading == null) return true;
+        for (int i = 0; i < leading.length; i += 2) {
+            if (key >= leading[i] && key <= leading[i + 1]) return true;
+        }
+        return false;
+    }
+
+    /** True if {@code t} comes after every row sought, in the file's order. */
+    private boolean beyond(EncodedTriplet t) {
+        long key = perm.leadingKey(t);
+        if (key != end || bound.length < 2) return key > end;
+        for (int k = 1; k < bound.length; k++) {
+            long id = perm.key(k, t);
+            if (id != bound[k]) return id > bound[k];
+        }
+        return false;
+    }
+
+    /** As {@link #beyond(EncodedTriplet)} for row {@code i} of {@code batch}. */
+    private boolean beyond(TripleBatch batch, int i) {
+        long key = batch.column(perm.keyColumn(0))[i];
+        if (key != end || bound.length < 2) return key > end;   // end is the one key sought then
+        for (int k = 1; k < bound.length; k++) {
+            long id = batch.column(perm.keyColumn(k))[i];
+            if (id != bound[k]) return id > bound[k];
+        }
+        return false;
+    }
+
+    /** Moves to the next segment of rows to read, of the next selected row group if need be; false after the last. */
+    private boolean nextPages() throws IOException {
+        while (segments.isEmpty()) {
+            if ((group = groups.nextSetBit(group + 1)) < 0) return false;
+            plan(file.getRowGroups().get(group));
+        }
+        Segment segment = segments.poll();
+        constant = segment.constant;
+        PageReadStore pages = readPages(segment.rows);
+        if (columns == null) {
+            records = columnIO.getRecordReader(pages, materializer, filter);
+        } else {
+            ColumnReadStoreImpl store = new ColumnReadStoreImpl(pages, materializer.getRootConverter(), schema,
+                    file.getFooter().getFileMetaData().getCreatedBy());
+            List<ColumnDescriptor> descriptors = schema.getColumns();
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = (constant & 1 << i) != 0 ? null : store.getColumnReader(descriptors.get(i));
+            }
+        }
+        remaining = pages.getRowCount();
+        return true;
+    }
+
+    /**
+     * The next {@code n} rows of the current row group into {@code batch}: the id columns
+     * are all required, so each holds one value per row, read straight off its pages.
+     */
+    private void decode(TripleBatch batch, int n) {
+        boolean predicateColumn = false;
+        for (int f = 0; f < columns.length; f++) {
+            ColumnReader reader = columns[f];
+            long[] out;
+            switch (schema.getFieldName(f)) {
+                case "subject": out = batch.subjects; break;
+                case "predicate": out = batch.predicates; predicateColumn = true; break;
+                default: out = batch.objects; break;
+            }
+            if (reader == null) {
+                // a bound column, not read: every row has the id sought
+                Arrays.fill(out, 0, n, boundId(f));
+            } else if (reader.getDescriptor().getPrimitiveType().getPrimitiveTypeName() == PrimitiveType.PrimitiveTypeName.INT64) {
+                for (int i = 0; i < n; i++) {
+                    out[i] = reader.getLong();
+                    reader.consume();
+                }
+            } else {
+                for (int i = 0; i < n; i++) {
+                    out[i] = reader.getInteger();
+                    reader.consume();
+                }
+            }
+        }
+        // a (subject, object) file's predicate is in its footer
+        if (!predicateColumn) Arrays.fill(batch.predicates, 0, n, predicate);
+        batch.size = n;
+    }
+
+    /**
+     * Queues the rows of {@code block} that may pass the filter and hold keys in range as
+     * segments, in row order. For batch reads, rows are cut where the pages of a bound
+     * column go from holding only its id to holding others too: the rows within pages of
+     * only the bound ids are read without those columns.
+     */
+    private void plan(BlockMetaData block) {
+        ColumnIndexStore indexes = file.getColumnIndexStore(group);
+        long rowCount = block.getRowCount();
+        RowRanges rows = ColumnIndexFilter.calculateRowRanges(filter, indexes, paths, rowCount);
+        if (leading != null) {
+            RowRanges keys = keyRows(block, indexes);
+            if (keys != null) rows = RowRanges.intersection(rows, keys);
+        }
+        if (rows.rowCount() == 0) return;
+        // bound fields holding only their id in the whole row group, and in some of its pages
+        int whole = 0, paged = 0;
+        RowRanges only = rows, other = RowRanges.EMPTY;
+        for (int k = 0; k < bound.length && columns != null; k++) {
+            ColumnChunkMetaData chunk = block.getColumns().get(boundFields[k]);
+            Statistics<?> stats = chunk.getStatistics();
+            if (stats != null && stats.hasNonNullValue() && ((Number) stats.genericGetMin()).longValue() == bound[k]
+                    && ((Number) stats.genericGetMax()).longValue() == bound[k]) {
+                whole |= 1 << boundFields[k];
+                continue;
+            }
+            ColumnIndex index = indexes.getColumnIndex(chunk.getPath());
+            OffsetIndex offsets = offsetIndex(indexes, chunk);
+            if (index == null || offsets == null) continue;
+            long[] mins = mins(index), maxs = maxs(index);
+            BitSet onlyPages = new BitSet(mins.length);
+            for (int i = 0; i < mins.length; i++) {
+                if (mins[i] == bound[k] && maxs[i] == bound[k]) onlyPages.set(i);
+            }
+            if (onlyPages.isEmpty()) continue;
+            BitSet otherPages = all(mins.length);
+            otherPages.andNot(onlyPages);
+            paged |= 1 << boundFields[k];
+            only = RowRanges.intersection(only, RowRanges.create(rowCount, onlyPages.stream().iterator(), offsets));
+            other = RowRanges.union(other, RowRanges.create(rowCount, otherPages.stream().iterator(), offsets));
+        }
+        if (paged == 0) {
+            segments.add(new Segment(rows, readable(whole)));
+            return;
+        }
+        List<RowRanges.Range> skip = only.getRanges(), read = RowRanges.intersection(rows, other).getRanges();
+        for (int i = 0, j = 0; i < skip.size() || j < read.size(); ) {
+            boolean skipNext = j == read.size() || (i < skip.size() && skip.get(i).from < read.get(j).from);
+            RowRanges.Range range = skipNext ? skip.get(i++) : read.get(j++);
+            segments.add(new Segment(RowRanges.create(rowCount, IntStream.of(0).iterator(), new Span(range)),
+                    readable(skipNext ? whole | paged : whole)));
+        }
+    }
+
+    /** {@code fields} to leave out, less one if that would be all of them: a read needs a column. */
+    private int readable(int fields) {
+        if (Integer.bitCount(fields) < schema.getFieldCount()) return fields;
+        return fields & ~(1 << boundFields[bound.length - 1]);
+    }
+
+    /** The pages of the current row group holding {@code rows}, aligned across columns. */
+    private PageReadStore readPages(RowRanges rows) throws IOException {
+        // the projection is the pooled reader's state: set for this read only
+        boolean project = constant != 0;
+        if (project) file.setRequestedSchema(projection(constant));
+        try {
+            if (rows.rowCount() == file.getRowGroups().get(group).getRowCount()) return file.readRowGroup(group);
+            return file.readFilteredRowGroup(group, rows);
+        } finally {
+            if (project) file.setRequestedSchema(schema);
+        }
+    }
+
+    /** Rows of the pages of {@code block} holding keys in range; null without indexes for the key. */
+    private RowRanges keyRows(BlockMetaData block, ColumnIndexStore indexes) {
+        ColumnChunkMetaData chunk = block.getColumns().get(column);
+        ColumnIndex index = indexes.getColumnIndex(chunk.getPath());
+        OffsetIndex offsets = offsetIndex(indexes, chunk);
+        if (index == null || offsets == null) return null;
+
+        long[] mins = mins(index), maxs = maxs(index);
+        BitSet pages = index.getBoundaryOrder() == BoundaryOrder.ASCENDING
+                ? select(mins, maxs, leading) : overlapping(mins, maxs, leading);
+        return RowRanges.create(block.getRowCount(), pages.stream().iterator(), offsets);
+    }
+
+    private static OffsetIndex offsetIndex(ColumnIndexStore indexes, ColumnChunkMetaData chunk) {
+        try {
+            return indexes.getOffsetIndex(chunk.getPath());
+        } catch (ColumnIndexStore.MissingOffsetIndexException e) {
+            return null;
+        }
+    }
+
+    /** The bound id of field {@code field}, which must be bound. */
+    private long boundId(int field) {
+        int k = 0;
+        while (boundFields[k] != field) k++;
+        return bound[k];
+    }
+
+    /** The schema without the fields in the bit set {@code fields}. */
+    private MessageType projection(int fields) {
+        MessageType projected = projections[fields];
+        if (projected == null) {
+            List<Type> kept = new ArrayList<>();
+            for (int f = 0; f < schema.getFieldCount(); f++) {
+                if ((fields & 1 << f) == 0) kept.add(schema.getType(f));
+            }
+            projected = projections[fields] = new MessageType(schema.getName(), kept);
+        }
+        return projected;
+    }
+
+    /**
+     * Adds the columns {@code predicate} pins with an equality, as one of the conjuncts
+     * every passing row meets, to {@code pinned}.
+     */
+    private static void pinned(FilterPredicate predicate, Map<String, Long> pinned) {
+        if (predicate instanceof Operators.And) {
+            pinned(((Operators.And) predicate).getLeft(), pinned);
+            pinned(((Operators.And) predicate).getRight(), pinned);
+        } else if (predicate instanceof Operators.Eq) {
+            Operators.Eq<?> eq = (Operators.Eq<?>) predicate;
+            if (eq.getValue() instanceof Integer || eq.getValue() instanceof Long) {
+                pinned.putIfAbsent(eq.getColumn().getColumnPath().toDotString(), ((Number) eq.getValue()).longValue());
+            }
+        }
+    }
+
+    /** Per-page minimums of {@code index}; an all-null page gets an empty range, which keeps it out. */
+    private static long[] mins(ColumnIndex index) {
+        List<ByteBuffer> values = index.getMinValues();
+        List<Boolean> nullPages = index.getNullPages();
+        long[] mins = new long[values.size()];
+        for (int i = 0; i < mins.length; i++) mins[i] = nullPages.get(i) ? Long.MAX_VALUE : decode(values.get(i));
+        return mins;
+    }
+
+    /** Per-page maximums of {@code index}, as {@link #mins}. */
+    private static long[] maxs(ColumnIndex index) {
+        List<ByteBuffer> values = index.getMaxValues();
+        List<Boolean> nullPages = index.getNullPages();
+        long[] maxs = new long[values.size()];
+        for (int i = 0; i < maxs.length; i++) maxs[i] = nullPages.get(i) ? Long.MIN_VALUE : decode(values.get(i));
+        return maxs;
+    }
+
+    /**
+     * Indexes of the ranges (row groups or pages, in key order) meeting one of the
+     * {@code [first, last]} pairs: for each pair, a binary search for the first range
+     * whose max reaches it, then the ranges after it while their min is within it.
+     */
+    static BitSet select(long[] mins, long[] maxs, long[] leading) {
+        BitSet hit = new BitSet(mins.length);
+        for (int p = 0; p < leading.length; p += 2) {
+            long first = leading[p], last = leading[p + 1];
+            int lo = 0, hi = maxs.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (maxs[mid] < first) lo = mid + 1; else hi = mid;
+            }
+            for (int i = lo; i < mins.length && mins[i] <= last; i++) {
+                if (maxs[i] >= first) hit.set(i);
+            }
+        }
+        return hit;
+    }
+
+    /** As {@link #select} for ranges in no particular order: every one is checked. */
+    private static BitSet overlapping(long[] mins, long[] maxs, long[] leading) {
+        BitSet hit = new BitSet(mins.length);
+        for (int i = 0; i < mins.length; i++) {
+            for (int p = 0; p < leading.length; p += 2) {
+                if (mins[i] <= leading[p + 1] && maxs[i] >= leading[p]) {
+                    hit.set(i);
+                    break;
+                }
+            }
+        }
+        return hit;
+    }
+
+    private static BitSet all(int count) {
+        BitSet all = new BitSet(count);
+        all.set(0, count);
+        return all;
+    }
+
+    /** Rows of a row group read in one go, and the bound fields they leave out. */
+    private static final class Segment {
+        final RowRanges rows;
+        final int constant;
+
+        Segment(RowRanges rows, int constant) {
+            this.rows = rows;
+            this.constant = constant;
+        }
+    }
+
+    /** One range of rows as a single-page offset index, which is how {@link RowRanges} are made. */
+    private static final class Span implements OffsetIndex {
+        private final RowRanges.Range range;
+
+        Span(RowRanges.Range range) {
+            this.range = range;
+        }
+
+        @Override public int getPageCount() { return 1; }
+        @Override public long getOffset(int pageIndex) { return 0; }
+        @Override public int getCompressedPageSize(int pageIndex) { return 0; }
+        @Override public long getFirstRowIndex(int pageIndex) { return range.from; }
+        @Override public long getLastRowIndex(int pageIndex, long rowGroupRowCount) { return range.to; }
+    }
+
+    /** A plain-encoded INT32 or INT64 min/max value of the column index. */
+    private static long decode(ByteBuffer value) {
+        ByteBuffer le = value.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        return le.remaining() >= Long.BYTES ? le.getLong(le.position()) : le.getInt(le.position());
+    }
+}
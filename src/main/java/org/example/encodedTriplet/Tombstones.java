@@ -0,0 +1,212 @@
+package org.example.encodedTriplet;
+
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.example.util.ParquetFiles;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Deleted triples of a store. Each {@code --delete} run writes one tombstone file,
+ * {@code deleted-000003.parquet}: the encoded triples it removes, distinct, in SPO
+ * order, with the store's {@link IdWidth}.
+ *
+ * Tombstones share their sequence numbers with the {@link DeltaFiles}: a tombstone hides
+ * a triple from the base files (sequence 0) and from deltas written before it, but not
+ * from later ones, so a deleted triple can be appended again. They are keyed by triple
+ * rather than by row position, so one file serves all six permutations and stays valid
+ * while {@link DeltaCompactor} rewrites them; compaction drops the hidden rows for good
+ * and deletes the tombstones.
+ *
+ * Deletes are expected to be small next to the store: scans hold all tombstones in
+ * memory, one sorted {@code long} array per file, and look rows up by binary search.
+ */
+public final class Tombstones {
+
+    private static final String PREFIX = "deleted-";
+    private static final String SUFFIX = ".parquet";
+
+    /** No tombstones. */
+    public static final Tombstones NONE = new Tombstones("", List.of(), new int[0], new long[0][]);
+
+    // last snapshot read per directory, reused while the listing is unchanged
+    private static final Map<Path, Tombstones> CACHE = new ConcurrentHashMap<>();
+
+    private final String listing;
+    private final List<Path> files;
+    private final int[] sequences;
+    // per file: subject, predicate, object of each triple, in SPO order
+    private final long[][] triples;
+
+    private Tombstones(String listing, List<Path> files, int[] sequences, long[][] triples) {
+        this.listing = listing;
+        this.files = files;
+        this.sequences = sequences;
+        this.triples = triples;
+    }
+
+    /** The tombstone files in {@code parquetDir}, oldest first. */
+    public static List<Path> files(Path parquetDir) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(parquetDir)) return files;
+        try (Stream<Path> list = Files.list(parquetDir)) {
+            list.filter(f -> {
+                String n = f.getFileName().toString();
+                return n.startsWith(PREFIX) && n.endsWith(SUFFIX);
+            }).forEach(files::add);
+        }
+        files.sort(Comparator.comparingInt(DeltaFiles::sequence));
+        return files;
+    }
+
+    /** The tombstone file with the given sequence number. */
+    public static Path path(Path parquetDir, int sequence) {
+        return parquetDir.resolve(String.format("%s%06d%s", PREFIX, sequence, SUFFIX));
+    }
+
+    /**
+     * The tombstones currently in {@code parquetDir}. Read once and kept until files are
+     * added or removed; a file compacted away while being read is left out.
+     */
+    public static Tombstones read(Path parquetDir) throws IOException {
+        Path dir = parquetDir.toAbsolutePath();
+        List<Path> files = files(dir);
+        if (files.isEmpty()) return NONE;
+        StringBuilder listing = new StringBuilder();
+        for (Path file : files) {
+            // sequence numbers are reused once compaction has deleted every file
+            try {
+                listing.append(file.getFileName()).append(':').append(Files.getLastModifiedTime(file).toMillis())
+                        .append(':').append(Files.size(file)).append(' ');
+            } catch (NoSuchFileException e) {
+                // compacted away since it was listed
+            }
+        }
+        Tombstones cached = CACHE.get(dir);
+        if (cached != null && cached.listing.contentEquals(listing)) return cached;
+
+        List<Path> present = new ArrayList<>(files.size());
+        List<long[]> triples = new ArrayList<>(files.size());
+        for (Path file : files) {
+            try {
+                triples.add(readTriples(file));
+                present.add(file);
+            } catch (FileNotFoundException | NoSuchFileException e) {
+                // compacted away since it was listed
+            }
+        }
+        int[] sequences = present.stream().mapToInt(DeltaFiles::sequence).toArray();
+        Tombstones read = new Tombstones(listing.toString(), Collections.unmodifiableList(present), sequences,
+                triples.toArray(new long[0][]));
+        CACHE.put(dir, read);
+        return read;
+    }
+
+    /**
+     * Writes {@code deleted} as the tombstone file with the given sequence number, under a
+     * temporary name first so scans never see it half written. Sorts {@code deleted} in
+     * SPO order and drops duplicates; returns the number of triples written.
+     */
+    public static int write(Path parquetDir, int sequence, List<EncodedTriplet> deleted, IdWidth width)
+            throws IOException {
+        deleted.sort(Permutation.SPO.comparator());
+        Path target = path(parquetDir, sequence);
+        Path tmp = Paths.get(target + ".tmp");
+        int written = 0;
+        try (ParquetWriter<EncodedTriplet> writer = EncodedTripletParquetWriter.create(
+                new org.apache.hadoop.fs.Path(tmp.toString()), width.tripleSchema(), CompressionCodecName.SNAPPY,
+                FileLayout.DEFAULT, Permutation.SPO)) {
+            EncodedTriplet last = null;
+            for (EncodedTriplet t : deleted) {
+                if (last != null && Permutation.SPO.comparator().compare(last, t) == 0) continue;
+                writer.write(t);
+                last = t;
+                written++;
+            }
+        }
+        ParquetFiles.replace(tmp, target);
+        return written;
+    }
+
+    public boolean isEmpty() {
+        return files.isEmpty();
+    }
+
+    /** The files these tombstones were read from. */
+    public List<Path> files() {
+        return files;
+    }
+
+    /** Number of deleted triples, counting a triple once per tombstone file it is in. */
+    public long size() {
+        long n = 0;
+        for (long[] t : triples) n += t.length / 3;
+        return n;
+    }
+
+    /**
+     * True if a tombstone written after {@code sequence} deletes the triple; pass 0 for
+     * a row of a base file, the delta's sequence number for a row of a delta.
+     */
+    public boolean hides(long subject, long predicate, long object, int sequence) {
+        for (int i = sequences.length - 1; i >= 0 && sequences[i] > sequence; i--) {
+            if (contains(triples[i], subject, predicate, object)) return true;
+        }
+        return false;
+    }
+
+    public boolean hides(EncodedTriplet t, int sequence) {
+        return hides(t.getSubject(), t.getPredicate(), t.getObject(), sequence);
+    }
+
+    @Override
+    public String toString() {
+        return "Tombstones" + Arrays.toString(sequences);
+    }
+
+    // ---------- internals ----------
+
+    private static long[] readTriples(Path file) throws IOException {
+        long[] out = new long[3 * 64];
+        int n = 0;
+        try (ParquetReader<EncodedTriplet> reader = EncodedTripletParquetReader.create(
+                new org.apache.hadoop.fs.Path(file.toString()), FilterCompat.NOOP)) {
+            EncodedTriplet t;
+            while ((t = reader.read()) != null) {
+                if (n + 3 > out.length) out = Arrays.copyOf(out, out.length * 2);
+                out[n++] = t.getSubject();
+                out[n++] = t.getPredicate();
+                out[n++] = t.getObject();
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static boolean contains(long[] sorted, long s, long p, long o) {
+        int lo = 0, hi = sorted.length / 3 - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1, at = 3 * mid;
+            int c = Long.compare(sorted[at], s);
+            if (c == 0) c = Long.compare(sorted[at + 1], p);
+            if (c == 0) c = Long.compare(sorted[at + 2], o);
+            if (c == 0) return true;
+            if (c < 0) lo = mid + 1; else hi = mid - 1;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.encodedTriplet;
+
+/**
+ * Up to {@link #CAPACITY} rows of a permutation file as three parallel id vectors, the
+ * unit {@link SeekReader#read(TripleBatch)} decodes pages into. Ids are {@code long}
+ * whatever the file's {@link IdWidth}, as in {@link EncodedTriplet}. A batch is refilled
+ * by every read; copy the rows to keep them ({@link EncodedTriples#addAll(TripleBatch)}).
+ */
+public final class TripleBatch {
+
+    public static final int CAPACITY = 4096;
+
+    final long[] subjects = new long[CAPACITY];
+    final long[] predicates = new long[CAPACITY];
+    final long[] objects = new long[CAPACITY];
+    int size;
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    public long getSubject(int i) { return subjects[i]; }
+    public long getPredicate(int i) { return predicates[i]; }
+    public long getObject(int i) { return objects[i]; }
+
+    public void clear() { size = 0; }
+
+    /** The vector of triple position {@code column} (0 = s, 1 = p, 2 = o); rows past {@link #size} are garbage. */
+    long[] column(int column) {
+        switch (column) {
+            case 0: return subjects;
+            case 1: return predicates;
+            case 2: return objects;
+            default: throw new IllegalArgumentException("column " + column);
+        }
+    }
+
+    /** Keeps the rows {@code i < size} with {@code keep[i]}, in order. */
+    void retain(boolean[] keep) {
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (!keep[i]) continue;
+            if (n != i) {
+                subjects[n] = subjects[i];
+                predicates[n] = predicates[i];
+                objects[n] = objects[i];
+            }
+            n++;
+        }
+        size = n;
+    }
+
+    /** Drops the rows from {@code end} on. */
+    void truncate(int end) {
+        size = Math.min(size, end);
+    }
+}
@@ -0,0 +1,149 @@
+package org.example.encodedTriplet;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Growable columnar buffer of encoded triples: three parallel primitive columns
+ * instead of one {@link EncodedTriplet} object per row.
+ *
+ * The columns are {@code int[]} for {@link IdWidth#INT32} ids and {@code long[]} for
+ * {@link IdWidth#INT64} ones ({@link #create(IdWidth, int)}); either way rows go in and
+ * come out as {@code long}s. Sorting reorders the columns directly, so no per-row
+ * objects, index arrays or comparator lambdas are involved: large buffers use the
+ * parallel {@link RadixTripleSort}, small ones (and ranges within one leading key) a
+ * primitive-comparison quicksort.
+ */
+public abstract class TripleBuffer {
+
+    static final int INSERTION_SORT_THRESHOLD = 16;
+    static final int RADIX_THRESHOLD = 1 << 12;
+
+    int size;
+
+    TripleBuffer() {}
+
+    /** An empty buffer of {@link IdWidth#INT32} ids. */
+    public static TripleBuffer create() {
+        return create(IdWidth.INT32, 1 << 10);
+    }
+
+    public static TripleBuffer create(IdWidth width, int initialCapacity) {
+        return width == IdWidth.INT64 ? new LongTripleBuffer(initialCapacity) : new IntTripleBuffer(initialCapacity);
+    }
+
+    /** Adopts the given columns (not copied) holding {@code size} rows. */
+    public static TripleBuffer wrap(int[] s, int[] p, int[] o, int size) {
+        checkColumns(s.length, p.length, o.length, size);
+        return new IntTripleBuffer(s, p, o, size);
+    }
+
+    /** Adopts the given columns (not copied) holding {@code size} rows. */
+    public static TripleBuffer wrap(long[] s, long[] p, long[] o, int size) {
+        checkColumns(s.length, p.length, o.length, size);
+        return new LongTripleBuffer(s, p, o, size);
+    }
+
+    private static void checkColumns(int s, int p, int o, int size) {
+        if (p != s || o != s || size > s) {
+            throw new IllegalArgumentException("Columns must have equal length >= size");
+        }
+    }
+
+    /** Width of the ids the columns hold; adding a wider id fails. */
+    public abstract IdWidth width();
+
+    public abstract void add(long subject, long predicate, long object);
+
+    public int size() { return size; }
+    public abstract int capacity();
+    public boolean isEmpty() { return size == 0; }
+
+    public long getSubject(int i) { return get(0, i); }
+    public long getPredicate(int i) { return get(1, i); }
+    public long getObject(int i) { return get(2, i); }
+
+    /** Value at triple position {@code column} (0 = s, 1 = p, 2 = o) of row {@code i}. */
+    public abstract long get(int column, int i);
+
+    public void clear() { size = 0; }
+
+    /** Ensures room for {@code capacity} triples without further reallocation; grows to exactly that. */
+    public abstract void ensureCapacity(int capacity);
+
+    /** Shrinks the columns to exactly {@link #size} rows. */
+    public abstract void trimToSize();
+
+    public abstract TripleBuffer copy();
+
+    public abstract void forEach(TripleConsumer out) throws IOException;
+
+    /**
+     * Replaces every id {@code x} in all three columns with {@code ids[x]}, in parallel.
+     * Ids past the end of {@code ids} (inline values) are kept.
+     */
+    public abstract void remap(int[] ids);
+
+    /** {@code ids[x]}, or {@code x} itself if it is past the end of {@code ids}. */
+    public static long remap(int[] ids, long x) {
+        return x < ids.length ? ids[(int) x] : x;
+    }
+
+    /** Sorts all rows by the keys of {@code perm}. */
+    public void sort(Permutation perm) {
+        if (size < RADIX_THRESHOLD || !radixSort(perm, 0, 0, size)) {
+            sortByComparison(perm);
+        }
+    }
+
+    /** Single-threaded comparison sort; used for small inputs and as the benchmark baseline. */
+    public void sortByComparison(Permutation perm) {
+        quicksort(perm, 0, size - 1);
+    }
+
+    /**
+     * Re-sorts a buffer that is already ordered on {@code perm}'s leading key: only the
+     * runs sharing a leading key are sorted, e.g. SPO order becomes SOP order. The buffer
+     * is cut into slices at leading-key boundaries and the slices are sorted in parallel.
+     */
+    public void sortWithinLeadingKey(Permutation perm) {
+        int k0 = perm.keyColumn(0);
+        int slices = (int) Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism() * 4L, size / RADIX_THRESHOLD));
+        int[] cuts = new int[slices + 1];
+        cuts[slices] = size;
+        for (int i = 1; i < slices; i++) {
+            int c = Math.max(cuts[i - 1], (int) ((long) size * i / slices));
+            while (c > 0 && c < size && get(k0, c) == get(k0, c - 1)) c++;
+            cuts[i] = c;
+        }
+        IntStream.range(0, slices).parallel().forEach(i -> sortGroups(perm, cuts[i], cuts[i + 1]));
+    }
+
+    private void sortGroups(Permutation perm, int from, int to) {
+        int k0 = perm.keyColumn(0);
+        int start = from;
+        for (int i = from + 1; i <= to; i++) {
+            if (i == to || get(k0, i) != get(k0, start)) {
+                int len = i - start;
+                if (len > 1 && (len < RADIX_THRESHOLD || !radixSort(perm, 1, start, i))) {
+                    quicksort(perm, start, i - 1);
+                }
+                start = i;
+            }
+        }
+    }
+
+    /** Drops adjacent duplicate rows; call after {@link #sort}. Returns the new size. */
+    public abstract int distinct();
+
+    /** {@link RadixTripleSort} of rows {@code [lo, hi)} from key {@code fromKey}; false if it declined. */
+    abstract boolean radixSort(Permutation perm, int fromKey, int lo, int hi);
+
+    /** Comparison sort of rows {@code [lo, hi]} by the keys of {@code perm}. */
+    abstract void quicksort(Permutation perm, int lo, int hi);
+
+    static int newCapacity(int minCapacity, int length) {
+        return (int) Math.min(Integer.MAX_VALUE - 8, Math.max((long) minCapacity, (long) length * 2));
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.encodedTriplet;
+
+import java.io.IOException;
+
+/** Receives encoded triples one at a time, without boxing them into objects. */
+@FunctionalInterface
+public interface TripleConsumer {
+    void accept(long subject, long predicate, long object) throws IOException;
+}
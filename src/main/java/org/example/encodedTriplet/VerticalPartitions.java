@@ -0,0 +1,154 @@
+package org.example.encodedTriplet;
+
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.example.util.ParquetFileCache;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Vertically partitioned copy of the store ({@code --vertical}): the (subject, object)
+ * pairs of each predicate in two files under {@code vp/}, {@code p17.so.parquet} in
+ * subject order (its slice of PSO) and {@code p17.os.parquet} in object order (its slice
+ * of POS). The predicate id is in the footer metadata instead of a column, so a pattern
+ * with a bound predicate reads two columns instead of three and filters on none of them
+ * for the predicate.
+ *
+ * The partitions are derived from pso.parquet and pos.parquet and stamped with their
+ * sizes and modification times. {@link #isCurrent} is false once those change and while
+ * deltas or tombstones are pending; queries then use the permutation files until
+ * {@link DeltaCompactor} rebuilds the partitions. The directory is swapped in and out
+ * with renames, so readers see all of it or none of it.
+ */
+public final class VerticalPartitions {
+
+    public enum Order { SO, OS }
+
+    public static final String DIR_NAME = "vp";
+    /** Footer key holding the predicate id of a partition file. */
+    static final String PREDICATE_KEY = "rdfparquet.predicate";
+
+    private static final String STAMP_NAME = "stamp";
+
+    private VerticalPartitions() {}
+
+    public static Path dir(Path parquetDir) {
+        return parquetDir.resolve(DIR_NAME);
+    }
+
+    /** The partition file of {@code predicate} in {@code order}; missing if the predicate has no triples. */
+    public static Path file(Path parquetDir, long predicate, Order order) {
+        return dir(parquetDir).resolve(name(predicate, order));
+    }
+
+    public static boolean exists(Path parquetDir) {
+        return Files.isDirectory(dir(parquetDir));
+    }
+
+    /** True if the partitions hold exactly the triples of the permutation files. */
+    public static boolean isCurrent(Path parquetDir) throws IOException {
+        Path stamp = dir(parquetDir).resolve(STAMP_NAME);
+        if (!Files.exists(stamp)) return false;
+        try {
+            if (!Files.readString(stamp, StandardCharsets.UTF_8).equals(stamp(parquetDir))) return false;
+        } catch (NoSuchFileException e) {
+            return false;   // swapped out meanwhile
+        }
+        return DeltaFiles.of(parquetDir.resolve(Permutation.PSO.fileName())).isEmpty()
+                && DeltaFiles.of(parquetDir.resolve(Permutation.POS.fileName())).isEmpty()
+                && Tombstones.files(parquetDir).isEmpty();
+    }
+
+    /**
+     * Splits pso.parquet and pos.parquet of {@code parquetDir} into partitions, replacing
+     * any previous ones. Returns the number of predicates.
+     */
+    public static int build(Path parquetDir) throws IOException {
+        Path building = parquetDir.resolve(DIR_NAME + ".building");
+        deleteTree(building);
+        Files.createDirectories(building);
+
+        // taken first, so a base file replaced while splitting leaves the result stale
+        String stamp = stamp(parquetDir);
+        Path pso = parquetDir.resolve(Permutation.PSO.fileName());
+        IdWidth width = IdWidth.read(pso.toString());
+        int predicates = split(pso, building, Order.SO, width);
+        split(parquetDir.resolve(Permutation.POS.fileName()), building, Order.OS, width);
+        Files.writeString(building.resolve(STAMP_NAME), stamp, StandardCharsets.UTF_8);
+
+        delete(parquetDir);
+        Files.move(building, dir(parquetDir), StandardCopyOption.ATOMIC_MOVE);
+        return predicates;
+    }
+
+    public static void delete(Path parquetDir) throws IOException {
+        deleteTree(dir(parquetDir));
+    }
+
+    // ---------- internals ----------
+
+    private static String name(long predicate, Order order) {
+        return "p" + predicate + "." + order.name().toLowerCase(Locale.ROOT) + ".parquet";
+    }
+
+    private static String stamp(Path parquetDir) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (Permutation perm : new Permutation[]{Permutation.PSO, Permutation.POS}) {
+            Path base = parquetDir.resolve(perm.fileName());
+            // a partitioned permutation changes with its manifest
+            Path file = PermutationPartitions.isPartitioned(base) ? base.resolve(PermutationPartitions.MANIFEST_NAME) : base;
+            sb.append(perm.fileName()).append(' ').append(Files.size(file)).append(' ')
+                    .append(Files.getLastModifiedTime(file).toMillis()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /** Writes one file per predicate run of {@code source}, which is sorted by predicate first. */
+    private static int split(Path source, Path outDir, Order order, IdWidth width) throws IOException {
+        FileLayout layout = FileLayout.read(source);
+        // a slice of PSO / POS, so sorted like it
+        Permutation sorted = order == Order.SO ? Permutation.PSO : Permutation.POS;
+        ParquetWriter<EncodedTriplet> writer = null;
+        long current = 0;
+        int predicates = 0;
+        try (RowReader reader = PermutationPartitions.open(source, sorted, null, FilterCompat.NOOP)) {
+            EncodedTriplet t;
+            while ((t = reader.read()) != null) {
+                if (writer == null || t.getPredicate() != current) {
+                    if (writer != null) writer.close();
+                    current = t.getPredicate();
+                    predicates++;
+                    writer = EncodedTripletParquetWriter.create(
+                            new org.apache.hadoop.fs.Path(outDir.resolve(name(current, order)).toString()),
+                            width.pairSchema(), CompressionCodecName.SNAPPY,
+                            Map.of(PREDICATE_KEY, Long.toString(current)), layout, sorted);
+                }
+                writer.write(t);
+            }
+        } finally {
+            if (writer != null) writer.close();
+        }
+        return predicates;
+    }
+
+    /** Renames {@code dir} away first, so it disappears at once for readers, then deletes it. */
+    private static void deleteTree(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        ParquetFileCache.invalidate(dir);
+        Path doomed = dir.resolveSibling(dir.getFileName() + ".deleting-" + System.nanoTime());
+        Files.move(dir, doomed, StandardCopyOption.ATOMIC_MOVE);
+        try (Stream<Path> files = Files.walk(doomed)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) Files.delete(p);
+        }
+    }
+}
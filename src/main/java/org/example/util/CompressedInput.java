@@ -0,0 +1,427 @@
+package org.example.util;
+
+import com.github.luben.zstd.ZstdInputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.*;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Opens plain or compressed ({@code .gz}, {@code .bz2}, {@code .zst}) input files.
+ *
+ * Decompression always runs off the reading thread: a background thread decodes
+ * ahead into a small queue of blocks, so the parser and the decoder overlap. Files
+ * made of many independent bzip2 streams (pbzip2, lbzip2) or zstd frames (pzstd,
+ * the zstd seekable format) are additionally decoded block-parallel, a window of
+ * segments at a time, and handed back in file order; each segment in the window
+ * holds at most a few decoded blocks, so memory does not grow with segment size.
+ */
+public final class CompressedInput {
+
+    public enum Codec {
+        NONE(""), GZIP(".gz"), BZIP2(".bz2"), ZSTD(".zst");
+
+        private final String suffix;
+
+        Codec(String suffix) { this.suffix = suffix; }
+
+        public String suffix() { return suffix; }
+    }
+
+    private static final int BLOCK = 1 << 20;
+    private static final int PREFETCH_BLOCKS = 4;
+
+    private static final int ZSTD_MAGIC = 0xFD2FB528;
+    private static final int ZSTD_SKIPPABLE_MASK = 0xFFFFFFF0;
+    private static final int ZSTD_SKIPPABLE_MAGIC = 0x184D2A50;
+    private static final byte[] BZIP2_BLOCK_MAGIC = {0x31, 0x41, 0x59, 0x26, 0x53, 0x59};
+
+    private CompressedInput() {}
+
+    public static Codec codecOf(String filename) {
+        String f = filename.toLowerCase(Locale.ROOT);
+        for (Codec c : Codec.values()) {
+            if (c != Codec.NONE && f.endsWith(c.suffix())) return c;
+        }
+        return Codec.NONE;
+    }
+
+    /** {@code data.nt.gz} becomes {@code data.nt}; uncompressed names are returned as is. */
+    public static String stripCodecSuffix(String filename) {
+        Codec c = codecOf(filename);
+        return filename.substring(0, filename.length() - c.suffix().length());
+    }
+
+    /**
+     * Opens {@code file}, decompressing by its suffix. {@code threads} above 1 allows
+     * block-parallel decoding of multi-stream bzip2 and multi-frame zstd files.
+     */
+    public static InputStream open(Path file, int threads) throws IOException {
+        Codec codec = codecOf(file.toString());
+        if (codec == Codec.NONE) {
+            return new BufferedInputStream(Files.newInputStream(file), 1 << 16);
+        }
+        if (threads > 1 && (codec == Codec.BZIP2 || codec == Codec.ZSTD)) {
+            List<long[]> segments = codec == Codec.BZIP2 ? bzip2Streams(file) : zstdFrames(file);
+            if (segments.size() > 1) {
+                return new ParallelSegmentInputStream(file, codec, segments, threads);
+            }
+        }
+        InputStream raw = new BufferedInputStream(Files.newInputStream(file), 1 << 16);
+        try {
+            return new PrefetchInputStream(decoder(codec, raw), file.getFileName().toString());
+        } catch (IOException | RuntimeException e) {
+            raw.close();
+            throw e;
+        }
+    }
+
+    private static InputStream decoder(Codec codec, InputStream in) throws IOException {
+        switch (codec) {
+            case GZIP: return new GZIPInputStream(in, 1 << 16);
+            case BZIP2: return new BZip2CompressorInputStream(in, true);
+            case ZSTD: return new ZstdInputStream(in);
+            default: return in;
+        }
+    }
+
+    // ---------- segment discovery ----------
+
+    /**
+     * Byte ranges of the zstd frames of {@code file}, found by walking frame and block
+     * headers; skippable frames (e.g. a seek table) are left out. Returns a single
+     * whole-file range if the layout is not understood.
+     */
+    static List<long[]> zstdFrames(Path file) throws IOException {
+        List<long[]> frames = new ArrayList<>();
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            ByteBuffer buf = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            long pos = 0;
+            while (pos < size) {
+                if (size - pos < 8 || readAt(ch, buf, pos, 8) < 8) return whole(size);
+                int magic = buf.getInt(0);
+                if ((magic & ZSTD_SKIPPABLE_MASK) == ZSTD_SKIPPABLE_MAGIC) {
+                    pos += 8 + Integer.toUnsignedLong(buf.getInt(4));
+                    continue;
+                }
+                if (magic != ZSTD_MAGIC) return whole(size);
+
+                long start = pos;
+                int fhd = buf.get(4) & 0xFF;
+                int fcsFlag = fhd >>> 6;
+                boolean singleSegment = (fhd & 0x20) != 0;
+                boolean checksum = (fhd & 0x04) != 0;
+                int dictIdSize = new int[]{0, 1, 2, 4}[fhd & 0x03];
+                int fcsSize = fcsFlag == 0 ? (singleSegment ? 1 : 0) : 1 << fcsFlag;
+                pos += 4 + 1 + (singleSegment ? 0 : 1) + dictIdSize + fcsSize;
+
+                boolean last = false;
+                while (!last) {
+                    if (readAt(ch, buf, pos, 3) < 3) return whole(size);
+                    int header = (buf.get(0) & 0xFF) | (buf.get(1) & 0xFF) << 8 | (buf.get(2) & 0xFF) << 16;
+                    last = (header & 1) != 0;
+                    int type = (header >>> 1) & 3;
+                    int blockSize = header >>> 3;
+                    if (type == 3) return whole(size);
+                    pos += 3 + (type == 1 ? 1 : blockSize);
+                }
+                if (checksum) pos += 4;
+                if (pos > size) return whole(size);
+                frames.add(new long[]{start, pos});
+            }
+        }
+        return frames;
+    }
+
+    /**
+     * Byte ranges of the concatenated bzip2 streams of {@code file}: a stream starts
+     * at a byte-aligned {@code BZh[1-9]} header directly followed by the block magic.
+     */
+    static List<long[]> bzip2Streams(Path file) throws IOException {
+        List<Long> starts = new ArrayList<>();
+        long size = Files.size(file);
+        int overlap = 4 + BZIP2_BLOCK_MAGIC.length - 1;
+        try (InputStream in = Files.newInputStream(file)) {
+            // buf[0, overlap) carries the tail of the previous read
+            byte[] buf = new byte[overlap + BLOCK];
+            int carried = 0;
+            long base = 0;              // file offset of buf[0]
+            int n;
+            while ((n = in.readNBytes(buf, carried, BLOCK)) > 0) {
+                int end = carried + n;
+                for (int i = 0; i + overlap < end; i++) {
+                    if (isBzip2StreamStart(buf, i)) starts.add(base + i);
+                }
+                int keep = Math.min(overlap, end);
+                System.arraycopy(buf, end - keep, buf, 0, keep);
+                base += end - keep;
+                carried = keep;
+            }
+        }
+        if (starts.isEmpty() || starts.get(0) != 0) return whole(size);
+        List<long[]> streams = new ArrayList<>(starts.size());
+        for (int i = 0; i < starts.size(); i++) {
+            streams.add(new long[]{starts.get(i), i + 1 < starts.size() ? starts.get(i + 1) : size});
+        }
+        return streams;
+    }
+
+    private static boolean isBzip2StreamStart(byte[] w, int at) {
+        if (w[at] != 'B' || w[at + 1] != 'Z' || w[at + 2] != 'h' || w[at + 3] < '1' || w[at + 3] > '9') return false;
+        for (int i = 0; i < BZIP2_BLOCK_MAGIC.length; i++) {
+            if (w[at + 4 + i] != BZIP2_BLOCK_MAGIC[i]) return false;
+        }
+        return true;
+    }
+
+    private static int readAt(FileChannel ch, ByteBuffer buf, long pos, int len) throws IOException {
+        buf.clear().limit(len);
+        int total = 0;
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf, pos + total);
+            if (n < 0) break;
+            total += n;
+        }
+        return total;
+    }
+
+    private static List<long[]> whole(long size) {
+        List<long[]> l = new ArrayList<>(1);
+        l.add(new long[]{0, size});
+        return l;
+    }
+
+    // ---------- streams ----------
+
+    /** Decodes on a daemon thread into a bounded queue of blocks. */
+    private static final class PrefetchInputStream extends InputStream {
+        private static final byte[] EOF = new byte[0];
+
+        private final InputStream source;
+        private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(PREFETCH_BLOCKS);
+        private final Thread decoder;
+        private volatile IOException failure;
+        private byte[] block = new byte[0];
+        private int pos;
+        private boolean done;
+
+        PrefetchInputStream(InputStream source, String name) {
+            this.source = source;
+            this.decoder = new Thread(this::decode, "decompress-" + name);
+            decoder.setDaemon(true);
+            decoder.start();
+        }
+
+        private void decode() {
+            try {
+                while (true) {
+                    byte[] b = source.readNBytes(BLOCK);
+                    if (b.length == 0) break;
+                    queue.put(b);
+                }
+            } catch (IOException e) {
+                failure = e;
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                failure = new IOException(e);
+            }
+            try {
+                queue.put(EOF);
+            } catch (InterruptedException ignored) {
+                // closed while finishing
+            }
+        }
+
+        private boolean fill() throws IOException {
+            while (pos == block.length) {
+                if (done) return false;
+                try {
+                    block = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while decompressing");
+                }
+                pos = 0;
+                if (block == EOF) {
+                    done = true;
+                    if (failure != null) throw failure;
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return fill() ? block[pos++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (!fill()) return -1;
+            int n = Math.min(len, block.length - pos);
+            System.arraycopy(block, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            decoder.interrupt();
+            source.close();
+        }
+    }
+
+    /**
+     * Decodes independent segments of the file on a pool, keeping a window of them in
+     * flight. Each segment is streamed from the file and decoded into its own bounded
+     * queue of blocks, so at most {@code window * PREFETCH_BLOCKS} decoded blocks are
+     * held however far a segment expands.
+     */
+    private static final class ParallelSegmentInputStream extends InputStream {
+        private static final byte[] EOF = new byte[0];
+
+        private final FileChannel channel;
+        private final Codec codec;
+        private final Iterator<long[]> segments;
+        private final ExecutorService pool;
+        private final int window;
+        private final Deque<Segment> pending = new ArrayDeque<>();
+        private byte[] block = new byte[0];
+        private int pos;
+
+        /** Decoded blocks of one segment, in order, ending with {@link #EOF}. */
+        private static final class Segment {
+            final BlockingQueue<byte[]> blocks = new ArrayBlockingQueue<>(PREFETCH_BLOCKS);
+            volatile IOException failure;
+        }
+
+        ParallelSegmentInputStream(Path file, Codec codec, List<long[]> segments, int threads) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.codec = codec;
+            this.segments = segments.iterator();
+            this.pool = Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "decompress-" + file.getFileName());
+                t.setDaemon(true);
+                return t;
+            });
+            this.window = 2 * threads;
+        }
+
+        // Tasks start in submission order, so the segment being read is always running
+        // or finished and a later segment blocking on a full queue cannot stall it.
+        private void decode(long[] range, Segment segment) {
+            InputStream raw = new BufferedInputStream(new RangeInputStream(channel, range[0], range[1]), 1 << 16);
+            try (InputStream in = decoder(codec, raw)) {
+                while (true) {
+                    byte[] b = in.readNBytes(BLOCK);
+                    if (b.length == 0) break;
+                    segment.blocks.put(b);
+                }
+            } catch (IOException e) {
+                segment.failure = e;
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                segment.failure = new IOException(e);
+            }
+            try {
+                segment.blocks.put(EOF);
+            } catch (InterruptedException ignored) {
+                // closed while finishing
+            }
+        }
+
+        private boolean fill() throws IOException {
+            while (pos == block.length) {
+                while (segments.hasNext() && pending.size() < window) {
+                    long[] range = segments.next();
+                    Segment segment = new Segment();
+                    pending.add(segment);
+                    pool.execute(() -> decode(range, segment));
+                }
+                Segment head = pending.peek();
+                if (head == null) return false;
+                try {
+                    block = head.blocks.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while decompressing");
+                }
+                pos = 0;
+                if (block == EOF) {
+                    pending.poll();
+                    if (head.failure != null) throw head.failure;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return fill() ? block[pos++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (!fill()) return -1;
+            int n = Math.min(len, block.length - pos);
+            System.arraycopy(block, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            pending.clear();
+            pool.shutdownNow();
+            channel.close();
+        }
+    }
+
+    /** Reads {@code [from, to)} of a channel with positional reads, leaving its position alone. */
+    private static final class RangeInputStream extends InputStream {
+        private final FileChannel channel;
+        private final long end;
+        private long pos;
+
+        RangeInputStream(FileChannel channel, long from, long to) {
+            this.channel = channel;
+            this.pos = from;
+            this.end = to;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (pos >= end) return -1;
+            int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - pos)), pos);
+            if (n < 0) throw new EOFException();
+            pos += n;
+            return n;
+        }
+    }
+}
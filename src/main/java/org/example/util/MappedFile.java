@@ -0,0 +1,127 @@
+package org.example.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A file memory-mapped as a sequence of 1 GiB buffers, addressed with {@code long}
+ * positions so it can exceed the 2 GiB limit of a single {@link MappedByteBuffer}.
+ *
+ * Ints and longs must be aligned to their size so they never straddle two buffers;
+ * byte ranges may. All accessors use absolute positions and are safe for concurrent
+ * readers.
+ */
+public final class MappedFile implements Closeable {
+
+    private static final int CHUNK_BITS = 30;
+    private static final long CHUNK = 1L << CHUNK_BITS;
+    private static final int CHUNK_MASK = (int) (CHUNK - 1);
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] chunks;
+    private final long size;
+
+    private MappedFile(FileChannel channel, long size, boolean writable) throws IOException {
+        this.channel = channel;
+        this.size = size;
+        int n = (int) ((size + CHUNK - 1) >>> CHUNK_BITS);
+        this.chunks = new MappedByteBuffer[n];
+        FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+        for (int i = 0; i < n; i++) {
+            long start = (long) i << CHUNK_BITS;
+            chunks[i] = channel.map(mode, start, Math.min(CHUNK, size - start));
+            chunks[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /** Maps the whole file read-only. */
+    public static MappedFile readOnly(Path file) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new MappedFile(ch, ch.size(), false);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    /** Maps {@code file} read-write, growing it to {@code size} bytes first if needed. */
+    public static MappedFile readWrite(Path file, long size) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE);
+        try {
+            if (ch.size() < size) {
+                ch.position(size - 1);
+                ch.write(java.nio.ByteBuffer.wrap(new byte[1]));
+            }
+            return new MappedFile(ch, size, true);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    public long size() { return size; }
+
+    public boolean isOpen() { return channel.isOpen(); }
+
+    public byte get(long pos) {
+        return chunks[(int) (pos >>> CHUNK_BITS)].get((int) pos & CHUNK_MASK);
+    }
+
+    public int getInt(long pos) {
+        return chunks[(int) (pos >>> CHUNK_BITS)].getInt((int) pos & CHUNK_MASK);
+    }
+
+    public long getLong(long pos) {
+        return chunks[(int) (pos >>> CHUNK_BITS)].getLong((int) pos & CHUNK_MASK);
+    }
+
+    public void putInt(long pos, int v) {
+        chunks[(int) (pos >>> CHUNK_BITS)].putInt((int) pos & CHUNK_MASK, v);
+    }
+
+    public void putLong(long pos, long v) {
+        chunks[(int) (pos >>> CHUNK_BITS)].putLong((int) pos & CHUNK_MASK, v);
+    }
+
+    public void get(long pos, byte[] dst, int off, int len) {
+        while (len > 0) {
+            int c = (int) (pos >>> CHUNK_BITS);
+            int at = (int) pos & CHUNK_MASK;
+            int n = Math.min(len, chunks[c].capacity() - at);
+            chunks[c].get(at, dst, off, n);
+            pos += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    public void put(long pos, byte[] src, int off, int len) {
+        while (len > 0) {
+            int c = (int) (pos >>> CHUNK_BITS);
+            int at = (int) pos & CHUNK_MASK;
+            int n = Math.min(len, chunks[c].capacity() - at);
+            chunks[c].put(at, src, off, n);
+            pos += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /** Flushes a writable mapping to disk. */
+    public void force() {
+        for (MappedByteBuffer b : chunks) b.force();
+    }
+
+    /** Closes the channel; the mapping itself stays valid until it is garbage collected. */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
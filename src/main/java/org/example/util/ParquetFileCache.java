@@ -0,0 +1,170 @@
+package org.example.util;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.HadoopReadOptions;
+import org.apache.parquet.ParquetReadOptions;
+import org.apache.parquet.hadoop.BloomFilterReader;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Open {@link ParquetFileReader}s kept across queries, so a short query does not re-open
+ * its files and re-read their footers, column and offset indexes and bloom filters for
+ * every pattern. A scan borrows a {@link Handle} for one file and closes it when done,
+ * which returns it to the pool; the reader's index stores and the handle's bloom filter
+ * readers fill up as scans touch row groups, and stay filled for the next borrower.
+ * Handles of one file share its parsed footer.
+ *
+ * A pooled file is known by its path, size, modification time and file key (the inode),
+ * so one replaced by {@link ParquetFiles#replace} is opened afresh; {@link ParquetFiles}
+ * and the directory deletes of the partition code {@link #invalidate} what they remove,
+ * so idle handles do not keep deleted files on disk. At most
+ * {@code rdfparquet.readerCache} handles (default 256) are kept idle; 0 disables pooling.
+ */
+public final class ParquetFileCache {
+
+    private static final int MAX_IDLE = Integer.getInteger("rdfparquet.readerCache", 256);
+
+    // creating a Configuration loads and parses Hadoop's default resources
+    private static final Configuration CONF = new Configuration();
+
+    private static final Map<Path, Entry> ENTRIES = new ConcurrentHashMap<>();
+    private static final AtomicInteger IDLE = new AtomicInteger();
+
+    private ParquetFileCache() {}
+
+    /** An open file, for one thread at a time; {@link #close} hands it back to the pool. */
+    public static final class Handle implements Closeable {
+        private final Path path;
+        private final Entry entry;
+        private final ParquetFileReader reader;
+        private final Map<Integer, BloomFilterReader> bloomFilters = new HashMap<>();
+
+        private Handle(Path path, Entry entry, ParquetFileReader reader) {
+            this.path = path;
+            this.entry = entry;
+            this.reader = reader;
+        }
+
+        public ParquetFileReader reader() {
+            return reader;
+        }
+
+        /** Bloom filters of row group {@code rowGroup}, read once per handle. */
+        public BloomFilterReader bloomFilters(int rowGroup) {
+            return bloomFilters.computeIfAbsent(rowGroup,
+                    g -> reader.getBloomFilterDataReader(reader.getRowGroups().get(g)));
+        }
+
+        @Override
+        public void close() throws IOException {
+            release(this);
+        }
+    }
+
+    /** A pooled handle on {@code file} if one is idle, else a newly opened one. */
+    public static Handle open(Path file) throws IOException {
+        Path path = file.toAbsolutePath().normalize();
+        // stamped before opening: a file replaced in between gets a stale stamp, never stale rows
+        Object stamp = stamp(path);
+        List<Entry> replaced = new ArrayList<>(1);
+        Entry entry = ENTRIES.compute(path, (p, old) -> {
+            if (old != null && old.stamp.equals(stamp)) return old;
+            if (old != null) replaced.add(old);
+            return new Entry(stamp);
+        });
+        for (Entry old : replaced) old.closeIdle();
+
+        Handle idle = entry.idle.pollFirst();
+        if (idle != null) {
+            IDLE.decrementAndGet();
+            return idle;
+        }
+        org.apache.hadoop.fs.Path hadoopPath = new org.apache.hadoop.fs.Path(path.toString());
+        ParquetMetadata footer = entry.footer;
+        // per reader: the options hold the codec factory, whose decompressors are not
+        // thread-safe and which the reader releases on close
+        ParquetReadOptions options = HadoopReadOptions.builder(CONF).build();
+        ParquetFileReader reader = footer == null
+                ? new ParquetFileReader(HadoopInputFile.fromPath(hadoopPath, CONF), options)
+                : new ParquetFileReader(CONF, hadoopPath, footer, options);
+        if (footer == null) entry.footer = reader.getFooter();
+        return new Handle(path, entry, reader);
+    }
+
+    /** Closes the idle handles of {@code path}, or of every file under it for a directory. */
+    public static void invalidate(Path path) {
+        Path prefix = path.toAbsolutePath().normalize();
+        for (Path p : ENTRIES.keySet()) {
+            if (!p.startsWith(prefix)) continue;
+            Entry entry = ENTRIES.remove(p);
+            if (entry != null) entry.closeIdle();
+        }
+    }
+
+    /** Number of open handles waiting in the pool. */
+    public static int idleHandles() {
+        return IDLE.get();
+    }
+
+    // ---------- internals ----------
+
+    private static final class Entry {
+        final Object stamp;
+        final ConcurrentLinkedDeque<Handle> idle = new ConcurrentLinkedDeque<>();
+        volatile ParquetMetadata footer;
+
+        Entry(Object stamp) {
+            this.stamp = stamp;
+        }
+
+        void closeIdle() {
+            Handle h;
+            while ((h = idle.pollFirst()) != null) {
+                IDLE.decrementAndGet();
+                closeQuietly(h);
+            }
+        }
+    }
+
+    private static void release(Handle handle) throws IOException {
+        // pooled only while the file is still the one the handle has open
+        boolean current = ENTRIES.get(handle.path) == handle.entry;
+        if (current && IDLE.incrementAndGet() <= MAX_IDLE) {
+            handle.entry.idle.addFirst(handle);
+            // invalidated meanwhile, maybe before the handle was back
+            if (ENTRIES.get(handle.path) != handle.entry) handle.entry.closeIdle();
+            return;
+        }
+        if (current) IDLE.decrementAndGet();
+        handle.reader.close();
+    }
+
+    private static Object stamp(Path path) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        return List.of(Objects.toString(attrs.fileKey()), attrs.size(), attrs.lastModifiedTime().toMillis());
+    }
+
+    private static void closeQuietly(Handle handle) {
+        try {
+            handle.reader.close();
+        } catch (IOException e) {
+            // nothing to do for a handle nobody uses
+        }
+    }
+}
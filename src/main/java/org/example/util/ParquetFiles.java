@@ -0,0 +1,37 @@
+package org.example.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Replacing and deleting Parquet files that readers may have open. Hadoop's local file
+ * system keeps a {@code .name.crc} checksum next to every file it writes and verifies
+ * it on read, so the checksum has to go along with the file.
+ */
+public final class ParquetFiles {
+    private ParquetFiles() {}
+
+    /**
+     * Moves a fully written file over {@code target} in one atomic rename. The target's
+     * checksum is removed first, so no reader pairs the new file with the old checksum;
+     * readers that already have the old file open keep reading it.
+     */
+    public static void replace(Path written, Path target) throws IOException {
+        Files.deleteIfExists(checksumOf(target));
+        Files.move(written, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(checksumOf(written));
+        ParquetFileCache.invalidate(target);
+    }
+
+    public static void delete(Path file) throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(checksumOf(file));
+        ParquetFileCache.invalidate(file);
+    }
+
+    private static Path checksumOf(Path file) {
+        return file.resolveSibling("." + file.getFileName() + ".crc");
+    }
+}
@@ -1,12 +1,14 @@
 package org.example;
 
 import org.apache.hadoop.fs.Path;
+import org.apache.parquet.column.Encoding;
 import org.apache.parquet.hadoop.ParquetWriter;
 import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 import org.apache.parquet.schema.MessageType;
 import org.apache.parquet.schema.MessageTypeParser;
 import org.example.encodedTriplet.EncodedTriplet;
 import org.example.encodedTriplet.EncodedTripletParquetWriter;
+import org.example.encodedTriplet.IdWidth;
 import org.example.dictionary.DictionaryEncoder;
 import org.example.dictionary.DictionaryEntry;
 import org.example.dictionary.DictionaryParquetWriter;
@@ -33,12 +35,12 @@ class QueryExecIntegrationTest {
         // Build dictionary
         dict = DictionaryEncoder.getInstance();
         dict.init(16);
-        int sA = dict.encode("http://ex/sA");
-        int sB = dict.encode("http://ex/sB");
-        int p  = dict.encode("http://ex/p");
-        int q  = dict.encode("http://ex/q");
-        int o1 = dict.encode("http://ex/o1");
-        int o2 = dict.encode("http://ex/o2");
+        long sA = dict.encode("http://ex/sA");
+        long sB = dict.encode("http://ex/sB");
+        long p  = dict.encode("http://ex/p");
+        long q  = dict.encode("http://ex/q");
+        long o1 = dict.encode("http://ex/o1");
+        long o2 = dict.encode("http://ex/o2");
 
         // Write dictionary parquet
         MessageType dictSchema = MessageTypeParser.parseMessageType(
@@ -72,7 +74,7 @@ class QueryExecIntegrationTest {
         }
     }
 
-    private static EncodedTriplet et(int s, int p, int o) { return new EncodedTriplet(s,p,o); }
+    private static EncodedTriplet et(long s, long p, long o) { return new EncodedTriplet(s,p,o); }
 
     private void writeIndex(String fileName, List<EncodedTriplet> rows) throws Exception {
         MessageType schema = MessageTypeParser.parseMessageType(
@@ -98,7 +100,7 @@ class QueryExecIntegrationTest {
             """;
         var parsed = SparqlParser.parse(q);
         QueryExec exec = new QueryExec();
-        List<int[]> rows = exec.execute(parsed);
+        List<long[]> rows = exec.execute(parsed);
 
         // Projection order & slots:
         assertEquals(List.of("?s", "?o"), exec.getProjectVars());
@@ -111,7 +113,7 @@ class QueryExecIntegrationTest {
         // Check the joined var consistency (same subject across both patterns):
         int sSlot = slotOf.get("?s");
         int oSlot = slotOf.get("?o");
-        for (int[] r : rows) {
+        for (long[] r : rows) {
             assertTrue(r[sSlot] >= 0);
             assertTrue(r[oSlot] >= 0);
         }
@@ -120,6 +122,48 @@ class QueryExecIntegrationTest {
         assertTrue(rows.size() <= 5);
     }
 
+    @Test
+    void joinsOnTheObjectOfSubjectOrderedMatches() throws Exception {
+        // ?o is bound by both patterns; the first pattern's matches come ordered on ?s
+        var parsed = SparqlParser.parse(
+                "SELECT ?s ?o ?x WHERE { ?s <http://ex/p> ?o . ?x <http://ex/q> ?o . }");
+        QueryExec exec = new QueryExec();
+        List<long[]> rows = exec.execute(parsed);
+        Map<String, Integer> slotOf = exec.getSlotOf();
+
+        Set<List<String>> got = new HashSet<>();
+        for (long[] r : rows) {
+            got.add(List.of(dict.decode(r[slotOf.get("?s")]), dict.decode(r[slotOf.get("?o")]),
+                    dict.decode(r[slotOf.get("?x")])));
+        }
+        assertEquals(Set.of(List.of("http://ex/sA", "http://ex/o2", "http://ex/sA"),
+                List.of("http://ex/sB", "http://ex/o2", "http://ex/sA")), got);
+        assertEquals(2, rows.size());
+
+        // no shared variable: every pair of matches
+        rows = new QueryExec().execute(SparqlParser.parse(
+                "SELECT * WHERE { ?s <http://ex/p> ?o . ?x <http://ex/q> ?y . }"));
+        assertEquals(3, rows.size());
+        for (long[] r : rows) {
+            for (long id : r) assertTrue(id >= 0);
+        }
+    }
+
+    @Test
+    void queryKeepsTheDictionaryItStartedWithAcrossAReload() throws Exception {
+        org.example.dictionary.DictionaryLoader.use(dict);
+        QueryExec exec = new QueryExec(org.example.dictionary.DictionaryLoader.snapshot());
+        try {
+            // a reload to a dictionary that knows none of the constants, with other flags
+            org.example.dictionary.DictionaryLoader.use(DictionaryEncoder.of(List.of()),
+                    org.example.dictionary.DictionarySections.of(new int[7]), true);
+            assertEquals(3, exec.execute(SparqlParser.parse("SELECT * WHERE { ?s <http://ex/p> ?o }")).size());
+            assertTrue(new QueryExec().execute(SparqlParser.parse("SELECT * WHERE { ?s <http://ex/p> ?o }")).isEmpty());
+        } finally {
+            org.example.dictionary.DictionaryLoader.use(DictionaryEncoder.getInstance());
+        }
+    }
+
     @Test
     void distinctIsAppliedWhenRequested() throws Exception {
         // SELECT DISTINCT ?s WHERE { ?s <http://ex/p> ?o . }
@@ -129,10 +173,416 @@ class QueryExecIntegrationTest {
             """;
         var parsed = SparqlParser.parse(q);
         QueryExec exec = new QueryExec();
-        List<int[]> rows = exec.execute(parsed);
+        List<long[]> rows = exec.execute(parsed);
 
         // With sA twice (o1,o2) and sB once => DISTINCT ?s -> expected 2 rows
         assertEquals(2, rows.size());
     }
-}
 
+    @Test
+    void rangeFiltersMatchForEveryIdLayout() throws Exception {
+        java.nio.file.Path input = tmpDir.resolve("people.nt");
+        StringBuilder nt = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            nt.append("<http://ex/person").append(i).append("> <http://ex/age> \"").append(i * 2)
+                    .append("\"^^<http://www.w3.org/2001/XMLSchema#integer> .\n");
+            nt.append("<http://ex/person").append(i).append("> <http://ex/born> \"").append(1950 + i)
+                    .append("-06-01T00:00:00Z\"^^<http://www.w3.org/2001/XMLSchema#dateTime> .\n");
+        }
+        nt.append("<http://ex/person0> <http://ex/age> \"unknown\" .\n");
+        // a decimal and an integer too large to inline stay in the dictionary
+        nt.append("<http://ex/person99> <http://ex/age> \"30.5\"^^<http://www.w3.org/2001/XMLSchema#decimal> .\n");
+        nt.append("<http://ex/person99> <http://ex/born> \"1990-01-01T00:00:00Z\"^^<http://www.w3.org/2001/XMLSchema#dateTime> .\n");
+        nt.append("<http://ex/person98> <http://ex/age> \"100000000\"^^<http://www.w3.org/2001/XMLSchema#integer> .\n");
+        nt.append("<http://ex/person98> <http://ex/born> \"1990-01-01T00:00:00Z\"^^<http://www.w3.org/2001/XMLSchema#dateTime> .\n");
+        Files.writeString(input, nt);
+
+        String q = """
+            PREFIX ex: <http://ex/>
+            SELECT ?s WHERE {
+              ?s ex:age ?age .
+              ?s ex:born ?born .
+              FILTER (?age >= 20 && ?age < 40.5)
+              FILTER (?born > "1960-01-01T00:00:00Z"^^xsd:dateTime)
+            }
+            """;
+        Set<String> expected = new HashSet<>();
+        for (int i = 10; i <= 20; i++) expected.add("http://ex/person" + i);   // ages 20..40, born after 1960
+        expected.add("http://ex/person99");
+
+        boolean[][] layouts = {{true, false, false, false}, {false, false, false, false}, {true, true, false, false},
+                {false, true, false, false}, {true, true, true, false}, {false, false, true, false},
+                {false, false, false, true}, {true, true, false, true}, {false, false, true, true}};
+        for (boolean[] layout : layouts) {
+            boolean sectioned = layout[0], inline = layout[1], wide = layout[2], vertical = layout[3];
+            org.example.dictionary.LoaderOptions options = new org.example.dictionary.LoaderOptions();
+            options.setSectioned(sectioned);
+            options.setInline(inline);
+            options.setWideIds(wide);
+            options.setVertical(vertical);
+            var res = new org.example.dictionary.MainDictionary(
+                    org.example.dictionary.MainDictionary.Config.defaultConfig(options)).processRdfFile(input.toString());
+            try {
+                org.example.dictionary.DictionaryLoader.load(res.getOutputFiles().get("dictionary"));
+                assertEquals(sectioned, org.example.dictionary.DictionaryLoader.sections() != null);
+                assertEquals(inline, org.example.dictionary.DictionaryLoader.inlineValues());
+                assertEquals(wide ? IdWidth.INT64 : IdWidth.INT32, IdWidth.read(res.getOutputFiles().get("spo")));
+                assertEquals(vertical, org.example.encodedTriplet.VerticalPartitions.isCurrent(DataPaths.parquetDir()));
+
+                QueryExec exec = new QueryExec();
+                List<long[]> rows = exec.execute(SparqlParser.parse(q));
+                int slot = exec.getSlotOf().get("?s");
+                Set<String> subjects = new HashSet<>();
+                for (long[] r : rows) subjects.add(org.example.dictionary.DictionaryLoader.current().decode(r[slot]));
+                assertEquals(expected, subjects,
+                        "sectioned=" + sectioned + " inline=" + inline + " wide=" + wide + " vertical=" + vertical);
+            } finally {
+                org.example.dictionary.DictionaryLoader.use(DictionaryEncoder.getInstance());
+            }
+        }
+    }
+
+    @Test
+    void servesAStoreWrittenWithIdsBeyondTheIntRange() throws Exception {
+        writeWideStore(3_000_000_000L);
+        try {
+            org.example.dictionary.DictionaryLoader.load(DataPaths.dictPath().toString());
+            QueryExec exec = new QueryExec();
+            List<long[]> rows = exec.execute(SparqlParser.parse(
+                    "SELECT ?s ?o WHERE { ?s <http://ex/p> ?o . ?s <http://ex/q> <http://ex/o2> . }"));
+            Set<List<String>> got = new HashSet<>();
+            for (long[] r : rows) {
+                got.add(List.of(org.example.dictionary.DictionaryLoader.current().decode(r[exec.getSlotOf().get("?s")]),
+                        org.example.dictionary.DictionaryLoader.current().decode(r[exec.getSlotOf().get("?o")])));
+            }
+            assertEquals(Set.of(List.of("http://ex/sA", "http://ex/o1"), List.of("http://ex/sA", "http://ex/o2")), got);
+        } finally {
+            org.example.dictionary.DictionaryLoader.use(DictionaryEncoder.getInstance());
+        }
+    }
+
+    @Test
+    void appendsToAStoreWithIdsBeyondTheIntRange() throws Exception {
+        long base = 3_000_000_000L;
+        writeWideStore(base);
+        java.nio.file.Path more = tmpDir.resolve("more.nt");
+        Files.writeString(more, "<http://ex/sB> <http://ex/q> <http://ex/o3> .\n"
+                + "<http://ex/sA> <http://ex/p> <http://ex/o1> .\n");   // already in the store
+        try {
+            org.example.dictionary.LoaderOptions options = new org.example.dictionary.LoaderOptions();
+            options.setAppend(true);
+            var res = new org.example.dictionary.MainDictionary(
+                    org.example.dictionary.MainDictionary.Config.defaultConfig(options)).processRdfFile(more.toString());
+            assertEquals(2, res.getDistinctTriples());
+            assertEquals(7, res.getDistinctTerms());
+            assertEquals(IdWidth.INT64, IdWidth.read(DataPaths.dictPath().toString()));
+            assertEquals(IdWidth.INT64, IdWidth.read(
+                    org.example.encodedTriplet.DeltaFiles.of(DataPaths.spo()).get(0).toString()));
+
+            org.example.dictionary.DictionaryLoader.load(DataPaths.dictPath().toString());
+            org.example.dictionary.TermDictionary terms = org.example.dictionary.DictionaryLoader.current();
+            assertEquals(base + 36, terms.lookup("http://ex/o3"));
+            QueryExec exec = new QueryExec();
+            List<long[]> rows = exec.execute(SparqlParser.parse("SELECT ?s ?o WHERE { ?s <http://ex/q> ?o . }"));
+            Set<List<String>> got = new HashSet<>();
+            for (long[] r : rows) {
+                got.add(List.of(terms.decode(r[exec.getSlotOf().get("?s")]), terms.decode(r[exec.getSlotOf().get("?o")])));
+            }
+            assertEquals(Set.of(List.of("http://ex/sA", "http://ex/o2"), List.of("http://ex/sB", "http://ex/o3")), got);
+        } finally {
+            org.example.dictionary.DictionaryLoader.use(DictionaryEncoder.getInstance());
+        }
+    }
+
+    /** Replaces the store with an INT64 one whose ids start at {@code base}, 7 apart. */
+    private static void writeWideStore(long base) throws Exception {
+        String[] terms = {"http://ex/sA", "http://ex/sB", "http://ex/p", "http://ex/q", "http://ex/o1", "http://ex/o2"};
+        List<DictionaryEntry> entries = new ArrayList<>();
+        for (int i = 0; i < terms.length; i++) entries.add(new DictionaryEntry(base + i * 7L, terms[i]));
+        Files.delete(DataPaths.dictPath());
+        try (ParquetWriter<DictionaryEntry> w = DictionaryParquetWriter.create(new Path(DataPaths.dictPath().toString()),
+                IdWidth.INT64.dictionarySchema(), CompressionCodecName.ZSTD)) {
+            for (DictionaryEntry e : entries) w.write(e);
+        }
+        long sA = base, sB = base + 7, p = base + 14, q = base + 21, o1 = base + 28, o2 = base + 35;
+        List<EncodedTriplet> triples = List.of(
+                new EncodedTriplet(sA, p, o1), new EncodedTriplet(sA, p, o2),
+                new EncodedTriplet(sB, p, o2), new EncodedTriplet(sA, q, o2));
+        for (org.example.encodedTriplet.Permutation perm : org.example.encodedTriplet.Permutation.values()) {
+            List<EncodedTriplet> sorted = new ArrayList<>(triples);
+            sorted.sort(Comparator.<EncodedTriplet>comparingLong(t -> perm.key(0, t))
+                    .thenComparingLong(t -> perm.key(1, t)).thenComparingLong(t -> perm.key(2, t)));
+            java.nio.file.Path out = DataPaths.parquetDir().resolve(perm.fileName());
+            Files.delete(out);
+            try (ParquetWriter<EncodedTriplet> w = EncodedTripletParquetWriter.create(
+                    new Path(out.toString()), IdWidth.INT64.tripleSchema(), CompressionCodecName.SNAPPY)) {
+                for (EncodedTriplet t : sorted) w.write(t);
+            }
+        }
+    }
+
+    @Test
+    void appendedTriplesAreQueryableBeforeAndAfterCompaction() throws Exception {
+        java.nio.file.Path base = tmpDir.resolve("base.nt"), more = tmpDir.resolve("more.nt");
+        Files.writeString(base, "<http://ex/x> <http://ex/knows> <http://ex/y> .\n");
+        Files.writeString(more, "<http://ex/y> <http://ex/knows> <http://ex/z> .\n"
+                + "<http://ex/x> <http://ex/knows> <http://ex/y> .\n");   // already in the store
+        String dictPath = DataPaths.dictPath().toString();
+        String q = """
+            PREFIX ex: <http://ex/>
+            SELECT ?a ?c WHERE { ?a ex:knows ?b . ?b ex:knows ?c }
+            """;
+        try {
+            org.example.dictionary.LoaderOptions options = new org.example.dictionary.LoaderOptions();
+            new org.example.dictionary.MainDictionary(
+                    org.example.dictionary.MainDictionary.Config.defaultConfig(options)).processRdfFile(base.toString());
+            org.example.dictionary.DictionaryLoader.load(dictPath);
+            long spoSize = Files.size(DataPaths.spo());
+
+            options.setAppend(true);
+            var res = new org.example.dictionary.MainDictionary(
+                    org.example.dictionary.MainDictionary.Config.defaultConfig(options)).processRdfFile(more.toString());
+            assertEquals(2, res.getDistinctTriples());
+            assertEquals(spoSize, Files.size(DataPaths.spo()), "base files are not rewritten");
+            assertEquals(1, org.example.encodedTriplet.DeltaFiles.of(DataPaths.spo()).size());
+            assertTrue(org.example.dictionary.DictionaryLoader.reloadIfChanged(dictPath));
+            assertFalse(org.example.dictionary.DictionaryLoader.reloadIfChanged(dictPath));
+
+            for (int round = 0; round < 2; round++) {
+                QueryExec exec = new QueryExec();
+                List<long[]> rows = exec.execute(SparqlParser.parse(q));
+                assertEquals(1, rows.size());
+                org.example.dictionary.TermDictionary terms = org.example.dictionary.DictionaryLoader.current();
+                assertEquals("http://ex/x", terms.decode(rows.get(0)[exec.getSlotOf().get("?a")]));
+                assertEquals("http://ex/z", terms.decode(rows.get(0)[exec.getSlotOf().get("?c")]));
+                // the duplicate is dropped when base and delta are merged, and by compaction
+                assertEquals(2, new QueryExec().execute(SparqlParser.parse(
+                        "SELECT * WHERE { ?s <http://ex/knows> ?o }")).size());
+
+                if (round == 0) {
+                    assertEquals(6, org.example.encodedTriplet.DeltaCompactor.compact(DataPaths.parquetDir()));
+                    assertTrue(org.example.encodedTriplet.DeltaFiles.of(DataPaths.spo()).isEmpty());
+                }
+            }
+        } finally {
+            org.example.dictionary.DictionaryLoader.use(DictionaryEncoder.getInstance());
+        }
+    }
+
+    @Test
+    void deletedTriplesAreHiddenUntilAppendedAgain() throws Exception {
+        java.nio.file.Path base = tmpDir.resolve("base.nt"), gone = tmpDir.resolve("gone.nt");
+        Files.writeString(base, "<http://ex/x> <http://ex/knows> <http://ex/y> .\n"
+                + "<http://ex/y> <http://ex/knows> <http://ex/z> .\n");
+        Files.writeString(gone, "<http://ex/y> <http://ex/knows> <http://ex/z> .\n"
+                + "<http://ex/unknown> <http://ex/knows> <http://ex/y> .\n");   // not in the store
+        String knows = "SELECT * WHERE { ?s <http://ex/knows> ?o }";
+        String dictPath = DataPaths.dictPath().toString();
+        try {
+            org.example.dictionary.LoaderOptions options = new org.example.dictionary.LoaderOptions();
+            options.setVertical(true);
+            new org.example.dictionary.MainDictionary(
+                    org.example.dictionary.MainDictionary.Config.defaultConfig(options)).processRdfFile(base.toString());
+            org.example.dictionary.DictionaryLoader.load(dictPath);
+            long spoSize = Files.size(DataPaths.spo());
+
+            options.setDelete(true);
+            var res = new org.example.dictionary.MainDictionary(
+                    org.example.dictionary.MainDictionary.Config.defaultConfig(options)).processRdfFile(gone.toString());
+            assertEquals(1, res.getDistinctTriples());
+            assertEquals(spoSize, Files.size(DataPaths.spo()), "base files are not rewritten");
+            assertEquals(1, org.example.encodedTriplet.Tombstones.files(DataPaths.parquetDir()).size());
+            assertFalse(org.example.encodedTriplet.VerticalPartitions.isCurrent(DataPaths.parquetDir()));
+            assertEquals(1, new QueryExec().execute(SparqlParser.parse(knows)).size());
+            assertEquals(0, new QueryExec().execute(SparqlParser.parse(
+                    "SELECT * WHERE { ?a <http://ex/knows> ?b . ?b <http://ex/knows> ?c }")).size());
+
+            // appended after the tombstone, so visible again
+            options.setDelete(false);
+            options.setAppend(true);
+            new org.example.dictionary.MainDictionary(
+                    org.example.dictionary.MainDictionary.Config.defaultConfig(options)).processRdfFile(gone.toString());
+            org.example.dictionary.DictionaryLoader.reloadIfChanged(dictPath);
+            assertEquals(3, new QueryExec().execute(SparqlParser.parse(knows)).size());
+
+            assertEquals(7, org.example.encodedTriplet.DeltaCompactor.compact(DataPaths.parquetDir()));
+            assertTrue(org.example.encodedTriplet.Tombstones.files(DataPaths.parquetDir()).isEmpty());
+            assertTrue(org.example.encodedTriplet.VerticalPartitions.isCurrent(DataPaths.parquetDir()),
+                    "rebuilt by compaction");
+            assertEquals(3, new QueryExec().execute(SparqlParser.parse(knows)).size());
+
+            // both triples are known now; compaction removes them from the base files
+            options.setAppend(false);
+            options.setDelete(true);
+            res = new org.example.dictionary.MainDictionary(
+                    org.example.dictionary.MainDictionary.Config.defaultConfig(options)).processRdfFile(gone.toString());
+            assertEquals(2, res.getDistinctTriples());
+            assertEquals(1, new QueryExec().execute(SparqlParser.parse(knows)).size());
+            assertEquals(1, org.example.encodedTriplet.DeltaCompactor.compact(DataPaths.parquetDir()));
+            assertTrue(org.example.encodedTriplet.Tombstones.files(DataPaths.parquetDir()).isEmpty());
+            assertEquals(1, new QueryExec().execute(SparqlParser.parse(knows)).size());
+        } finally {
+            org.example.dictionary.DictionaryLoader.use(DictionaryEncoder.getInstance());
+        }
+    }
+
+    @Test
+    void partitionedPermutationsAnswerLikeSingleFiles() throws Exception {
+        java.nio.file.Path input = tmpDir.resolve("chain.nt"), more = tmpDir.resolve("more.nt");
+        StringBuilder nt = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            nt.append("<http://ex/n").append(i).append("> <http://ex/next> <http://ex/n").append(i + 1).append("> .\n");
+            nt.append("<http://ex/n").append(i).append("> <http://ex/rank> \"").append(i % 5)
+                    .append("\"^^<http://www.w3.org/2001/XMLSchema#integer> .\n");
+        }
+        Files.writeString(input, nt);
+        Files.writeString(more, "<http://ex/n40> <http://ex/next> <http://ex/n41> .\n");
+        String[] queries = {
+                "SELECT * WHERE { ?s ?p ?o }",
+                "SELECT * WHERE { ?a <http://ex/next> ?b . ?b <http://ex/next> ?c }",
+                "SELECT * WHERE { <http://ex/n7> ?p ?o }",
+                "SELECT * WHERE { ?s <http://ex/rank> ?r . FILTER (?r >= 3) }"
+        };
+        String dictPath = DataPaths.dictPath().toString();
+        try {
+            Map<String, Integer> expected = new HashMap<>();
+            org.example.dictionary.LoaderOptions options = new org.example.dictionary.LoaderOptions();
+            new org.example.dictionary.MainDictionary(
+                    org.example.dictionary.MainDictionary.Config.defaultConfig(options)).processRdfFile(input.toString());
+            org.example.dictionary.DictionaryLoader.load(dictPath);
+            for (String q : queries) expected.put(q, new QueryExec().execute(SparqlParser.parse(q)).size());
+
+            options.setPartitions(4);
+            new org.example.dictionary.MainDictionary(
+                    org.example.dictionary.MainDictionary.Config.defaultConfig(options)).processRdfFile(input.toString());
+            org.example.dictionary.DictionaryLoader.load(dictPath);
+            assertTrue(Files.isDirectory(DataPaths.spo()));
+            var parts = org.example.encodedTriplet.PermutationPartitions.parts(DataPaths.spo());
+            assertEquals(4, parts.size());
+            assertEquals(80, parts.stream().mapToLong(p -> p.rows).sum());
+            long n7 = org.example.dictionary.DictionaryLoader.current().lookup("http://ex/n7");
+            assertEquals(1, org.example.encodedTriplet.PermutationPartitions.parts(
+                    DataPaths.spo(), new long[]{n7, n7}).size(), "one subject lives in one partition");
+            for (String q : queries) assertEquals(expected.get(q), new QueryExec().execute(SparqlParser.parse(q)).size(), q);
+
+            // deltas merge with the partitions, and compaction keeps them partitioned
+            options.setAppend(true);
+            new org.example.dictionary.MainDictionary(
+                    org.example.dictionary.MainDictionary.Config.defaultConfig(options)).processRdfFile(more.toString());
+            org.example.dictionary.DictionaryLoader.reloadIfChanged(dictPath);
+            String all = queries[0];
+            assertEquals(expected.get(all) + 1, new QueryExec().execute(SparqlParser.parse(all)).size());
+            assertEquals(6, org.example.encodedTriplet.DeltaCompactor.compact(DataPaths.parquetDir()));
+            parts = org.example.encodedTriplet.PermutationPartitions.parts(DataPaths.spo());
+            assertEquals(4, parts.size());
+            assertTrue(parts.get(0).file.getFileName().toString().startsWith("part-2-"), "a new generation");
+            assertEquals(expected.get(all) + 1, new QueryExec().execute(SparqlParser.parse(all)).size());
+        } finally {
+            org.example.dictionary.DictionaryLoader.use(DictionaryEncoder.getInstance());
+        }
+    }
+
+    @Test
+    void fileLayoutOptionsCutRowGroupsAndPagesPerPermutation() throws Exception {
+        java.nio.file.Path input = tmpDir.resolve("chain.nt"), more = tmpDir.resolve("more.nt");
+        StringBuilder nt = new StringBuilder();
+        for (int i = 0; i < 4000; i++) {
+            nt.append("<http://ex/n").append(i).append("> <http://ex/next> <http://ex/n").append(i + 1).append("> .\n");
+        }
+        Files.writeString(input, nt);
+        Files.writeString(more, "<http://ex/n4000> <http://ex/next> <http://ex/n4001> .\n");
+        String lookup = "SELECT * WHERE { <http://ex/n123> ?p ?o }";
+        String dictPath = DataPaths.dictPath().toString();
+        try {
+            org.example.dictionary.LoaderOptions options = new org.example.dictionary.LoaderOptions()
+                    .applyArgs(new String[]{"--row-group-size=1m,spo=1k", "--page-size=64k", "--page-rows=1000,spo=50"});
+            new org.example.dictionary.MainDictionary(
+                    org.example.dictionary.MainDictionary.Config.defaultConfig(options)).processRdfFile(input.toString());
+            org.example.dictionary.DictionaryLoader.load(dictPath);
+
+            org.example.encodedTriplet.FileLayout spo = org.example.encodedTriplet.FileLayout.of(1024, 64 << 10, 50);
+            assertEquals(spo, org.example.encodedTriplet.FileLayout.read(DataPaths.spo()));
+            assertEquals(org.example.encodedTriplet.FileLayout.of(1 << 20, 64 << 10, 1000),
+                    org.example.encodedTriplet.FileLayout.read(DataPaths.pso()));
+            try (var reader = org.apache.parquet.hadoop.ParquetFileReader.open(
+                    org.apache.parquet.hadoop.util.HadoopInputFile.fromPath(
+                            new org.apache.hadoop.fs.Path(DataPaths.spo().toString()),
+                            new org.apache.hadoop.conf.Configuration()))) {
+                var blocks = reader.getFooter().getBlocks();
+                assertTrue(blocks.size() > 1, "small row groups on spo");
+                var subject = blocks.get(0).getColumns().get(0);
+                assertTrue(reader.readColumnIndex(subject) != null, "column index written");
+                assertTrue(reader.readOffsetIndex(subject).getPageCount() > 1, "pages cut at 50 rows");
+            }
+            assertEquals(1, new QueryExec().execute(SparqlParser.parse(lookup)).size());
+
+            // deltas and compaction keep the permutation's layout
+            options.setAppend(true);
+            new org.example.dictionary.MainDictionary(
+                    org.example.dictionary.MainDictionary.Config.defaultConfig(options)).processRdfFile(more.toString());
+            org.example.dictionary.DictionaryLoader.reloadIfChanged(dictPath);
+            assertEquals(spo, org.example.encodedTriplet.FileLayout.read(
+                    org.example.encodedTriplet.DeltaFiles.of(DataPaths.spo()).get(0)));
+            assertEquals(6, org.example.encodedTriplet.DeltaCompactor.compact(DataPaths.parquetDir()));
+            assertEquals(spo, org.example.encodedTriplet.FileLayout.read(DataPaths.spo()));
+            assertEquals(4001, new QueryExec().execute(SparqlParser.parse("SELECT * WHERE { ?s ?p ?o }")).size());
+        } finally {
+            org.example.dictionary.DictionaryLoader.use(DictionaryEncoder.getInstance());
+        }
+    }
+
+    @Test
+    void sortedColumnsAreDeltaEncodedUnlessDictionaryIsAsked() throws Exception {
+        java.nio.file.Path input = tmpDir.resolve("chain.nt");
+        StringBuilder nt = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            nt.append("<http://ex/n").append(i).append("> <http://ex/next> <http://ex/n").append(i + 1).append("> .\n");
+            nt.append("<http://ex/n").append(i).append("> <http://ex/rank> \"").append(i % 5)
+                    .append("\"^^<http://www.w3.org/2001/XMLSchema#integer> .\n");
+        }
+        Files.writeString(input, nt);
+        String[] queries = {
+                "SELECT * WHERE { ?s ?p ?o }",
+                "SELECT * WHERE { <http://ex/n7> ?p ?o }",
+                "SELECT * WHERE { ?a <http://ex/next> ?b . ?b <http://ex/rank> ?r }"
+        };
+        String dictPath = DataPaths.dictPath().toString();
+        try {
+            Map<String, Integer> expected = new HashMap<>();
+            for (String encoding : new String[]{"dictionary", "sorted"}) {
+                org.example.dictionary.LoaderOptions options = new org.example.dictionary.LoaderOptions()
+                        .applyArgs(new String[]{"--encoding=" + encoding});
+                new org.example.dictionary.MainDictionary(
+                        org.example.dictionary.MainDictionary.Config.defaultConfig(options)).processRdfFile(input.toString());
+                org.example.dictionary.DictionaryLoader.load(dictPath);
+
+                // leading and second sort key: subject and predicate of SPO, predicate and subject of PSO
+                boolean sorted = encoding.equals("sorted");
+                assertEquals(sorted, encodings(DataPaths.spo(), "subject").contains(Encoding.DELTA_BINARY_PACKED));
+                assertTrue(encodings(DataPaths.spo(), "predicate").contains(Encoding.RLE_DICTIONARY));
+                assertTrue(encodings(DataPaths.pso(), "predicate").contains(Encoding.RLE_DICTIONARY));
+                assertEquals(sorted, encodings(DataPaths.pso(), "subject").contains(Encoding.DELTA_BINARY_PACKED));
+                for (String q : queries) {
+                    int rows = new QueryExec().execute(SparqlParser.parse(q)).size();
+                    assertEquals(rows, expected.computeIfAbsent(q, k -> rows), q);
+                }
+            }
+        } finally {
+            org.example.dictionary.DictionaryLoader.use(DictionaryEncoder.getInstance());
+        }
+    }
+
+    private static java.util.Set<Encoding> encodings(java.nio.file.Path file, String column) throws Exception {
+        java.util.Set<Encoding> found = new java.util.HashSet<>();
+        try (var reader = org.apache.parquet.hadoop.ParquetFileReader.open(
+                org.apache.parquet.hadoop.util.HadoopInputFile.fromPath(
+                        new org.apache.hadoop.fs.Path(file.toString()), new org.apache.hadoop.conf.Configuration()))) {
+            for (var block : reader.getFooter().getBlocks()) {
+                for (var chunk : block.getColumns()) {
+                    if (chunk.getPath().toDotString().equals(column)) found.addAll(chunk.getEncodings());
+                }
+            }
+        }
+        return found;
+    }
+}
@@ -153,6 +153,70 @@ class RdfReaderTest {
         assertTrue(sink.isEmpty(), "No triples should have been emitted on malformed input");
     }
 
+    @Test
+    void chunkedSplitsParseLikeTheWholeFile() throws Exception {
+        Path f = temp.resolve("chunked.nt");
+        try (BufferedWriter w = Files.newBufferedWriter(f, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < 2_000; i++) {
+                w.write("_:b" + (i % 10) + " <http://ex/p> \"v" + i + "\"@el .\n");
+            }
+        }
+
+        List<Triplet> whole = new ArrayList<>();
+        RdfReader.streamRdf(f.toString(), whole::add);
+
+        List<RdfReader.Split> splits = RdfReader.split(List.of(f.toString()), 4_096);
+        assertTrue(splits.size() > 10);
+        List<Triplet> chunked = new ArrayList<>();
+        for (RdfReader.Split split : splits) RdfReader.streamSplit(split, chunked::add);
+
+        assertEquals(whole.size(), chunked.size());
+        for (int i = 0; i < whole.size(); i++) {
+            assertEquals(whole.get(i).getObject(), chunked.get(i).getObject());
+        }
+        // a blank node label means the same node in every chunk of the file
+        long blankNodes = chunked.stream().map(Triplet::getSubject).distinct().count();
+        assertEquals(10, blankNodes);
+    }
+
+    @Test
+    void resolvesDirectoriesAndGlobs() throws Exception {
+        writeTemp("in/a.nt", "<http://ex/a> <http://ex/p> <http://ex/o> .\n");
+        writeTemp("in/b.ttl", "<http://ex/b> <http://ex/p> <http://ex/o> .\n");
+        writeTemp("in/notes.txt", "not rdf");
+        writeTemp("in/sub/c.nt", "<http://ex/c> <http://ex/p> <http://ex/o> .\n");
+
+        Path dir = temp.resolve("in");
+        assertEquals(List.of(dir.resolve("a.nt").toString(), dir.resolve("b.ttl").toString()),
+                RdfReader.resolveInputs(dir.toString()));
+        assertEquals(List.of(dir.resolve("a.nt").toString()),
+                RdfReader.resolveInputs(dir + "/*.nt"));
+        assertEquals(List.of(dir.resolve("a.nt").toString(), dir.resolve("sub/c.nt").toString()),
+                RdfReader.resolveInputs(dir + "/**.nt"));
+        assertEquals(List.of("/does/not/exist.ttl"), RdfReader.resolveInputs("/does/not/exist.ttl"));
+        assertThrows(IllegalArgumentException.class, () -> RdfReader.resolveInputs(dir + "/*.rdf"));
+    }
+
+    @Test
+    void parsesGzipCompressedNTriples() throws Exception {
+        Path f = temp.resolve("bulk.nt.gz");
+        try (var w = new java.io.OutputStreamWriter(new java.util.zip.GZIPOutputStream(Files.newOutputStream(f)),
+                StandardCharsets.UTF_8)) {
+            for (int i = 0; i < 1_000; i++) {
+                w.write("<http://ex/s" + i + "> <http://ex/p> <http://ex/o" + i + "> .\n");
+            }
+        }
+        assertTrue(RdfReader.isSupported(f.toString()));
+
+        List<Triplet> out = new ArrayList<>();
+        RdfReader.streamRdf(f.toString(), out::add);
+        assertEquals(1_000, out.size());
+        assertEquals("http://ex/o999", out.get(999).getObject());
+
+        // compressed files are never cut into chunks
+        assertEquals(1, RdfReader.split(List.of(f.toString()), 16).size());
+    }
+
     @Test
     void failsForMissingFile() {
         List<Triplet> sink = new ArrayList<>();
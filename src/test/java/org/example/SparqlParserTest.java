@@ -107,4 +107,33 @@ class SparqlParserTest {
             """;
         assertThrows(IllegalArgumentException.class, () -> SparqlParser.parse(q));
     }
+
+    @Test
+    void parsesRangeFilters() {
+        String q = """
+            PREFIX ex: <http://ex/>
+            SELECT ?s WHERE {
+              ?s ex:age ?age .
+              ?s ex:born ?born .
+              FILTER (?age >= 18 && 65 > ?age)
+              FILTER(?born < "2000-01-01T00:00:00Z"^^xsd:dateTime)
+            }
+            """;
+        ParsedQuery pq = SparqlParser.parse(q);
+        assertEquals(2, pq.patterns.size());
+        assertEquals(3, pq.filters.size());
+
+        assertEquals("?age", pq.filters.get(0).variable);
+        assertEquals(">=", pq.filters.get(0).op);
+        assertEquals("\"18\"^^http://www.w3.org/2001/XMLSchema#integer", pq.filters.get(0).literal);
+        assertEquals("<", pq.filters.get(1).op);                    // flipped to ?age < 65
+        assertEquals("\"2000-01-01T00:00:00Z\"^^http://www.w3.org/2001/XMLSchema#dateTime",
+                pq.filters.get(2).literal);
+    }
+
+    @Test
+    void rejectsUnsupportedFilters() {
+        assertThrows(IllegalArgumentException.class, () -> SparqlParser.parse(
+                "SELECT ?s WHERE { ?s <http://ex/p> ?o . FILTER(regex(?o, \"x\")) }"));
+    }
 }
@@ -0,0 +1,81 @@
+package org.example.dictionary;
+
+import org.example.encodedTriplet.IdWidth;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DictionaryEncoderTest {
+
+    @Test
+    void concurrentEncodeAssignsEachTermOneDenseId() throws Exception {
+        DictionaryEncoder dict = DictionaryEncoder.getInstance();
+        dict.init(16);
+
+        int threads = 8, terms = 20_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                long[] ids = new long[terms];
+                for (int i = 0; i < terms; i++) ids[i] = dict.encode("http://ex/t" + i);
+                return ids;
+            }));
+        }
+        start.countDown();
+        long[] first = results.get(0).get();
+        for (Future<long[]> f : results) assertArrayEquals(first, f.get());
+        pool.shutdown();
+
+        assertEquals(terms, dict.size());
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < terms; i++) {
+            assertTrue(first[i] >= 1 && first[i] <= terms);
+            assertTrue(ids.add(first[i]), "id handed out twice");
+            assertEquals("http://ex/t" + i, dict.decode(first[i]));
+        }
+        assertEquals(terms + 1, dict.encode("http://ex/new"));
+    }
+
+    @Test
+    void failsInsteadOfWrappingPastTheIntIdSpace() {
+        DictionaryEncoder dict = DictionaryEncoder.getInstance();
+        try {
+            dict.loadFrom(List.of(new DictionaryEntry(Integer.MAX_VALUE, "http://ex/last")));
+            assertEquals(Integer.MAX_VALUE, dict.lookup("http://ex/last"));
+            assertThrows(IllegalStateException.class, () -> dict.encode("http://ex/one-more"));
+
+            assertThrows(IllegalArgumentException.class,
+                    () -> dict.loadFrom(List.of(new DictionaryEntry(0, "http://ex/zero"))));
+        } finally {
+            dict.init(16);
+        }
+    }
+
+    @Test
+    void wideIdsContinuePastTheIntIdSpace() {
+        DictionaryEncoder dict = DictionaryEncoder.getInstance();
+        try {
+            long last = 3_000_000_000L;
+            dict.loadFrom(List.of(new DictionaryEntry(last, "http://ex/last")));
+            dict.setIdWidth(IdWidth.INT64);
+            dict.setInlineValues(true);
+            assertEquals(last + 1, dict.encode("http://ex/one-more"));
+            assertEquals("http://ex/one-more", dict.decode(last + 1));
+            String seven = "\"7\"^^" + LiteralOrder.XSD + "integer";
+            assertTrue(InlineValues.isInline(dict.encode(seven), IdWidth.INT64));
+            assertEquals(seven, InlineValues.decode(dict.encode(seven)));
+            assertEquals(2, dict.size());
+        } finally {
+            dict.init(16);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.dictionary;
+
+import org.example.dictionary.DictionarySections.Section;
+import org.junit.jupiter.api.Test;
+
+import static org.example.dictionary.DictionarySections.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DictionarySectionsTest {
+
+    @Test
+    void classifiesByRoleAndTermKind() {
+        assertEquals(Section.PREDICATES, classify("http://ex/p", PREDICATE | SUBJECT));
+        assertEquals(Section.SHARED, classify("http://ex/a", SUBJECT | OBJECT));
+        assertEquals(Section.SUBJECTS, classify("_:b0", SUBJECT));
+        assertEquals(Section.OBJECTS, classify("http://ex/o", OBJECT));
+        assertEquals(Section.LITERALS, classify("\"forty-two\"@en", OBJECT));
+        assertEquals(Section.NUMBERS, classify("\"42\"^^http://www.w3.org/2001/XMLSchema#int", OBJECT));
+        assertEquals(Section.DATETIMES, classify("\"2024-02-29T12:00:00Z\"^^http://www.w3.org/2001/XMLSchema#dateTime", OBJECT));
+        assertEquals(Section.LITERALS, classify("\"NaN\"^^http://www.w3.org/2001/XMLSchema#double", OBJECT));
+    }
+
+    @Test
+    void idRangesFollowEachOther() throws Exception {
+        DictionarySections sections = DictionarySections.of(new int[]{2, 3, 0, 4, 5, 0, 0});
+        assertEquals(1, sections.first(Section.PREDICATES));
+        assertEquals(2, sections.last(Section.PREDICATES));
+        assertEquals(0, sections.count(Section.SUBJECTS));
+        assertEquals(Section.OBJECTS, sections.sectionOf(6));
+        assertEquals(Section.LITERALS, sections.sectionOf(14));
+        assertNull(sections.sectionOf(15));
+        assertNull(sections.sectionOf(0));
+
+        assertTrue(sections.canBeSubject(1));
+        assertTrue(sections.canBeSubject(3));
+        assertFalse(sections.canBeSubject(6));
+        assertFalse(sections.canBeSubject(10));
+        assertTrue(sections.canBePredicate(2));
+        assertFalse(sections.canBePredicate(3));
+        assertTrue(sections.canBeObject(10));
+        assertFalse(sections.canBeObject(15));
+
+        assertEquals("2,3,0,4,5,0,0", sections.encode());
+        assertEquals(sections.encode(), DictionarySections.parse(sections.encode()).encode());
+        // written before the literal value sections existed
+        assertEquals(sections.encode(), DictionarySections.parse("2,3,0,4,5").encode());
+    }
+}
@@ -0,0 +1,110 @@
+package org.example.dictionary;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrontCodedDictionaryTest {
+
+    @TempDir
+    Path temp;
+
+    private static List<String> sortedSample() {
+        List<String> terms = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            terms.add(i % 3 == 0 ? "\"γειά " + i + "\"@el" : "http://example.org/resource/" + i);
+        }
+        terms.add("");
+        terms.add("http://example.org/😀");       // outside the BMP: sorts after U+FFxx
+        terms.add("http://example.org/Ａ");
+        terms.sort(FrontCodedDictionary.TERM_ORDER);
+        return terms;
+    }
+
+    @Test
+    void lookupAndDecodeFollowSortedOrder() throws Exception {
+        List<String> terms = sortedSample();
+        Path file = temp.resolve(DictionaryLoader.FRONT_CODED_NAME);
+        FrontCodedDictionary.write(terms, null, file);
+
+        try (FrontCodedDictionary dict = FrontCodedDictionary.open(file)) {
+            assertEquals(terms.size(), dict.size());
+            for (int i = 0; i < terms.size(); i++) {
+                assertEquals(terms.get(i), dict.decode(i + 1));
+                assertEquals(i + 1, dict.lookup(terms.get(i)), terms.get(i));
+            }
+            assertEquals(TermDictionary.NOT_FOUND, dict.lookup("http://example.org/resource/10x"));
+            assertEquals(TermDictionary.NOT_FOUND, dict.lookup("!before everything"));
+            assertEquals(TermDictionary.NOT_FOUND, dict.lookup("￿ after everything"));
+            assertNull(dict.decode(0));
+            assertNull(dict.decode(terms.size() + 1));
+
+            long plainBytes = 0;
+            for (String t : terms) plainBytes += t.getBytes(java.nio.charset.StandardCharsets.UTF_8).length;
+            assertTrue(dict.sizeInBytes() < plainBytes / 2, "front coding should share the IRI prefixes");
+        }
+    }
+
+    @Test
+    void sectionsAreSortedAndSearchedSeparately() throws Exception {
+        String xsd = LiteralOrder.XSD;
+        List<String> terms = List.of("http://ex/p1", "http://ex/p2", "", "\"a\"", "\"b\"", "http://ex/a",
+                "\"-1\"^^" + xsd + "integer", "\"2\"^^" + xsd + "int", "\"10\"^^" + xsd + "integer");
+        FrontCodedDictionary.Order bytes = FrontCodedDictionary.Order.BYTES;
+        FrontCodedDictionary.Order[] orders = {bytes, bytes, bytes, FrontCodedDictionary.Order.NUMERIC};
+        Path file = temp.resolve("sections.pfc");
+        FrontCodedDictionary.write(terms, new int[]{2, 0, 4, 3}, orders, null, file);
+        try (FrontCodedDictionary dict = FrontCodedDictionary.open(file)) {
+            for (int i = 0; i < terms.size(); i++) {
+                assertEquals(terms.get(i), dict.decode(i + 1));
+                assertEquals(i + 1, dict.lookup(terms.get(i)));
+            }
+            assertEquals(TermDictionary.NOT_FOUND, dict.lookup("http://ex/p3"));
+            assertEquals(TermDictionary.NOT_FOUND, dict.lookup("\"3\"^^" + xsd + "integer"));
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> FrontCodedDictionary.write(terms, new int[]{3, 6}, new FrontCodedDictionary.Order[]{bytes, bytes},
+                        null, temp.resolve("bad.pfc")));
+    }
+
+    @Test
+    void rejectsUnsortedTerms() {
+        List<String> terms = List.of("b", "a");
+        assertThrows(IllegalArgumentException.class,
+                () -> FrontCodedDictionary.write(terms, null, temp.resolve("bad.pfc")));
+    }
+
+    @Test
+    void loaderPrefersAFreshFrontCodedFile() throws Exception {
+        Path parquet = temp.resolve("dictionary.parquet");
+        try (var w = DictionaryParquetWriter.create(new org.apache.hadoop.fs.Path(parquet.toString()),
+                org.apache.parquet.schema.MessageTypeParser.parseMessageType(
+                        "message DictionaryEntry { required int32 id; required binary value (UTF8); }"),
+                org.apache.parquet.hadoop.metadata.CompressionCodecName.ZSTD)) {
+            w.write(new DictionaryEntry(1, "http://example.org/resource/1"));
+        }
+        Path pfc = parquet.resolveSibling(DictionaryLoader.FRONT_CODED_NAME);
+        FrontCodedDictionary.write(sortedSample(), parquet, pfc);
+        assertTrue(FrontCodedDictionary.isSidecarOf(pfc, parquet));
+        assertFalse(OffHeapDictionary.isSidecarOf(pfc, parquet));
+
+        System.setProperty("rdfparquet.dictionary", "frontcoded");
+        try {
+            DictionaryLoader.load(parquet.toString());
+            assertTrue(DictionaryLoader.current() instanceof FrontCodedDictionary);
+
+            Files.setLastModifiedTime(parquet,
+                    java.nio.file.attribute.FileTime.fromMillis(System.currentTimeMillis() + 5_000));
+            assertThrows(java.io.IOException.class, () -> DictionaryLoader.load(parquet.toString()));
+        } finally {
+            System.clearProperty("rdfparquet.dictionary");
+            DictionaryLoader.use(DictionaryEncoder.getInstance());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.dictionary;
+
+import org.example.encodedTriplet.IdWidth;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InlineValuesTest {
+
+    private static String typed(String lexical, String type) {
+        return "\"" + lexical + "\"^^" + LiteralOrder.XSD + type;
+    }
+
+    @Test
+    void inlinesCanonicalSmallValuesOnly() {
+        for (String term : new String[]{typed("42", "integer"), typed("-67108864", "integer"),
+                typed("67108863", "integer"), typed("true", "boolean"), typed("false", "boolean"),
+                typed("2024-02-29", "date"), typed("1900-01-01", "date")}) {
+            int id = InlineValues.encode(term);
+            assertTrue(InlineValues.isInline(id), term);
+            assertEquals(term, InlineValues.decode(id));
+        }
+        assertEquals("42", InlineValues.lexicalForm(InlineValues.encode(typed("42", "integer"))));
+        assertEquals("2024-02-29", InlineValues.lexicalForm(InlineValues.encode(typed("2024-02-29", "date"))));
+
+        for (String term : new String[]{typed("042", "integer"), typed("+42", "integer"), typed("-0", "integer"),
+                typed("67108864", "integer"), typed("1", "boolean"), typed("2024-02-29Z", "date"),
+                typed("42", "int"), "\"42\"", "\"true\"@en", "http://ex/42"}) {
+            assertEquals(InlineValues.NONE, InlineValues.encode(term), term);
+        }
+        assertFalse(InlineValues.isInline(TermDictionary.NOT_FOUND));
+    }
+
+    @Test
+    void integerIdsFollowValuesAndGiveFilterRanges() {
+        int minus = InlineValues.encode(typed("-5", "integer"));
+        int zero = InlineValues.encode(typed("0", "integer"));
+        int seven = InlineValues.encode(typed("7", "integer"));
+        assertTrue(minus < zero && zero < seven);
+
+        assertArrayEquals(new long[]{seven + 1, InlineValues.encode(typed("67108863", "integer"))},
+                InlineValues.integerRange(">", typed("7", "integer")));
+        assertArrayEquals(new long[]{InlineValues.encode(typed("-67108864", "integer")), seven + 3},
+                InlineValues.integerRange("<=", typed("10.5", "decimal")));
+        long[] between = InlineValues.integerRange(">=", typed("6.5", "decimal"));
+        assertEquals(seven, between[0]);
+        long[] upTo = InlineValues.integerRange("<", typed("7", "integer"));
+        assertEquals(seven - 1, upTo[1]);
+        long[] none = InlineValues.integerRange("=", typed("7.5", "decimal"));
+        assertTrue(none[0] > none[1]);
+        long[] above = InlineValues.integerRange(">", typed("1E9", "double"));
+        assertTrue(above[0] > above[1]);
+        assertNull(InlineValues.integerRange(">", typed("2024-01-01T00:00:00Z", "dateTime")));
+    }
+
+    @Test
+    void wrapperResolvesInlineIdsWithoutTheDictionary() {
+        Map<String, Long> ids = Map.of("http://ex/a", 1L);
+        TermDictionary base = new TermDictionary() {
+            @Override public long lookup(String term) { return ids.getOrDefault(term, NOT_FOUND); }
+            @Override public String decode(long id) { return id == 1 ? "http://ex/a" : null; }
+            @Override public long size() { return ids.size(); }
+        };
+        TermDictionary dict = InlineValues.over(base);
+        long id = dict.lookup(typed("3", "integer"));
+        assertTrue(InlineValues.isInline(id));
+        assertEquals(typed("3", "integer"), dict.decode(id));
+        assertEquals(1, dict.lookup("http://ex/a"));
+        assertEquals("http://ex/a", dict.decode(1));
+        assertEquals(TermDictionary.NOT_FOUND, dict.lookup(typed("3.0", "decimal")));
+        assertEquals(1, dict.size());
+    }
+
+    @Test
+    void wideIdsCarryTheSameValuesUnderTheWideTag() {
+        long seven = InlineValues.encode(typed("7", "integer"), IdWidth.INT64);
+        assertEquals(InlineValues.WIDE_TAG + InlineValues.encode(typed("7", "integer")) - InlineValues.TAG, seven);
+        assertTrue(InlineValues.isInline(seven, IdWidth.INT64));
+        assertFalse(InlineValues.isInline(seven, IdWidth.INT32));
+        // a dictionary id of a 64-bit store may sit where INT32 stores keep inline ids
+        assertFalse(InlineValues.isInline(InlineValues.TAG + 5L, IdWidth.INT64));
+        assertEquals(typed("7", "integer"), InlineValues.decode(seven));
+        assertEquals(InlineValues.NONE, InlineValues.encode(typed("042", "integer"), IdWidth.INT64));
+
+        assertArrayEquals(new long[]{seven + 1, InlineValues.encode(typed("67108863", "integer"), IdWidth.INT64)},
+                InlineValues.integerRange(">", typed("7", "integer"), IdWidth.INT64));
+        assertEquals(IdWidth.INT64, InlineValues.widthOf(Map.of(InlineValues.METADATA_KEY,
+                InlineValues.metadataValue(IdWidth.INT64))));
+        assertEquals(IdWidth.INT32, InlineValues.widthOf(Map.of(InlineValues.METADATA_KEY, "true")));
+        assertNull(InlineValues.widthOf(Map.of()));
+    }
+}
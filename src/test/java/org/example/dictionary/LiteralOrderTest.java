@@ -0,0 +1,65 @@
+package org.example.dictionary;
+
+import org.example.dictionary.DictionarySections.Section;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiteralOrderTest {
+
+    private static String typed(String lexical, String type) {
+        return "\"" + lexical + "\"^^" + LiteralOrder.XSD + type;
+    }
+
+    @Test
+    void parsesNumericAndDateTimeValues() {
+        assertEquals(0, new BigDecimal("1.5").compareTo(LiteralOrder.numericValue(typed("1.5", "decimal"))));
+        assertEquals(0, new BigDecimal("1000").compareTo(LiteralOrder.numericValue(typed("1.0E3", "double"))));
+        assertNull(LiteralOrder.numericValue(typed("INF", "double")));
+        assertNull(LiteralOrder.numericValue(typed("12", "string")));
+        assertNull(LiteralOrder.numericValue("\"12\""));
+
+        assertEquals(LiteralOrder.dateTimeValue(typed("2024-01-01T01:00:00+01:00", "dateTime")),
+                LiteralOrder.dateTimeValue(typed("2024-01-01T00:00:00", "dateTime")));   // no zone reads as UTC
+        assertNull(LiteralOrder.dateTimeValue(typed("yesterday", "dateTime")));
+    }
+
+    @Test
+    void sortsByValueAndFindsIdRanges() {
+        List<DictionaryEntry> entries = new ArrayList<>();
+        String[] numbers = {typed("10", "integer"), typed("-2.5", "decimal"), typed("1.0E1", "double"),
+                typed("3", "int"), typed("7", "integer")};
+        for (int i = 0; i < numbers.length; i++) entries.add(new DictionaryEntry(i + 1, numbers[i]));
+        LiteralOrder.sortByValue(entries, Section.NUMBERS);
+
+        List<String> sorted = new ArrayList<>();
+        for (DictionaryEntry e : entries) sorted.add(e.getValue());
+        assertEquals(List.of(typed("-2.5", "decimal"), typed("3", "int"), typed("7", "integer"),
+                typed("1.0E1", "double"), typed("10", "integer")), sorted);
+
+        // ids 1..5 in that order, behind two predicates
+        DictionaryEncoder dict = DictionaryEncoder.getInstance();
+        List<DictionaryEntry> renumbered = new ArrayList<>();
+        renumbered.add(new DictionaryEntry(1, "http://ex/p"));
+        renumbered.add(new DictionaryEntry(2, "http://ex/q"));
+        for (int i = 0; i < sorted.size(); i++) renumbered.add(new DictionaryEntry(i + 3, sorted.get(i)));
+        dict.loadFrom(renumbered);
+        DictionarySections sections = DictionarySections.of(new int[]{2, 0, 0, 0, 0, 5, 0});
+
+        String seven = typed("7", "integer"), ten = typed("10", "decimal");
+        assertArrayEquals(new long[]{6, 7}, LiteralOrder.idRange(dict, sections, ">", seven));
+        assertArrayEquals(new long[]{5, 7}, LiteralOrder.idRange(dict, sections, ">=", seven));
+        assertArrayEquals(new long[]{3, 4}, LiteralOrder.idRange(dict, sections, "<", seven));
+        assertArrayEquals(new long[]{6, 7}, LiteralOrder.idRange(dict, sections, "=", ten));
+        long[] none = LiteralOrder.idRange(dict, sections, ">", ten);
+        assertTrue(none[0] > none[1]);
+
+        assertTrue(LiteralOrder.matches(typed("1.0E1", "double"), "=", ten));
+        assertFalse(LiteralOrder.matches(typed("2024-01-01T00:00:00Z", "dateTime"), "<", ten));
+        dict.init(16);
+    }
+}
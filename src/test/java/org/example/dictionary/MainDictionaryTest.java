@@ -1,18 +1,23 @@
 package org.example.dictionary;
 
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.hadoop.ParquetReader;
 import org.example.Triplet;
+import org.example.encodedTriplet.EncodedTriplet;
+import org.example.encodedTriplet.EncodedTripletParquetReader;
+import org.example.encodedTriplet.IdWidth;
 import org.junit.jupiter.api.*;
 
 import java.io.File;
 import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class MainDictionaryTest {
 
-    private Path tmpDataDir;
+    private java.nio.file.Path tmpDataDir;
     private String prevDataProp;
 
     static final class TestableMainDictionary extends MainDictionary {
@@ -93,6 +98,9 @@ class MainDictionaryTest {
         assertTrue(out.containsKey("pos"));
         assertTrue(out.containsKey("osp"));
         assertTrue(out.containsKey("ops"));
+        assertTrue(out.containsKey("dictionaryMmap"));
+        assertTrue(OffHeapDictionary.isSidecarOf(
+                java.nio.file.Paths.get(out.get("dictionaryMmap")), java.nio.file.Paths.get(out.get("dictionary"))));
 
         // Files exist and are non-empty
         for (var e : out.entrySet()) {
@@ -133,4 +141,314 @@ class MainDictionaryTest {
         var res = md.processRdfFile(tmpDataDir.resolve("dummy.ttl").toString());
         assertTrue(new File(res.getOutputFiles().get("ops")).exists());
     }
+
+    @Test
+    void inMemoryLoadNumbersTermsInInputOrder() throws Exception {
+        // several encoding chunks, with terms shared across them
+        List<Triplet> triples = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++) {
+            triples.add(new Triplet("s" + (i % 5_000), "p" + (i % 7), "o" + (i * 31 % 90_001)));
+        }
+        Map<String, Long> expected = new HashMap<>();
+        for (Triplet t : new LinkedHashSet<>(triples)) {
+            for (String term : List.of(t.getSubject(), t.getPredicate(), t.getObject())) {
+                expected.putIfAbsent(term, expected.size() + 1L);
+            }
+        }
+
+        for (int run = 0; run < 2; run++) {
+            new TestableMainDictionary(triples).processRdfFile(tmpDataDir.resolve("dummy.nt").toString());
+            assertEquals(expected, new HashMap<>(DictionaryEncoder.getInstance().getEncodeMap()), "run " + run);
+        }
+    }
+
+    @Test
+    void streamingLoadStaysWithinTheMemoryBudget() throws Exception {
+        java.nio.file.Path nt = tmpDataDir.resolve("budget.nt");
+        try (var w = Files.newBufferedWriter(nt)) {
+            for (int i = 0; i < 200_000; i++) {
+                w.write("<http://ex/s" + (i % 2_000) + "> <http://ex/p" + (i % 5) + "> <http://ex/o" + (i * 7 % 150_001) + "> .\n");
+            }
+        }
+
+        LoaderOptions options = new LoaderOptions();
+        options.setStreaming(true);
+        options.setMemoryBudgetBytes(4L << 20);
+        options.setTmpDir(tmpDataDir.resolve("tmp"));
+        var res = new MainDictionary(MainDictionary.Config.defaultConfig(options)).processRdfFile(nt.toString());
+
+        assertEquals(200_000, res.getDistinctTriples());
+        assertTrue(res.getPeakBufferedBytes() > 0);
+        assertTrue(res.getPeakBufferedBytes() <= options.getMemoryBudgetBytes(),
+                res.getPeakBufferedBytes() + " bytes buffered");
+    }
+
+    @Test
+    void streamingModeSpillsRunsAndDeduplicates() throws Exception {
+        java.nio.file.Path nt = tmpDataDir.resolve("bulk.nt");
+        try (var w = Files.newBufferedWriter(nt)) {
+            for (int round = 0; round < 2; round++) {          // every triple twice
+                for (int i = 0; i < 3_000; i++) {
+                    w.write("<http://ex/s" + (i % 100) + "> <http://ex/p" + (i % 3) + "> <http://ex/o" + i + "> .\n");
+                }
+            }
+        }
+
+        LoaderOptions options = new LoaderOptions();
+        options.setStreaming(true);
+        options.setMemoryBudgetBytes(12L * 1024);             // ~1k triples per run
+        options.setTmpDir(tmpDataDir.resolve("tmp"));
+
+        MainDictionary md = new MainDictionary(MainDictionary.Config.defaultConfig(options));
+        var res = md.processRdfFile(nt.toString());
+
+        assertEquals(3_000, res.getDistinctTriples());
+        assertEquals(100 + 3 + 3_000, res.getDistinctTerms());
+        for (var e : res.getOutputFiles().entrySet()) {
+            assertTrue(new File(e.getValue()).length() > 0L, e.getKey() + " empty");
+        }
+    }
+
+    @Test
+    void wideIdStreamingLoadMatchesTheIntLoad() throws Exception {
+        java.nio.file.Path nt = tmpDataDir.resolve("wide.nt");
+        try (var w = Files.newBufferedWriter(nt)) {
+            for (int round = 0; round < 2; round++) {
+                for (int i = 0; i < 3_000; i++) {
+                    w.write("<http://ex/s" + (i % 100) + "> <http://ex/p" + (i % 3) + "> <http://ex/o" + i + "> .\n");
+                }
+            }
+        }
+
+        LoaderOptions narrow = new LoaderOptions();
+        var expected = new MainDictionary(MainDictionary.Config.defaultConfig(narrow)).processRdfFile(nt.toString());
+        List<String> expectedOps = decodeAll(expected.getOutputFiles().get("ops"));
+
+        LoaderOptions options = new LoaderOptions();
+        options.setStreaming(true);
+        options.setWideIds(true);
+        options.setMemoryBudgetBytes(24L * 1024);             // ~1k triples per run
+        options.setTmpDir(tmpDataDir.resolve("tmp"));
+        var res = new MainDictionary(MainDictionary.Config.defaultConfig(options)).processRdfFile(nt.toString());
+
+        assertEquals(3_000, res.getDistinctTriples());
+        assertEquals(100 + 3 + 3_000, res.getDistinctTerms());
+        for (String file : List.of("spo", "ops", "dictionary")) {
+            assertEquals(IdWidth.INT64, IdWidth.read(res.getOutputFiles().get(file)), file);
+        }
+        assertEquals(new HashSet<>(expectedOps), new HashSet<>(decodeAll(res.getOutputFiles().get("ops"))));
+    }
+
+    @Test
+    void parallelParseOfChunksAndFilesMatchesSequentialLoad() throws Exception {
+        java.nio.file.Path dir = Files.createDirectories(tmpDataDir.resolve("input"));
+        try (var w = Files.newBufferedWriter(dir.resolve("a.nt"))) {
+            for (int i = 0; i < 5_000; i++) {
+                w.write("<http://ex/s" + (i % 100) + "> <http://ex/p" + (i % 3) + "> <http://ex/o" + (i % 700) + "> .\n");
+            }
+        }
+        Files.writeString(dir.resolve("b.ttl"), "@prefix ex: <http://ex/> .\nex:s0 ex:p0 ex:extra .\nex:s1 ex:p1 \"x\"@el .\n");
+
+        LoaderOptions sequential = new LoaderOptions();
+        var expected = new MainDictionary(MainDictionary.Config.defaultConfig(sequential)).processRdfFile(dir.toString());
+        List<String> expectedSpo = decodeAll(expected.getOutputFiles().get("spo"));
+
+        LoaderOptions parallel = new LoaderOptions();
+        parallel.setParseThreads(4);
+        parallel.setChunkSizeBytes(8 * 1024);
+        var res = new MainDictionary(MainDictionary.Config.defaultConfig(parallel)).processRdfFile(dir.toString());
+
+        assertEquals(expected.getDistinctTriples(), res.getDistinctTriples());
+        assertEquals(expected.getDistinctTerms(), res.getDistinctTerms());
+        assertEquals(new HashSet<>(expectedSpo), new HashSet<>(decodeAll(res.getOutputFiles().get("spo"))));
+    }
+
+    @Test
+    void frontCodedLoadNumbersTermsInSortedOrder() throws Exception {
+        java.nio.file.Path input = tmpDataDir.resolve("fc.nt");
+        try (var w = Files.newBufferedWriter(input)) {
+            for (int i = 0; i < 2_000; i++) {
+                w.write("<http://ex/s" + (i % 90) + "> <http://ex/p" + (i % 4) + "> \"v" + (i % 300) + "\" .\n");
+            }
+        }
+        var plain = new MainDictionary(MainDictionary.Config.defaultConfig(new LoaderOptions())).processRdfFile(input.toString());
+        Set<String> expected = new HashSet<>(decodeAll(plain.getOutputFiles().get("spo")));
+
+        for (boolean streaming : new boolean[]{false, true}) {
+            LoaderOptions options = new LoaderOptions();
+            options.setFrontCoded(true);
+            options.setStreaming(streaming);
+            var res = new MainDictionary(MainDictionary.Config.defaultConfig(options)).processRdfFile(input.toString());
+            assertEquals(expected, new HashSet<>(decodeAll(res.getOutputFiles().get("spo"))));
+
+            java.nio.file.Path pfc = java.nio.file.Paths.get(res.getOutputFiles().get("dictionaryFrontCoded"));
+            assertFalse(Files.exists(pfc.resolveSibling(DictionaryLoader.SIDECAR_NAME)));
+            try (FrontCodedDictionary dict = FrontCodedDictionary.open(pfc)) {
+                assertEquals(res.getDistinctTerms(), dict.size());
+                for (int id = 1; id < dict.size(); id++) {
+                    assertTrue(FrontCodedDictionary.TERM_ORDER.compare(dict.decode(id), dict.decode(id + 1)) < 0);
+                    assertEquals(DictionaryEncoder.getInstance().decode(id), dict.decode(id));
+                }
+            }
+
+            List<EncodedTriplet> spo = readAll(res.getOutputFiles().get("spo"));
+            for (int i = 1; i < spo.size(); i++) {
+                assertTrue(spo.get(i - 1).getSubject() <= spo.get(i).getSubject(), "spo.parquet out of order at row " + i);
+            }
+        }
+    }
+
+    @Test
+    void sectionedLoadGroupsIdsByRole() throws Exception {
+        java.nio.file.Path input = tmpDataDir.resolve("sections.nt");
+        Files.writeString(input, String.join("\n",
+                "<http://ex/a> <http://ex/knows> <http://ex/b> .",
+                "<http://ex/b> <http://ex/knows> <http://ex/c> .",
+                "<http://ex/b> <http://ex/name> \"Bob\" .",
+                "<http://ex/knows> <http://ex/label> \"knows\" .",
+                "_:x <http://ex/knows> <http://ex/a> .", ""));
+
+        for (boolean[] mode : new boolean[][]{{false, false}, {true, false}, {false, true}}) {
+            LoaderOptions options = new LoaderOptions();
+            options.setSectioned(true);
+            options.setStreaming(mode[0]);
+            options.setFrontCoded(mode[1]);
+            var res = new MainDictionary(MainDictionary.Config.defaultConfig(options)).processRdfFile(input.toString());
+            assertEquals(5, res.getDistinctTriples());
+
+            String dictPath = res.getOutputFiles().get("dictionary");
+            DictionarySections sections = DictionarySections.read(dictPath);
+            assertNotNull(sections);
+            assertEquals(3, sections.count(DictionarySections.Section.PREDICATES));
+            assertEquals(2, sections.count(DictionarySections.Section.SHARED));       // a, b
+            assertEquals(1, sections.count(DictionarySections.Section.SUBJECTS));     // _:x
+            assertEquals(1, sections.count(DictionarySections.Section.OBJECTS));      // c
+            assertEquals(2, sections.count(DictionarySections.Section.LITERALS));
+
+            try {
+                DictionaryLoader.load(dictPath);
+                TermDictionary dict = DictionaryLoader.current();
+                assertEquals(mode[1], dict instanceof FrontCodedDictionary);
+                assertNotNull(DictionaryLoader.sections());
+                assertEquals(DictionarySections.Section.PREDICATES, sections.sectionOf(dict.lookup("http://ex/knows")));
+                assertEquals(DictionarySections.Section.SHARED, sections.sectionOf(dict.lookup("http://ex/b")));
+                assertEquals(DictionarySections.Section.LITERALS, sections.sectionOf(dict.lookup("\"Bob\"")));
+
+                var query = new org.example.encodedTriplet.EncodedParquetQuery();
+                assertEquals(2, query.querySubjectOnlyIds(pattern("http://ex/b", "?p", "?o")).size());
+                assertEquals(1, query.queryObjectOnlyIds(pattern("?s", "?p", "http://ex/c")).size());
+                // pruned by id range: c never occurs as a subject, _:x never as an object
+                assertTrue(query.querySubjectOnlyIds(pattern("http://ex/c", "?p", "?o")).isEmpty());
+                assertTrue(query.queryPredicateOnlyIds(pattern("?s", "http://ex/a", "?o")).isEmpty());
+            } finally {
+                DictionaryLoader.use(DictionaryEncoder.getInstance());
+            }
+        }
+    }
+
+    @Test
+    void inlineLoadKeepsSmallLiteralsOutOfTheDictionary() throws Exception {
+        String xsd = "http://www.w3.org/2001/XMLSchema#";
+        java.nio.file.Path input = tmpDataDir.resolve("inline.nt");
+        Files.writeString(input, String.join("\n",
+                "<http://ex/a> <http://ex/age> \"42\"^^<" + xsd + "integer> .",
+                "<http://ex/a> <http://ex/active> \"true\"^^<" + xsd + "boolean> .",
+                "<http://ex/a> <http://ex/since> \"2020-05-17\"^^<" + xsd + "date> .",
+                "<http://ex/b> <http://ex/age> \"042\"^^<" + xsd + "integer> .",
+                "<http://ex/b> <http://ex/name> \"Bob\" .", ""));
+
+        // in memory, streaming + sectioned, parallel + front-coded; each also with 64-bit ids
+        for (boolean[] mode : new boolean[][]{{false, false, false}, {true, false, false}, {false, true, false},
+                {false, false, true}, {true, false, true}, {false, true, true}}) {
+            IdWidth width = mode[2] ? IdWidth.INT64 : IdWidth.INT32;
+            LoaderOptions options = new LoaderOptions();
+            options.setInline(true);
+            options.setStreaming(mode[0]);
+            options.setSectioned(mode[0]);
+            options.setParseThreads(mode[1] ? 2 : 1);
+            options.setFrontCoded(mode[1]);
+            options.setWideIds(mode[2]);
+            var res = new MainDictionary(MainDictionary.Config.defaultConfig(options)).processRdfFile(input.toString());
+            assertEquals(5, res.getDistinctTriples());
+
+            String dictPath = res.getOutputFiles().get("dictionary");
+            Set<String> stored = new HashSet<>();
+            for (DictionaryEntry e : DictionaryParquetReader.readEntries(dictPath)) stored.add(e.getValue());
+            // the non-canonical "042" is not inlined
+            assertEquals(Set.of("http://ex/a", "http://ex/b", "http://ex/age", "http://ex/active", "http://ex/since",
+                    "http://ex/name", "\"042\"^^" + xsd + "integer", "\"Bob\""), stored);
+
+            try {
+                DictionaryLoader.load(dictPath);
+                assertTrue(DictionaryLoader.inlineValues());
+                assertEquals(width, DictionaryLoader.inlineWidth());
+                assertEquals(width, IdWidth.read(res.getOutputFiles().get("spo")));
+                TermDictionary dict = DictionaryLoader.current();
+                var query = new org.example.encodedTriplet.EncodedParquetQuery();
+                List<EncodedTriplet> hits = query.queryObjectOnlyIds(pattern("?s", "?p", "\"42\"^^" + xsd + "integer"));
+                assertEquals(1, hits.size());
+                assertTrue(InlineValues.isInline(hits.get(0).getObject(), width));
+                assertEquals("http://ex/a", dict.decode(hits.get(0).getSubject()));
+
+                Set<String> objects = new HashSet<>();
+                for (EncodedTriplet t : query.querySubjectOnlyIds(pattern("http://ex/a", "?p", "?o"))) {
+                    objects.add(dict.decode(t.getObject()));
+                }
+                assertEquals(Set.of("\"42\"^^" + xsd + "integer", "\"true\"^^" + xsd + "boolean",
+                        "\"2020-05-17\"^^" + xsd + "date"), objects);
+            } finally {
+                DictionaryLoader.use(DictionaryEncoder.getInstance());
+            }
+        }
+    }
+
+    private static org.example.SparqlParser.TriplePattern pattern(String s, String p, String o) {
+        return new org.example.SparqlParser.TriplePattern(s, p, o);
+    }
+
+    @Test
+    void externalSortWritesEveryPermutationInOrder() throws Exception {
+        List<Triplet> triples = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            triples.add(new Triplet("s" + (i % 7), "p" + (i % 5), "o" + (i % 11)));
+        }
+        String prev = System.getProperty("rdfparquet.loader.memoryBudget");
+        System.setProperty("rdfparquet.loader.memoryBudget", "1k"); // far below the in-memory estimate
+        try {
+            TestableMainDictionary md = new TestableMainDictionary(triples);
+            var res = md.processRdfFile(tmpDataDir.resolve("dummy.nt").toString());
+            assertEquals(385, res.getDistinctTriples()); // lcm(7, 5, 11) distinct combinations
+
+            List<EncodedTriplet> pos = readAll(res.getOutputFiles().get("pos"));
+            assertEquals(res.getDistinctTriples(), pos.size());
+            for (int i = 1; i < pos.size(); i++) {
+                EncodedTriplet a = pos.get(i - 1), b = pos.get(i);
+                int c = Long.compare(a.getPredicate(), b.getPredicate());
+                if (c == 0) c = Long.compare(a.getObject(), b.getObject());
+                if (c == 0) c = Long.compare(a.getSubject(), b.getSubject());
+                assertTrue(c < 0, "pos.parquet not strictly ascending at row " + i);
+            }
+        } finally {
+            if (prev == null) System.clearProperty("rdfparquet.loader.memoryBudget");
+            else System.setProperty("rdfparquet.loader.memoryBudget", prev);
+        }
+    }
+
+    private static List<String> decodeAll(String file) throws Exception {
+        DictionaryEncoder dict = DictionaryEncoder.getInstance();
+        List<String> out = new ArrayList<>();
+        for (EncodedTriplet t : readAll(file)) {
+            out.add(dict.decode(t.getSubject()) + " " + dict.decode(t.getPredicate()) + " " + dict.decode(t.getObject()));
+        }
+        return out;
+    }
+
+    private static List<EncodedTriplet> readAll(String file) throws Exception {
+        List<EncodedTriplet> out = new ArrayList<>();
+        try (ParquetReader<EncodedTriplet> r = EncodedTripletParquetReader.create(new Path(file), FilterCompat.NOOP)) {
+            EncodedTriplet t;
+            while ((t = r.read()) != null) out.add(new EncodedTriplet(t.getSubject(), t.getPredicate(), t.getObject()));
+        }
+        return out;
+    }
 }
@@ -46,9 +46,9 @@ class MainQueryAppHandlersTest {
 
         DictionaryEncoder dict = DictionaryEncoder.getInstance();
         dict.init(16);
-        int sA = dict.encode("http://ex/sA");
-        int p  = dict.encode("http://ex/p");
-        int o1 = dict.encode("http://ex/o1");
+        long sA = dict.encode("http://ex/sA");
+        long p  = dict.encode("http://ex/p");
+        long o1 = dict.encode("http://ex/o1");
 
         MessageType dictSchema = MessageTypeParser.parseMessageType(
                 "message DictionaryEntry { required int32 id; required binary value (UTF8); }"
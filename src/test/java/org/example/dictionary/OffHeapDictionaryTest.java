@@ -0,0 +1,204 @@
+package org.example.dictionary;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+import org.example.encodedTriplet.IdWidth;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapDictionaryTest {
+
+    @TempDir
+    java.nio.file.Path temp;
+
+    private String writeDictionary(List<DictionaryEntry> entries) throws Exception {
+        return writeDictionary(entries, MessageTypeParser.parseMessageType(
+                "message DictionaryEntry { required int32 id; required binary value (UTF8); }"
+        ));
+    }
+
+    private String writeDictionary(List<DictionaryEntry> entries, MessageType schema) throws Exception {
+        java.nio.file.Path file = temp.resolve("dictionary.parquet");
+        try (ParquetWriter<DictionaryEntry> w = DictionaryParquetWriter.create(
+                new Path(file.toString()), schema, CompressionCodecName.ZSTD)) {
+            for (DictionaryEntry e : entries) w.write(e);
+        }
+        return file.toString();
+    }
+
+    private static List<DictionaryEntry> sample() {
+        List<DictionaryEntry> entries = new ArrayList<>();
+        for (int i = 1; i <= 5_000; i++) {
+            if (i % 100 == 0) continue;                                  // ids with gaps
+            String term = i % 3 == 0 ? "\"γειά " + i + "\"@el" : "http://example.org/resource/" + i;
+            entries.add(new DictionaryEntry(i, term));
+        }
+        return entries;
+    }
+
+    @Test
+    void lookupAndDecodeMatchTheParquetDictionary() throws Exception {
+        List<DictionaryEntry> entries = sample();
+        try (OffHeapDictionary dict = OffHeapDictionary.fromParquet(writeDictionary(entries))) {
+            assertEquals(entries.size(), dict.size());
+            for (DictionaryEntry e : entries) {
+                assertEquals(e.getId(), dict.lookup(e.getValue()), e.getValue());
+                assertEquals(e.getValue(), dict.decode(e.getId()));
+            }
+            assertEquals(TermDictionary.NOT_FOUND, dict.lookup("http://example.org/resource/100"));
+            assertEquals(TermDictionary.NOT_FOUND, dict.lookup("http://example.org/other"));
+            assertNull(dict.decode(100));
+            assertNull(dict.decode(0));
+            assertNull(dict.decode(5_001));
+        }
+    }
+
+    @Test
+    void servesIdsBeyondTheIntRangeFromAWideDictionary() throws Exception {
+        long base = 3_000_000_000L;
+        List<DictionaryEntry> entries = new ArrayList<>();
+        for (int i = 1; i <= 1_000; i++) entries.add(new DictionaryEntry(base + i * 7L, "http://example.org/wide/" + i));
+        String path = writeDictionary(entries, IdWidth.INT64.dictionarySchema());
+        assertEquals(IdWidth.INT64, IdWidth.read(path));
+
+        java.nio.file.Path parquet = java.nio.file.Paths.get(path);
+        java.nio.file.Path sidecar = parquet.resolveSibling(DictionaryLoader.SIDECAR_NAME);
+        OffHeapDictionary.writeSidecar(entries, parquet, sidecar);
+        try (OffHeapDictionary built = OffHeapDictionary.fromParquet(path);
+             OffHeapDictionary mapped = OffHeapDictionary.open(sidecar)) {
+            for (OffHeapDictionary dict : List.of(built, mapped)) {
+                assertEquals(entries.size(), dict.size());
+                for (DictionaryEntry e : entries) {
+                    assertEquals(e.getId(), dict.lookup(e.getValue()), e.getValue());
+                    assertEquals(e.getValue(), dict.decode(e.getId()));
+                }
+                assertNull(dict.decode(base + 1));
+                assertNull(dict.decode((int) (base + 7)));   // truncated id
+            }
+        }
+    }
+
+    @Test
+    void sortsEntriesThatAreNotInIdOrder() throws Exception {
+        List<DictionaryEntry> entries = sample();
+        Collections.shuffle(entries, new java.util.Random(7));
+        try (OffHeapDictionary dict = OffHeapDictionary.fromParquet(writeDictionary(entries))) {
+            for (DictionaryEntry e : entries) {
+                assertEquals(e.getId(), dict.lookup(e.getValue()));
+            }
+        }
+    }
+
+    @Test
+    void sidecarIsMappedWhileItMatchesTheParquetFile() throws Exception {
+        List<DictionaryEntry> entries = sample();
+        String path = writeDictionary(entries);
+        java.nio.file.Path parquet = java.nio.file.Paths.get(path);
+        java.nio.file.Path sidecar = parquet.resolveSibling(DictionaryLoader.SIDECAR_NAME);
+        OffHeapDictionary.writeSidecar(entries, parquet, sidecar);
+        assertTrue(OffHeapDictionary.isSidecarOf(sidecar, parquet));
+
+        try {
+            DictionaryLoader.load(path);
+            assertTrue(DictionaryLoader.current() instanceof OffHeapDictionary);
+            assertEquals("http://example.org/resource/1", DictionaryLoader.current().decode(1));
+
+            // a rewritten dictionary makes the sidecar stale: back to the heap dictionary
+            java.nio.file.Files.setLastModifiedTime(parquet,
+                    java.nio.file.attribute.FileTime.fromMillis(System.currentTimeMillis() + 5_000));
+            assertFalse(OffHeapDictionary.isSidecarOf(sidecar, parquet));
+            DictionaryLoader.load(path);
+            assertTrue(DictionaryLoader.current() instanceof DictionaryEncoder);
+        } finally {
+            DictionaryLoader.use(DictionaryEncoder.getInstance());
+        }
+    }
+
+    @Test
+    void reloadSwapsInANewDictionaryAndPicksUpALateSidecar() throws Exception {
+        List<DictionaryEntry> entries = sample();
+        String path = writeDictionary(entries);
+        java.nio.file.Path parquet = java.nio.file.Paths.get(path);
+        try {
+            DictionaryLoader.load(path);
+            TermDictionary before = DictionaryLoader.current();
+            assertTrue(before instanceof DictionaryEncoder);
+
+            // an append renames the new parquet file into place before writing the sidecar
+            entries.add(new DictionaryEntry(6_000, "http://example.org/resource/new"));
+            java.nio.file.Files.delete(parquet);
+            writeDictionary(entries);
+            assertTrue(DictionaryLoader.reloadIfChanged(path));
+            assertNotSame(before, DictionaryLoader.current());
+            assertEquals(6_000, DictionaryLoader.current().lookup("http://example.org/resource/new"));
+            // queries still holding the old dictionary keep decoding with it
+            assertEquals("http://example.org/resource/1", before.decode(1));
+            assertEquals(TermDictionary.NOT_FOUND, before.lookup("http://example.org/resource/new"));
+
+            OffHeapDictionary.writeSidecar(entries, parquet, parquet.resolveSibling(DictionaryLoader.SIDECAR_NAME));
+            assertTrue(DictionaryLoader.reloadIfChanged(path));
+            assertTrue(DictionaryLoader.current() instanceof OffHeapDictionary);
+            assertFalse(DictionaryLoader.reloadIfChanged(path));
+        } finally {
+            DictionaryLoader.use(DictionaryEncoder.getInstance());
+        }
+    }
+
+    @Test
+    void reloadClosesTheReplacedDictionaryOnceQueriesReleaseIt() throws Exception {
+        List<DictionaryEntry> entries = sample();
+        String path = writeDictionary(entries);
+        java.nio.file.Path parquet = java.nio.file.Paths.get(path);
+        java.nio.file.Path sidecar = parquet.resolveSibling(DictionaryLoader.SIDECAR_NAME);
+        OffHeapDictionary.writeSidecar(entries, parquet, sidecar);
+        try {
+            DictionaryLoader.load(path);
+            DictionaryLoader.Snapshot query = DictionaryLoader.acquire();
+            OffHeapDictionary before = (OffHeapDictionary) query.dictionary();
+
+            entries.add(new DictionaryEntry(6_000, "http://example.org/resource/new"));
+            java.nio.file.Files.delete(parquet);
+            java.nio.file.Files.delete(sidecar);
+            writeDictionary(entries);
+            OffHeapDictionary.writeSidecar(entries, parquet, sidecar);
+            assertTrue(DictionaryLoader.reloadIfChanged(path));
+
+            // the running query still decodes with the dictionary it started with
+            assertTrue(before.isOpen());
+            assertEquals("http://example.org/resource/1", before.decode(1));
+            query.close();
+            assertFalse(before.isOpen());
+            assertThrows(IllegalStateException.class, query::retain);
+
+            OffHeapDictionary after = (OffHeapDictionary) DictionaryLoader.current();
+            assertEquals(6_000, after.lookup("http://example.org/resource/new"));
+            DictionaryLoader.use(DictionaryEncoder.getInstance());
+            assertFalse(after.isOpen());
+        } finally {
+            DictionaryLoader.use(DictionaryEncoder.getInstance());
+        }
+    }
+
+    @Test
+    void loaderSelectsOffHeapByProperty() throws Exception {
+        String path = writeDictionary(sample());
+        System.setProperty("rdfparquet.dictionary", "offheap");
+        try {
+            DictionaryLoader.load(path);
+            assertTrue(DictionaryLoader.current() instanceof OffHeapDictionary);
+            assertEquals(1, DictionaryLoader.current().lookup("http://example.org/resource/1"));
+        } finally {
+            System.clearProperty("rdfparquet.dictionary");
+            DictionaryLoader.use(DictionaryEncoder.getInstance());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.encodedTriplet;
+
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.example.dictionary.LoaderOptions;
+import org.example.dictionary.MainDictionary;
+import org.example.util.DataPaths;
+import org.example.util.ParquetFileCache;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeltaCompactorTest {
+
+    private Path tmpDir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        tmpDir = Files.createTempDirectory("rdfparquet-compact-");
+        System.setProperty("rdfparquet.dataDir", tmpDir.toString());
+        Files.createDirectories(DataPaths.parquetDir());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        System.clearProperty("rdfparquet.dataDir");
+        ParquetFileCache.invalidate(tmpDir);
+        try (var s = Files.walk(tmpDir)) {
+            s.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    void tripleDeletedAndAppendedAgainDuringCompactionSurvivesIt() throws Exception {
+        Path base = tmpDir.resolve("base.nt"), more = tmpDir.resolve("more.nt"), again = tmpDir.resolve("again.nt");
+        Files.writeString(base, "<http://ex/x> <http://ex/knows> <http://ex/y> .\n");
+        Files.writeString(more, "<http://ex/y> <http://ex/knows> <http://ex/z> .\n");
+        Files.writeString(again, "<http://ex/x> <http://ex/knows> <http://ex/y> .\n");
+        LoaderOptions options = new LoaderOptions();
+        run(options, base);
+        options.setAppend(true);
+        run(options, more);   // delta 1, for the compaction to fold
+        assertEquals(2, visible());
+
+        // tombstone 2 and delta 3 land after the compaction has read the tombstones
+        int folded = DeltaCompactor.compact(DataPaths.parquetDir(), () -> {
+            LoaderOptions delete = new LoaderOptions();
+            delete.setDelete(true);
+            run(delete, again);
+            run(options, again);
+        });
+        assertEquals(6, folded);
+        assertEquals(1, Tombstones.files(DataPaths.parquetDir()).size());
+        assertEquals(1, DeltaFiles.of(DataPaths.spo()).size(), "the delta after the snapshot is left");
+        assertEquals(2, visible());
+
+        assertEquals(7, DeltaCompactor.compact(DataPaths.parquetDir()));
+        assertTrue(Tombstones.files(DataPaths.parquetDir()).isEmpty());
+        assertEquals(2, visible());
+    }
+
+    private static void run(LoaderOptions options, Path input) {
+        try {
+            new MainDictionary(MainDictionary.Config.defaultConfig(options)).processRdfFile(input.toString());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int visible() throws IOException {
+        EncodedTriples out = new EncodedTriples();
+        DeltaFiles.scan(DataPaths.spo(), Permutation.SPO, null, FilterCompat.NOOP, out);
+        return out.size();
+    }
+}
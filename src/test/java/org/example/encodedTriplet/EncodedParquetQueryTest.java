@@ -30,11 +30,11 @@ class EncodedParquetQueryTest {
         // Build a tiny dictionary
         dict = DictionaryEncoder.getInstance();
         dict.init(16);
-        int sA = dict.encode("http://ex/sA");
-        int sB = dict.encode("http://ex/sB");
-        int pP = dict.encode("http://ex/p");
-        int o1 = dict.encode("http://ex/o1");
-        int o2 = dict.encode("http://ex/o2");
+        long sA = dict.encode("http://ex/sA");
+        long sB = dict.encode("http://ex/sB");
+        long pP = dict.encode("http://ex/p");
+        long o1 = dict.encode("http://ex/o1");
+        long o2 = dict.encode("http://ex/o2");
 
         // Write dictionary.parquet
         MessageType dictSchema = MessageTypeParser.parseMessageType(
@@ -93,7 +93,7 @@ class EncodedParquetQueryTest {
         }
     }
 
-    private static EncodedTriplet et(int s, int p, int o) {
+    private static EncodedTriplet et(long s, long p, long o) {
         return new EncodedTriplet(s, p, o);
     }
 
@@ -134,7 +134,39 @@ class EncodedParquetQueryTest {
                 "http://ex/sA", "http://ex/p", "?o");
         var out = q.querySubjectOnlyIds(tp);
         assertTrue(out.size() >= 2);
-        int sA = dict.encode("http://ex/sA");
+        long sA = dict.encode("http://ex/sA");
         assertTrue(out.stream().allMatch(r -> r.getSubject() == sA));
     }
+
+    @Test
+    void boundPredicatePatternsReadTheVerticalPartitions() throws Exception {
+        long sA = dict.encode("http://ex/sA"), sB = dict.encode("http://ex/sB");
+        long pP = dict.encode("http://ex/p"), o2 = dict.encode("http://ex/o2");
+        assertEquals(1, VerticalPartitions.build(DataPaths.parquetDir()));
+        assertTrue(VerticalPartitions.isCurrent(DataPaths.parquetDir()));
+        java.nio.file.Path so = VerticalPartitions.file(DataPaths.parquetDir(), pP, VerticalPartitions.Order.SO);
+        try (var footer = org.apache.parquet.hadoop.ParquetFileReader.open(
+                org.apache.parquet.hadoop.util.HadoopInputFile.fromPath(new Path(so.toString()),
+                        new org.apache.hadoop.conf.Configuration()))) {
+            assertEquals(IdWidth.INT32.pairSchema(), footer.getFileMetaData().getSchema());
+        }
+
+        EncodedParquetQuery q = new EncodedParquetQuery();
+        var all = q.queryPredicateOnlyIds(new org.example.SparqlParser.TriplePattern("?s", "http://ex/p", "?o"));
+        assertEquals(3, all.size());
+        assertTrue(all.stream().allMatch(r -> r.getPredicate() == pP), "predicate comes from the footer");
+        var byObject = q.queryPOIds(new org.example.SparqlParser.TriplePattern("?s", "http://ex/p", "http://ex/o2"));
+        assertEquals(List.of(sA, sB), byObject.stream().map(EncodedTriplet::getSubject).toList());
+        assertEquals(1, q.querySPOIds(new org.example.SparqlParser.TriplePattern(
+                "http://ex/sB", "http://ex/p", "http://ex/o2")).size());
+        assertEquals(o2, q.querySPIds(new org.example.SparqlParser.TriplePattern(
+                "http://ex/sB", "http://ex/p", "?o")).get(0).getObject());
+
+        // a rewritten base file makes them stale, and queries go back to the permutations
+        org.example.util.ParquetFiles.delete(DataPaths.pso());
+        writeIndex("pso.parquet", List.of(et(sA, pP, o2)));
+        assertFalse(VerticalPartitions.isCurrent(DataPaths.parquetDir()));
+        assertEquals(1, new EncodedParquetQuery().queryPredicateOnlyIds(
+                new org.example.SparqlParser.TriplePattern("?s", "http://ex/p", "?o")).size());
+    }
 }
@@ -0,0 +1,91 @@
+package org.example.encodedTriplet;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalTripleSorterTest {
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void inMemoryInputIsSortedAndDeduplicated() throws Exception {
+        List<long[]> out = new ArrayList<>();
+        try (ExternalTripleSorter sorter = new ExternalTripleSorter(1L << 20, temp)) {
+            sorter.add(2, 1, 1);
+            sorter.add(1, 2, 3);
+            sorter.add(1, 2, 3);
+            sorter.add(1, 1, 9);
+            long n = sorter.mergeDistinct((s, p, o) -> out.add(new long[]{s, p, o}));
+            assertEquals(3, n);
+            assertEquals(0, sorter.runCount());
+        }
+        assertArrayEquals(new long[]{1, 1, 9}, out.get(0));
+        assertArrayEquals(new long[]{1, 2, 3}, out.get(1));
+        assertArrayEquals(new long[]{2, 1, 1}, out.get(2));
+    }
+
+    @Test
+    void bufferSortScratchAndMergeBuffersFitTheBudget() throws Exception {
+        long budget = 1L << 20;
+        Random rnd = new Random(7);
+        try (ExternalTripleSorter sorter = new ExternalTripleSorter(budget, temp)) {
+            for (int i = 0; i < 1_000_000; i++) sorter.add(rnd.nextInt(1 << 20), rnd.nextInt(50), rnd.nextInt(1 << 20));
+            assertTrue(sorter.runCount() > 20, "runs: " + sorter.runCount());
+            long[] count = new long[1];
+            sorter.mergeDistinct((s, p, o) -> count[0]++);
+            assertTrue(count[0] > 0);
+            assertTrue(sorter.peakBytes() > budget / 2, sorter.peakBytes() + " bytes");
+            assertTrue(sorter.peakBytes() <= budget, sorter.peakBytes() + " bytes");
+        }
+    }
+
+    @Test
+    void spilledRunsMergeToSameResultAsTreeSet() throws Exception {
+        spilledRunsMergeToSameResultAsTreeSet(IdWidth.INT32, 0);
+    }
+
+    @Test
+    void wideIdsSpillAndMergePastTheIntRange() throws Exception {
+        spilledRunsMergeToSameResultAsTreeSet(IdWidth.INT64, 3_000_000_000L);
+    }
+
+    private void spilledRunsMergeToSameResultAsTreeSet(IdWidth width, long base) throws Exception {
+        Random rnd = new Random(42);
+        TreeSet<List<Long>> expected = new TreeSet<>((a, b) -> {
+            for (int i = 0; i < 3; i++) {
+                int c = Long.compare(a.get(i), b.get(i));
+                if (c != 0) return c;
+            }
+            return 0;
+        });
+
+        List<long[]> out = new ArrayList<>();
+        try (ExternalTripleSorter sorter = new ExternalTripleSorter(
+                Permutation.SPO, width, 3L * width.bytes() * 1024, temp)) {
+            for (int i = 0; i < 20_000; i++) {
+                long s = base + rnd.nextInt(50), p = rnd.nextInt(5), o = base + rnd.nextInt(50);
+                sorter.add(s, p, o);
+                expected.add(List.of(s, p, o));
+            }
+            assertTrue(sorter.runCount() > 1, "small budget should force spills");
+            sorter.mergeDistinct((s, p, o) -> out.add(new long[]{s, p, o}));
+        }
+
+        assertEquals(expected.size(), out.size());
+        Iterator<List<Long>> it = expected.iterator();
+        for (long[] t : out) {
+            List<Long> e = it.next();
+            assertArrayEquals(new long[]{e.get(0), e.get(1), e.get(2)}, t);
+        }
+        try (var files = Files.list(temp)) {
+            assertEquals(0, files.count(), "run files should be removed on close");
+        }
+    }
+}
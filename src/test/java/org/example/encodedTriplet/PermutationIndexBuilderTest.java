@@ -0,0 +1,34 @@
+package org.example.encodedTriplet;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PermutationIndexBuilderTest {
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void writersShareHalfTheBudget() throws Exception {
+        long budget = 4L << 20;
+        File dir = temp.resolve("parquet").toFile();
+        assertTrue(dir.mkdirs());
+        try (PermutationIndexBuilder indexes = new PermutationIndexBuilder(
+                dir, IdWidth.INT32.tripleSchema(), budget, temp.resolve("tmp"), false)) {
+            for (int i = 0; i < 200_000; i++) indexes.add(i % 3_000, i % 7, i * 31 % 100_003);
+            assertEquals(200_000, indexes.write(6));
+            assertTrue(indexes.peakBytes() <= budget, indexes.peakBytes() + " bytes");
+        }
+        // two writers at a time, each with a row group of a quarter of the budget
+        for (Permutation perm : Permutation.values()) {
+            FileLayout layout = FileLayout.read(dir.toPath().resolve(perm.fileName()));
+            assertEquals(budget / 4, layout.rowGroupSize(), perm.toString());
+            assertEquals(FileLayout.DEFAULT.pageSize(), layout.pageSize());
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package org.example.encodedTriplet;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.junit.jupiter.api.*;
+
+import java.nio.file.Files;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeekReaderTest {
+
+    private java.nio.file.Path tmpDir;
+    private java.nio.file.Path spo;
+    private final List<EncodedTriplet> rows = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        tmpDir = Files.createTempDirectory("rdfparquet-seek-");
+        spo = tmpDir.resolve("spo.parquet");
+        // 4000 triples over 400 subjects, in small row groups of small pages
+        for (int s = 1; s <= 400; s++) {
+            for (int k = 0; k < 10; k++) rows.add(new EncodedTriplet(s, 1 + k % 3, 1000 + s * 10 + k));
+        }
+        try (ParquetWriter<EncodedTriplet> w = EncodedTripletParquetWriter.create(
+                new Path(spo.toString()), IdWidth.INT32.tripleSchema(), CompressionCodecName.SNAPPY,
+                FileLayout.of(4096, 1024, 40), Permutation.SPO)) {
+            for (EncodedTriplet t : rows) w.write(t);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        try (var files = Files.walk(tmpDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    void fileHasSeveralRowGroupsAndPages() throws Exception {
+        try (ParquetFileReader reader = ParquetFileReader.open(HadoopInputFile.fromPath(
+                new Path(spo.toString()), new org.apache.hadoop.conf.Configuration()))) {
+            var blocks = reader.getFooter().getBlocks();
+            assertTrue(blocks.size() > 1);
+            assertTrue(reader.readOffsetIndex(blocks.get(0).getColumns().get(0)).getPageCount() > 1);
+        }
+    }
+
+    @Test
+    void readsExactlyTheRowsOfTheLeadingRanges() throws Exception {
+        long[][] ranges = {
+                {1, 1}, {7, 7}, {123, 123}, {400, 400},     // single subjects, first and last included
+                {37, 212},                                  // across row groups
+                {5, 9, 150, 151, 390, 410},                 // several pairs, one past the end
+                {0, 0}, {401, 500}                          // nothing
+        };
+        for (long[] leading : ranges) {
+            assertEquals(expected(leading, null), read(leading, null), Arrays.toString(leading));
+        }
+    }
+
+    @Test
+    void appliesTheFilterToTheOtherColumns() throws Exception {
+        long[] leading = {100, 180};
+        FilterPredicate p2 = FilterApi.and(
+                FilterApi.and(FilterApi.gtEq(FilterApi.intColumn("subject"), 100),
+                        FilterApi.ltEq(FilterApi.intColumn("subject"), 180)),
+                FilterApi.eq(FilterApi.intColumn("predicate"), 2));
+        List<EncodedTriplet> got = read(leading, p2);
+        assertEquals(expected(leading, 2L), got);
+        assertEquals(81 * 3, got.size());
+    }
+
+    @Test
+    void batchesHoldTheRowsOfRowReads() throws Exception {
+        FilterPredicate object = FilterApi.or(FilterApi.ltEq(FilterApi.intColumn("object"), 2500),
+                FilterApi.gt(FilterApi.intColumn("object"), 4000));
+        // the last one has no batch evaluation, so batches are filled from rows
+        FilterPredicate[] filters = {null, object, FilterApi.not(object),
+                FilterApi.in(FilterApi.intColumn("predicate"), new HashSet<>(List.of(1, 3)))};
+        long[][] ranges = {null, {7, 7}, {37, 212}, {5, 9, 150, 151, 390, 410}, {401, 500}};
+        for (FilterPredicate p : filters) {
+            for (long[] leading : ranges) {
+                String what = Arrays.toString(leading) + " " + p;
+                List<EncodedTriplet> rows = read(leading, p);
+                assertEquals(rows, readBatches(leading, p), what);
+                if (leading == null && p == null) assertEquals(this.rows, rows, what);
+            }
+        }
+    }
+
+    @Test
+    void batchesFillTheKeyOfPagesHoldingOnlyThatKey() throws Exception {
+        // long runs per subject, so most pages and row groups hold one subject only
+        java.nio.file.Path runs = tmpDir.resolve("runs.parquet");
+        List<EncodedTriplet> all = new ArrayList<>();
+        for (int s = 1; s <= 5; s++) {
+            for (int k = 0; k < 1000; k++) all.add(new EncodedTriplet(s, 1 + k % 3, 1000 * s + k));
+        }
+        all.sort(Permutation.SPO.comparator());
+        try (ParquetWriter<EncodedTriplet> w = EncodedTripletParquetWriter.create(
+                new Path(runs.toString()), IdWidth.INT32.tripleSchema(), CompressionCodecName.SNAPPY,
+                FileLayout.of(4096, 1024, 40), Permutation.SPO)) {
+            for (EncodedTriplet t : all) w.write(t);
+        }
+        FilterPredicate p2 = FilterApi.and(FilterApi.eq(FilterApi.intColumn("subject"), 3),
+                FilterApi.eq(FilterApi.intColumn("predicate"), 2));
+        for (FilterPredicate p : new FilterPredicate[]{null, p2}) {
+            EncodedTriples got = new EncodedTriples();
+            try (SeekReader reader = SeekReader.open(runs, Permutation.SPO, new long[]{3, 3},
+                    p == null ? FilterCompat.NOOP : FilterCompat.get(p))) {
+                TripleBatch batch = new TripleBatch();
+                while (reader.read(batch)) got.addAll(batch);
+            }
+            List<EncodedTriplet> expected = new ArrayList<>();
+            for (EncodedTriplet t : all) {
+                if (t.getSubject() == 3 && (p == null || t.getPredicate() == 2)) expected.add(t);
+            }
+            assertEquals(expected, got, String.valueOf(p));
+        }
+    }
+
+    @Test
+    void seeksOnTheWholeBoundPrefix() throws Exception {
+        // POS: runs of one predicate and object, some within a page, some over row groups
+        java.nio.file.Path pos = tmpDir.resolve("pos.parquet");
+        List<EncodedTriplet> all = new ArrayList<>();
+        for (int p = 1; p <= 3; p++) {
+            for (int o = 1; o <= 40; o++) {
+                int count = o % 7 == 0 ? 900 : (o * 13) % 97 + 1;
+                for (int s = 1; s <= count; s++) all.add(new EncodedTriplet(s, p, 100 * p + o));
+            }
+        }
+        try (ParquetWriter<EncodedTriplet> w = EncodedTripletParquetWriter.create(
+                new Path(pos.toString()), IdWidth.INT32.tripleSchema(), CompressionCodecName.SNAPPY,
+                FileLayout.of(4096, 1024, 40), Permutation.POS)) {
+            for (EncodedTriplet t : all) w.write(t);
+        }
+        for (int p = 1; p <= 3; p++) {
+            for (int o = 99 + 100 * p; o <= 141 + 100 * p; o++) {
+                FilterPredicate po = FilterApi.and(FilterApi.eq(FilterApi.intColumn("predicate"), p),
+                        FilterApi.eq(FilterApi.intColumn("object"), o));
+                List<EncodedTriplet> expected = new ArrayList<>();
+                for (EncodedTriplet t : all) {
+                    if (t.getPredicate() == p && t.getObject() == o) expected.add(t);
+                }
+                List<EncodedTriplet> rows = new ArrayList<>();
+                try (SeekReader reader = SeekReader.open(pos, Permutation.POS, new long[]{p, p}, FilterCompat.get(po))) {
+                    EncodedTriplet t;
+                    while ((t = reader.read()) != null) rows.add(new EncodedTriplet(t.getSubject(), t.getPredicate(), t.getObject()));
+                }
+                EncodedTriples batches = new EncodedTriples();
+                try (SeekReader reader = SeekReader.open(pos, Permutation.POS, new long[]{p, p}, FilterCompat.get(po))) {
+                    TripleBatch batch = new TripleBatch();
+                    while (reader.read(batch)) batches.addAll(batch);
+                }
+                assertEquals(expected, rows, p + " " + o);
+                assertEquals(expected, batches, p + " " + o);
+            }
+        }
+    }
+
+    @Test
+    void seeksOnTheSubjectOfAPairFile() throws Exception {
+        // a vertical SO partition: subject and object only, sorted as SOP
+        java.nio.file.Path so = tmpDir.resolve("p1.so.parquet");
+        try (ParquetWriter<EncodedTriplet> w = EncodedTripletParquetWriter.create(
+                new Path(so.toString()), IdWidth.INT32.pairSchema(), CompressionCodecName.SNAPPY,
+                FileLayout.of(1024, 256, 40), Permutation.SOP)) {
+            for (EncodedTriplet t : rows) w.write(t);
+        }
+        int groups;
+        try (SeekReader reader = SeekReader.open(so, Permutation.SOP, null, FilterCompat.NOOP)) {
+            int[] run = reader.split(1, 1).get(0);
+            groups = run[1] - run[0];
+        }
+        assertTrue(groups > 2, groups + " row groups");
+
+        List<long[]> got = new ArrayList<>();
+        try (SeekReader reader = SeekReader.open(so, Permutation.SOP, new long[]{123, 123}, FilterCompat.NOOP)) {
+            int[] run = reader.split(1, 1).get(0);
+            assertTrue(run[1] - run[0] < groups, "seeks to the subject's row groups");
+            EncodedTriplet t;
+            while ((t = reader.read()) != null) got.add(new long[]{t.getSubject(), t.getObject()});
+        }
+        assertEquals(10, got.size());
+        for (int k = 0; k < got.size(); k++) assertArrayEquals(new long[]{123, 1000 + 1230 + k}, got.get(k));
+    }
+
+    @Test
+    void runsOfRowGroupsReadTheRowsOfTheWholeFile() throws Exception {
+        FilterPredicate p2 = FilterApi.eq(FilterApi.intColumn("predicate"), 2);
+        for (long[] leading : new long[][]{null, {37, 312}}) {
+            List<EncodedTriplet> whole = readBatches(leading, p2);
+            List<int[]> runs;
+            try (SeekReader reader = SeekReader.open(spo, Permutation.SPO, leading, FilterCompat.get(p2))) {
+                runs = reader.split(4, 500);
+            }
+            assertTrue(runs.size() > 1 && runs.size() <= 4, Arrays.toString(leading));
+            EncodedTriples joined = new EncodedTriples();
+            for (int[] run : runs) {
+                try (SeekReader reader = SeekReader.open(spo, Permutation.SPO, leading, FilterCompat.get(p2))) {
+                    reader.restrict(run[0], run[1]);
+                    TripleBatch batch = new TripleBatch();
+                    while (reader.read(batch)) joined.addAll(batch);
+                }
+            }
+            assertEquals(whole, joined, Arrays.toString(leading));
+        }
+    }
+
+    @Test
+    void concurrentReadersOfOneFileDoNotShareDecompressors() throws Exception {
+        List<EncodedTriplet> expected = readBatches(null, null);
+        java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newFixedThreadPool(4);
+        try {
+            List<java.util.concurrent.Future<List<EncodedTriplet>>> reads = new ArrayList<>();
+            for (int i = 0; i < 32; i++) reads.add(pool.submit(() -> readBatches(null, null)));
+            for (var read : reads) assertEquals(expected, read.get());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void selectBinarySearchesSortedRanges() {
+        long[] mins = {1, 10, 20, 20, 35};
+        long[] maxs = {9, 20, 20, 30, 50};
+        assertEquals(BitSet.valueOf(new long[]{0b00010}), SeekReader.select(mins, maxs, new long[]{12, 15}));
+        assertEquals(BitSet.valueOf(new long[]{0b01110}), SeekReader.select(mins, maxs, new long[]{20, 20}));
+        assertEquals(BitSet.valueOf(new long[]{0b10001}), SeekReader.select(mins, maxs, new long[]{0, 3, 40, 99}));
+        assertTrue(SeekReader.select(mins, maxs, new long[]{51, 60}).isEmpty());
+    }
+
+    private List<EncodedTriplet> read(long[] leading, FilterPredicate predicate) throws Exception {
+        List<EncodedTriplet> out = new ArrayList<>();
+        FilterCompat.Filter filter = predicate == null ? FilterCompat.NOOP : FilterCompat.get(predicate);
+        try (RowReader reader = SeekReader.open(spo, Permutation.SPO, leading, filter)) {
+            EncodedTriplet t;
+            while ((t = reader.read()) != null) out.add(new EncodedTriplet(t.getSubject(), t.getPredicate(), t.getObject()));
+        }
+        return out;
+    }
+
+    private List<EncodedTriplet> readBatches(long[] leading, FilterPredicate predicate) throws Exception {
+        EncodedTriples out = new EncodedTriples();
+        FilterCompat.Filter filter = predicate == null ? FilterCompat.NOOP : FilterCompat.get(predicate);
+        try (SeekReader reader = SeekReader.open(spo, Permutation.SPO, leading, filter)) {
+            TripleBatch batch = new TripleBatch();
+            while (reader.read(batch)) {
+                assertFalse(batch.isEmpty());
+                out.addAll(batch);
+            }
+        }
+        return out;
+    }
+
+    private List<EncodedTriplet> expected(long[] leading, Long predicate) {
+        List<EncodedTriplet> out = new ArrayList<>();
+        for (EncodedTriplet t : rows) {
+            if (predicate != null && t.getPredicate() != predicate) continue;
+            for (int i = 0; i < leading.length; i += 2) {
+                if (t.getSubject() >= leading[i] && t.getSubject() <= leading[i + 1]) {
+                    out.add(t);
+                    break;
+                }
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,118 @@
+package org.example.encodedTriplet;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TripleBufferTest {
+
+    private static TripleBuffer random(int n, long seed) {
+        Random rnd = new Random(seed);
+        TripleBuffer b = TripleBuffer.create(IdWidth.INT32, 4); // force growth
+        for (int i = 0; i < n; i++) b.add(rnd.nextInt(40), rnd.nextInt(6), rnd.nextInt(40));
+        return b;
+    }
+
+    private static List<long[]> keys(TripleBuffer b, Permutation perm) {
+        List<long[]> out = new ArrayList<>();
+        for (int i = 0; i < b.size(); i++) {
+            out.add(new long[]{
+                    perm.key(0, b.getSubject(i), b.getPredicate(i), b.getObject(i)),
+                    perm.key(1, b.getSubject(i), b.getPredicate(i), b.getObject(i)),
+                    perm.key(2, b.getSubject(i), b.getPredicate(i), b.getObject(i))});
+        }
+        return out;
+    }
+
+    private static void assertSorted(TripleBuffer b, Permutation perm) {
+        List<long[]> k = keys(b, perm);
+        for (int i = 1; i < k.size(); i++) {
+            assertTrue(Arrays.compare(k.get(i - 1), k.get(i)) <= 0, perm + " out of order at " + i);
+        }
+    }
+
+    @Test
+    void sortsEveryPermutation() {
+        for (Permutation perm : Permutation.values()) {
+            TripleBuffer b = random(5_000, perm.ordinal());
+            b.sort(perm);
+            assertEquals(5_000, b.size());
+            assertSorted(b, perm);
+        }
+    }
+
+    @Test
+    void radixSortMatchesComparisonSort() {
+        for (Permutation perm : Permutation.values()) {
+            TripleBuffer radix = random(TripleBuffer.RADIX_THRESHOLD * 20, 100 + perm.ordinal());
+            TripleBuffer baseline = radix.copy();
+            radix.sort(perm);
+            baseline.sortByComparison(perm);
+            for (int i = 0; i < radix.size(); i++) {
+                assertEquals(baseline.getSubject(i), radix.getSubject(i));
+                assertEquals(baseline.getPredicate(i), radix.getPredicate(i));
+                assertEquals(baseline.getObject(i), radix.getObject(i));
+            }
+        }
+    }
+
+    @Test
+    void resortWithinLeadingKeyMatchesFullSort() {
+        TripleBuffer b = random(100_000, 7);
+        b.sort(Permutation.POS);
+        b.sortWithinLeadingKey(Permutation.PSO);
+        assertSorted(b, Permutation.PSO);
+
+        TripleBuffer full = random(100_000, 7);
+        full.sort(Permutation.PSO);
+        for (int i = 0; i < b.size(); i++) {
+            assertEquals(full.getSubject(i), b.getSubject(i));
+            assertEquals(full.getPredicate(i), b.getPredicate(i));
+            assertEquals(full.getObject(i), b.getObject(i));
+        }
+    }
+
+    @Test
+    void distinctDropsAdjacentDuplicates() {
+        TripleBuffer b = TripleBuffer.create();
+        b.add(2, 1, 1);
+        b.add(1, 1, 1);
+        b.add(2, 1, 1);
+        b.add(1, 1, 1);
+        b.sort(Permutation.SPO);
+        assertEquals(2, b.distinct());
+        assertEquals(1, b.getSubject(0));
+        assertEquals(2, b.getSubject(1));
+    }
+
+    @Test
+    void wideIdsSortPastTheIntRange() {
+        long base = 3_000_000_000L;
+        Random rnd = new Random(11);
+        TripleBuffer wide = TripleBuffer.create(IdWidth.INT64, 4);
+        TripleBuffer narrow = TripleBuffer.create(IdWidth.INT32, 4);
+        for (int i = 0; i < TripleBuffer.RADIX_THRESHOLD * 20; i++) {
+            int s = rnd.nextInt(40), p = rnd.nextInt(6), o = rnd.nextInt(40);
+            wide.add(base + s, p, (1L << 62) + o);
+            narrow.add(s, p, o);
+        }
+        assertThrows(ArithmeticException.class, () -> narrow.add(base, 0, 0));
+
+        for (Permutation perm : Permutation.values()) {
+            TripleBuffer radix = wide.copy(), baseline = wide.copy(), expected = narrow.copy();
+            radix.sort(perm);
+            baseline.sortByComparison(perm);
+            expected.sort(perm);
+            assertSorted(radix, perm);
+            for (int i = 0; i < radix.size(); i++) {
+                assertEquals(baseline.getSubject(i), radix.getSubject(i));
+                assertEquals(baseline.getObject(i), radix.getObject(i));
+                assertEquals(base + expected.getSubject(i), radix.getSubject(i));
+                assertEquals(expected.getPredicate(i), radix.getPredicate(i));
+                assertEquals((1L << 62) + expected.getObject(i), radix.getObject(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.example.util;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedInputTest {
+
+    @TempDir
+    Path temp;
+
+    private static byte[] text(int from, int to) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = from; i < to; i++) sb.append("<http://ex/s").append(i).append("> <http://ex/p> \"").append(i).append("\" .\n");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] read(Path file, int threads) throws IOException {
+        try (InputStream in = CompressedInput.open(file, threads)) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Test
+    void stripsCodecSuffix() {
+        assertEquals("dump.nt", CompressedInput.stripCodecSuffix("dump.nt.gz"));
+        assertEquals("dump.ttl", CompressedInput.stripCodecSuffix("dump.ttl.ZST"));
+        assertEquals("dump.rdf", CompressedInput.stripCodecSuffix("dump.rdf"));
+        assertEquals(CompressedInput.Codec.BZIP2, CompressedInput.codecOf("a.nt.bz2"));
+    }
+
+    @Test
+    void readsGzip() throws IOException {
+        byte[] data = text(0, 50_000);
+        Path f = temp.resolve("a.nt.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(f))) {
+            out.write(data);
+        }
+        assertArrayEquals(data, read(f, 4));
+    }
+
+    @Test
+    void decodesConcatenatedBzip2StreamsInParallel() throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        Path f = temp.resolve("a.nt.bz2");
+        try (OutputStream file = Files.newOutputStream(f)) {
+            for (int part = 0; part < 5; part++) {
+                byte[] data = text(part * 10_000, (part + 1) * 10_000);
+                expected.write(data);
+                ByteArrayOutputStream stream = new ByteArrayOutputStream();
+                try (OutputStream bz = new BZip2CompressorOutputStream(stream)) {
+                    bz.write(data);
+                }
+                file.write(stream.toByteArray());
+            }
+        }
+        assertEquals(5, CompressedInput.bzip2Streams(f).size());
+        assertArrayEquals(expected.toByteArray(), read(f, 4));
+        assertArrayEquals(expected.toByteArray(), read(f, 1));
+    }
+
+    @Test
+    void decodesZstdFramesInParallelAndSkipsSkippableFrames() throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        Path f = temp.resolve("a.ttl.zst");
+        try (OutputStream file = Files.newOutputStream(f)) {
+            for (int part = 0; part < 4; part++) {
+                byte[] data = text(part * 20_000, (part + 1) * 20_000);
+                expected.write(data);
+                ByteArrayOutputStream frame = new ByteArrayOutputStream();
+                try (ZstdOutputStream zs = new ZstdOutputStream(frame)) {
+                    zs.setChecksum(part % 2 == 0);
+                    zs.write(data);
+                }
+                file.write(frame.toByteArray());
+            }
+            // a skippable frame, as used for the seek table of the seekable format
+            ByteBuffer skippable = ByteBuffer.allocate(8 + 5).order(ByteOrder.LITTLE_ENDIAN);
+            skippable.putInt(0x184D2A5E).putInt(5).put(new byte[5]);
+            file.write(skippable.array());
+        }
+        assertEquals(4, CompressedInput.zstdFrames(f).size());
+        assertArrayEquals(expected.toByteArray(), read(f, 4));
+        assertArrayEquals(expected.toByteArray(), read(f, 1));
+    }
+
+    @Test
+    void streamsFramesThatDecodeToManyBlocks() throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        Path f = temp.resolve("b.nt.zst");
+        try (OutputStream file = Files.newOutputStream(f)) {
+            for (int part = 0; part < 6; part++) {
+                // a few MiB per frame that compress to almost nothing
+                byte[] data = new byte[(3 << 20) + part * 1_000];
+                java.util.Arrays.fill(data, (byte) ('a' + part));
+                expected.write(data);
+                ByteArrayOutputStream frame = new ByteArrayOutputStream();
+                try (ZstdOutputStream zs = new ZstdOutputStream(frame)) {
+                    zs.write(data);
+                }
+                file.write(frame.toByteArray());
+            }
+        }
+        assertEquals(6, CompressedInput.zstdFrames(f).size());
+        assertArrayEquals(expected.toByteArray(), read(f, 2));
+
+        // closing part way through stops the decoders
+        try (InputStream in = CompressedInput.open(f, 2)) {
+            assertEquals('a', in.read());
+            assertEquals(1 << 16, in.readNBytes(1 << 16).length);
+        }
+    }
+}
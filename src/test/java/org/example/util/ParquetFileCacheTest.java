@@ -0,0 +1,80 @@
+package org.example.util;
+
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.example.encodedTriplet.EncodedTriplet;
+import org.example.encodedTriplet.EncodedTripletParquetWriter;
+import org.example.encodedTriplet.IdWidth;
+import org.junit.jupiter.api.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParquetFileCacheTest {
+
+    private Path tmpDir;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        tmpDir = Files.createTempDirectory("rdfparquet-cache-");
+        file = tmpDir.resolve("spo.parquet");
+        write(file, 10);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ParquetFileCache.invalidate(tmpDir);
+        try (var files = Files.walk(tmpDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    void closedHandleIsHandedOutAgain() throws Exception {
+        Object first;
+        try (ParquetFileCache.Handle handle = ParquetFileCache.open(file)) {
+            first = handle.reader();
+        }
+        try (ParquetFileCache.Handle handle = ParquetFileCache.open(file);
+             ParquetFileCache.Handle other = ParquetFileCache.open(file)) {
+            assertSame(first, handle.reader());
+            // a second borrower at the same time gets its own reader, on the same footer
+            assertNotSame(first, other.reader());
+            assertSame(handle.reader().getFooter(), other.reader().getFooter());
+        }
+    }
+
+    @Test
+    void replacedFileIsOpenedAfresh() throws Exception {
+        try (ParquetFileCache.Handle handle = ParquetFileCache.open(file)) {
+            assertEquals(10, handle.reader().getRecordCount());
+        }
+        Path written = tmpDir.resolve("spo.parquet.tmp");
+        write(written, 25);
+        ParquetFiles.replace(written, file);
+        try (ParquetFileCache.Handle handle = ParquetFileCache.open(file)) {
+            assertEquals(25, handle.reader().getRecordCount());
+        }
+    }
+
+    @Test
+    void invalidateClosesIdleHandles() throws Exception {
+        int before = ParquetFileCache.idleHandles();
+        ParquetFileCache.open(file).close();
+        assertEquals(before + 1, ParquetFileCache.idleHandles());
+        ParquetFileCache.invalidate(tmpDir);
+        assertEquals(before, ParquetFileCache.idleHandles());
+    }
+
+    private static void write(Path path, int count) throws Exception {
+        try (ParquetWriter<EncodedTriplet> w = EncodedTripletParquetWriter.create(
+                new org.apache.hadoop.fs.Path(path.toString()), IdWidth.INT32.tripleSchema(),
+                CompressionCodecName.SNAPPY)) {
+            for (int i = 1; i <= count; i++) w.write(new EncodedTriplet(i, 1, 100 + i));
+        }
+    }
+}